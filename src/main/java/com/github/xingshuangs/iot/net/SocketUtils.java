@@ -101,13 +101,32 @@ public class SocketUtils {
         if (timeout < 0) {
             throw new IllegalArgumentException("timeout>=0");
         }
-        // 阻塞不是指read的时间长短，可以理解为没有数据可读，线程一直在这等待
-        socket.setSoTimeout(timeout);
+        // 阻塞不是指read的时间长短，可以理解为没有数据可读，线程一直在这等待，超时时间没变化时不重复设置
+        if (socket.getSoTimeout() != timeout) {
+            socket.setSoTimeout(timeout);
+        }
+        return read(socket.getInputStream(), data, offset, length, maxLength);
+    }
+
+    /**
+     * 读取数据，不设置超时时间，由调用方预先设置好socket的超时时间
+     *
+     * @param in        socket的输入流
+     * @param data      字节数组
+     * @param offset    偏移量
+     * @param length    读取长度
+     * @param maxLength 单次通信允许的对最大长度
+     * @return 读取数量
+     * @throws IOException IO异常
+     */
+    public static int read(final InputStream in, final byte[] data, final int offset, final int length, final int maxLength) throws IOException {
+        if (offset + length > data.length) {
+            throw new IllegalArgumentException("offset+length");
+        }
         // 读取个数
         int count = 0;
         // 读取位置平移量，会变
         int off = offset;
-        InputStream in = socket.getInputStream();
         while (count < length) {
             int len = maxLength <= 0 ? length - count : Math.min(maxLength, length - count);
             int num = in.read(data, off, len);
@@ -0,0 +1,138 @@
+package com.github.xingshuangs.iot.net.client;
+
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 限制并发数的调度器，提交的任务按提交顺序开始执行，同时最多有parallelism个任务在执行，
+ * 任务运行在共享的线程池上，超出并发数的任务在队列中等待，不占用线程；
+ * 用于连接池，并发数和最大连接数一致，等待连接的请求是排队的任务而不是阻塞的线程
+ *
+ * @author xingshuang
+ */
+@Slf4j
+public class BoundedDispatcher implements Executor {
+
+    /**
+     * 实际执行任务的线程池
+     */
+    private final Executor executor;
+
+    /**
+     * 最大并发数
+     */
+    private final int parallelism;
+
+    /**
+     * 待执行的任务队列
+     */
+    private final Queue<Runnable> taskQueue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 正在执行任务的工作者个数
+     */
+    private final AtomicInteger running = new AtomicInteger();
+
+    public BoundedDispatcher(int parallelism) {
+        this(SerialDispatcher.getDefaultExecutor(), parallelism);
+    }
+
+    public BoundedDispatcher(Executor executor, int parallelism) {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor");
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism<=0");
+        }
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * 待执行的任务数量
+     *
+     * @return 任务数量
+     */
+    public int getPendingCount() {
+        return this.taskQueue.size();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        this.taskQueue.offer(task);
+        this.schedule();
+    }
+
+    /**
+     * 异步执行并返回结果
+     *
+     * @param supplier 执行内容
+     * @param <T>      返回类型
+     * @return 执行结果
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> supplier) {
+        return CompletableFuture.supplyAsync(supplier, this);
+    }
+
+    /**
+     * 工作者个数未达到并发数且有待执行任务时，向线程池提交新的工作者
+     */
+    private void schedule() {
+        while (this.tryAcquire()) {
+            try {
+                this.executor.execute(this::runTasks);
+            } catch (RejectedExecutionException e) {
+                this.running.decrementAndGet();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 有待执行任务时占用一个工作者名额
+     *
+     * @return 占用成功返回true
+     */
+    private boolean tryAcquire() {
+        while (!this.taskQueue.isEmpty()) {
+            int current = this.running.get();
+            if (current >= this.parallelism) {
+                return false;
+            }
+            if (this.running.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 依次执行待执行任务，直到队列为空
+     */
+    private void runTasks() {
+        do {
+            Runnable task;
+            while ((task = this.taskQueue.poll()) != null) {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    log.error("调度器执行任务异常：{}", e.getMessage());
+                }
+            }
+            this.running.decrementAndGet();
+            // 释放名额之后又有新任务进来，需要重新占用名额
+        } while (this.tryAcquire());
+    }
+}
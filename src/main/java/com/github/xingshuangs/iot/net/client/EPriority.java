@@ -0,0 +1,19 @@
+package com.github.xingshuangs.iot.net.client;
+
+
+/**
+ * 请求优先级
+ *
+ * @author xingshuang
+ */
+public enum EPriority {
+    /**
+     * 高优先级，写操作和控制类操作，等待中的高优先级请求总是先于普通请求获得连接
+     */
+    HIGH,
+
+    /**
+     * 普通优先级，批量的周期读取
+     */
+    NORMAL
+}
@@ -0,0 +1,199 @@
+package com.github.xingshuangs.iot.net.client;
+
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 带优先级的可重入锁，锁释放时等待中的高优先级线程先获得锁，同优先级之间不保证顺序；
+ * 统计每个优先级获得锁之前的排队时延，用于评估写操作等高优先级请求的响应时间
+ *
+ * @author xingshuang
+ */
+public class PriorityLock {
+
+    /**
+     * 内部锁
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * 锁释放的条件
+     */
+    private final Condition released = this.lock.newCondition();
+
+    /**
+     * 持有锁的线程
+     */
+    private Thread owner;
+
+    /**
+     * 重入次数
+     */
+    private int holdCount;
+
+    /**
+     * 等待中的高优先级线程个数
+     */
+    private int highWaiting;
+
+    /**
+     * 每个优先级获得锁的次数
+     */
+    private final LongAdder[] acquireCounts = new LongAdder[EPriority.values().length];
+
+    /**
+     * 每个优先级排队的总时长，纳秒
+     */
+    private final LongAdder[] totalWaitNanos = new LongAdder[EPriority.values().length];
+
+    /**
+     * 每个优先级排队的最大时长，纳秒
+     */
+    private final AtomicLong[] maxWaitNanos = new AtomicLong[EPriority.values().length];
+
+    public PriorityLock() {
+        for (int i = 0; i < EPriority.values().length; i++) {
+            this.acquireCounts[i] = new LongAdder();
+            this.totalWaitNanos[i] = new LongAdder();
+            this.maxWaitNanos[i] = new AtomicLong();
+        }
+    }
+
+    /**
+     * 获取锁，不响应中断，持有锁的线程重入时直接返回且不计入统计
+     *
+     * @param priority 优先级
+     */
+    public void lock(EPriority priority) {
+        long start = System.nanoTime();
+        Thread current = Thread.currentThread();
+        this.lock.lock();
+        try {
+            if (this.owner == current) {
+                this.holdCount++;
+                return;
+            }
+            boolean high = priority == EPriority.HIGH;
+            if (high) {
+                this.highWaiting++;
+            }
+            // 普通优先级需要让等待中的高优先级先走
+            while (this.owner != null || (!high && this.highWaiting > 0)) {
+                this.released.awaitUninterruptibly();
+            }
+            if (high) {
+                this.highWaiting--;
+            }
+            this.owner = current;
+            this.holdCount = 1;
+        } finally {
+            this.lock.unlock();
+        }
+        long wait = System.nanoTime() - start;
+        int index = priority.ordinal();
+        this.acquireCounts[index].increment();
+        this.totalWaitNanos[index].add(wait);
+        this.maxWaitNanos[index].accumulateAndGet(wait, Math::max);
+    }
+
+    /**
+     * 释放锁
+     */
+    public void unlock() {
+        this.lock.lock();
+        try {
+            if (this.owner != Thread.currentThread()) {
+                throw new IllegalMonitorStateException("当前线程没有持有锁");
+            }
+            if (--this.holdCount == 0) {
+                this.owner = null;
+                this.released.signalAll();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * 当前线程是否持有锁
+     *
+     * @return true：持有，false：未持有
+     */
+    public boolean isHeldByCurrentThread() {
+        this.lock.lock();
+        try {
+            return this.owner == Thread.currentThread();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * 是否有等待中的高优先级线程
+     *
+     * @return true：有，false：没有
+     */
+    public boolean hasQueuedHighWaiters() {
+        this.lock.lock();
+        try {
+            return this.highWaiting > 0;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * 获取指定优先级获得锁的次数
+     *
+     * @param priority 优先级
+     * @return 次数
+     */
+    public long getAcquireCount(EPriority priority) {
+        return this.acquireCounts[priority.ordinal()].sum();
+    }
+
+    /**
+     * 获取指定优先级排队的总时长
+     *
+     * @param priority 优先级
+     * @return 总时长，纳秒
+     */
+    public long getTotalWaitNanos(EPriority priority) {
+        return this.totalWaitNanos[priority.ordinal()].sum();
+    }
+
+    /**
+     * 获取指定优先级排队的平均时长
+     *
+     * @param priority 优先级
+     * @return 平均时长，纳秒，没有获得过锁时为0
+     */
+    public long getAverageWaitNanos(EPriority priority) {
+        long count = this.getAcquireCount(priority);
+        return count == 0 ? 0 : this.getTotalWaitNanos(priority) / count;
+    }
+
+    /**
+     * 获取指定优先级排队的最大时长
+     *
+     * @param priority 优先级
+     * @return 最大时长，纳秒
+     */
+    public long getMaxWaitNanos(EPriority priority) {
+        return this.maxWaitNanos[priority.ordinal()].get();
+    }
+
+    /**
+     * 清空统计数据
+     */
+    public void resetStats() {
+        for (int i = 0; i < EPriority.values().length; i++) {
+            this.acquireCounts[i].reset();
+            this.totalWaitNanos[i].reset();
+            this.maxWaitNanos[i].set(0);
+        }
+    }
+}
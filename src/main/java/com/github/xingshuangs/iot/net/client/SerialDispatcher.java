@@ -0,0 +1,137 @@
+package com.github.xingshuangs.iot.net.client;
+
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 串行调度器，每个连接对应一个，提交的任务按顺序逐个执行，
+ * 任务运行在共享的线程池上，只有存在待执行任务时才占用线程，空闲的连接不占用线程
+ *
+ * @author xingshuang
+ */
+@Slf4j
+public class SerialDispatcher implements Executor {
+
+    /**
+     * 默认共享的线程池
+     */
+    private static volatile ExecutorService defaultExecutor;
+
+    /**
+     * 线程编号
+     */
+    private static final AtomicInteger THREAD_INDEX = new AtomicInteger();
+
+    /**
+     * 实际执行任务的线程池
+     */
+    private final Executor executor;
+
+    /**
+     * 待执行的任务队列
+     */
+    private final Queue<Runnable> taskQueue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 是否正在执行任务
+     */
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    public SerialDispatcher() {
+        this(getDefaultExecutor());
+    }
+
+    public SerialDispatcher(Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor");
+        }
+        this.executor = executor;
+    }
+
+    /**
+     * 获取默认共享的线程池，线程为守护线程，空闲60s后回收
+     *
+     * @return 线程池
+     */
+    public static ExecutorService getDefaultExecutor() {
+        if (defaultExecutor == null) {
+            synchronized (SerialDispatcher.class) {
+                if (defaultExecutor == null) {
+                    defaultExecutor = Executors.newCachedThreadPool(r -> {
+                        Thread thread = new Thread(r, "iot-dispatcher-" + THREAD_INDEX.getAndIncrement());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return defaultExecutor;
+    }
+
+    /**
+     * 待执行的任务数量
+     *
+     * @return 任务数量
+     */
+    public int getPendingCount() {
+        return this.taskQueue.size();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        this.taskQueue.offer(task);
+        this.schedule();
+    }
+
+    /**
+     * 异步执行并返回结果
+     *
+     * @param supplier 执行内容
+     * @param <T>      返回类型
+     * @return 执行结果
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> supplier) {
+        return CompletableFuture.supplyAsync(supplier, this);
+    }
+
+    /**
+     * 没有正在执行的任务时，向线程池提交一次执行
+     */
+    private void schedule() {
+        if (this.running.compareAndSet(false, true)) {
+            try {
+                this.executor.execute(this::runAllTasks);
+            } catch (RejectedExecutionException e) {
+                this.running.set(false);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 依次执行所有的待执行任务
+     */
+    private void runAllTasks() {
+        while (true) {
+            Runnable task;
+            while ((task = this.taskQueue.poll()) != null) {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    log.error("串行调度器执行任务异常：{}", e.getMessage());
+                }
+            }
+            this.running.set(false);
+            // 释放执行权之后又有新任务进来，需要重新抢占执行权
+            if (this.taskQueue.isEmpty() || !this.running.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.github.xingshuangs.iot.net.client;
+
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * 相同请求的合并执行（single flight），同一个key同时只有一次执行在途，其余调用方等待并共享这次执行的结果，
+ * 可选的短时缓存，结果在ttl内直接返回，不再执行；
+ * 写操作之后需要调用invalidate，丢弃缓存以及写之前发起的在途执行
+ *
+ * @param <K> 请求的key，需要按内容实现equals和hashCode
+ * @param <V> 结果类型
+ * @author xingshuang
+ */
+public class SingleFlight<K, V> {
+
+    /**
+     * 在途的执行
+     */
+    private final Map<K, CompletableFuture<V>> inFlightMap = new ConcurrentHashMap<>();
+
+    /**
+     * 缓存的结果
+     */
+    private final Map<K, CacheEntry<V>> cacheMap = new ConcurrentHashMap<>();
+
+    /**
+     * 结果的拷贝方法，共享给其他调用方的结果都是拷贝，避免调用方修改结果相互影响
+     */
+    private final UnaryOperator<V> copier;
+
+    /**
+     * 代数，每次invalidate加1，执行开始后代数变化的结果不再缓存
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * 缓存时长，纳秒，0表示不缓存
+     */
+    private volatile long ttlNanos;
+
+    public SingleFlight(UnaryOperator<V> copier) {
+        this(copier, 0);
+    }
+
+    public SingleFlight(UnaryOperator<V> copier, int ttlMs) {
+        this.copier = copier;
+        this.setTtl(ttlMs);
+    }
+
+    public int getTtl() {
+        return (int) TimeUnit.NANOSECONDS.toMillis(this.ttlNanos);
+    }
+
+    /**
+     * 设置缓存时长
+     *
+     * @param ttlMs 缓存时长，毫秒，小于等于0表示不缓存
+     */
+    public void setTtl(int ttlMs) {
+        this.ttlNanos = ttlMs > 0 ? TimeUnit.MILLISECONDS.toNanos(ttlMs) : 0;
+        if (ttlMs <= 0) {
+            this.cacheMap.clear();
+        }
+    }
+
+    /**
+     * 执行请求，相同key的在途执行存在时等待其结果，缓存有效时直接返回缓存
+     *
+     * @param key      请求的key
+     * @param supplier 实际执行
+     * @return 结果
+     */
+    public V execute(K key, Supplier<V> supplier) {
+        long ttl = this.ttlNanos;
+        if (ttl > 0) {
+            CacheEntry<V> entry = this.cacheMap.get(key);
+            if (entry != null) {
+                if (System.nanoTime() - entry.time < ttl) {
+                    return this.copier.apply(entry.value);
+                }
+                this.cacheMap.remove(key, entry);
+            }
+        }
+
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = this.inFlightMap.putIfAbsent(key, future);
+        if (existing != null) {
+            try {
+                return this.copier.apply(existing.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+
+        long gen = this.generation.get();
+        try {
+            V value = supplier.get();
+            // 共享出去的是一份拷贝，执行方修改自己的结果不影响其他调用方和缓存
+            V shared = this.copier.apply(value);
+            // 先放入缓存再移除在途，中间不会出现既没有缓存也没有在途的空档
+            if (ttl > 0 && gen == this.generation.get()) {
+                this.cacheMap.put(key, new CacheEntry<>(shared, System.nanoTime()));
+                // 放入缓存的同时发生了invalidate，撤销
+                if (gen != this.generation.get()) {
+                    this.cacheMap.remove(key);
+                }
+            }
+            future.complete(shared);
+            return value;
+        } catch (Throwable e) {
+            // Error也需要通知等待方，否则等待方会一直阻塞
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.inFlightMap.remove(key, future);
+        }
+    }
+
+    /**
+     * 丢弃缓存，之后的请求不再加入之前的在途执行，在途执行的结果也不会被缓存
+     */
+    public void invalidate() {
+        this.generation.incrementAndGet();
+        this.cacheMap.clear();
+        this.inFlightMap.clear();
+    }
+
+    /**
+     * 缓存项
+     */
+    private static class CacheEntry<V> {
+
+        private final V value;
+
+        private final long time;
+
+        private CacheEntry(V value, long time) {
+            this.value = value;
+            this.time = time;
+        }
+    }
+}
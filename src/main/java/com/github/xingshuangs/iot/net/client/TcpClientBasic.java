@@ -4,11 +4,14 @@ package com.github.xingshuangs.iot.net.client;
 import com.github.xingshuangs.iot.exceptions.SocketRuntimeException;
 import com.github.xingshuangs.iot.net.ICommunicable;
 import com.github.xingshuangs.iot.net.SocketUtils;
+import com.github.xingshuangs.iot.net.nio.NioEventLoopGroup;
+import com.github.xingshuangs.iot.net.nio.NioTcpChannel;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.net.SocketException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -24,6 +27,16 @@ public class TcpClientBasic implements ICommunicable {
      */
     protected Socket socket;
 
+    /**
+     * 最近一次设置过接收超时时间的socket，重新连接后为新的socket，需要重新设置
+     */
+    private Socket timeoutSocket;
+
+    /**
+     * 最近一次设置到timeoutSocket的接收超时时间，超时时间不变时读取不再查询和设置
+     */
+    private int appliedSoTimeout;
+
     /**
      * 连接超时时间，默认是10s
      */
@@ -49,6 +62,21 @@ public class TcpClientBasic implements ICommunicable {
      */
     protected boolean enableReconnect = true;
 
+    /**
+     * 是否采用NIO事件循环作为传输层，true：NIO通道，false：阻塞socket，默认false
+     */
+    protected boolean enableNio = false;
+
+    /**
+     * NIO事件循环组，为null时采用共享的默认事件循环组
+     */
+    protected NioEventLoopGroup eventLoopGroup;
+
+    /**
+     * NIO通道对象
+     */
+    protected NioTcpChannel channel;
+
     public InetSocketAddress getSocketAddress() {
         return socketAddress;
     }
@@ -69,6 +97,27 @@ public class TcpClientBasic implements ICommunicable {
         this.connectTimeout = connectTimeout;
     }
 
+    public boolean isEnableNio() {
+        return enableNio;
+    }
+
+    /**
+     * 设置是否采用NIO事件循环作为传输层，需要在连接之前设置
+     *
+     * @param enableNio true：NIO通道，false：阻塞socket
+     */
+    public void setEnableNio(boolean enableNio) {
+        this.enableNio = enableNio;
+    }
+
+    public NioEventLoopGroup getEventLoopGroup() {
+        return eventLoopGroup;
+    }
+
+    public void setEventLoopGroup(NioEventLoopGroup eventLoopGroup) {
+        this.eventLoopGroup = eventLoopGroup;
+    }
+
     public int getReceiveTimeout() {
         return receiveTimeout;
     }
@@ -98,6 +147,9 @@ public class TcpClientBasic implements ICommunicable {
      * @return 连接状态，true为连接，false为断开
      */
     public boolean checkConnected() {
+        if (this.enableNio) {
+            return !this.socketError.get() && this.channel != null && this.channel.isConnected();
+        }
         return !this.socketError.get() && SocketUtils.isConnected(this.socket);
     }
 
@@ -106,7 +158,19 @@ public class TcpClientBasic implements ICommunicable {
      */
     public void connect() {
         this.close();
-        this.getAvailableSocket();
+        this.ensureConnected();
+    }
+
+    /**
+     * 确保连接可用，断开时重新连接并执行连接后的握手，
+     * 使用复用发送缓存的子类需要在编码前调用，避免握手报文覆盖缓存中的内容
+     */
+    protected void ensureConnected() {
+        if (this.enableNio) {
+            this.getAvailableChannel();
+        } else {
+            this.getAvailableSocket();
+        }
     }
 
     /**
@@ -130,7 +194,7 @@ public class TcpClientBasic implements ICommunicable {
         try {
             // 重新创建对象，并连接
             this.socket = new Socket();
-            this.socket.setSoTimeout(this.receiveTimeout);
+            this.applySoTimeout(this.socket, this.receiveTimeout);
             this.socket.connect(this.socketAddress, this.connectTimeout);
             this.socketError.set(false);
             log.debug("创建并连接服务端[{}]成功", this.socketAddress);
@@ -141,11 +205,59 @@ public class TcpClientBasic implements ICommunicable {
         }
     }
 
+    /**
+     * 获取有效的NIO通道对象
+     *
+     * @return NIO通道对象
+     */
+    public NioTcpChannel getAvailableChannel() {
+        // 通道连接过了，同时又不支持自动重连，直接返回
+        if (this.channel != null && !this.enableReconnect) {
+            return this.channel;
+        }
+
+        // 已连接的直接返回通道
+        if (this.checkConnected()) {
+            return this.channel;
+        }
+        // 未连接，表示已断开，需要手动关闭通道，创建新的通道
+        this.close();
+
+        // 重新创建对象，并连接
+        NioEventLoopGroup group = this.eventLoopGroup != null ? this.eventLoopGroup : NioEventLoopGroup.getDefault();
+        this.channel = new NioTcpChannel(this.socketAddress, group.next());
+        this.channel.connect(this.connectTimeout);
+        this.socketError.set(false);
+        log.debug("创建并连接服务端[{}]成功，采用NIO通道", this.socketAddress);
+        this.doAfterConnected();
+        return this.channel;
+    }
+
+    /**
+     * 设置socket的接收超时时间，和上一次设置到同一个socket的值相同时跳过，
+     * 同一连接上的读取是串行的，不需要额外加锁
+     *
+     * @param socket  socket对象
+     * @param timeout 超时时间，毫秒，0表示一直等待
+     * @throws SocketException socket异常
+     */
+    protected void applySoTimeout(Socket socket, int timeout) throws SocketException {
+        if (socket != this.timeoutSocket || timeout != this.appliedSoTimeout) {
+            socket.setSoTimeout(timeout);
+            this.timeoutSocket = socket;
+            this.appliedSoTimeout = timeout;
+        }
+    }
+
     /**
      * 关闭socket
      */
     public void close() {
         try {
+            if (this.channel != null) {
+                this.channel.close();
+                this.channel = null;
+            }
             SocketUtils.close(this.socket);
             this.socket = null;
         } catch (IOException e) {
@@ -193,6 +305,15 @@ public class TcpClientBasic implements ICommunicable {
      * @param maxLength 单次通信允许的对最大长度
      */
     public void write(final byte[] data, final int offset, final int length, final int maxLength) {
+        if (this.enableNio) {
+            try {
+                this.getAvailableChannel().write(data, offset, length);
+                return;
+            } catch (SocketRuntimeException e) {
+                this.socketError.set(true);
+                throw e;
+            }
+        }
         try {
             Socket availableSocket = this.getAvailableSocket();
             SocketUtils.write(availableSocket, data, offset, length, maxLength);
@@ -259,14 +380,55 @@ public class TcpClientBasic implements ICommunicable {
      * @return 读取的数据长度
      */
     public int read(final byte[] data, final int offset, final int length, final int maxLength, final int timeout) {
+        if (this.enableNio) {
+            return this.readByChannel(data, offset, length, maxLength, timeout);
+        }
         try {
+            if (timeout < 0) {
+                throw new IllegalArgumentException("timeout>=0");
+            }
             Socket availableSocket = this.getAvailableSocket();
-            return SocketUtils.read(availableSocket, data, offset, length, maxLength, timeout);
+            this.applySoTimeout(availableSocket, timeout);
+            return SocketUtils.read(availableSocket.getInputStream(), data, offset, length, maxLength);
         } catch (IOException e) {
             this.socketError.set(true);
             throw new SocketRuntimeException(e);
         }
     }
 
+    /**
+     * 通过NIO通道读取数据，和阻塞socket保持一致的读取规则
+     *
+     * @param data      字节数组
+     * @param offset    偏移量
+     * @param length    数据长度
+     * @param maxLength 单次通信允许的对最大长度
+     * @param timeout   超时时间，毫秒级别
+     * @return 读取的数据长度
+     */
+    private int readByChannel(final byte[] data, final int offset, final int length, final int maxLength, final int timeout) {
+        try {
+            NioTcpChannel availableChannel = this.getAvailableChannel();
+            // 读取个数
+            int count = 0;
+            // 读取位置平移量，会变
+            int off = offset;
+            while (count < length) {
+                int len = maxLength <= 0 ? length - count : Math.min(maxLength, length - count);
+                int num = availableChannel.read(data, off, len, timeout);
+                count += num;
+                off += num;
+                // 比读取的数据长度还小，则证明已经读取完了
+                if (num < len) {
+                    break;
+                }
+            }
+            return count;
+        } catch (SocketRuntimeException e) {
+            this.socketError.set(true);
+            throw e;
+        }
+    }
+
     //endregion
 }
@@ -0,0 +1,106 @@
+package com.github.xingshuangs.iot.net.client;
+
+
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+
+/**
+ * UDP接收缓存，从缓存池中借出，收到的一个数据报占用一个，使用完之后需要调用release归还
+ *
+ * @author xingshuang
+ */
+public class UdpBuffer {
+
+    /**
+     * 所属的缓存池
+     */
+    private final UdpBufferPool pool;
+
+    /**
+     * 实际的缓存，接收完成后position为0，limit为数据报长度
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * 数据报的发送方地址
+     */
+    private SocketAddress sender;
+
+    UdpBuffer(UdpBufferPool pool, ByteBuffer buffer) {
+        this.pool = pool;
+        this.buffer = buffer;
+    }
+
+    /**
+     * 获取底层缓存
+     *
+     * @return ByteBuffer
+     */
+    public ByteBuffer getByteBuffer() {
+        return buffer;
+    }
+
+    /**
+     * 是否有可直接访问的字节数组，直接内存的缓存没有
+     *
+     * @return true：有，false：没有
+     */
+    public boolean hasArray() {
+        return this.buffer.hasArray();
+    }
+
+    /**
+     * 获取底层字节数组，数据从getOffset开始，长度为getLength，只有hasArray为true时可用
+     *
+     * @return 字节数组
+     */
+    public byte[] getData() {
+        return this.buffer.array();
+    }
+
+    /**
+     * 数据在底层字节数组中的起始偏移量
+     *
+     * @return 偏移量
+     */
+    public int getOffset() {
+        return this.buffer.arrayOffset() + this.buffer.position();
+    }
+
+    /**
+     * 数据报的长度
+     *
+     * @return 长度
+     */
+    public int getLength() {
+        return this.buffer.remaining();
+    }
+
+    public SocketAddress getSender() {
+        return sender;
+    }
+
+    void setSender(SocketAddress sender) {
+        this.sender = sender;
+    }
+
+    /**
+     * 拷贝出数据报的内容
+     *
+     * @return 字节数组
+     */
+    public byte[] toByteArray() {
+        byte[] res = new byte[this.buffer.remaining()];
+        this.buffer.duplicate().get(res);
+        return res;
+    }
+
+    /**
+     * 归还到缓存池，归还后不能再使用
+     */
+    public void release() {
+        this.sender = null;
+        this.buffer.clear();
+        this.pool.release(this);
+    }
+}
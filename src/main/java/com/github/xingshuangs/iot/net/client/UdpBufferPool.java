@@ -0,0 +1,104 @@
+package com.github.xingshuangs.iot.net.client;
+
+
+import java.nio.ByteBuffer;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * UDP接收缓存池，复用接收缓存，避免每个数据报都分配新的字节数组，
+ * 池中最多保留maxIdle个空闲缓存，超出的直接丢弃
+ *
+ * @author xingshuang
+ */
+public class UdpBufferPool {
+
+    /**
+     * 单个缓存的容量，超过容量的数据报会被截断
+     */
+    private final int bufferSize;
+
+    /**
+     * 最多保留的空闲缓存个数
+     */
+    private final int maxIdle;
+
+    /**
+     * 是否使用直接内存，直接内存的缓存没有字节数组，适合不需要解析的转发场景
+     */
+    private final boolean direct;
+
+    /**
+     * 空闲的缓存
+     */
+    private final Deque<UdpBuffer> idleBuffers = new ConcurrentLinkedDeque<>();
+
+    /**
+     * 空闲缓存个数
+     */
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    /**
+     * 总共创建的缓存个数
+     */
+    private final AtomicInteger createdCount = new AtomicInteger();
+
+    public UdpBufferPool() {
+        this(4096, 64, false);
+    }
+
+    public UdpBufferPool(int bufferSize, int maxIdle, boolean direct) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize必须大于0");
+        }
+        this.bufferSize = bufferSize;
+        this.maxIdle = maxIdle;
+        this.direct = direct;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public boolean isDirect() {
+        return direct;
+    }
+
+    public int getIdleCount() {
+        return idleCount.get();
+    }
+
+    public int getCreatedCount() {
+        return createdCount.get();
+    }
+
+    /**
+     * 借出一个缓存，没有空闲的则新建
+     *
+     * @return 缓存
+     */
+    public UdpBuffer borrow() {
+        UdpBuffer buffer = this.idleBuffers.pollFirst();
+        if (buffer != null) {
+            this.idleCount.decrementAndGet();
+            return buffer;
+        }
+        this.createdCount.incrementAndGet();
+        ByteBuffer byteBuffer = this.direct ? ByteBuffer.allocateDirect(this.bufferSize) : ByteBuffer.allocate(this.bufferSize);
+        return new UdpBuffer(this, byteBuffer);
+    }
+
+    /**
+     * 归还缓存，后进先出，最近使用的缓存更可能还在CPU缓存中
+     *
+     * @param buffer 缓存
+     */
+    void release(UdpBuffer buffer) {
+        if (this.idleCount.incrementAndGet() > this.maxIdle) {
+            this.idleCount.decrementAndGet();
+            return;
+        }
+        this.idleBuffers.offerFirst(buffer);
+    }
+}
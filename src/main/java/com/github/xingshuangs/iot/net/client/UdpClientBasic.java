@@ -6,6 +6,13 @@ import com.github.xingshuangs.iot.net.ICommunicable;
 
 import java.io.IOException;
 import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.function.Consumer;
 
 /**
  * UDP客户端通信协议
@@ -24,6 +31,34 @@ public class UdpClientBasic implements ICommunicable {
      */
     protected DatagramSocket socket;
 
+    /**
+     * 数据报通道，socket由该通道创建
+     */
+    protected DatagramChannel channel;
+
+    /**
+     * 批量接收时使用的选择器，第一次批量接收时创建，之后通道为非阻塞模式
+     */
+    private Selector selector;
+
+    /**
+     * 批量接收使用的缓存池
+     */
+    protected UdpBufferPool bufferPool = new UdpBufferPool();
+
+    public UdpBufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    /**
+     * 设置接收缓存池，需要在批量接收之前设置
+     *
+     * @param bufferPool 缓存池
+     */
+    public void setBufferPool(UdpBufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+    }
+
     /**
      * 获取本地端口号
      *
@@ -48,10 +83,23 @@ public class UdpClientBasic implements ICommunicable {
         this.serverAddress = new InetSocketAddress(ip, port);
     }
 
-    public void close() {
+    /**
+     * 关闭通道和选择器，之后再通信时重新创建
+     */
+    public synchronized void close() {
+        try {
+            if (this.selector != null) {
+                this.selector.close();
+            }
+        } catch (IOException e) {
+            // NOOP
+        }
         if (this.socket != null && !this.socket.isClosed()) {
             this.socket.close();
         }
+        this.selector = null;
+        this.socket = null;
+        this.channel = null;
     }
 
     /**
@@ -69,14 +117,16 @@ public class UdpClientBasic implements ICommunicable {
      *
      * @return socket
      */
-    public DatagramSocket getAvailableSocket() {
+    public synchronized DatagramSocket getAvailableSocket() {
         // 已连接的直接返回socket
-        if (this.socket != null) {
+        if (this.socket != null && !this.socket.isClosed()) {
             return this.socket;
         }
         try {
-            // 重新创建对象，并连接
-            this.socket = new DatagramSocket();
+            // 重新创建对象，通过通道创建，便于后续批量接收
+            this.channel = DatagramChannel.open();
+            this.channel.bind(null);
+            this.socket = this.channel.socket();
             // connect之后通信地址必须是这个地址
 //            this.socket.connect(this.serverAddress);
             return socket;
@@ -126,8 +176,9 @@ public class UdpClientBasic implements ICommunicable {
      */
     public void write(DatagramPacket packet) {
         try {
-            DatagramSocket availableSocket = this.getAvailableSocket();
-            availableSocket.send(packet);
+            this.getAvailableSocket();
+            // 通过通道发送，阻塞和非阻塞模式下都可以使用
+            this.channel.send(ByteBuffer.wrap(packet.getData(), packet.getOffset(), packet.getLength()), packet.getSocketAddress());
         } catch (IOException e) {
             throw new SocketRuntimeException(e);
         }
@@ -214,4 +265,65 @@ public class UdpClientBasic implements ICommunicable {
             throw new SocketRuntimeException(e);
         }
     }
+
+    /**
+     * 批量接收数据报，一次唤醒尽量取完已到达的数据报，每个数据报使用缓存池中的一个缓存，
+     * 处理方使用完缓存后需要调用release归还，第一次调用之后通道切换为非阻塞模式，不能再使用read方法
+     *
+     * @param handler  数据报处理
+     * @param maxBatch 单次最多处理的数据报个数
+     * @param timeout  等待数据的超时时间，毫秒，0表示一直等待
+     * @return 本次处理的数据报个数，超时为0
+     */
+    public int receive(Consumer<UdpBuffer> handler, int maxBatch, int timeout) {
+        try {
+            Selector availableSelector = this.getAvailableSelector();
+            if (availableSelector.select(timeout) == 0) {
+                return 0;
+            }
+            availableSelector.selectedKeys().clear();
+            int count = 0;
+            while (count < maxBatch) {
+                UdpBuffer buffer = this.bufferPool.borrow();
+                SocketAddress sender;
+                try {
+                    sender = this.channel.receive(buffer.getByteBuffer());
+                } catch (IOException | RuntimeException e) {
+                    buffer.release();
+                    throw e;
+                }
+                if (sender == null) {
+                    buffer.release();
+                    break;
+                }
+                buffer.getByteBuffer().flip();
+                buffer.setSender(sender);
+                count++;
+                handler.accept(buffer);
+            }
+            return count;
+        } catch (ClosedChannelException | ClosedSelectorException e) {
+            throw new SocketRuntimeException("UDP通道已关闭");
+        } catch (IOException e) {
+            throw new SocketRuntimeException(e);
+        }
+    }
+
+    /**
+     * 获取批量接收的选择器，第一次获取时将通道切换为非阻塞模式，通道重新创建后重新注册
+     *
+     * @return 选择器
+     * @throws IOException IO异常
+     */
+    private synchronized Selector getAvailableSelector() throws IOException {
+        this.getAvailableSocket();
+        if (this.selector == null || !this.selector.isOpen()) {
+            this.selector = Selector.open();
+        }
+        if (this.channel.keyFor(this.selector) == null) {
+            this.channel.configureBlocking(false);
+            this.channel.register(this.selector, SelectionKey.OP_READ);
+        }
+        return this.selector;
+    }
 }
@@ -0,0 +1,144 @@
+package com.github.xingshuangs.iot.net.codec;
+
+
+import com.github.xingshuangs.iot.exceptions.SocketRuntimeException;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 报文帧读取器，每个连接对应一个，内部缓存可重复使用，
+ * 一次读取尽可能多的数据，半包时继续读取，粘包时多出的数据留给下一次读取
+ *
+ * @author xingshuang
+ */
+public class FrameReader {
+
+    /**
+     * 缓存的初始大小
+     */
+    private static final int INIT_BUFFER_SIZE = 1024;
+
+    /**
+     * 报文帧解码器
+     */
+    private final IFrameDecoder decoder;
+
+    /**
+     * 缓存
+     */
+    private byte[] buffer;
+
+    /**
+     * 未处理数据的起始索引
+     */
+    private int readIndex = 0;
+
+    /**
+     * 未处理数据的结束索引
+     */
+    private int writeIndex = 0;
+
+    /**
+     * 当前报文在缓存中的偏移量
+     */
+    private int frameOffset = 0;
+
+    /**
+     * 当前报文的长度
+     */
+    private int frameLength = 0;
+
+    public FrameReader(IFrameDecoder decoder) {
+        this(decoder, INIT_BUFFER_SIZE);
+    }
+
+    public FrameReader(IFrameDecoder decoder, int initSize) {
+        if (decoder == null) {
+            throw new IllegalArgumentException("decoder");
+        }
+        this.decoder = decoder;
+        this.buffer = new byte[Math.max(initSize, decoder.getHeaderLength())];
+    }
+
+    /**
+     * 获取缓存，当前报文从frameOffset开始，长度为frameLength，下一次读取前有效
+     *
+     * @return 缓存
+     */
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    public int getFrameOffset() {
+        return frameOffset;
+    }
+
+    public int getFrameLength() {
+        return frameLength;
+    }
+
+    /**
+     * 缓存中还未处理的数据长度
+     *
+     * @return 数据长度
+     */
+    public int remaining() {
+        return this.writeIndex - this.readIndex;
+    }
+
+    /**
+     * 读取一个完整的报文，缓存中已经有完整报文时不会读取输入流
+     *
+     * @param in 输入流
+     * @return 报文长度，-1表示输入流已结束
+     * @throws IOException IO异常
+     */
+    public int readFrame(InputStream in) throws IOException {
+        int headerLength = this.decoder.getHeaderLength();
+        while (true) {
+            int remain = this.writeIndex - this.readIndex;
+            if (remain == 0) {
+                this.readIndex = 0;
+                this.writeIndex = 0;
+            }
+            if (remain >= headerLength) {
+                int length = this.decoder.getFrameLength(this.buffer, this.readIndex);
+                if (length < headerLength) {
+                    throw new SocketRuntimeException(String.format("报文长度[%d]无效，小于报文头长度[%d]", length, headerLength));
+                }
+                if (remain >= length) {
+                    this.frameOffset = this.readIndex;
+                    this.frameLength = length;
+                    this.readIndex += length;
+                    return length;
+                }
+                this.ensureWritable(length);
+            } else {
+                this.ensureWritable(headerLength);
+            }
+            int num = in.read(this.buffer, this.writeIndex, this.buffer.length - this.writeIndex);
+            if (num < 0) {
+                return -1;
+            }
+            this.writeIndex += num;
+        }
+    }
+
+    /**
+     * 保证从readIndex开始能容纳指定长度的数据，空间不够时先压缩后扩容
+     *
+     * @param length 数据长度
+     */
+    private void ensureWritable(int length) {
+        if (this.readIndex + length <= this.buffer.length) {
+            return;
+        }
+        int remain = this.writeIndex - this.readIndex;
+        byte[] des = length > this.buffer.length ? new byte[Math.max(this.buffer.length * 2, length)] : this.buffer;
+        System.arraycopy(this.buffer, this.readIndex, des, 0, remain);
+        this.buffer = des;
+        this.readIndex = 0;
+        this.writeIndex = remain;
+    }
+}
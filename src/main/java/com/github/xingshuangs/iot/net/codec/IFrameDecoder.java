@@ -0,0 +1,26 @@
+package com.github.xingshuangs.iot.net.codec;
+
+
+/**
+ * 报文帧解码接口，根据报文头计算完整报文的长度，用于从字节流中切分出完整的报文
+ *
+ * @author xingshuang
+ */
+public interface IFrameDecoder {
+
+    /**
+     * 计算报文长度所需的报文头长度
+     *
+     * @return 报文头长度
+     */
+    int getHeaderLength();
+
+    /**
+     * 根据报文头计算完整报文的长度，包含报文头
+     *
+     * @param data   字节数组
+     * @param offset 报文头的起始偏移量
+     * @return 完整报文的长度
+     */
+    int getFrameLength(byte[] data, int offset);
+}
@@ -0,0 +1,64 @@
+package com.github.xingshuangs.iot.net.codec;
+
+
+import com.github.xingshuangs.iot.utils.ShortUtil;
+
+/**
+ * 基于长度字段的报文帧解码器，报文头中包含2个字节大端的长度字段
+ *
+ * @author xingshuang
+ */
+public class LengthFieldFrameDecoder implements IFrameDecoder {
+
+    /**
+     * 报文头长度
+     */
+    private final int headerLength;
+
+    /**
+     * 长度字段的偏移量
+     */
+    private final int lengthFieldOffset;
+
+    /**
+     * 长度修正值，完整报文长度 = 长度字段值 + 修正值
+     */
+    private final int lengthAdjustment;
+
+    public LengthFieldFrameDecoder(int headerLength, int lengthFieldOffset, int lengthAdjustment) {
+        if (lengthFieldOffset < 0 || lengthFieldOffset + 2 > headerLength) {
+            throw new IllegalArgumentException("lengthFieldOffset<0||lengthFieldOffset+2>headerLength");
+        }
+        this.headerLength = headerLength;
+        this.lengthFieldOffset = lengthFieldOffset;
+        this.lengthAdjustment = lengthAdjustment;
+    }
+
+    /**
+     * 创建TPKT的解码器，S7协议使用，TPKT的长度字段为整个报文的长度
+     *
+     * @return 解码器
+     */
+    public static LengthFieldFrameDecoder createTpkt() {
+        return new LengthFieldFrameDecoder(4, 2, 0);
+    }
+
+    /**
+     * 创建MBAP的解码器，Modbus TCP协议使用，长度字段为单元标识符及之后的字节数，前面还有6个字节
+     *
+     * @return 解码器
+     */
+    public static LengthFieldFrameDecoder createMbap() {
+        return new LengthFieldFrameDecoder(7, 4, 6);
+    }
+
+    @Override
+    public int getHeaderLength() {
+        return this.headerLength;
+    }
+
+    @Override
+    public int getFrameLength(byte[] data, int offset) {
+        return ShortUtil.toUInt16(data, offset + this.lengthFieldOffset) + this.lengthAdjustment;
+    }
+}
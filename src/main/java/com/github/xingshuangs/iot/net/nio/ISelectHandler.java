@@ -0,0 +1,24 @@
+package com.github.xingshuangs.iot.net.nio;
+
+
+import java.nio.channels.SelectionKey;
+
+/**
+ * 选择器事件处理接口，由事件循环线程回调
+ *
+ * @author xingshuang
+ */
+public interface ISelectHandler {
+
+    /**
+     * 处理就绪的事件
+     *
+     * @param key 就绪的选择键
+     */
+    void handle(SelectionKey key);
+
+    /**
+     * 事件循环关闭时的处理
+     */
+    void loopClosed();
+}
@@ -0,0 +1,206 @@
+package com.github.xingshuangs.iot.net.nio;
+
+
+import com.github.xingshuangs.iot.exceptions.SocketRuntimeException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * NIO事件循环，一个线程对应一个选择器，驱动注册在其上的所有通道
+ *
+ * @author xingshuang
+ */
+@Slf4j
+public class NioEventLoop implements Runnable {
+
+    /**
+     * 选择器
+     */
+    private final Selector selector;
+
+    /**
+     * 待执行的任务队列，注册和修改关注事件都需要在事件循环线程中执行
+     */
+    private final Queue<Runnable> taskQueue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 事件循环线程
+     */
+    private final Thread thread;
+
+    /**
+     * 是否运行中
+     */
+    private volatile boolean running = true;
+
+    public NioEventLoop(String name) {
+        try {
+            this.selector = Selector.open();
+        } catch (IOException e) {
+            throw new SocketRuntimeException(e);
+        }
+        this.thread = new Thread(this, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * 是否运行中
+     *
+     * @return true：运行中，false：已关闭
+     */
+    public boolean isRunning() {
+        return this.running;
+    }
+
+    /**
+     * 当前线程是否为事件循环线程
+     *
+     * @return true：是，false：否
+     */
+    public boolean inEventLoop() {
+        return Thread.currentThread() == this.thread;
+    }
+
+    /**
+     * 在事件循环线程中执行任务
+     *
+     * @param task 任务
+     */
+    public void execute(Runnable task) {
+        if (!this.running) {
+            throw new SocketRuntimeException("事件循环已关闭，无法执行任务");
+        }
+        this.taskQueue.offer(task);
+        if (!this.inEventLoop()) {
+            this.selector.wakeup();
+        }
+    }
+
+    /**
+     * 将通道注册到事件循环的选择器中
+     *
+     * @param channel 通道
+     * @param ops     关注的事件
+     * @param handler 事件处理器
+     * @return 选择键
+     */
+    public CompletableFuture<SelectionKey> register(SelectableChannel channel, int ops, ISelectHandler handler) {
+        CompletableFuture<SelectionKey> future = new CompletableFuture<>();
+        this.execute(() -> {
+            try {
+                future.complete(channel.register(this.selector, ops, handler));
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 修改选择键关注的事件
+     *
+     * @param key 选择键
+     * @param ops 关注的事件
+     */
+    public void interestOps(SelectionKey key, int ops) {
+        if (this.inEventLoop()) {
+            if (key.isValid()) {
+                key.interestOps(ops);
+            }
+            return;
+        }
+        this.execute(() -> {
+            if (key.isValid()) {
+                key.interestOps(ops);
+            }
+        });
+    }
+
+    /**
+     * 关闭事件循环
+     */
+    public void shutdown() {
+        this.running = false;
+        this.selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        log.debug("NIO事件循环[{}]启动", this.thread.getName());
+        while (this.running) {
+            try {
+                this.selector.select();
+                this.runAllTasks();
+                this.processSelectedKeys();
+            } catch (Exception e) {
+                if (this.running) {
+                    log.error("NIO事件循环[{}]异常：{}", this.thread.getName(), e.getMessage());
+                }
+            }
+        }
+        this.closeAll();
+        log.debug("NIO事件循环[{}]关闭", this.thread.getName());
+    }
+
+    /**
+     * 执行所有的待执行任务
+     */
+    private void runAllTasks() {
+        Runnable task;
+        while ((task = this.taskQueue.poll()) != null) {
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.error("NIO事件循环执行任务异常：{}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 处理就绪的选择键
+     */
+    private void processSelectedKeys() {
+        Iterator<SelectionKey> iterator = this.selector.selectedKeys().iterator();
+        while (iterator.hasNext()) {
+            SelectionKey key = iterator.next();
+            iterator.remove();
+            ISelectHandler handler = (ISelectHandler) key.attachment();
+            if (!key.isValid() || handler == null) {
+                continue;
+            }
+            try {
+                handler.handle(key);
+            } catch (Exception e) {
+                log.error("NIO事件处理异常：{}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 关闭选择器以及注册在其上的所有处理器
+     */
+    private void closeAll() {
+        this.runAllTasks();
+        for (SelectionKey key : this.selector.keys()) {
+            ISelectHandler handler = (ISelectHandler) key.attachment();
+            if (handler != null) {
+                handler.loopClosed();
+            }
+            key.cancel();
+        }
+        try {
+            this.selector.close();
+        } catch (IOException e) {
+            // NOOP
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.github.xingshuangs.iot.net.nio;
+
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * NIO事件循环组，多个连接共享少量的事件循环线程
+ *
+ * @author xingshuang
+ */
+public class NioEventLoopGroup {
+
+    /**
+     * 默认共享的事件循环组
+     */
+    private static volatile NioEventLoopGroup defaultGroup;
+
+    /**
+     * 事件循环组编号
+     */
+    private static final AtomicInteger GROUP_INDEX = new AtomicInteger();
+
+    /**
+     * 事件循环列表
+     */
+    private final NioEventLoop[] loops;
+
+    /**
+     * 轮询索引
+     */
+    private final AtomicInteger index = new AtomicInteger();
+
+    public NioEventLoopGroup() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    public NioEventLoopGroup(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads<=0");
+        }
+        int groupIndex = GROUP_INDEX.getAndIncrement();
+        this.loops = new NioEventLoop[threads];
+        for (int i = 0; i < threads; i++) {
+            this.loops[i] = new NioEventLoop(String.format("iot-nio-%d-%d", groupIndex, i));
+        }
+    }
+
+    /**
+     * 获取默认共享的事件循环组，线程数为CPU核数的一半
+     *
+     * @return 事件循环组
+     */
+    public static NioEventLoopGroup getDefault() {
+        if (defaultGroup == null) {
+            synchronized (NioEventLoopGroup.class) {
+                if (defaultGroup == null) {
+                    defaultGroup = new NioEventLoopGroup();
+                }
+            }
+        }
+        return defaultGroup;
+    }
+
+    /**
+     * 事件循环个数
+     *
+     * @return 个数
+     */
+    public int size() {
+        return this.loops.length;
+    }
+
+    /**
+     * 轮询获取下一个事件循环
+     *
+     * @return 事件循环
+     */
+    public NioEventLoop next() {
+        return this.loops[Math.abs(this.index.getAndIncrement() % this.loops.length)];
+    }
+
+    /**
+     * 关闭所有的事件循环
+     */
+    public void shutdown() {
+        for (NioEventLoop loop : this.loops) {
+            loop.shutdown();
+        }
+    }
+}
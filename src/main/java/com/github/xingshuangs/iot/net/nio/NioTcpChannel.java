@@ -0,0 +1,405 @@
+package com.github.xingshuangs.iot.net.nio;
+
+
+import com.github.xingshuangs.iot.exceptions.SocketRuntimeException;
+import com.github.xingshuangs.iot.net.ICommunicable;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 基于NIO的TCP通道，由共享的事件循环负责连接和接收数据，读写方法对外提供阻塞式的调用方式
+ *
+ * @author xingshuang
+ */
+@Slf4j
+public class NioTcpChannel implements ICommunicable, ISelectHandler {
+
+    /**
+     * 接收缓存的初始大小
+     */
+    private static final int INIT_BUFFER_SIZE = 8192;
+
+    /**
+     * socket的地址
+     */
+    private final InetSocketAddress socketAddress;
+
+    /**
+     * 所属的事件循环
+     */
+    private final NioEventLoop eventLoop;
+
+    /**
+     * 锁
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * 可读条件
+     */
+    private final Condition readable = this.lock.newCondition();
+
+    /**
+     * 可写条件
+     */
+    private final Condition writable = this.lock.newCondition();
+
+    /**
+     * 写锁，保证同一时刻只有一个线程写数据
+     */
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    /**
+     * 事件循环线程使用的接收缓存
+     */
+    private final ByteBuffer receiveBuffer = ByteBuffer.allocate(INIT_BUFFER_SIZE);
+
+    /**
+     * 已接收但未被读取的数据
+     */
+    private byte[] inbound = new byte[INIT_BUFFER_SIZE];
+
+    /**
+     * 未读数据的起始索引
+     */
+    private int readIndex = 0;
+
+    /**
+     * 未读数据的结束索引
+     */
+    private int writeIndex = 0;
+
+    /**
+     * 通道
+     */
+    private SocketChannel channel;
+
+    /**
+     * 选择键
+     */
+    private SelectionKey selectionKey;
+
+    /**
+     * 连接结果
+     */
+    private CompletableFuture<Void> connectFuture;
+
+    /**
+     * 是否关闭
+     */
+    private volatile boolean closed = false;
+
+    /**
+     * 写超时时间，默认10s
+     */
+    private int writeTimeout = 10_000;
+
+    public int getWriteTimeout() {
+        return writeTimeout;
+    }
+
+    public void setWriteTimeout(int writeTimeout) {
+        this.writeTimeout = writeTimeout;
+    }
+
+    public NioTcpChannel(InetSocketAddress socketAddress, NioEventLoop eventLoop) {
+        this.socketAddress = socketAddress;
+        this.eventLoop = eventLoop;
+    }
+
+    /**
+     * 是否连接状态
+     *
+     * @return true：连接，false：断开
+     */
+    public boolean isConnected() {
+        return !this.closed && this.channel != null && this.channel.isOpen() && this.channel.isConnected();
+    }
+
+    /**
+     * 获取未读取的数据个数
+     *
+     * @return 数据个数
+     */
+    public int available() {
+        this.lock.lock();
+        try {
+            return this.writeIndex - this.readIndex;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * 连接服务端
+     *
+     * @param timeout 连接超时时间，毫秒级别
+     */
+    public void connect(int timeout) {
+        try {
+            this.channel = SocketChannel.open();
+            this.channel.configureBlocking(false);
+            this.channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            this.connectFuture = new CompletableFuture<>();
+            boolean connected = this.channel.connect(this.socketAddress);
+            if (connected) {
+                this.connectFuture.complete(null);
+            }
+            int ops = connected ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT;
+            this.selectionKey = this.eventLoop.register(this.channel, ops, this).get(timeout, TimeUnit.MILLISECONDS);
+            this.connectFuture.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (IOException | ExecutionException e) {
+            this.close();
+            throw new SocketRuntimeException(e.getCause() == null ? e : e.getCause());
+        } catch (TimeoutException e) {
+            this.close();
+            throw new SocketRuntimeException(new java.net.SocketTimeoutException("connect timed out"));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            this.close();
+            throw new SocketRuntimeException(e);
+        }
+    }
+
+    @Override
+    public void handle(SelectionKey key) {
+        if (key.isConnectable()) {
+            this.finishConnect(key);
+            return;
+        }
+        if (key.isReadable()) {
+            this.readToInbound();
+        }
+        if (key.isValid() && key.isWritable()) {
+            key.interestOps(SelectionKey.OP_READ);
+            this.lock.lock();
+            try {
+                this.writable.signalAll();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public void loopClosed() {
+        this.close();
+    }
+
+    /**
+     * 完成连接
+     *
+     * @param key 选择键
+     */
+    private void finishConnect(SelectionKey key) {
+        try {
+            if (this.channel.finishConnect()) {
+                key.interestOps(SelectionKey.OP_READ);
+                this.connectFuture.complete(null);
+            }
+        } catch (IOException e) {
+            this.connectFuture.completeExceptionally(e);
+            this.close();
+        }
+    }
+
+    /**
+     * 在事件循环线程中将数据读取到接收缓存中
+     */
+    private void readToInbound() {
+        try {
+            while (true) {
+                this.receiveBuffer.clear();
+                int num = this.channel.read(this.receiveBuffer);
+                if (num < 0) {
+                    log.debug("服务端[{}]断开连接", this.socketAddress);
+                    this.close();
+                    return;
+                }
+                if (num == 0) {
+                    return;
+                }
+                this.appendInbound(this.receiveBuffer.array(), num);
+                if (num < this.receiveBuffer.capacity()) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            log.debug("服务端[{}]读取数据异常：{}", this.socketAddress, e.getMessage());
+            this.close();
+        }
+    }
+
+    /**
+     * 追加数据到接收缓存，空间不够时先压缩后扩容
+     *
+     * @param src    数据源
+     * @param length 数据长度
+     */
+    private void appendInbound(byte[] src, int length) {
+        this.lock.lock();
+        try {
+            if (this.writeIndex + length > this.inbound.length) {
+                int remain = this.writeIndex - this.readIndex;
+                byte[] des = remain + length > this.inbound.length ? new byte[Math.max(this.inbound.length * 2, remain + length)] : this.inbound;
+                System.arraycopy(this.inbound, this.readIndex, des, 0, remain);
+                this.inbound = des;
+                this.readIndex = 0;
+                this.writeIndex = remain;
+            }
+            System.arraycopy(src, 0, this.inbound, this.writeIndex, length);
+            this.writeIndex += length;
+            this.readable.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        this.closed = true;
+        if (this.connectFuture != null && !this.connectFuture.isDone()) {
+            this.connectFuture.completeExceptionally(new IOException("通道已关闭"));
+        }
+        if (this.selectionKey != null) {
+            this.selectionKey.cancel();
+        }
+        try {
+            if (this.channel != null) {
+                this.channel.close();
+            }
+        } catch (IOException e) {
+            // NOOP
+        }
+        this.lock.lock();
+        try {
+            this.readable.signalAll();
+            this.writable.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public void write(byte[] data) {
+        this.write(data, 0, data.length);
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int length) {
+        if (offset + length > data.length) {
+            throw new IllegalArgumentException("offset+length");
+        }
+        this.writeLock.lock();
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(data, offset, length);
+            while (buffer.hasRemaining()) {
+                this.checkClosed();
+                int num = this.channel.write(buffer);
+                if (num == 0) {
+                    this.waitWritable();
+                }
+            }
+        } catch (IOException e) {
+            this.close();
+            throw new SocketRuntimeException(e);
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    /**
+     * 发送缓存已满，等待通道可写
+     */
+    private void waitWritable() {
+        this.lock.lock();
+        try {
+            this.eventLoop.interestOps(this.selectionKey, SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            if (!this.writable.await(this.writeTimeout, TimeUnit.MILLISECONDS)) {
+                throw new SocketRuntimeException(new java.net.SocketTimeoutException("Write timed out"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SocketRuntimeException(e);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public int read(byte[] data) {
+        return this.read(data, 0, data.length, 0);
+    }
+
+    @Override
+    public int read(byte[] data, int offset, int length) {
+        return this.read(data, offset, length, 0);
+    }
+
+    /**
+     * 读取数据，没有数据时阻塞等待，有数据时读取当前已接收的数据，最多读取length个
+     *
+     * @param data    字节数组
+     * @param offset  偏移量
+     * @param length  数据长度
+     * @param timeout 超时时间，毫秒级别，0表示一直等待
+     * @return 读取的数据长度
+     */
+    public int read(byte[] data, int offset, int length, int timeout) {
+        if (offset + length > data.length) {
+            throw new IllegalArgumentException("offset+length");
+        }
+        if (timeout < 0) {
+            throw new IllegalArgumentException("timeout>=0");
+        }
+        this.lock.lock();
+        try {
+            long nanos = TimeUnit.MILLISECONDS.toNanos(timeout);
+            while (this.writeIndex == this.readIndex) {
+                this.checkClosed();
+                if (timeout == 0) {
+                    this.readable.await();
+                } else {
+                    if (nanos <= 0) {
+                        throw new SocketRuntimeException(new java.net.SocketTimeoutException("Read timed out"));
+                    }
+                    nanos = this.readable.awaitNanos(nanos);
+                }
+            }
+            int num = Math.min(length, this.writeIndex - this.readIndex);
+            System.arraycopy(this.inbound, this.readIndex, data, offset, num);
+            this.readIndex += num;
+            if (this.readIndex == this.writeIndex) {
+                this.readIndex = 0;
+                this.writeIndex = 0;
+            }
+            return num;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SocketRuntimeException(e);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * 校验通道是否关闭
+     */
+    private void checkClosed() {
+        if (this.closed) {
+            throw new SocketRuntimeException("读取数据异常，通道已关闭");
+        }
+    }
+}
@@ -3,14 +3,20 @@ package com.github.xingshuangs.iot.net.server;
 
 import com.github.xingshuangs.iot.exceptions.SocketRuntimeException;
 import com.github.xingshuangs.iot.net.SocketUtils;
+import com.github.xingshuangs.iot.net.codec.FrameReader;
+import com.github.xingshuangs.iot.net.codec.IFrameDecoder;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketAddress;
+import java.util.Arrays;
+import java.util.Map;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * TCP socket服务端的基础类
@@ -30,11 +36,106 @@ public class TcpServerBasic {
      */
     protected int port = 8088;
 
+    /**
+     * 线程编号
+     */
+    private static final AtomicInteger THREAD_INDEX = new AtomicInteger();
+
     /**
      * 客户端MAP
      */
     protected final ConcurrentHashMap<String, Socket> clientMap = new ConcurrentHashMap<>();
 
+    /**
+     * 客户端最后活跃时间的MAP，毫秒级别
+     */
+    private final ConcurrentHashMap<String, Long> activeTimeMap = new ConcurrentHashMap<>();
+
+    /**
+     * 客户端报文帧读取器的MAP，每个客户端一个，缓存重复使用
+     */
+    private final ConcurrentHashMap<String, FrameReader> frameReaderMap = new ConcurrentHashMap<>();
+
+    /**
+     * 报文帧解码器，为null时按照当前可读取的数据量读取，设置后按照报文头中的长度读取完整报文
+     */
+    protected IFrameDecoder frameDecoder;
+
+    /**
+     * 最大客户端连入数量，超过后新连入的客户端直接断开，默认1024
+     */
+    protected int maxClients = 1024;
+
+    /**
+     * 客户端最大空闲时间，毫秒级别，超过该时间未收到数据的客户端会被断开，小于等于0表示不检查，默认0
+     */
+    protected long idleTimeout = 0;
+
+    /**
+     * 等待连入队列的长度，默认128
+     */
+    protected int backlog = 128;
+
+    /**
+     * 等待客户端连入的线程
+     */
+    private Thread acceptThread;
+
+    /**
+     * 客户端业务处理的线程池，有界，最大线程数和最大客户端连入数量一致
+     */
+    private ThreadPoolExecutor clientExecutor;
+
+    /**
+     * 空闲客户端检查的执行器
+     */
+    private ScheduledExecutorService idleChecker;
+
+    public int getMaxClients() {
+        return maxClients;
+    }
+
+    /**
+     * 设置最大客户端连入数量，需要在启动之前设置
+     *
+     * @param maxClients 最大客户端连入数量
+     */
+    public void setMaxClients(int maxClients) {
+        if (maxClients <= 0) {
+            throw new IllegalArgumentException("maxClients<=0");
+        }
+        this.maxClients = maxClients;
+    }
+
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+     * 设置客户端最大空闲时间，需要在启动之前设置
+     *
+     * @param idleTimeout 最大空闲时间，毫秒级别，小于等于0表示不检查
+     */
+    public void setIdleTimeout(long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public IFrameDecoder getFrameDecoder() {
+        return frameDecoder;
+    }
+
+    public void setFrameDecoder(IFrameDecoder frameDecoder) {
+        this.frameDecoder = frameDecoder;
+    }
+
+    public int getBacklog() {
+        return backlog;
+    }
+
+    public void setBacklog(int backlog) {
+        this.backlog = backlog;
+    }
+
     //region 服务端
 
     /**
@@ -53,15 +154,26 @@ public class TcpServerBasic {
         try {
             this.port = port;
             this.stop();
-            this.serverSocket = new ServerSocket(port);
-            CompletableFuture.runAsync(this::waitForClients);
+            this.serverSocket = new ServerSocket();
+            this.serverSocket.setReuseAddress(true);
+            this.serverSocket.bind(new InetSocketAddress(port), this.backlog);
+            this.clientExecutor = new ThreadPoolExecutor(0, this.maxClients, 60L, TimeUnit.SECONDS,
+                    new SynchronousQueue<>(), r -> this.newThread(r, "iot-server-" + this.port + "-client-" + THREAD_INDEX.getAndIncrement()));
+            if (this.idleTimeout > 0) {
+                long period = Math.max(100, this.idleTimeout / 2);
+                this.idleChecker = Executors.newSingleThreadScheduledExecutor(r -> this.newThread(r, "iot-server-" + this.port + "-idle"));
+                this.idleChecker.scheduleWithFixedDelay(this::checkIdleClients, period, period, TimeUnit.MILLISECONDS);
+            }
+            this.acceptThread = this.newThread(this::waitForClients, "iot-server-" + this.port + "-accept");
+            this.acceptThread.start();
         } catch (IOException e) {
+            this.stop();
             throw new SocketRuntimeException(e);
         }
     }
 
     /**
-     * 停止
+     * 停止，同时断开所有的客户端
      */
     public void stop() {
         try {
@@ -72,6 +184,37 @@ public class TcpServerBasic {
         } catch (IOException e) {
             throw new SocketRuntimeException(e);
         }
+        // 等待接收线程退出，保证端口已经释放
+        if (this.acceptThread != null) {
+            try {
+                this.acceptThread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            this.acceptThread = null;
+        }
+        if (this.idleChecker != null) {
+            this.idleChecker.shutdownNow();
+            this.idleChecker = null;
+        }
+        this.clientMap.values().forEach(this::closeClient);
+        if (this.clientExecutor != null) {
+            this.clientExecutor.shutdown();
+            this.clientExecutor = null;
+        }
+    }
+
+    /**
+     * 创建守护线程
+     *
+     * @param runnable 执行内容
+     * @param name     线程名称
+     * @return 线程
+     */
+    private Thread newThread(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
     }
 
     /**
@@ -88,21 +231,60 @@ public class TcpServerBasic {
      */
     private void waitForClients() {
         log.debug("开启等待客户端线程，端口号[{}]", this.port);
-        while (this.isAlive()) {
+        ServerSocket server = this.serverSocket;
+        ThreadPoolExecutor executor = this.clientExecutor;
+        while (!server.isClosed()) {
             try {
-                Socket client = this.serverSocket.accept();
+                Socket client = server.accept();
                 if (!this.checkClientValid(client)) {
                     SocketUtils.close(client);
+                    continue;
+                }
+                try {
+                    executor.execute(() -> this.doClientConnected(client));
+                } catch (RejectedExecutionException e) {
+                    // 超过最大客户端连入数量，拒绝连入
+                    log.warn("客户端[{}]连入被拒绝，已达到最大客户端数量[{}]", client.getRemoteSocketAddress(), this.maxClients);
+                    SocketUtils.close(client);
                 }
-                CompletableFuture.runAsync(() -> this.doClientConnected(client));
             } catch (IOException e) {
-                if (this.isAlive()) {
+                if (!server.isClosed()) {
                     log.error(e.getMessage());
                 }
             }
         }
     }
 
+    /**
+     * 断开超过最大空闲时间的客户端
+     */
+    private void checkIdleClients() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, Long> entry : this.activeTimeMap.entrySet()) {
+            if (now - entry.getValue() <= this.idleTimeout) {
+                continue;
+            }
+            Socket client = this.clientMap.get(entry.getKey());
+            if (client != null) {
+                log.debug("客户端[{}]空闲时间超过[{}]ms，断开连接", entry.getKey(), this.idleTimeout);
+                this.closeClient(client);
+            }
+        }
+    }
+
+    /**
+     * 关闭客户端
+     *
+     * @param client 客户端
+     */
+    private void closeClient(Socket client) {
+        try {
+            SocketUtils.close(client);
+        } catch (IOException e) {
+            // NOOP
+        }
+    }
+
     //endregion
 
     //region 客户端
@@ -116,6 +298,17 @@ public class TcpServerBasic {
         return this.clientMap.size();
     }
 
+    /**
+     * 刷新客户端的最后活跃时间
+     *
+     * @param socket 客户端
+     */
+    protected void refreshActiveTime(Socket socket) {
+        if (this.idleTimeout > 0) {
+            this.activeTimeMap.put(socket.getRemoteSocketAddress().toString(), System.currentTimeMillis());
+        }
+    }
+
     /**
      * 校验客户端是否允许连入
      *
@@ -135,6 +328,7 @@ public class TcpServerBasic {
     private void doClientConnected(Socket client) {
         SocketAddress address = client.getRemoteSocketAddress();
         this.clientMap.put(address.toString(), client);
+        this.activeTimeMap.put(address.toString(), System.currentTimeMillis());
         log.debug("有客户端[{}]连入，当前客户端数量[{}]", address, this.clientMap.size());
         this.clientConnected(client);
         try {
@@ -156,6 +350,8 @@ public class TcpServerBasic {
         }
 
         this.clientMap.remove(address.toString());
+        this.activeTimeMap.remove(address.toString());
+        this.frameReaderMap.remove(address.toString());
         log.debug("有客户端[{}]断开，当前客户端数量[{}]", address, this.clientMap.size());
         this.clientDisconnected(client);
     }
@@ -205,6 +401,10 @@ public class TcpServerBasic {
      * @return 读取的字节数据
      */
     protected byte[] readClientData(Socket socket) {
+        if (this.frameDecoder != null) {
+            FrameReader reader = this.readClientFrame(socket);
+            return Arrays.copyOfRange(reader.getBuffer(), reader.getFrameOffset(), reader.getFrameOffset() + reader.getFrameLength());
+        }
         try {
             InputStream in = socket.getInputStream();
             int firstByte = in.read();
@@ -215,12 +415,38 @@ public class TcpServerBasic {
             byte[] data = new byte[in.available() + 1];
             data[0] = (byte) firstByte;
             this.read(socket, data, 1, data.length - 1, 1024);
+            this.refreshActiveTime(socket);
             return data;
         } catch (IOException e) {
             throw new SocketRuntimeException(e);
         }
     }
 
+    /**
+     * 按照报文帧解码器读取客户端的一个完整报文，不额外分配内存，
+     * 报文位于读取器的缓存中，在该客户端下一次读取前有效
+     *
+     * @param socket 客户端socket对象
+     * @return 报文帧读取器
+     */
+    protected FrameReader readClientFrame(Socket socket) {
+        if (this.frameDecoder == null) {
+            throw new SocketRuntimeException("未设置报文帧解码器");
+        }
+        FrameReader reader = this.frameReaderMap.computeIfAbsent(socket.getRemoteSocketAddress().toString(),
+                key -> new FrameReader(this.frameDecoder));
+        try {
+            if (reader.readFrame(socket.getInputStream()) < 0) {
+                SocketUtils.close(socket);
+                throw new SocketRuntimeException("客户端主动断开");
+            }
+            this.refreshActiveTime(socket);
+            return reader;
+        } catch (IOException e) {
+            throw new SocketRuntimeException(e);
+        }
+    }
+
     /**
      * 写数据
      *
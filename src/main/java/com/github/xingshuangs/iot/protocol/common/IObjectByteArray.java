@@ -1,5 +1,6 @@
 package com.github.xingshuangs.iot.protocol.common;
 
+import com.github.xingshuangs.iot.protocol.common.buff.ByteWriteBuff;
 
 /**
  * 一个对象字节相关的接口
@@ -21,4 +22,13 @@ public interface IObjectByteArray {
      * @return 字节数组
      */
     byte[] toByteArray();
+
+    /**
+     * 将字节数据直接写入到缓存的当前位置，默认转换为字节数组后再写入，子类重写后可以省去中间数组
+     *
+     * @param buff 写字节缓存
+     */
+    default void writeTo(ByteWriteBuff buff) {
+        buff.putBytes(this.toByteArray());
+    }
 }
@@ -74,6 +74,16 @@ public class ByteWriteBuff extends ByteBuffBase {
         return this.data[index];
     }
 
+    /**
+     * 重置写入位置，用于复用缓存，原有数据不清除，会被后续写入覆盖
+     *
+     * @return 对象本身
+     */
+    public ByteWriteBuff reset() {
+        this.offset = 0;
+        return this;
+    }
+
     /**
      * 校验条件
      *
@@ -151,7 +161,7 @@ public class ByteWriteBuff extends ByteBuffBase {
         this.checkCondition(desIndex, src.length - srcIndex);
         System.arraycopy(src, srcIndex, this.data, desIndex, src.length - srcIndex);
         if (desIndex == this.offset) {
-            this.offset += src.length;
+            this.offset += src.length - srcIndex;
         }
         return this;
     }
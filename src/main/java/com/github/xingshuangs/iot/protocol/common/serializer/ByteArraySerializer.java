@@ -8,79 +8,114 @@ import com.github.xingshuangs.iot.protocol.common.buff.EByteBuffFormat;
 import com.github.xingshuangs.iot.protocol.common.enums.EDataType;
 import com.github.xingshuangs.iot.utils.BooleanUtil;
 
+import java.lang.reflect.Array;
 import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 /**
- * 字节数组序列化工具
+ * 字节数组序列化工具，类型有注解处理器生成的编解码器时直接使用，否则使用反射
  *
  * @author xingshuang
  */
 public class ByteArraySerializer implements IByteArraySerializable {
 
+    /**
+     * 按类型缓存的生成编解码器
+     */
+    private static final ClassValue<Optional<IByteArrayCodec<?>>> CODECS = new ClassValue<Optional<IByteArrayCodec<?>>>() {
+        @Override
+        protected Optional<IByteArrayCodec<?>> computeValue(Class<?> type) {
+            return Optional.ofNullable(GeneratedCodecLoader.load(type,
+                    GeneratedCodecLoader.BYTE_ARRAY_CODEC_SUFFIX, IByteArrayCodec.class));
+        }
+    };
+
+    /**
+     * 按类型缓存的字段布局，字段反射、嵌套结构体识别和结构体大小计算只做一次
+     */
+    private static final ClassValue<ClassLayout> LAYOUTS = new ClassValue<ClassLayout>() {
+        @Override
+        protected ClassLayout computeValue(Class<?> type) {
+            return new ClassLayout(type);
+        }
+    };
+
     public static ByteArraySerializer newInstance() {
         return new ByteArraySerializer();
     }
 
+    /**
+     * 获取类型的生成编解码器
+     *
+     * @param targetClass 目标类型
+     * @param <T>         类型
+     * @return 编解码器，没有时返回null
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> IByteArrayCodec<T> codecOf(Class<T> targetClass) {
+        return (IByteArrayCodec<T>) CODECS.get(targetClass).orElse(null);
+    }
+
     @Override
     public <T> T toObject(final Class<T> targetClass, final byte[] src) {
         try {
-            final T bean = targetClass.newInstance();
-            for (final Field field : targetClass.getDeclaredFields()) {
-                final ByteArrayVariable variable = field.getAnnotation(ByteArrayVariable.class);
-                if (variable == null) {
-                    continue;
-                }
-
-                this.checkByteArrayVariable(variable);
-                this.extractData(src, bean, field, variable);
+            IByteArrayCodec<T> codec = codecOf(targetClass);
+            if (codec != null) {
+                return codec.decode(src, 0);
             }
-            return bean;
+            return this.extractStruct(targetClass, src, 0);
+        } catch (ByteArrayParseException e) {
+            throw e;
         } catch (Exception e) {
             throw new ByteArrayParseException("解析成对象错误，原因：" + e.getMessage(), e);
         }
     }
 
+    /**
+     * 从指定的字节偏移开始提取一个对象，嵌套结构体递归提取
+     *
+     * @param targetClass 目标类型
+     * @param src         数据内容，字节数组
+     * @param baseOffset  对象在字节数组中的起始偏移
+     * @param <T>         类型
+     * @return 对象
+     * @throws ReflectiveOperationException 反射异常
+     */
+    private <T> T extractStruct(Class<T> targetClass, byte[] src, int baseOffset) throws ReflectiveOperationException {
+        final T bean = targetClass.newInstance();
+        for (final FieldLayout field : LAYOUTS.get(targetClass).fields) {
+            this.extractData(src, bean, field, baseOffset);
+        }
+        return bean;
+    }
+
     @Override
+    @SuppressWarnings("unchecked")
     public <T> byte[] toByteArray(final T targetBean) {
         try {
-            // 组装数据，同时计算最大的字节长度
-            int buffSize = 0;
-            List<ByteArrayParseData> parseDataList = new ArrayList<>();
-            for (final Field field : targetBean.getClass().getDeclaredFields()) {
-                final ByteArrayVariable variable = field.getAnnotation(ByteArrayVariable.class);
-                if (variable == null) {
-                    continue;
-                }
-                this.checkByteArrayVariable(variable);
-                parseDataList.add(new ByteArrayParseData(variable, field));
-                int maxPos = variable.byteOffset() + variable.count() * variable.type().getByteLength();
-                if (maxPos > buffSize) {
-                    buffSize = maxPos;
-                }
+            IByteArrayCodec<T> codec = codecOf((Class<T>) targetBean.getClass());
+            if (codec != null) {
+                return codec.encode(targetBean);
             }
-            if (buffSize == 0 || parseDataList.isEmpty()) {
+            ClassLayout layout = LAYOUTS.get(targetBean.getClass());
+            if (layout.buffSize == 0 || layout.fields.length == 0) {
                 return new byte[0];
             }
             // 填充字节数组的内容
-            ByteWriteBuff buff = ByteWriteBuff.newInstance(buffSize);
-            for (ByteArrayParseData item : parseDataList) {
-                item.getField().setAccessible(true);
-                Object data = item.getField().get(targetBean);
-                if (data == null) {
-                    continue;
-                }
-                if (item.getVariable().count() == 1) {
-                    this.fillOneData(item.getVariable(), data, buff, 0);
-                } else {
-                    this.fillListData(item.getVariable(), data, buff);
-                }
+            ByteWriteBuff buff = ByteWriteBuff.newInstance(layout.buffSize);
+            for (FieldLayout field : layout.fields) {
+                this.fillData(field, targetBean, buff, 0);
             }
             return buff.getData();
+        } catch (ByteArrayParseException e) {
+            throw e;
         } catch (Exception e) {
             throw new ByteArrayParseException("解析成对象错误，原因：" + e.getMessage(), e);
         }
@@ -89,21 +124,34 @@ public class ByteArraySerializer implements IByteArraySerializable {
     /**
      * 提取数据
      *
-     * @param src      数据内容，字节数组
-     * @param bean     对象
-     * @param field    字段
-     * @param variable 字节数组注解
-     * @param <T>      类型
-     * @throws IllegalAccessException 访问异常
+     * @param src        数据内容，字节数组
+     * @param bean       对象
+     * @param layout     字段布局
+     * @param baseOffset 所属对象在字节数组中的起始偏移
+     * @param <T>        类型
+     * @throws ReflectiveOperationException 反射异常
      */
-    private <T> void extractData(byte[] src, T bean, Field field, ByteArrayVariable variable) throws IllegalAccessException {
+    private <T> void extractData(byte[] src, T bean, FieldLayout layout, int baseOffset)
+            throws ReflectiveOperationException {
+        Field field = layout.field;
+        ByteArrayVariable variable = layout.variable;
+        int offset = baseOffset + variable.byteOffset();
+        // 嵌套结构体
+        if (layout.structClass != null) {
+            field.set(bean, this.extractStructField(src, layout, offset));
+            return;
+        }
         ByteReadBuff buff = new ByteReadBuff(src, 0, variable.littleEndian(), EByteBuffFormat.DC_BA);
-        field.setAccessible(true);
+        // 基本类型数组，直接解析到数组中，不产生中间对象
+        if (layout.primitiveArray) {
+            field.set(bean, this.extractPrimitiveArray(buff, field, variable, offset));
+            return;
+        }
         switch (variable.type()) {
             case BOOL:
                 List<Boolean> booleans = IntStream.range(0, variable.count()).boxed()
                         .map(x -> {
-                            int byteAdd = variable.byteOffset() + (variable.bitOffset() + x) / 8;
+                            int byteAdd = offset + (variable.bitOffset() + x) / 8;
                             int bitAdd = (variable.bitOffset() + x) % 8;
                             return buff.getBoolean(byteAdd, bitAdd);
                         }).collect(Collectors.toList());
@@ -111,60 +159,233 @@ public class ByteArraySerializer implements IByteArraySerializable {
                 break;
             case BYTE:
                 List<Byte> bytes = IntStream.range(0, variable.count()).boxed()
-                        .map(x -> buff.getByte(variable.byteOffset() + x * variable.type().getByteLength()))
+                        .map(x -> buff.getByte(offset + x * variable.type().getByteLength()))
                         .collect(Collectors.toList());
                 field.set(bean, variable.count() == 1 ? bytes.get(0) : bytes);
                 break;
             case UINT16:
                 List<Integer> uint16s = IntStream.range(0, variable.count()).boxed()
-                        .map(x -> buff.getUInt16(variable.byteOffset() + x * variable.type().getByteLength()))
+                        .map(x -> buff.getUInt16(offset + x * variable.type().getByteLength()))
                         .collect(Collectors.toList());
                 field.set(bean, variable.count() == 1 ? uint16s.get(0) : uint16s);
                 break;
             case INT16:
                 List<Short> int16s = IntStream.range(0, variable.count()).boxed()
-                        .map(x -> buff.getInt16(variable.byteOffset() + x * variable.type().getByteLength()))
+                        .map(x -> buff.getInt16(offset + x * variable.type().getByteLength()))
                         .collect(Collectors.toList());
                 field.set(bean, variable.count() == 1 ? int16s.get(0) : int16s);
                 break;
             case UINT32:
                 List<Long> uint32s = IntStream.range(0, variable.count()).boxed()
-                        .map(x -> buff.getUInt32(variable.byteOffset() + x * variable.type().getByteLength()))
+                        .map(x -> buff.getUInt32(offset + x * variable.type().getByteLength()))
                         .collect(Collectors.toList());
                 field.set(bean, variable.count() == 1 ? uint32s.get(0) : uint32s);
                 break;
             case INT32:
                 List<Integer> int32s = IntStream.range(0, variable.count()).boxed()
-                        .map(x -> buff.getInt32(variable.byteOffset() + x * variable.type().getByteLength()))
+                        .map(x -> buff.getInt32(offset + x * variable.type().getByteLength()))
                         .collect(Collectors.toList());
                 field.set(bean, variable.count() == 1 ? int32s.get(0) : int32s);
                 break;
             case FLOAT32:
                 List<Float> float32s = IntStream.range(0, variable.count()).boxed()
-                        .map(x -> buff.getFloat32(variable.byteOffset() + x * variable.type().getByteLength()))
+                        .map(x -> buff.getFloat32(offset + x * variable.type().getByteLength()))
                         .collect(Collectors.toList());
                 field.set(bean, variable.count() == 1 ? float32s.get(0) : float32s);
                 break;
             case FLOAT64:
                 List<Double> float64s = IntStream.range(0, variable.count()).boxed()
-                        .map(x -> buff.getFloat64(variable.byteOffset() + x * variable.type().getByteLength()))
+                        .map(x -> buff.getFloat64(offset + x * variable.type().getByteLength()))
                         .collect(Collectors.toList());
                 field.set(bean, variable.count() == 1 ? float64s.get(0) : float64s);
                 break;
             case STRING:
-                field.set(bean, buff.getString(variable.byteOffset(), variable.count()));
+                field.set(bean, buff.getString(offset, variable.count()));
                 break;
             default:
                 throw new ByteArrayParseException("提取数据的时候无法识别数据类型");
         }
     }
 
+    /**
+     * 提取嵌套结构体字段，数量为1时为单个对象，大于1时为数组或list，相邻的结构体按结构体大小依次排列
+     *
+     * @param src    数据内容，字节数组
+     * @param layout 字段布局
+     * @param offset 结构体的起始偏移
+     * @return 字段值
+     * @throws ReflectiveOperationException 反射异常
+     */
+    private Object extractStructField(byte[] src, FieldLayout layout, int offset)
+            throws ReflectiveOperationException {
+        Field field = layout.field;
+        ByteArrayVariable variable = layout.variable;
+        Class<?> structClass = layout.structClass;
+        if (!field.getType().isArray() && !List.class.isAssignableFrom(field.getType())) {
+            return this.extractStruct(structClass, src, offset);
+        }
+        int size = layout.structSize;
+        if (field.getType().isArray()) {
+            Object array = Array.newInstance(structClass, variable.count());
+            for (int i = 0; i < variable.count(); i++) {
+                Array.set(array, i, this.extractStruct(structClass, src, offset + i * size));
+            }
+            return array;
+        }
+        List<Object> list = new ArrayList<>(variable.count());
+        for (int i = 0; i < variable.count(); i++) {
+            list.add(this.extractStruct(structClass, src, offset + i * size));
+        }
+        return list;
+    }
+
+    /**
+     * 提取基本类型数组
+     *
+     * @param buff     字节缓存
+     * @param field    字段
+     * @param variable 字节数组注解
+     * @param offset   起始偏移
+     * @return 基本类型数组
+     */
+    private Object extractPrimitiveArray(ByteReadBuff buff, Field field, ByteArrayVariable variable, int offset) {
+        checkArrayType(field, variable);
+        int count = variable.count();
+        int length = variable.type().getByteLength();
+        switch (variable.type()) {
+            case BOOL:
+                boolean[] booleans = new boolean[count];
+                for (int i = 0; i < count; i++) {
+                    int bit = variable.bitOffset() + i;
+                    booleans[i] = buff.getBoolean(offset + bit / 8, bit % 8);
+                }
+                return booleans;
+            case BYTE:
+                byte[] bytes = new byte[count];
+                for (int i = 0; i < count; i++) {
+                    bytes[i] = buff.getByte(offset + i);
+                }
+                return bytes;
+            case UINT16:
+                int[] uint16s = new int[count];
+                for (int i = 0; i < count; i++) {
+                    uint16s[i] = buff.getUInt16(offset + i * length);
+                }
+                return uint16s;
+            case INT16:
+                short[] int16s = new short[count];
+                for (int i = 0; i < count; i++) {
+                    int16s[i] = buff.getInt16(offset + i * length);
+                }
+                return int16s;
+            case UINT32:
+                long[] uint32s = new long[count];
+                for (int i = 0; i < count; i++) {
+                    uint32s[i] = buff.getUInt32(offset + i * length);
+                }
+                return uint32s;
+            case INT32:
+                int[] int32s = new int[count];
+                for (int i = 0; i < count; i++) {
+                    int32s[i] = buff.getInt32(offset + i * length);
+                }
+                return int32s;
+            case FLOAT32:
+                float[] float32s = new float[count];
+                for (int i = 0; i < count; i++) {
+                    float32s[i] = buff.getFloat32(offset + i * length);
+                }
+                return float32s;
+            case FLOAT64:
+                double[] float64s = new double[count];
+                for (int i = 0; i < count; i++) {
+                    float64s[i] = buff.getFloat64(offset + i * length);
+                }
+                return float64s;
+            default:
+                throw new ByteArrayParseException("提取数据的时候无法识别数据类型");
+        }
+    }
+
+    /**
+     * 校验基本类型数组字段和数据类型是否匹配
+     *
+     * @param field    字段
+     * @param variable 字节数组注解
+     */
+    private static void checkArrayType(Field field, ByteArrayVariable variable) {
+        Class<?> expect;
+        switch (variable.type()) {
+            case BOOL:
+                expect = boolean.class;
+                break;
+            case BYTE:
+                expect = byte.class;
+                break;
+            case UINT16:
+            case INT32:
+                expect = int.class;
+                break;
+            case INT16:
+                expect = short.class;
+                break;
+            case UINT32:
+                expect = long.class;
+                break;
+            case FLOAT32:
+                expect = float.class;
+                break;
+            case FLOAT64:
+                expect = double.class;
+                break;
+            default:
+                expect = null;
+                break;
+        }
+        if (expect != field.getType().getComponentType()) {
+            throw new ByteArrayParseException(String.format("字段[%s]的类型[%s]和数据类型[%s]不匹配",
+                    field.getName(), field.getType().getSimpleName(), variable.type()));
+        }
+    }
+
+    /**
+     * 获取字段对应的嵌套结构体类型，字段本身、数组元素或list元素带有字节数组注解的字段时视为结构体
+     *
+     * @param field 字段
+     * @return 结构体类型，不是结构体时返回null
+     */
+    private static Class<?> structClassOf(Field field) {
+        Class<?> type = field.getType();
+        if (type.isArray()) {
+            type = type.getComponentType();
+        } else if (List.class.isAssignableFrom(type)) {
+            Type genericType = field.getGenericType();
+            if (!(genericType instanceof ParameterizedType)) {
+                return null;
+            }
+            Type argument = ((ParameterizedType) genericType).getActualTypeArguments()[0];
+            if (!(argument instanceof Class)) {
+                return null;
+            }
+            type = (Class<?>) argument;
+        }
+        if (type.isPrimitive() || type.getName().startsWith("java.")) {
+            return null;
+        }
+        for (Field item : type.getDeclaredFields()) {
+            if (item.isAnnotationPresent(ByteArrayVariable.class)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
     /**
      * 校验字节数组注解的参数
      *
      * @param variable 注解参数
      */
-    private void checkByteArrayVariable(ByteArrayVariable variable) {
+    private static void checkByteArrayVariable(ByteArrayVariable variable) {
         if (variable.byteOffset() < 0) {
             throw new ByteArrayParseException("字节偏移量不能为负数");
         }
@@ -176,45 +397,173 @@ public class ByteArraySerializer implements IByteArraySerializable {
         }
     }
 
+    /**
+     * 填充一个字段的数据，嵌套结构体递归填充
+     *
+     * @param layout     字段布局
+     * @param bean       所属对象
+     * @param buff       字节缓存
+     * @param baseOffset 所属对象的起始偏移
+     * @throws IllegalAccessException 访问异常
+     */
+    private void fillData(FieldLayout layout, Object bean, ByteWriteBuff buff, int baseOffset)
+            throws IllegalAccessException {
+        Field field = layout.field;
+        ByteArrayVariable variable = layout.variable;
+        Object data = field.get(bean);
+        if (data == null) {
+            return;
+        }
+        int offset = baseOffset + variable.byteOffset();
+        if (layout.structClass != null) {
+            int size = layout.structSize;
+            if (field.getType().isArray()) {
+                for (int i = 0; i < Array.getLength(data); i++) {
+                    this.fillStruct(Array.get(data, i), buff, offset + i * size);
+                }
+            } else if (data instanceof List) {
+                List<?> list = (List<?>) data;
+                for (int i = 0; i < list.size(); i++) {
+                    this.fillStruct(list.get(i), buff, offset + i * size);
+                }
+            } else {
+                this.fillStruct(data, buff, offset);
+            }
+        } else if (layout.primitiveArray) {
+            checkArrayType(field, variable);
+            this.fillPrimitiveArray(variable, data, buff, offset);
+        } else if (variable.count() == 1) {
+            this.fillOneData(variable, data, buff, offset, 0);
+        } else {
+            this.fillListData(variable, data, buff, offset);
+        }
+    }
+
+    /**
+     * 填充嵌套结构体
+     *
+     * @param bean       结构体对象，为null时跳过
+     * @param buff       字节缓存
+     * @param baseOffset 结构体的起始偏移
+     * @throws IllegalAccessException 访问异常
+     */
+    private void fillStruct(Object bean, ByteWriteBuff buff, int baseOffset) throws IllegalAccessException {
+        if (bean == null) {
+            return;
+        }
+        for (FieldLayout field : LAYOUTS.get(bean.getClass()).fields) {
+            this.fillData(field, bean, buff, baseOffset);
+        }
+    }
+
+    /**
+     * 填充基本类型数组
+     *
+     * @param variable 字节数组注解对象
+     * @param data     基本类型数组
+     * @param buff     字节缓存
+     * @param offset   起始偏移
+     */
+    private void fillPrimitiveArray(ByteArrayVariable variable, Object data, ByteWriteBuff buff, int offset) {
+        int count = Math.min(variable.count(), Array.getLength(data));
+        int length = variable.type().getByteLength();
+        boolean littleEndian = variable.littleEndian();
+        switch (variable.type()) {
+            case BOOL:
+                boolean[] booleans = (boolean[]) data;
+                for (int i = 0; i < count; i++) {
+                    int bit = variable.bitOffset() + i;
+                    int byteAdd = offset + bit / 8;
+                    buff.putByte(BooleanUtil.setBit(buff.getByte(byteAdd), bit % 8, booleans[i]), byteAdd);
+                }
+                break;
+            case BYTE:
+                byte[] bytes = (byte[]) data;
+                for (int i = 0; i < count; i++) {
+                    buff.putByte(bytes[i], offset + i);
+                }
+                break;
+            case UINT16:
+                int[] uint16s = (int[]) data;
+                for (int i = 0; i < count; i++) {
+                    buff.putShort(uint16s[i], offset + i * length, littleEndian);
+                }
+                break;
+            case INT16:
+                short[] int16s = (short[]) data;
+                for (int i = 0; i < count; i++) {
+                    buff.putShort(int16s[i], offset + i * length, littleEndian);
+                }
+                break;
+            case UINT32:
+                long[] uint32s = (long[]) data;
+                for (int i = 0; i < count; i++) {
+                    buff.putInteger(uint32s[i], offset + i * length, littleEndian);
+                }
+                break;
+            case INT32:
+                int[] int32s = (int[]) data;
+                for (int i = 0; i < count; i++) {
+                    buff.putInteger(int32s[i], offset + i * length, littleEndian);
+                }
+                break;
+            case FLOAT32:
+                float[] float32s = (float[]) data;
+                for (int i = 0; i < count; i++) {
+                    buff.putFloat(float32s[i], offset + i * length, littleEndian);
+                }
+                break;
+            case FLOAT64:
+                double[] float64s = (double[]) data;
+                for (int i = 0; i < count; i++) {
+                    buff.putDouble(float64s[i], offset + i * length, littleEndian);
+                }
+                break;
+            default:
+                throw new ByteArrayParseException("填充数据的时候无法识别数据类型");
+        }
+    }
+
     /**
      * 填充一个数据
      *
      * @param variable 字节数组注解对象
      * @param data     数据对象
      * @param buff     字节缓存
+     * @param offset   起始偏移
      * @param index    索引，第几个
      */
-    private void fillOneData(ByteArrayVariable variable, Object data, ByteWriteBuff buff, int index) {
+    private void fillOneData(ByteArrayVariable variable, Object data, ByteWriteBuff buff, int offset, int index) {
         switch (variable.type()) {
             case BOOL:
-                int byteAdd = variable.byteOffset() + (variable.bitOffset() + index) / 8;
+                int byteAdd = offset + (variable.bitOffset() + index) / 8;
                 int bitAdd = (variable.bitOffset() + index) % 8;
                 byte newByte = BooleanUtil.setBit(buff.getByte(byteAdd), bitAdd, (Boolean) data);
                 buff.putByte(newByte, byteAdd);
                 break;
             case BYTE:
-                buff.putByte((Byte) data, variable.byteOffset() + index * variable.type().getByteLength());
+                buff.putByte((Byte) data, offset + index * variable.type().getByteLength());
                 break;
             case UINT16:
-                buff.putShort((Integer) data, variable.byteOffset() + index * variable.type().getByteLength(), variable.littleEndian());
+                buff.putShort((Integer) data, offset + index * variable.type().getByteLength(), variable.littleEndian());
                 break;
             case INT16:
-                buff.putShort((Short) data, variable.byteOffset() + index * variable.type().getByteLength(), variable.littleEndian());
+                buff.putShort((Short) data, offset + index * variable.type().getByteLength(), variable.littleEndian());
                 break;
             case UINT32:
-                buff.putInteger((Long) data, variable.byteOffset() + index * variable.type().getByteLength(), variable.littleEndian());
+                buff.putInteger((Long) data, offset + index * variable.type().getByteLength(), variable.littleEndian());
                 break;
             case INT32:
-                buff.putInteger((Integer) data, variable.byteOffset() + index * variable.type().getByteLength(), variable.littleEndian());
+                buff.putInteger((Integer) data, offset + index * variable.type().getByteLength(), variable.littleEndian());
                 break;
             case FLOAT32:
-                buff.putFloat((Float) data, variable.byteOffset() + index * variable.type().getByteLength(), variable.littleEndian());
+                buff.putFloat((Float) data, offset + index * variable.type().getByteLength(), variable.littleEndian());
                 break;
             case FLOAT64:
-                buff.putDouble((Double) data, variable.byteOffset() + index * variable.type().getByteLength(), variable.littleEndian());
+                buff.putDouble((Double) data, offset + index * variable.type().getByteLength(), variable.littleEndian());
                 break;
             case STRING:
-                buff.putString((String) data, StandardCharsets.US_ASCII, variable.byteOffset());
+                buff.putString((String) data, StandardCharsets.US_ASCII, offset);
                 break;
             default:
                 throw new ByteArrayParseException("填充数据的时候无法识别数据类型");
@@ -227,15 +576,106 @@ public class ByteArraySerializer implements IByteArraySerializable {
      * @param variable 字节数组注解对象
      * @param data     数据对象
      * @param buff     字节缓存
+     * @param offset   起始偏移
      */
-    private void fillListData(ByteArrayVariable variable, Object data, ByteWriteBuff buff) {
+    private void fillListData(ByteArrayVariable variable, Object data, ByteWriteBuff buff, int offset) {
         if (variable.type() == EDataType.STRING) {
-            buff.putString((String) data, StandardCharsets.US_ASCII, variable.byteOffset());
+            buff.putString((String) data, StandardCharsets.US_ASCII, offset);
         } else {
             List<Object> list = (List<Object>) data;
             for (int i = 0; i < list.size(); i++) {
-                this.fillOneData(variable, list.get(i), buff, i);
+                this.fillOneData(variable, list.get(i), buff, offset, i);
+            }
+        }
+    }
+
+    /**
+     * 类型的字段布局，只包含带字节数组注解的字段，顺序和字段声明顺序一致
+     */
+    private static final class ClassLayout {
+
+        /**
+         * 字段布局
+         */
+        private final FieldLayout[] fields;
+
+        /**
+         * 作为嵌套结构体时占用的字节数，即所有字段的最大结束位置，用于结构体数组中相邻元素的间隔
+         */
+        private final int size;
+
+        /**
+         * 序列化成字节数组时的缓存长度
+         */
+        private final int buffSize;
+
+        private ClassLayout(Class<?> type) {
+            List<FieldLayout> list = new ArrayList<>();
+            int structEnd = 0;
+            int buffEnd = 0;
+            for (Field field : type.getDeclaredFields()) {
+                ByteArrayVariable variable = field.getAnnotation(ByteArrayVariable.class);
+                if (variable == null) {
+                    continue;
+                }
+                checkByteArrayVariable(variable);
+                FieldLayout layout = new FieldLayout(field, variable);
+                list.add(layout);
+                int end;
+                if (layout.structClass != null) {
+                    end = variable.byteOffset() + variable.count() * layout.structSize;
+                    buffEnd = Math.max(buffEnd, end);
+                } else {
+                    end = variable.type() == EDataType.BOOL
+                            ? variable.byteOffset() + (variable.bitOffset() + variable.count() + 7) / 8
+                            : variable.byteOffset() + variable.count() * variable.type().getByteLength();
+                    buffEnd = Math.max(buffEnd, variable.byteOffset() + variable.count() * variable.type().getByteLength());
+                }
+                structEnd = Math.max(structEnd, end);
             }
+            this.fields = list.toArray(new FieldLayout[0]);
+            this.size = structEnd;
+            this.buffSize = buffEnd;
+        }
+    }
+
+    /**
+     * 单个字段的布局
+     */
+    private static final class FieldLayout {
+
+        /**
+         * 字段，已设置为可访问
+         */
+        private final Field field;
+
+        /**
+         * 字节数组注解
+         */
+        private final ByteArrayVariable variable;
+
+        /**
+         * 嵌套结构体类型，不是结构体时为null
+         */
+        private final Class<?> structClass;
+
+        /**
+         * 嵌套结构体占用的字节数
+         */
+        private final int structSize;
+
+        /**
+         * 是否为基本类型数组
+         */
+        private final boolean primitiveArray;
+
+        private FieldLayout(Field field, ByteArrayVariable variable) {
+            field.setAccessible(true);
+            this.field = field;
+            this.variable = variable;
+            this.structClass = structClassOf(field);
+            this.structSize = this.structClass == null ? 0 : LAYOUTS.get(this.structClass).size;
+            this.primitiveArray = field.getType().isArray() && field.getType().getComponentType().isPrimitive();
         }
     }
 }
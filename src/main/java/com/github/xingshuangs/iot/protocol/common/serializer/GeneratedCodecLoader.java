@@ -0,0 +1,59 @@
+package com.github.xingshuangs.iot.protocol.common.serializer;
+
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 加载注解处理器生成的编解码类，生成类和目标类在同一个包中，类名为目标类的二进制名加后缀，
+ * 没有生成类时返回null，调用方使用反射
+ *
+ * @author xingshuang
+ */
+@Slf4j
+public final class GeneratedCodecLoader {
+
+    /**
+     * 字节数组编解码类的后缀
+     */
+    public static final String BYTE_ARRAY_CODEC_SUFFIX = "$$ByteArrayCodec";
+
+    /**
+     * S7字段访问类的后缀
+     */
+    public static final String S7_ACCESSOR_SUFFIX = "$$S7Accessor";
+
+    private GeneratedCodecLoader() {
+        // NOOP
+    }
+
+    /**
+     * 加载目标类型的生成类并创建实例
+     *
+     * @param targetClass 目标类型
+     * @param suffix      生成类的后缀
+     * @param codecType   生成类实现的接口
+     * @param <T>         接口类型
+     * @return 生成类的实例，没有时返回null
+     */
+    public static <T> T load(Class<?> targetClass, String suffix, Class<T> codecType) {
+        ClassLoader classLoader = targetClass.getClassLoader();
+        if (classLoader == null) {
+            return null;
+        }
+        Class<?> codecClass;
+        try {
+            codecClass = Class.forName(targetClass.getName() + suffix, true, classLoader);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+        if (!codecType.isAssignableFrom(codecClass)) {
+            return null;
+        }
+        try {
+            return codecType.cast(codecClass.getDeclaredConstructor().newInstance());
+        } catch (ReflectiveOperationException e) {
+            log.warn("生成类[{}]无法实例化，使用反射：{}", codecClass.getName(), e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.github.xingshuangs.iot.protocol.common.serializer;
+
+
+import com.github.xingshuangs.iot.protocol.common.buff.ByteWriteBuff;
+
+/**
+ * 字节数组编解码器，由注解处理器根据{@link ByteArrayVariable}注解为每个类型生成，
+ * 存在时{@link ByteArraySerializer}直接使用，不存在时使用反射
+ *
+ * @param <T> 目标类型
+ * @author xingshuang
+ */
+public interface IByteArrayCodec<T> {
+
+    /**
+     * 结构体占用的字节数，即所有字段的最大结束位置，作为嵌套结构体数组时相邻元素的间隔
+     *
+     * @return 字节数
+     */
+    int size();
+
+    /**
+     * 从指定的字节偏移开始解析对象
+     *
+     * @param src    字节数组
+     * @param offset 对象在字节数组中的起始偏移
+     * @return 对象
+     */
+    T decode(byte[] src, int offset);
+
+    /**
+     * 将对象写入字节缓存的指定偏移，值为null的字段跳过
+     *
+     * @param bean   对象
+     * @param buff   字节缓存
+     * @param offset 对象在字节缓存中的起始偏移
+     */
+    void encode(T bean, ByteWriteBuff buff, int offset);
+
+    /**
+     * 将对象转换为字节数组
+     *
+     * @param bean 对象
+     * @return 字节数组
+     */
+    byte[] encode(T bean);
+}
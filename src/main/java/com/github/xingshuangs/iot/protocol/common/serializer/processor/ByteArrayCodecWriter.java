@@ -0,0 +1,671 @@
+package com.github.xingshuangs.iot.protocol.common.serializer.processor;
+
+
+import com.github.xingshuangs.iot.protocol.common.enums.EDataType;
+import com.github.xingshuangs.iot.protocol.common.serializer.ByteArrayVariable;
+import com.github.xingshuangs.iot.protocol.common.serializer.GeneratedCodecLoader;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 生成字节数组编解码类，每个字段的偏移、类型和个数编译成常量，
+ * 直接调用字节缓存的读写方法，基本类型数组不产生包装对象，嵌套结构体调用结构体的生成类
+ *
+ * @author xingshuang
+ */
+class ByteArrayCodecWriter extends CodecWriter {
+
+    private static final String READ_BUFF = "com.github.xingshuangs.iot.protocol.common.buff.ByteReadBuff";
+
+    private static final String WRITE_BUFF = "com.github.xingshuangs.iot.protocol.common.buff.ByteWriteBuff";
+
+    private static final String BUFF_FORMAT = "com.github.xingshuangs.iot.protocol.common.buff.EByteBuffFormat";
+
+    private static final String BOOLEAN_UTIL = "com.github.xingshuangs.iot.utils.BooleanUtil";
+
+    /**
+     * 本轮会生成编解码类的类型，嵌套结构体必须在其中或者已经有生成类
+     */
+    private final Set<TypeElement> roundTypes;
+
+    /**
+     * 嵌套结构体的编解码类常量名
+     */
+    private final Map<TypeElement, String> codecFields = new LinkedHashMap<>();
+
+    ByteArrayCodecWriter(ProcessingEnvironment env, TypeElement type, Set<TypeElement> roundTypes) {
+        super(env, type, GeneratedCodecLoader.BYTE_ARRAY_CODEC_SUFFIX, ByteArrayVariable.class);
+        this.roundTypes = roundTypes;
+    }
+
+    @Override
+    protected String generate() {
+        List<FieldModel> models = new ArrayList<>();
+        boolean valid = true;
+        for (VariableElement field : annotatedFields(this.type, ByteArrayVariable.class)) {
+            FieldModel model = this.model(field);
+            valid &= this.check(model);
+            models.add(model);
+        }
+        if (!valid) {
+            return null;
+        }
+        for (FieldModel model : models) {
+            if (model.struct != null && !this.isCodecAvailable(model.struct)) {
+                this.warning(model.field, "嵌套结构体" + model.struct.getQualifiedName()
+                        + "没有生成类，不生成" + this.simpleName + "，运行时使用反射");
+                return null;
+            }
+        }
+        int size = this.sizeOf(this.type, new HashSet<>());
+        if (size < 0) {
+            this.error(this.type, "嵌套结构体不能直接或间接包含自身");
+            return null;
+        }
+
+        for (FieldModel model : models) {
+            if (model.struct != null) {
+                this.codecField(model.struct);
+            }
+        }
+
+        String target = this.type.getQualifiedName().toString();
+        StringBuilder sb = new StringBuilder(this.header(target));
+        sb.append("public final class ").append(this.simpleName)
+                .append(" implements com.github.xingshuangs.iot.protocol.common.serializer.IByteArrayCodec<").append(target).append("> {\n\n");
+        for (Map.Entry<TypeElement, String> entry : this.codecFields.entrySet()) {
+            String codecName = this.codecName(entry.getKey());
+            sb.append("    private static final ").append(codecName).append(" ").append(entry.getValue())
+                    .append(" = new ").append(codecName).append("();\n\n");
+        }
+        sb.append("    private static final int SIZE = ").append(size).append(";\n\n");
+        sb.append("    private static final int BUFFER_SIZE = ").append(this.bufferSize(models)).append(";\n\n");
+
+        sb.append("    @Override\n")
+                .append("    public int size() {\n")
+                .append("        return SIZE;\n")
+                .append("    }\n\n");
+        this.appendDecode(sb, target, models);
+        this.appendEncode(sb, target, models);
+        sb.append("    @Override\n")
+                .append("    public byte[] encode(").append(target).append(" bean) {\n")
+                .append("        if (BUFFER_SIZE == 0) {\n")
+                .append("            return new byte[0];\n")
+                .append("        }\n")
+                .append("        ").append(WRITE_BUFF).append(" buff = ").append(WRITE_BUFF).append(".newInstance(BUFFER_SIZE);\n")
+                .append("        this.encode(bean, buff, 0);\n")
+                .append("        return buff.getData();\n")
+                .append("    }\n")
+                .append("}\n");
+        return sb.toString();
+    }
+
+    //region 解码
+
+    private void appendDecode(StringBuilder sb, String target, List<FieldModel> models) {
+        sb.append("    @Override\n")
+                .append("    public ").append(target).append(" decode(byte[] src, int offset) {\n");
+        boolean big = false;
+        boolean little = false;
+        for (FieldModel model : models) {
+            if (model.struct == null) {
+                big |= !model.variable.littleEndian();
+                little |= model.variable.littleEndian();
+            }
+        }
+        if (big) {
+            sb.append("        ").append(READ_BUFF).append(" buff = new ").append(READ_BUFF)
+                    .append("(src, 0, false, ").append(BUFF_FORMAT).append(".DC_BA);\n");
+        }
+        if (little) {
+            sb.append("        ").append(READ_BUFF).append(" littleBuff = new ").append(READ_BUFF)
+                    .append("(src, 0, true, ").append(BUFF_FORMAT).append(".DC_BA);\n");
+        }
+        sb.append("        ").append(target).append(" bean = new ").append(target).append("();\n");
+        for (FieldModel model : models) {
+            this.appendDecodeField(sb, model);
+        }
+        sb.append("        return bean;\n")
+                .append("    }\n\n");
+    }
+
+    private void appendDecodeField(StringBuilder sb, FieldModel model) {
+        ByteArrayVariable variable = model.variable;
+        String buff = variable.littleEndian() ? "littleBuff" : "buff";
+        String offset = "offset + " + variable.byteOffset();
+        int count = variable.count();
+        switch (model.kind) {
+            case SCALAR:
+                String value;
+                if (variable.type() == EDataType.BOOL) {
+                    value = buff + ".getBoolean(" + offset + ", " + variable.bitOffset() + ")";
+                } else if (variable.type() == EDataType.STRING) {
+                    value = buff + ".getString(" + offset + ", " + count + ")";
+                } else {
+                    value = readElement(buff, variable, offset, null);
+                }
+                sb.append("        ").append(writeField("bean", model.field, value)).append("\n");
+                break;
+            case LIST:
+                sb.append("        {\n")
+                        .append("            java.util.ArrayList<").append(boxedName(variable.type())).append("> list = new java.util.ArrayList<>(")
+                        .append(count).append(");\n")
+                        .append("            for (int i = 0; i < ").append(count).append("; i++) {\n")
+                        .append("                list.add(").append(readElement(buff, variable, offset, "i")).append(");\n")
+                        .append("            }\n")
+                        .append("            ").append(writeField("bean", model.field, "list")).append("\n")
+                        .append("        }\n");
+                break;
+            case ARRAY:
+                String primitive = primitiveName(variable.type());
+                sb.append("        {\n")
+                        .append("            ").append(primitive).append("[] array = new ").append(primitive).append("[").append(count).append("];\n")
+                        .append("            for (int i = 0; i < ").append(count).append("; i++) {\n")
+                        .append("                array[i] = ").append(readElement(buff, variable, offset, "i")).append(";\n")
+                        .append("            }\n")
+                        .append("            ").append(writeField("bean", model.field, "array")).append("\n")
+                        .append("        }\n");
+                break;
+            case STRUCT:
+                sb.append("        ").append(writeField("bean", model.field,
+                        this.codecField(model.struct) + ".decode(src, " + offset + ")")).append("\n");
+                break;
+            case STRUCT_ARRAY:
+            case STRUCT_LIST:
+                String structName = model.struct.getQualifiedName().toString();
+                String element = this.codecField(model.struct) + ".decode(src, " + offset + " + i * "
+                        + this.codecField(model.struct) + ".size())";
+                sb.append("        {\n");
+                if (model.kind == Kind.STRUCT_ARRAY) {
+                    sb.append("            ").append(structName).append("[] array = new ").append(structName).append("[").append(count).append("];\n")
+                            .append("            for (int i = 0; i < ").append(count).append("; i++) {\n")
+                            .append("                array[i] = ").append(element).append(";\n")
+                            .append("            }\n")
+                            .append("            ").append(writeField("bean", model.field, "array")).append("\n");
+                } else {
+                    sb.append("            java.util.ArrayList<").append(structName).append("> list = new java.util.ArrayList<>(").append(count).append(");\n")
+                            .append("            for (int i = 0; i < ").append(count).append("; i++) {\n")
+                            .append("                list.add(").append(element).append(");\n")
+                            .append("            }\n")
+                            .append("            ").append(writeField("bean", model.field, "list")).append("\n");
+                }
+                sb.append("        }\n");
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 读取一个元素的表达式
+     *
+     * @param buff     字节缓存变量名
+     * @param variable 注解
+     * @param offset   起始偏移表达式
+     * @param index    元素索引表达式，单个数据时为null
+     * @return 表达式
+     */
+    private static String readElement(String buff, ByteArrayVariable variable, String offset, String index) {
+        if (variable.type() == EDataType.BOOL) {
+            return buff + ".getBoolean(" + offset + " + (" + variable.bitOffset() + " + " + index + ") / 8, ("
+                    + variable.bitOffset() + " + " + index + ") % 8)";
+        }
+        String position = index == null ? offset : offset + " + " + index + " * " + variable.type().getByteLength();
+        switch (variable.type()) {
+            case BYTE:
+                return buff + ".getByte(" + position + ")";
+            case UINT16:
+                return buff + ".getUInt16(" + position + ")";
+            case INT16:
+                return buff + ".getInt16(" + position + ")";
+            case UINT32:
+                return buff + ".getUInt32(" + position + ")";
+            case INT32:
+                return buff + ".getInt32(" + position + ")";
+            case FLOAT32:
+                return buff + ".getFloat32(" + position + ")";
+            case FLOAT64:
+                return buff + ".getFloat64(" + position + ")";
+            default:
+                throw new IllegalArgumentException(variable.type().name());
+        }
+    }
+
+    //endregion
+
+    //region 编码
+
+    private void appendEncode(StringBuilder sb, String target, List<FieldModel> models) {
+        sb.append("    @Override\n")
+                .append("    public void encode(").append(target).append(" bean, ").append(WRITE_BUFF).append(" buff, int offset) {\n");
+        for (FieldModel model : models) {
+            this.appendEncodeField(sb, model);
+        }
+        sb.append("    }\n\n");
+    }
+
+    private void appendEncodeField(StringBuilder sb, FieldModel model) {
+        ByteArrayVariable variable = model.variable;
+        String offset = "offset + " + variable.byteOffset();
+        String getter = readField("bean", model.field);
+        boolean primitiveField = model.field.asType().getKind().isPrimitive();
+        sb.append("        {\n");
+        switch (model.kind) {
+            case SCALAR:
+                String valueType = primitiveField ? model.field.asType().toString()
+                        : variable.type() == EDataType.STRING ? "java.lang.String" : boxedName(variable.type());
+                sb.append("            ").append(valueType).append(" value = ").append(getter).append(";\n");
+                if (primitiveField) {
+                    sb.append("            ").append(writeElement(variable, "value", offset, null)).append("\n");
+                } else {
+                    sb.append("            if (value != null) {\n")
+                            .append("                ").append(writeElement(variable, "value", offset, null)).append("\n")
+                            .append("            }\n");
+                }
+                break;
+            case LIST:
+                sb.append("            java.util.List<").append(boxedName(variable.type())).append("> list = ").append(getter).append(";\n")
+                        .append("            if (list != null) {\n")
+                        .append("                for (int i = 0; i < list.size(); i++) {\n")
+                        .append("                    ").append(writeElement(variable, "list.get(i)", offset, "i")).append("\n")
+                        .append("                }\n")
+                        .append("            }\n");
+                break;
+            case ARRAY:
+                sb.append("            ").append(primitiveName(variable.type())).append("[] array = ").append(getter).append(";\n")
+                        .append("            if (array != null) {\n")
+                        .append("                int count = Math.min(").append(variable.count()).append(", array.length);\n")
+                        .append("                for (int i = 0; i < count; i++) {\n")
+                        .append("                    ").append(writeElement(variable, "array[i]", offset, "i")).append("\n")
+                        .append("                }\n")
+                        .append("            }\n");
+                break;
+            case STRUCT:
+                sb.append("            ").append(model.struct.getQualifiedName()).append(" value = ").append(getter).append(";\n")
+                        .append("            if (value != null) {\n")
+                        .append("                ").append(this.codecField(model.struct)).append(".encode(value, buff, ").append(offset).append(");\n")
+                        .append("            }\n");
+                break;
+            case STRUCT_ARRAY:
+            case STRUCT_LIST:
+                String structName = model.struct.getQualifiedName().toString();
+                String codec = this.codecField(model.struct);
+                if (model.kind == Kind.STRUCT_ARRAY) {
+                    sb.append("            ").append(structName).append("[] array = ").append(getter).append(";\n")
+                            .append("            if (array != null) {\n")
+                            .append("                for (int i = 0; i < array.length; i++) {\n")
+                            .append("                    ").append(structName).append(" item = array[i];\n");
+                } else {
+                    sb.append("            java.util.List<").append(structName).append("> list = ").append(getter).append(";\n")
+                            .append("            if (list != null) {\n")
+                            .append("                for (int i = 0; i < list.size(); i++) {\n")
+                            .append("                    ").append(structName).append(" item = list.get(i);\n");
+                }
+                sb.append("                    if (item != null) {\n")
+                        .append("                        ").append(codec).append(".encode(item, buff, ").append(offset)
+                        .append(" + i * ").append(codec).append(".size());\n")
+                        .append("                    }\n")
+                        .append("                }\n")
+                        .append("            }\n");
+                break;
+            default:
+                break;
+        }
+        sb.append("        }\n");
+    }
+
+    /**
+     * 写入一个元素的语句
+     *
+     * @param variable 注解
+     * @param value    值表达式
+     * @param offset   起始偏移表达式
+     * @param index    元素索引表达式，单个数据时为null
+     * @return 语句
+     */
+    private static String writeElement(ByteArrayVariable variable, String value, String offset, String index) {
+        String littleEndian = String.valueOf(variable.littleEndian());
+        String position = index == null ? offset : offset + " + " + index + " * " + variable.type().getByteLength();
+        switch (variable.type()) {
+            case BOOL:
+                String byteIndex = index == null ? offset : offset + " + (" + variable.bitOffset() + " + " + index + ") / 8";
+                String bitIndex = index == null ? String.valueOf(variable.bitOffset())
+                        : "(" + variable.bitOffset() + " + " + index + ") % 8";
+                return "buff.putByte(" + BOOLEAN_UTIL + ".setBit(buff.getByte(" + byteIndex + "), " + bitIndex + ", "
+                        + value + "), " + byteIndex + ");";
+            case BYTE:
+                return "buff.putByte(" + value + ", " + position + ");";
+            case UINT16:
+            case INT16:
+                return "buff.putShort(" + value + ", " + position + ", " + littleEndian + ");";
+            case UINT32:
+            case INT32:
+                return "buff.putInteger(" + value + ", " + position + ", " + littleEndian + ");";
+            case FLOAT32:
+                return "buff.putFloat(" + value + ", " + position + ", " + littleEndian + ");";
+            case FLOAT64:
+                return "buff.putDouble(" + value + ", " + position + ", " + littleEndian + ");";
+            case STRING:
+                return "buff.putString(" + value + ", java.nio.charset.StandardCharsets.US_ASCII, " + offset + ");";
+            default:
+                throw new IllegalArgumentException(variable.type().name());
+        }
+    }
+
+    //endregion
+
+    //region 字段模型
+
+    /**
+     * 字段种类
+     */
+    private enum Kind {
+        SCALAR, LIST, ARRAY, STRUCT, STRUCT_ARRAY, STRUCT_LIST, UNSUPPORTED
+    }
+
+    /**
+     * 字段模型
+     */
+    private static final class FieldModel {
+
+        private final VariableElement field;
+
+        private final ByteArrayVariable variable;
+
+        private final Kind kind;
+
+        /**
+         * 元素类型，结构体时为null
+         */
+        private final TypeMirror elementType;
+
+        /**
+         * 嵌套结构体类型，不是结构体时为null
+         */
+        private final TypeElement struct;
+
+        private FieldModel(VariableElement field, Kind kind, TypeMirror elementType, TypeElement struct) {
+            this.field = field;
+            this.variable = field.getAnnotation(ByteArrayVariable.class);
+            this.kind = kind;
+            this.elementType = elementType;
+            this.struct = struct;
+        }
+    }
+
+    /**
+     * 根据字段类型确定字段种类，和运行时的判断规则一致
+     *
+     * @param field 字段
+     * @return 字段模型
+     */
+    private FieldModel model(VariableElement field) {
+        Types types = this.env.getTypeUtils();
+        TypeMirror fieldType = field.asType();
+        if (fieldType.getKind() == TypeKind.ARRAY) {
+            TypeMirror component = ((ArrayType) fieldType).getComponentType();
+            if (component.getKind().isPrimitive()) {
+                return new FieldModel(field, Kind.ARRAY, component, null);
+            }
+            TypeElement struct = this.structOf(component);
+            return new FieldModel(field, struct == null ? Kind.UNSUPPORTED : Kind.STRUCT_ARRAY, component, struct);
+        }
+        if (fieldType.getKind() == TypeKind.DECLARED) {
+            TypeMirror list = types.erasure(this.env.getElementUtils().getTypeElement("java.util.List").asType());
+            if (types.isAssignable(types.erasure(fieldType), list)) {
+                TypeMirror arrayList = types.erasure(this.env.getElementUtils().getTypeElement("java.util.ArrayList").asType());
+                List<? extends TypeMirror> arguments = ((DeclaredType) fieldType).getTypeArguments();
+                if (arguments.size() != 1 || !types.isAssignable(arrayList, types.erasure(fieldType))) {
+                    return new FieldModel(field, Kind.UNSUPPORTED, null, null);
+                }
+                TypeElement struct = this.structOf(arguments.get(0));
+                return new FieldModel(field, struct == null ? Kind.LIST : Kind.STRUCT_LIST, arguments.get(0), struct);
+            }
+            TypeElement struct = this.structOf(fieldType);
+            return new FieldModel(field, struct == null ? Kind.SCALAR : Kind.STRUCT, fieldType, struct);
+        }
+        return new FieldModel(field, fieldType.getKind().isPrimitive() ? Kind.SCALAR : Kind.UNSUPPORTED, fieldType, null);
+    }
+
+    /**
+     * 类型是否为嵌套结构体，非java包中带有字节数组注解字段的类型视为结构体
+     *
+     * @param typeMirror 类型
+     * @return 结构体类型，不是时返回null
+     */
+    private TypeElement structOf(TypeMirror typeMirror) {
+        if (typeMirror.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        Element element = this.env.getTypeUtils().asElement(typeMirror);
+        if (!(element instanceof TypeElement) || ((TypeElement) element).getQualifiedName().toString().startsWith("java.")) {
+            return null;
+        }
+        TypeElement typeElement = (TypeElement) element;
+        return annotatedFields(typeElement, ByteArrayVariable.class).isEmpty() ? null : typeElement;
+    }
+
+    /**
+     * 校验注解参数和字段类型，规则和运行时一致
+     *
+     * @param model 字段模型
+     * @return 校验通过返回true
+     */
+    private boolean check(FieldModel model) {
+        ByteArrayVariable variable = model.variable;
+        String message = null;
+        if (variable.byteOffset() < 0) {
+            message = "字节偏移量不能为负数";
+        } else if (variable.count() < 0) {
+            message = "数据个数不能为负数";
+        } else if (variable.type() == EDataType.BOOL && (variable.bitOffset() > 7 || variable.bitOffset() < 0)) {
+            message = "当数据类型为bool时，位偏移量只能是[0,7]";
+        } else if (model.kind == Kind.UNSUPPORTED) {
+            message = "不支持的字段类型" + model.field.asType();
+        } else if (model.struct == null && primitiveName(variable.type()) == null && variable.type() != EDataType.STRING) {
+            message = "不支持的数据类型" + variable.type();
+        } else if (model.kind == Kind.SCALAR) {
+            String expect = variable.type() == EDataType.STRING ? "java.lang.String" : boxedName(variable.type());
+            if (!expect.equals(this.boxedName(model.elementType))) {
+                message = "数据类型" + variable.type() + "对应的字段类型必须是" + expect;
+            } else if (variable.type() != EDataType.STRING && variable.count() > 1) {
+                message = "数据个数大于1时字段类型必须是List或数组";
+            }
+        } else if (model.kind == Kind.LIST) {
+            String expect = boxedName(variable.type());
+            if (variable.type() == EDataType.STRING || !expect.equals(this.boxedName(model.elementType))) {
+                message = "数据类型" + variable.type() + "对应的List元素类型必须是" + expect;
+            }
+        } else if (model.kind == Kind.ARRAY) {
+            String expect = primitiveName(variable.type());
+            if (!model.elementType.toString().equals(expect)) {
+                message = "数据类型" + variable.type() + "对应的数组类型必须是" + expect + "[]";
+            }
+        }
+        if (message != null) {
+            this.error(model.field, message);
+            return false;
+        }
+        return true;
+    }
+
+    //endregion
+
+    //region 嵌套结构体
+
+    /**
+     * 嵌套结构体是否有可用的生成类，本轮生成或者之前已经生成
+     *
+     * @param struct 结构体类型
+     * @return 可用返回true
+     */
+    private boolean isCodecAvailable(TypeElement struct) {
+        if (this.unsupportedReason(struct) != null) {
+            return false;
+        }
+        return this.roundTypes.contains(struct) || this.env.getElementUtils().getTypeElement(this.codecName(struct)) != null;
+    }
+
+    /**
+     * 结构体生成类的全限定名
+     *
+     * @param struct 结构体类型
+     * @return 全限定名
+     */
+    private String codecName(TypeElement struct) {
+        PackageElement packageElement = this.env.getElementUtils().getPackageOf(struct);
+        String simple = generatedSimpleName(this.env, struct, GeneratedCodecLoader.BYTE_ARRAY_CODEC_SUFFIX);
+        return packageElement.isUnnamed() ? simple : packageElement.getQualifiedName() + "." + simple;
+    }
+
+    /**
+     * 结构体生成类的常量名
+     *
+     * @param struct 结构体类型
+     * @return 常量名
+     */
+    private String codecField(TypeElement struct) {
+        return this.codecFields.computeIfAbsent(struct, k -> "CODEC_" + this.codecFields.size());
+    }
+
+    /**
+     * 计算结构体占用的字节数，和运行时的计算规则一致
+     *
+     * @param struct   结构体类型
+     * @param visiting 正在计算的结构体，用于检查循环嵌套
+     * @return 字节数，存在循环嵌套时返回-1
+     */
+    private int sizeOf(TypeElement struct, Set<TypeElement> visiting) {
+        if (!visiting.add(struct)) {
+            return -1;
+        }
+        int size = 0;
+        for (VariableElement field : annotatedFields(struct, ByteArrayVariable.class)) {
+            FieldModel model = this.model(field);
+            ByteArrayVariable variable = model.variable;
+            int end;
+            if (model.struct != null) {
+                int nested = this.sizeOf(model.struct, visiting);
+                if (nested < 0) {
+                    return -1;
+                }
+                end = variable.byteOffset() + variable.count() * nested;
+            } else if (variable.type() == EDataType.BOOL) {
+                end = variable.byteOffset() + (variable.bitOffset() + variable.count() + 7) / 8;
+            } else {
+                end = variable.byteOffset() + variable.count() * variable.type().getByteLength();
+            }
+            size = Math.max(size, end);
+        }
+        visiting.remove(struct);
+        return size;
+    }
+
+    /**
+     * 转换为字节数组时的缓存大小，和运行时的计算规则一致
+     *
+     * @param models 字段模型
+     * @return 缓存大小
+     */
+    private int bufferSize(List<FieldModel> models) {
+        int size = 0;
+        for (FieldModel model : models) {
+            ByteArrayVariable variable = model.variable;
+            int length = model.struct == null ? variable.type().getByteLength() : this.sizeOf(model.struct, new HashSet<>());
+            size = Math.max(size, variable.byteOffset() + variable.count() * length);
+        }
+        return size;
+    }
+
+    //endregion
+
+    //region 类型名称
+
+    /**
+     * 数据类型对应的基本类型名称
+     *
+     * @param dataType 数据类型
+     * @return 基本类型名称，不支持时返回null
+     */
+    private static String primitiveName(EDataType dataType) {
+        switch (dataType) {
+            case BOOL:
+                return "boolean";
+            case BYTE:
+                return "byte";
+            case UINT16:
+            case INT32:
+                return "int";
+            case INT16:
+                return "short";
+            case UINT32:
+                return "long";
+            case FLOAT32:
+                return "float";
+            case FLOAT64:
+                return "double";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 数据类型对应的包装类型名称
+     *
+     * @param dataType 数据类型
+     * @return 包装类型名称，不支持时返回null
+     */
+    private static String boxedName(EDataType dataType) {
+        String primitive = primitiveName(dataType);
+        if (primitive == null) {
+            return null;
+        }
+        switch (primitive) {
+            case "boolean":
+                return "java.lang.Boolean";
+            case "byte":
+                return "java.lang.Byte";
+            case "int":
+                return "java.lang.Integer";
+            case "short":
+                return "java.lang.Short";
+            case "long":
+                return "java.lang.Long";
+            case "float":
+                return "java.lang.Float";
+            default:
+                return "java.lang.Double";
+        }
+    }
+
+    /**
+     * 字段类型的包装类型名称
+     *
+     * @param typeMirror 类型
+     * @return 包装类型名称
+     */
+    private String boxedName(TypeMirror typeMirror) {
+        if (typeMirror.getKind().isPrimitive()) {
+            return this.env.getTypeUtils().boxedClass(this.env.getTypeUtils().getPrimitiveType(typeMirror.getKind()))
+                    .getQualifiedName().toString();
+        }
+        return this.env.getTypeUtils().erasure(typeMirror).toString();
+    }
+
+    //endregion
+}
@@ -0,0 +1,369 @@
+package com.github.xingshuangs.iot.protocol.common.serializer.processor;
+
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 生成类源码的公共部分，包括可访问性检查、字段访问表达式和源码写入。
+ * 生成类只能访问非私有的构造方法、字段和getter/setter，不满足时不生成，运行时使用反射
+ *
+ * @author xingshuang
+ */
+abstract class CodecWriter {
+
+    /**
+     * 处理环境
+     */
+    protected final ProcessingEnvironment env;
+
+    /**
+     * 目标类型
+     */
+    protected final TypeElement type;
+
+    /**
+     * 目标类型的包名
+     */
+    protected final String packageName;
+
+    /**
+     * 生成类的简单类名
+     */
+    protected final String simpleName;
+
+    /**
+     * 字段注解类型
+     */
+    protected final Class<? extends Annotation> annotationType;
+
+    protected CodecWriter(ProcessingEnvironment env, TypeElement type, String suffix,
+                          Class<? extends Annotation> annotationType) {
+        this.env = env;
+        this.type = type;
+        this.annotationType = annotationType;
+        PackageElement packageElement = env.getElementUtils().getPackageOf(type);
+        this.packageName = packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+        this.simpleName = generatedSimpleName(env, type, suffix);
+    }
+
+    /**
+     * 生成类的简单类名，即目标类型去掉包名的二进制名加后缀，内部类为Outer$Inner加后缀
+     *
+     * @param env    处理环境
+     * @param type   目标类型
+     * @param suffix 后缀
+     * @return 简单类名
+     */
+    static String generatedSimpleName(ProcessingEnvironment env, TypeElement type, String suffix) {
+        String binaryName = env.getElementUtils().getBinaryName(type).toString();
+        return binaryName.substring(binaryName.lastIndexOf('.') + 1) + suffix;
+    }
+
+    /**
+     * 生成类的全限定名
+     *
+     * @return 全限定名
+     */
+    String getGeneratedName() {
+        return this.packageName.isEmpty() ? this.simpleName : this.packageName + "." + this.simpleName;
+    }
+
+    /**
+     * 校验并写入源码，校验失败时不生成
+     */
+    void write() {
+        String reason = this.unsupportedReason(this.type);
+        if (reason != null) {
+            this.warning(this.type, reason + "，不生成" + this.simpleName + "，运行时使用反射");
+            return;
+        }
+        String source = this.generate();
+        if (source == null) {
+            return;
+        }
+        try {
+            JavaFileObject file = this.env.getFiler().createSourceFile(this.getGeneratedName(), this.type);
+            try (Writer writer = file.openWriter()) {
+                writer.write(source);
+            }
+        } catch (IOException e) {
+            this.error(this.type, "写入" + this.simpleName + "失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 生成源码
+     *
+     * @return 源码，注解参数错误时返回null
+     */
+    protected abstract String generate();
+
+    /**
+     * 检查生成类能否访问该类型，包括类型本身、无参构造方法和带注解的私有字段的getter/setter
+     *
+     * @param element 类型
+     * @return 不能生成的原因，能生成返回null
+     */
+    protected String unsupportedReason(TypeElement element) {
+        if (!this.isAccessible(element)) {
+            return "类型不是非私有的顶层类或静态内部类";
+        }
+        if (!this.hasNoArgConstructor(element)) {
+            return "类型没有非私有的无参构造方法";
+        }
+        for (VariableElement field : annotatedFields(element, this.annotationType)) {
+            if (!field.getModifiers().contains(Modifier.PRIVATE)) {
+                continue;
+            }
+            if (!this.hasGetter(element, field)) {
+                return "私有字段[" + field.getSimpleName() + "]没有非私有的" + getterName(field) + "方法";
+            }
+            if (!this.hasSetter(element, field)) {
+                return "私有字段[" + field.getSimpleName() + "]没有非私有的" + setterName(field) + "方法";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 同一个包中能否访问该类型，包括所有外部类
+     *
+     * @param element 类型
+     * @return 能访问返回true
+     */
+    protected boolean isAccessible(TypeElement element) {
+        if (element.getKind() != ElementKind.CLASS || element.getModifiers().contains(Modifier.ABSTRACT)) {
+            return false;
+        }
+        TypeElement current = element;
+        while (true) {
+            if (current.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            if (current.getNestingKind() == NestingKind.TOP_LEVEL) {
+                return true;
+            }
+            if (current.getNestingKind() != NestingKind.MEMBER || !current.getModifiers().contains(Modifier.STATIC)
+                    || !(current.getEnclosingElement() instanceof TypeElement)) {
+                return false;
+            }
+            current = (TypeElement) current.getEnclosingElement();
+        }
+    }
+
+    /**
+     * 是否有可访问的无参构造方法
+     *
+     * @param element 类型
+     * @return 有返回true
+     */
+    private boolean hasNoArgConstructor(TypeElement element) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(element.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                return true;
+            }
+        }
+        // lombok可能在本处理器之后才生成构造方法
+        Boolean lombok = lombokAccessible(element, "lombok.NoArgsConstructor");
+        return lombok != null && lombok;
+    }
+
+    /**
+     * 私有字段是否有可访问的getter，包括继承的方法和lombok生成的方法
+     *
+     * @param element 类型
+     * @param field   字段
+     * @return 有返回true
+     */
+    private boolean hasGetter(TypeElement element, VariableElement field) {
+        String name = getterName(field);
+        for (ExecutableElement method : this.accessibleMethods(element)) {
+            if (method.getSimpleName().contentEquals(name) && method.getParameters().isEmpty()
+                    && this.env.getTypeUtils().isAssignable(method.getReturnType(), field.asType())) {
+                return true;
+            }
+        }
+        Boolean lombok = lombokAccessible(field, "lombok.Getter");
+        if (lombok == null) {
+            lombok = lombokAccessible(element, "lombok.Getter", "lombok.Data", "lombok.Value");
+        }
+        return lombok != null && lombok;
+    }
+
+    /**
+     * 私有字段是否有可访问的setter，包括继承的方法和lombok生成的方法
+     *
+     * @param element 类型
+     * @param field   字段
+     * @return 有返回true
+     */
+    private boolean hasSetter(TypeElement element, VariableElement field) {
+        String name = setterName(field);
+        for (ExecutableElement method : this.accessibleMethods(element)) {
+            if (method.getSimpleName().contentEquals(name) && method.getParameters().size() == 1
+                    && this.env.getTypeUtils().isAssignable(field.asType(), method.getParameters().get(0).asType())) {
+                return true;
+            }
+        }
+        if (field.getModifiers().contains(Modifier.FINAL)) {
+            return false;
+        }
+        Boolean lombok = lombokAccessible(field, "lombok.Setter");
+        if (lombok == null) {
+            lombok = lombokAccessible(element, "lombok.Setter", "lombok.Data");
+        }
+        return lombok != null && lombok;
+    }
+
+    /**
+     * 类型中非私有的实例方法，包括继承的方法
+     *
+     * @param element 类型
+     * @return 方法列表
+     */
+    private List<ExecutableElement> accessibleMethods(TypeElement element) {
+        List<ExecutableElement> res = new ArrayList<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(this.env.getElementUtils().getAllMembers(element))) {
+            if (!method.getModifiers().contains(Modifier.PRIVATE) && !method.getModifiers().contains(Modifier.STATIC)) {
+                res.add(method);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * lombok注解生成的方法是否可访问，访问级别为PRIVATE或NONE时不可访问
+     *
+     * @param element         注解所在的元素
+     * @param annotationNames lombok注解的全限定名
+     * @return 没有注解返回null，可访问返回true
+     */
+    private static Boolean lombokAccessible(Element element, String... annotationNames) {
+        List<String> names = Arrays.asList(annotationNames);
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            Element annotation = mirror.getAnnotationType().asElement();
+            if (!(annotation instanceof TypeElement)
+                    || !names.contains(((TypeElement) annotation).getQualifiedName().toString())) {
+                continue;
+            }
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : mirror.getElementValues().entrySet()) {
+                String key = entry.getKey().getSimpleName().toString();
+                Object value = entry.getValue().getValue();
+                if ((key.equals("value") || key.equals("access")) && value instanceof VariableElement) {
+                    String level = ((VariableElement) value).getSimpleName().toString();
+                    if (level.equals("PRIVATE") || level.equals("NONE")) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return null;
+    }
+
+    /**
+     * 获取类型中带有指定注解的非静态字段，顺序和声明顺序一致
+     *
+     * @param element        类型
+     * @param annotationType 注解类型
+     * @return 字段列表
+     */
+    protected static List<VariableElement> annotatedFields(TypeElement element, Class<? extends Annotation> annotationType) {
+        List<VariableElement> res = new ArrayList<>();
+        for (VariableElement field : ElementFilter.fieldsIn(element.getEnclosedElements())) {
+            if (field.getAnnotation(annotationType) != null && !field.getModifiers().contains(Modifier.STATIC)) {
+                res.add(field);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * 读取字段的表达式，私有字段使用getter
+     *
+     * @param bean  对象变量名
+     * @param field 字段
+     * @return 表达式
+     */
+    protected static String readField(String bean, VariableElement field) {
+        if (!field.getModifiers().contains(Modifier.PRIVATE)) {
+            return bean + "." + field.getSimpleName();
+        }
+        return bean + "." + getterName(field) + "()";
+    }
+
+    /**
+     * 设置字段的语句，私有字段使用setter
+     *
+     * @param bean  对象变量名
+     * @param field 字段
+     * @param value 值表达式
+     * @return 语句
+     */
+    protected static String writeField(String bean, VariableElement field, String value) {
+        if (!field.getModifiers().contains(Modifier.PRIVATE)) {
+            return bean + "." + field.getSimpleName() + " = " + value + ";";
+        }
+        return bean + "." + setterName(field) + "(" + value + ");";
+    }
+
+    private static String getterName(VariableElement field) {
+        String prefix = field.asType().getKind() == TypeKind.BOOLEAN ? "is" : "get";
+        return prefix + capitalize(field.getSimpleName().toString());
+    }
+
+    private static String setterName(VariableElement field) {
+        return "set" + capitalize(field.getSimpleName().toString());
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    /**
+     * 生成的源码头部，包括包声明和说明
+     *
+     * @param targetName 目标类型名称
+     * @return 源码头部
+     */
+    protected String header(String targetName) {
+        StringBuilder sb = new StringBuilder();
+        if (!this.packageName.isEmpty()) {
+            sb.append("package ").append(this.packageName).append(";\n\n");
+        }
+        sb.append("/**\n")
+                .append(" * ").append(targetName).append("的序列化生成类，由").append(SerializerCodecProcessor.class.getSimpleName())
+                .append("生成，不要修改\n")
+                .append(" */\n");
+        return sb.toString();
+    }
+
+    protected void warning(Element element, String message) {
+        this.env.getMessager().printMessage(Diagnostic.Kind.WARNING, message, element);
+    }
+
+    protected void error(Element element, String message) {
+        this.env.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
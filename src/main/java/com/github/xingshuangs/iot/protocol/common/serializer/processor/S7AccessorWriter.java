@@ -0,0 +1,137 @@
+package com.github.xingshuangs.iot.protocol.common.serializer.processor;
+
+
+import com.github.xingshuangs.iot.protocol.common.enums.EDataType;
+import com.github.xingshuangs.iot.protocol.common.serializer.GeneratedCodecLoader;
+import com.github.xingshuangs.iot.protocol.s7.serializer.S7Variable;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import java.util.List;
+
+/**
+ * 生成S7字段访问类，字段地址、类型和个数编译成常量，字段读写直接访问字段或getter/setter
+ *
+ * @author xingshuang
+ */
+class S7AccessorWriter extends CodecWriter {
+
+    S7AccessorWriter(ProcessingEnvironment env, TypeElement type) {
+        super(env, type, GeneratedCodecLoader.S7_ACCESSOR_SUFFIX, S7Variable.class);
+    }
+
+    @Override
+    protected String generate() {
+        List<VariableElement> fields = annotatedFields(this.type, S7Variable.class);
+        boolean valid = true;
+        for (VariableElement field : fields) {
+            valid &= this.check(field);
+        }
+        if (!valid) {
+            return null;
+        }
+
+        String target = this.type.getQualifiedName().toString();
+        StringBuilder addresses = new StringBuilder();
+        StringBuilder types = new StringBuilder();
+        StringBuilder counts = new StringBuilder();
+        StringBuilder getCases = new StringBuilder();
+        StringBuilder setCases = new StringBuilder();
+        for (int i = 0; i < fields.size(); i++) {
+            VariableElement field = fields.get(i);
+            S7Variable variable = field.getAnnotation(S7Variable.class);
+            String separator = i == 0 ? "" : ", ";
+            addresses.append(separator).append(this.env.getElementUtils().getConstantExpression(variable.address()));
+            types.append(separator).append(EDataType.class.getName()).append(".").append(variable.type().name());
+            counts.append(separator).append(variable.count());
+            getCases.append("            case ").append(i).append(":\n")
+                    .append("                return ").append(readField("bean", field)).append(";\n");
+            setCases.append("            case ").append(i).append(":\n")
+                    .append("                ").append(writeField("bean", field, "(" + this.boxedName(field.asType()) + ") value")).append("\n")
+                    .append("                break;\n");
+        }
+        return this.header(target)
+                + "public final class " + this.simpleName + " implements com.github.xingshuangs.iot.protocol.s7.serializer.IS7BeanAccessor<" + target + "> {\n\n"
+                + "    private static final String[] ADDRESSES = {" + addresses + "};\n\n"
+                + "    private static final " + EDataType.class.getName() + "[] TYPES = {" + types + "};\n\n"
+                + "    private static final int[] COUNTS = {" + counts + "};\n\n"
+                + "    @Override\n"
+                + "    public int size() {\n"
+                + "        return " + fields.size() + ";\n"
+                + "    }\n\n"
+                + "    @Override\n"
+                + "    public String address(int index) {\n"
+                + "        return ADDRESSES[index];\n"
+                + "    }\n\n"
+                + "    @Override\n"
+                + "    public " + EDataType.class.getName() + " type(int index) {\n"
+                + "        return TYPES[index];\n"
+                + "    }\n\n"
+                + "    @Override\n"
+                + "    public int count(int index) {\n"
+                + "        return COUNTS[index];\n"
+                + "    }\n\n"
+                + "    @Override\n"
+                + "    public " + target + " newInstance() {\n"
+                + "        return new " + target + "();\n"
+                + "    }\n\n"
+                + "    @Override\n"
+                + "    public Object get(" + target + " bean, int index) {\n"
+                + "        switch (index) {\n"
+                + getCases
+                + "            default:\n"
+                + "                throw new IndexOutOfBoundsException(\"index: \" + index);\n"
+                + "        }\n"
+                + "    }\n\n"
+                + "    @Override\n"
+                + "    public void set(" + target + " bean, int index, Object value) {\n"
+                + "        switch (index) {\n"
+                + setCases
+                + "            default:\n"
+                + "                throw new IndexOutOfBoundsException(\"index: \" + index);\n"
+                + "        }\n"
+                + "    }\n"
+                + "}\n";
+    }
+
+    /**
+     * 校验注解参数，规则和运行时一致
+     *
+     * @param field 字段
+     * @return 校验通过返回true
+     */
+    private boolean check(VariableElement field) {
+        S7Variable variable = field.getAnnotation(S7Variable.class);
+        String message = null;
+        if (variable.address().isEmpty()) {
+            message = "S7参数注解中[address]不能为空";
+        } else if (variable.count() < 0) {
+            message = "S7参数注解中[count]不能为负数";
+        } else if (variable.type() == EDataType.STRING && variable.count() > 254) {
+            message = "S7参数注解中字符串类型类型数据的[count]不能大于254";
+        } else if (variable.type() != EDataType.BYTE && variable.type() != EDataType.STRING && variable.count() > 1) {
+            message = "S7参数注解中只有[type]=字节和字符串类型数据的[count]才能大于1，其他必须等于1";
+        }
+        if (message != null) {
+            this.error(field, message);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 字段类型的引用类型名称，基本类型转换为包装类型，泛型擦除
+     *
+     * @param typeMirror 字段类型
+     * @return 类型名称
+     */
+    private String boxedName(TypeMirror typeMirror) {
+        if (typeMirror.getKind().isPrimitive()) {
+            return this.env.getTypeUtils().boxedClass(this.env.getTypeUtils().getPrimitiveType(typeMirror.getKind()))
+                    .getQualifiedName().toString();
+        }
+        return this.env.getTypeUtils().erasure(typeMirror).toString();
+    }
+}
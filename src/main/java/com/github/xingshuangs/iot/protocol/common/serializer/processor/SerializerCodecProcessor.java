@@ -0,0 +1,84 @@
+package com.github.xingshuangs.iot.protocol.common.serializer.processor;
+
+
+import com.github.xingshuangs.iot.protocol.common.serializer.ByteArrayVariable;
+import com.github.xingshuangs.iot.protocol.s7.serializer.S7Variable;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import java.lang.annotation.Annotation;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 序列化编解码类的注解处理器，编译时为带有{@link ByteArrayVariable}注解字段的类型生成字节数组编解码类，
+ * 为带有{@link S7Variable}注解字段的类型生成S7字段访问类，运行时序列化工具优先使用生成类，没有时使用反射。
+ * <p>
+ * 处理器不会被自动发现，需要显式启用，例如maven-compiler-plugin的annotationProcessors配置
+ * 或者javac的-processor参数，同时使用lombok时需要一起列出lombok的处理器。
+ * 无法生成的类型（私有类、非静态内部类、没有非私有无参构造方法、私有字段缺少getter/setter等）只给出警告，运行时继续使用反射
+ *
+ * @author xingshuang
+ */
+@SupportedAnnotationTypes({
+        "com.github.xingshuangs.iot.protocol.common.serializer.ByteArrayVariable",
+        "com.github.xingshuangs.iot.protocol.s7.serializer.S7Variable"})
+public class SerializerCodecProcessor extends AbstractProcessor {
+
+    /**
+     * 已经生成的类名，避免多轮处理时重复生成
+     */
+    private final Set<String> generated = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Set<TypeElement> byteArrayTypes = this.enclosingTypes(roundEnv, ByteArrayVariable.class);
+        for (TypeElement type : byteArrayTypes) {
+            this.write(new ByteArrayCodecWriter(this.processingEnv, type, byteArrayTypes));
+        }
+        for (TypeElement type : this.enclosingTypes(roundEnv, S7Variable.class)) {
+            this.write(new S7AccessorWriter(this.processingEnv, type));
+        }
+        // 不独占注解，其他处理器可以继续处理
+        return false;
+    }
+
+    /**
+     * 生成一个类型的源码
+     *
+     * @param writer 源码生成器
+     */
+    private void write(CodecWriter writer) {
+        if (this.generated.add(writer.getGeneratedName())) {
+            writer.write();
+        }
+    }
+
+    /**
+     * 获取带有指定注解字段的所有类型，按出现顺序排列
+     *
+     * @param roundEnv       本轮处理的环境
+     * @param annotationType 注解类型
+     * @return 类型集合
+     */
+    private Set<TypeElement> enclosingTypes(RoundEnvironment roundEnv, Class<? extends Annotation> annotationType) {
+        Set<TypeElement> res = new LinkedHashSet<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(annotationType)) {
+            if (element.getKind() == ElementKind.FIELD && element.getEnclosingElement() instanceof TypeElement) {
+                res.add((TypeElement) element.getEnclosingElement());
+            }
+        }
+        return res;
+    }
+}
@@ -45,11 +45,16 @@ public final class MbReadInputRegisterRequest extends MbPdu {
 
     @Override
     public byte[] toByteArray() {
-        return ByteWriteBuff.newInstance(this.byteArrayLength())
-                .putByte(this.functionCode.getCode())
+        ByteWriteBuff buff = ByteWriteBuff.newInstance(this.byteArrayLength());
+        this.writeTo(buff);
+        return buff.getData();
+    }
+
+    @Override
+    public void writeTo(ByteWriteBuff buff) {
+        buff.putByte(this.functionCode.getCode())
                 .putShort(this.address)
-                .putShort(this.quantity)
-                .getData();
+                .putShort(this.quantity);
     }
 
     /**
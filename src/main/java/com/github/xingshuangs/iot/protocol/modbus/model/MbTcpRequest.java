@@ -31,10 +31,15 @@ public class MbTcpRequest implements IObjectByteArray {
 
     @Override
     public byte[] toByteArray() {
-        return ByteWriteBuff.newInstance(this.byteArrayLength())
-                .putBytes(this.header.toByteArray())
-                .putBytes(this.pdu.toByteArray())
-                .getData();
+        ByteWriteBuff buff = ByteWriteBuff.newInstance(this.byteArrayLength());
+        this.writeTo(buff);
+        return buff.getData();
+    }
+
+    @Override
+    public void writeTo(ByteWriteBuff buff) {
+        this.header.writeTo(buff);
+        this.pdu.writeTo(buff);
     }
 
     /**
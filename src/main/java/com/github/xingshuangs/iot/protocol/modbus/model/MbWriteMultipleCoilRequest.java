@@ -59,13 +59,18 @@ public final class MbWriteMultipleCoilRequest extends MbPdu {
 
     @Override
     public byte[] toByteArray() {
-        return ByteWriteBuff.newInstance(this.byteArrayLength())
-                .putByte(this.functionCode.getCode())
+        ByteWriteBuff buff = ByteWriteBuff.newInstance(this.byteArrayLength());
+        this.writeTo(buff);
+        return buff.getData();
+    }
+
+    @Override
+    public void writeTo(ByteWriteBuff buff) {
+        buff.putByte(this.functionCode.getCode())
                 .putShort(this.address)
                 .putShort(this.quantity)
                 .putByte(this.count)
-                .putBytes(this.value)
-                .getData();
+                .putBytes(this.value);
     }
 
     /**
@@ -59,12 +59,17 @@ public class MbapHeader implements IObjectByteArray {
 
     @Override
     public byte[] toByteArray() {
-        return ByteWriteBuff.newInstance(BYTE_LENGTH)
-                .putShort(this.transactionId)
+        ByteWriteBuff buff = ByteWriteBuff.newInstance(BYTE_LENGTH);
+        this.writeTo(buff);
+        return buff.getData();
+    }
+
+    @Override
+    public void writeTo(ByteWriteBuff buff) {
+        buff.putShort(this.transactionId)
                 .putShort(this.protocolId)
                 .putShort(this.length)
-                .putByte(this.unitId)
-                .getData();
+                .putByte(this.unitId);
     }
 
     /**
@@ -2,10 +2,25 @@ package com.github.xingshuangs.iot.protocol.modbus.service;
 
 
 import com.github.xingshuangs.iot.exceptions.ModbusCommException;
+import com.github.xingshuangs.iot.exceptions.SocketRuntimeException;
+import com.github.xingshuangs.iot.exceptions.SocketTimeoutException;
+import com.github.xingshuangs.iot.net.client.SingleFlight;
 import com.github.xingshuangs.iot.net.client.TcpClientBasic;
+import com.github.xingshuangs.iot.net.nio.NioTcpChannel;
+import com.github.xingshuangs.iot.protocol.common.buff.ByteWriteBuff;
+import com.github.xingshuangs.iot.protocol.modbus.enums.EMbFunctionCode;
 import com.github.xingshuangs.iot.protocol.modbus.model.*;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
 import java.util.function.Consumer;
 
 /**
@@ -31,11 +46,122 @@ public class ModbusNetwork extends TcpClientBasic {
      */
     private Consumer<byte[]> comCallback;
 
+    /**
+     * 发送缓存，连接内复用，长度不够时扩容，一问一答模式在objLock锁内使用，流水线模式在pipelineLock锁内使用
+     */
+    private ByteWriteBuff sendBuff = ByteWriteBuff.newInstance(MbapHeader.BYTE_LENGTH + 256);
+
     /**
      * 是否持久化，默认是持久化，对应长连接，true：长连接，false：短连接
      */
     private boolean persistence = true;
 
+    /**
+     * 是否启用流水线模式，true：同一连接上允许多个请求同时在途，通过事务元标识符匹配响应，false：一问一答，默认false
+     */
+    private boolean enablePipeline = false;
+
+    /**
+     * 流水线模式下最大的在途请求数，默认8个
+     */
+    private int maxInFlight = 8;
+
+    /**
+     * 流水线模式下在途请求的信号量
+     */
+    private Semaphore inFlightSemaphore = new Semaphore(this.maxInFlight);
+
+    /**
+     * 流水线模式的锁，保证注册和发送的原子性
+     */
+    private final Object pipelineLock = new Object();
+
+    /**
+     * 流水线模式的响应接收器，和连接一一对应
+     */
+    private PipelineReceiver receiver;
+
+    /**
+     * 读取结果的缓存时长，毫秒，只有启用相同读取合并时有效，默认0不缓存
+     */
+    private int readCacheTtl = 0;
+
+    /**
+     * 相同读取的合并执行，启用时创建
+     */
+    private volatile SingleFlight<ByteBuffer, MbPdu> readFlight;
+
+    public boolean isEnableReadSingleFlight() {
+        return this.readFlight != null;
+    }
+
+    /**
+     * 设置是否合并相同的读取，多个线程同时以相同的功能码、地址和数量读取时只发送一次请求，共享同一个结果
+     *
+     * @param enableReadSingleFlight true：合并，false：不合并
+     */
+    public void setEnableReadSingleFlight(boolean enableReadSingleFlight) {
+        this.readFlight = enableReadSingleFlight ? new SingleFlight<>(x -> MbPdu.fromBytes(x.toByteArray()), this.readCacheTtl) : null;
+    }
+
+    public int getReadCacheTtl() {
+        return readCacheTtl;
+    }
+
+    /**
+     * 设置读取结果的缓存时长，缓存时长内相同的读取直接返回缓存结果，不再通信，写操作会清除缓存，
+     * 只有启用相同读取合并时有效
+     *
+     * @param readCacheTtl 缓存时长，毫秒，小于等于0表示不缓存
+     */
+    public void setReadCacheTtl(int readCacheTtl) {
+        this.readCacheTtl = readCacheTtl;
+        SingleFlight<ByteBuffer, MbPdu> flight = this.readFlight;
+        if (flight != null) {
+            flight.setTtl(readCacheTtl);
+        }
+    }
+
+    /**
+     * 清除读取结果的缓存，通过其他途径修改了从站数据时可以手动调用
+     */
+    public void invalidateReadCache() {
+        SingleFlight<ByteBuffer, MbPdu> flight = this.readFlight;
+        if (flight != null) {
+            flight.invalidate();
+        }
+    }
+
+    public boolean isEnablePipeline() {
+        return enablePipeline;
+    }
+
+    /**
+     * 设置是否启用流水线模式，流水线模式只支持长连接，需要在通信之前设置
+     *
+     * @param enablePipeline true：启用，false：不启用
+     */
+    public void setEnablePipeline(boolean enablePipeline) {
+        this.enablePipeline = enablePipeline;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * 设置流水线模式下最大的在途请求数，需要在通信之前设置
+     *
+     * @param maxInFlight 最大的在途请求数
+     */
+    public void setMaxInFlight(int maxInFlight) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight<=0");
+        }
+        this.maxInFlight = maxInFlight;
+        this.inFlightSemaphore = new Semaphore(maxInFlight);
+    }
+
     public void setComCallback(Consumer<byte[]> comCallback) {
         this.comCallback = comCallback;
     }
@@ -66,14 +192,14 @@ public class ModbusNetwork extends TcpClientBasic {
      * @return modbus协议数据
      */
     protected MbTcpResponse readFromServer(MbTcpRequest req) {
-        if (this.comCallback != null) {
-            this.comCallback.accept(req.toByteArray());
+        if (this.enablePipeline) {
+            return this.waitResponse(req, this.readFromServerAsync(req));
         }
         MbapHeader header;
         int len;
         byte[] remain;
         synchronized (this.objLock) {
-            this.write(req.toByteArray());
+            this.writeMbFrame(req);
 
             byte[] data = new byte[MbapHeader.BYTE_LENGTH];
             len = this.read(data);
@@ -95,6 +221,25 @@ public class ModbusNetwork extends TcpClientBasic {
         return ack;
     }
 
+    /**
+     * 将请求直接编码到发送缓存中并一次写出，只有设置了通信回调才生成字节数组，需要在锁内调用
+     *
+     * @param req modbus协议数据
+     */
+    private void writeMbFrame(MbTcpRequest req) {
+        // 先确保连接，自动重连时的握手也会使用发送缓存
+        this.ensureConnected();
+        int length = req.byteArrayLength();
+        if (this.sendBuff.getData().length < length) {
+            this.sendBuff = ByteWriteBuff.newInstance(length);
+        }
+        req.writeTo(this.sendBuff.reset());
+        if (this.comCallback != null) {
+            this.comCallback.accept(Arrays.copyOf(this.sendBuff.getData(), length));
+        }
+        this.write(this.sendBuff.getData(), 0, length);
+    }
+
     /**
      * 校验请求数据和响应数据
      *
@@ -120,6 +265,246 @@ public class ModbusNetwork extends TcpClientBasic {
 
     //endregion
 
+    //region 流水线模式
+
+    /**
+     * 流水线模式下异步发送请求，响应由接收线程根据事务元标识符匹配后完成
+     *
+     * @param req modbus协议数据
+     * @return 响应结果
+     */
+    protected CompletableFuture<MbTcpResponse> readFromServerAsync(MbTcpRequest req) {
+        Semaphore semaphore = this.inFlightSemaphore;
+        try {
+            if (!semaphore.tryAcquire(this.receiveTimeout, TimeUnit.MILLISECONDS)) {
+                throw new SocketTimeoutException(String.format("在途请求数已达到上限[%d]，等待超时", this.maxInFlight));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ModbusCommException("等待发送被中断");
+        }
+        int transactionId = req.getHeader().getTransactionId();
+        CompletableFuture<MbTcpResponse> future = new CompletableFuture<>();
+        future.whenComplete((r, e) -> semaphore.release());
+        try {
+            synchronized (this.pipelineLock) {
+                // 先确保连接，重连时旧的接收器已经失效，接收器必须绑定当前的连接
+                this.ensureConnected();
+                if (this.receiver == null || !this.receiver.isAlive() || !this.receiver.isCurrent()) {
+                    this.receiver = new PipelineReceiver();
+                }
+                this.receiver.register(transactionId, future);
+                try {
+                    this.writeMbFrame(req);
+                } catch (SocketRuntimeException e) {
+                    this.close();
+                    throw e;
+                }
+            }
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        }
+        return future.thenApply(ack -> {
+            if (this.comCallback != null) {
+                this.comCallback.accept(ack.toByteArray());
+            }
+            this.checkResult(req, ack);
+            return ack;
+        });
+    }
+
+    /**
+     * 等待流水线模式下的响应结果
+     *
+     * @param req    请求数据
+     * @param future 响应结果
+     * @return 响应数据
+     */
+    private MbTcpResponse waitResponse(MbTcpRequest req, CompletableFuture<MbTcpResponse> future) {
+        try {
+            return future.get(this.receiveTimeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            PipelineReceiver current = this.receiver;
+            if (current != null) {
+                current.cancel(req.getHeader().getTransactionId());
+            }
+            throw new SocketTimeoutException(String.format("等待响应超时，事务元标识符[%d]", req.getHeader().getTransactionId()));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ModbusCommException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ModbusCommException("等待响应被中断");
+        }
+    }
+
+    /**
+     * 关闭连接，同时使流水线模式的接收器失效，重连时也会调用
+     */
+    @Override
+    public void close() {
+        synchronized (this.pipelineLock) {
+            if (this.receiver != null) {
+                this.receiver.retire(new SocketRuntimeException("连接已关闭"));
+                this.receiver = null;
+            }
+            super.close();
+        }
+    }
+
+    /**
+     * 流水线模式的响应接收器，绑定创建时的连接，由独立线程持续读取响应并按事务元标识符分发，
+     * 连接异常时接收器失效，所有在途请求以异常结束，下一次请求时重新建立连接和接收器
+     */
+    private class PipelineReceiver implements Runnable {
+
+        /**
+         * 在途请求，key为事务元标识符
+         */
+        private final Map<Integer, CompletableFuture<MbTcpResponse>> pendingMap = new ConcurrentHashMap<>();
+
+        /**
+         * 绑定的socket
+         */
+        private final Socket boundSocket;
+
+        /**
+         * 绑定的NIO通道
+         */
+        private final NioTcpChannel boundChannel;
+
+        /**
+         * 是否存活
+         */
+        private volatile boolean alive = true;
+
+        private PipelineReceiver() {
+            if (enableNio) {
+                this.boundChannel = getAvailableChannel();
+                this.boundSocket = null;
+            } else {
+                this.boundSocket = getAvailableSocket();
+                this.boundChannel = null;
+            }
+            Thread thread = new Thread(this, "modbus-pipeline-" + socketAddress);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        private boolean isAlive() {
+            return this.alive;
+        }
+
+        /**
+         * 注册在途请求
+         *
+         * @param transactionId 事务元标识符
+         * @param future        响应结果
+         */
+        private void register(int transactionId, CompletableFuture<MbTcpResponse> future) {
+            if (this.pendingMap.putIfAbsent(transactionId, future) != null) {
+                throw new ModbusCommException(String.format("事务元标识符[%d]重复，存在未完成的请求", transactionId));
+            }
+        }
+
+        /**
+         * 取消在途请求
+         *
+         * @param transactionId 事务元标识符
+         */
+        private void cancel(int transactionId) {
+            CompletableFuture<MbTcpResponse> future = this.pendingMap.remove(transactionId);
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+
+        /**
+         * 是否绑定的是当前的连接
+         *
+         * @return true：当前连接，false：连接已经关闭或者重连
+         */
+        private boolean isCurrent() {
+            return this.boundChannel != null ? this.boundChannel == channel : this.boundSocket == socket;
+        }
+
+        /**
+         * 使接收器失效，所有在途请求以异常结束，需要在pipelineLock锁内调用
+         *
+         * @param ex 异常
+         */
+        private void retire(RuntimeException ex) {
+            this.alive = false;
+            List<CompletableFuture<MbTcpResponse>> futures = new ArrayList<>(this.pendingMap.values());
+            this.pendingMap.clear();
+            futures.forEach(x -> x.completeExceptionally(ex));
+        }
+
+        @Override
+        public void run() {
+            try {
+                byte[] data = new byte[MbapHeader.BYTE_LENGTH];
+                while (this.alive) {
+                    this.readFully(data, 0, data.length);
+                    MbapHeader header = MbapHeader.fromBytes(data);
+                    byte[] remain = new byte[header.getLength() - 1];
+                    this.readFully(remain, 0, remain.length);
+                    CompletableFuture<MbTcpResponse> future = this.pendingMap.remove(header.getTransactionId());
+                    if (future == null) {
+                        log.debug("丢弃未匹配的响应，事务元标识符[{}]", header.getTransactionId());
+                        continue;
+                    }
+                    try {
+                        future.complete(MbTcpResponse.fromBytes(header, remain));
+                    } catch (Exception e) {
+                        future.completeExceptionally(e);
+                    }
+                }
+            } catch (Exception e) {
+                log.debug("流水线接收线程[{}]结束：{}", socketAddress, e.getMessage());
+                synchronized (pipelineLock) {
+                    // 已经关闭或者重连时不能影响新的连接
+                    if (this.alive && this.isCurrent()) {
+                        socketError.set(true);
+                    }
+                    this.retire(e instanceof RuntimeException ? (RuntimeException) e : new SocketRuntimeException(e));
+                }
+            }
+        }
+
+        /**
+         * 从绑定的连接中读取指定长度的数据，不会触发重连
+         *
+         * @param data   字节数组
+         * @param offset 偏移量
+         * @param length 数据长度
+         * @throws IOException IO异常
+         */
+        private void readFully(byte[] data, int offset, int length) throws IOException {
+            int count = 0;
+            if (this.boundChannel != null) {
+                while (count < length) {
+                    count += this.boundChannel.read(data, offset + count, length - count, 0);
+                }
+                return;
+            }
+            ModbusNetwork.this.applySoTimeout(this.boundSocket, 0);
+            InputStream in = this.boundSocket.getInputStream();
+            while (count < length) {
+                int num = in.read(data, offset + count, length - count);
+                if (num < 0) {
+                    throw new SocketRuntimeException("读取数据异常，连接已断开");
+                }
+                count += num;
+            }
+        }
+    }
+
+    //endregion
+
     /**
      * 读取modbus数据
      *
@@ -127,6 +512,28 @@ public class ModbusNetwork extends TcpClientBasic {
      * @return 响应结果
      */
     protected MbPdu readModbusData(MbPdu reqPdu) {
+        SingleFlight<ByteBuffer, MbPdu> flight = this.readFlight;
+        if (flight == null) {
+            return this.readModbusDataDirect(reqPdu);
+        }
+        EMbFunctionCode functionCode = reqPdu.getFunctionCode();
+        if (functionCode == EMbFunctionCode.READ_COIL || functionCode == EMbFunctionCode.READ_DISCRETE_INPUT
+                || functionCode == EMbFunctionCode.READ_HOLD_REGISTER || functionCode == EMbFunctionCode.READ_INPUT_REGISTER) {
+            // 从站编号+功能码+地址+数量作为key
+            ByteWriteBuff buff = ByteWriteBuff.newInstance(1 + reqPdu.byteArrayLength()).putByte(this.unitId);
+            reqPdu.writeTo(buff);
+            return flight.execute(ByteBuffer.wrap(buff.getData()), () -> this.readModbusDataDirect(reqPdu));
+        }
+        // 写之前和写之后都清除读取缓存，避免读到写之前的旧数据
+        flight.invalidate();
+        try {
+            return this.readModbusDataDirect(reqPdu);
+        } finally {
+            flight.invalidate();
+        }
+    }
+
+    private MbPdu readModbusDataDirect(MbPdu reqPdu) {
         MbTcpRequest request = MbTcpRequest.createDefault();
         request.getHeader().setUnitId(this.unitId);
         request.setPdu(reqPdu);
@@ -135,10 +542,27 @@ public class ModbusNetwork extends TcpClientBasic {
             MbTcpResponse response = this.readFromServer(request);
             return response.getPdu();
         } finally {
-            if (!this.persistence) {
+            if (!this.persistence && !this.enablePipeline) {
                 log.debug("由于短连接方式，通信完毕触发关闭连接通道，服务端IP[{}]", this.socketAddress);
                 this.close();
             }
         }
     }
+
+    /**
+     * 异步读取modbus数据，需要启用流水线模式
+     *
+     * @param reqPdu 请求对象
+     * @return 响应结果
+     */
+    protected CompletableFuture<MbPdu> readModbusDataAsync(MbPdu reqPdu) {
+        if (!this.enablePipeline) {
+            throw new ModbusCommException("异步读取需要启用流水线模式");
+        }
+        MbTcpRequest request = MbTcpRequest.createDefault();
+        request.getHeader().setUnitId(this.unitId);
+        request.setPdu(reqPdu);
+        request.selfCheck();
+        return this.readFromServerAsync(request).thenApply(MbTcpResponse::getPdu);
+    }
 }
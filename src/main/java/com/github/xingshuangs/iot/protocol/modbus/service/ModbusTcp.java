@@ -9,6 +9,7 @@ import com.github.xingshuangs.iot.utils.*;
 
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * modbus 1个寄存器占2个字节
@@ -202,6 +203,45 @@ public class ModbusTcp extends ModbusNetwork {
     }
     //endregion
 
+    //region 流水线模式下的异步读取
+
+    /**
+     * 异步读取保持寄存器，需要启用流水线模式， modbus 1个寄存器占2个字节
+     *
+     * @param address  地址
+     * @param quantity 寄存器数量
+     * @return 字节数组
+     */
+    public CompletableFuture<byte[]> readHoldRegisterAsync(int address, int quantity) {
+        if (address < 0) {
+            throw new IllegalArgumentException("address<0");
+        }
+        if (quantity <= 0 || quantity > 125) {
+            throw new IllegalArgumentException("quantity<=0||quantity>125");
+        }
+        MbReadHoldRegisterRequest reqPdu = new MbReadHoldRegisterRequest(address, quantity);
+        return this.readModbusDataAsync(reqPdu).thenApply(x -> ((MbReadHoldRegisterResponse) x).getRegister());
+    }
+
+    /**
+     * 异步读取输入寄存器，需要启用流水线模式， modbus 1个寄存器占2个字节
+     *
+     * @param address  地址
+     * @param quantity 寄存器数量
+     * @return 字节数组
+     */
+    public CompletableFuture<byte[]> readInputRegisterAsync(int address, int quantity) {
+        if (address < 0) {
+            throw new IllegalArgumentException("address<0");
+        }
+        if (quantity <= 0 || quantity > 125) {
+            throw new IllegalArgumentException("quantity<=0||quantity>125");
+        }
+        MbReadInputRegisterRequest reqPdu = new MbReadInputRegisterRequest(address, quantity);
+        return this.readModbusDataAsync(reqPdu).thenApply(x -> ((MbReadInputRegisterResponse) x).getRegister());
+    }
+    //endregion
+
     //region 通用保持寄存器 读取数据
 
     /**
@@ -23,9 +23,13 @@ public class RtcpPackageBuilder {
     }
 
     public static List<RtcpBasePackage> fromBytes(final byte[] data, final int offset) {
+        return fromBytes(data, offset, data.length - offset);
+    }
+
+    public static List<RtcpBasePackage> fromBytes(final byte[] data, final int offset, final int length) {
         List<RtcpBasePackage> list = new ArrayList<>();
         int off = offset;
-        while (data.length > off) {
+        while (offset + length > off) {
             RtcpBasePackage basePackage = parsePackage(data, off);
             list.add(basePackage);
             off += basePackage.byteArrayLength();
@@ -2,6 +2,7 @@ package com.github.xingshuangs.iot.protocol.rtcp.service;
 
 
 import com.github.xingshuangs.iot.exceptions.SocketRuntimeException;
+import com.github.xingshuangs.iot.net.client.UdpBuffer;
 import com.github.xingshuangs.iot.net.client.UdpClientBasic;
 import com.github.xingshuangs.iot.protocol.rtcp.model.*;
 import com.github.xingshuangs.iot.protocol.rtp.model.RtpPackage;
@@ -20,6 +21,16 @@ import java.util.function.Consumer;
 @Slf4j
 public class RtcpUdpClient extends UdpClientBasic implements IRtspDataStream {
 
+    /**
+     * 单次唤醒最多处理的数据报个数
+     */
+    private static final int MAX_BATCH = 16;
+
+    /**
+     * 等待数据的超时时间，超时后检查是否终止
+     */
+    private static final int RECEIVE_TIMEOUT = 1000;
+
     /**
      * 是否终止线程
      */
@@ -85,20 +96,41 @@ public class RtcpUdpClient extends UdpClientBasic implements IRtspDataStream {
         this.write(data);
     }
 
+    /**
+     * 处理接收到的一个数据报，处理完归还接收缓存
+     *
+     * @param buffer 接收缓存
+     */
+    private void processReceivedData(UdpBuffer buffer) {
+        try {
+            byte[] data = buffer.hasArray() ? buffer.getData() : buffer.toByteArray();
+            int offset = buffer.hasArray() ? buffer.getOffset() : 0;
+            if (this.commCallback != null) {
+                this.commCallback.accept(buffer.toByteArray());
+            }
+            List<RtcpBasePackage> basePackages = RtcpPackageBuilder.fromBytes(data, offset, buffer.getLength());
+            this.statistics.processRtcpPackage(basePackages);
+        } catch (Exception e) {
+            if (!this.terminal) {
+                log.error(e.getMessage());
+            }
+        } finally {
+            buffer.release();
+        }
+    }
+
     private void waitForReceiveData() {
         log.debug("[RTSP + UDP] RTCP 开启异步接收数据线程，远程的IP[/{}:{}]",
                 this.serverAddress.getAddress().getHostAddress(), this.serverAddress.getPort());
         while (!this.terminal) {
             try {
-                byte[] data = this.read();
-                if (this.commCallback != null) {
-                    this.commCallback.accept(data);
-                }
-                List<RtcpBasePackage> basePackages = RtcpPackageBuilder.fromBytes(data);
-                this.statistics.processRtcpPackage(basePackages);
+                // 一次唤醒批量取出已到达的数据报，接收缓存来自缓存池
+                this.receive(this::processReceivedData, MAX_BATCH, RECEIVE_TIMEOUT);
             } catch (SocketRuntimeException e) {
                 // SocketRuntimeException就是IO异常，网络断开了，结束线程
-                log.error(e.getMessage());
+                if (!this.terminal) {
+                    log.error(e.getMessage());
+                }
                 this.terminal = true;
                 break;
             } catch (Exception e) {
@@ -60,7 +60,20 @@ public class RtpPackage implements IObjectByteArray {
      * @return RtcpHeader
      */
     public static RtpPackage fromBytes(final byte[] data, final int offset) {
-        if (data.length < 12) {
+        return fromBytes(data, offset, data.length - offset);
+    }
+
+    /**
+     * 字节数组数据解析，只解析[offset, offset+length)范围内的数据，可以直接传入接收缓存中的数据报；
+     * 负载会拷贝出来，解析结果不引用data，data所在的接收缓存可以在解析后立即归还缓存池
+     *
+     * @param data   字节数组数据
+     * @param offset 偏移量
+     * @param length 数据包长度
+     * @return RtcpHeader
+     */
+    public static RtpPackage fromBytes(final byte[] data, final int offset, final int length) {
+        if (length < 12) {
             throw new IndexOutOfBoundsException("解析RtpPackage时，字节数组长度不够");
         }
         int index = offset;
@@ -69,10 +82,10 @@ public class RtpPackage implements IObjectByteArray {
         res.header = RtpHeader.fromBytes(data, offset);
         index += res.header.byteArrayLength();
         // 最后一个填充字节标识了总共需要忽略多少个填充字节（包括自己）
-        res.ignoreLength = res.header.isPadding() ? data[data.length - 1] & 0xFF : 0;
-        // 负载
+        res.ignoreLength = res.header.isPadding() ? data[offset + length - 1] & 0xFF : 0;
+        // 负载，负载解析器会跨数据报保留RTP包（例如FU-A分片），因此不能引用可复用的接收缓存
         ByteReadBuff buff = new ByteReadBuff(data, index);
-        int payloadLength = data.length - index - res.ignoreLength;
+        int payloadLength = offset + length - index - res.ignoreLength;
         res.payload = buff.getBytes(payloadLength);
         return res;
     }
@@ -2,6 +2,7 @@ package com.github.xingshuangs.iot.protocol.rtp.service;
 
 
 import com.github.xingshuangs.iot.exceptions.SocketRuntimeException;
+import com.github.xingshuangs.iot.net.client.UdpBuffer;
 import com.github.xingshuangs.iot.net.client.UdpClientBasic;
 import com.github.xingshuangs.iot.protocol.rtcp.service.RtcpUdpClient;
 import com.github.xingshuangs.iot.protocol.rtp.model.RtpPackage;
@@ -19,6 +20,16 @@ import java.util.function.Consumer;
 @Slf4j
 public class RtpUdpClient extends UdpClientBasic implements IRtspDataStream {
 
+    /**
+     * 单次唤醒最多处理的数据报个数
+     */
+    private static final int MAX_BATCH = 32;
+
+    /**
+     * 等待数据的超时时间，超时后检查是否终止
+     */
+    private static final int RECEIVE_TIMEOUT = 1000;
+
     /**
      * 是否终止线程
      */
@@ -84,6 +95,37 @@ public class RtpUdpClient extends UdpClientBasic implements IRtspDataStream {
         this.write(data);
     }
 
+    /**
+     * 处理接收到的一个数据报，处理完归还接收缓存
+     *
+     * @param buffer 接收缓存
+     */
+    private void processReceivedData(UdpBuffer buffer) {
+        try {
+            byte[] data = buffer.hasArray() ? buffer.getData() : buffer.toByteArray();
+            int offset = buffer.hasArray() ? buffer.getOffset() : 0;
+            int length = buffer.getLength();
+            if (this.commCallback != null) {
+                this.commCallback.accept(buffer.toByteArray());
+            }
+            // 直接从接收缓存中的数据报解析，只拷贝负载，之后接收缓存即可归还
+            RtpPackage rtp = RtpPackage.fromBytes(data, offset, length);
+            if (length > rtp.byteArrayLength()) {
+                log.error("rtp数据还有未处理部分，未处理字节个数[{}]", length - rtp.byteArrayLength());
+            }
+            if (this.rtcpUdpClient != null) {
+                this.rtcpUdpClient.processRtpPackage(rtp);
+            }
+            this.iPayloadParser.processPackage(rtp);
+        } catch (Exception e) {
+            if (!this.terminal) {
+                log.error(e.getMessage());
+            }
+        } finally {
+            buffer.release();
+        }
+    }
+
     /**
      * 接收数据的线程
      */
@@ -92,21 +134,13 @@ public class RtpUdpClient extends UdpClientBasic implements IRtspDataStream {
                 this.serverAddress.getAddress().getHostAddress(), this.serverAddress.getPort());
         while (!this.terminal) {
             try {
-                byte[] data = this.read();
-                if (this.commCallback != null) {
-                    this.commCallback.accept(data);
-                }
-                RtpPackage rtp = RtpPackage.fromBytes(data);
-                if (data.length > rtp.byteArrayLength()) {
-                    log.error("rtp数据还有未处理部分，未处理字节个数[{}]", data.length - rtp.byteArrayLength());
-                }
-                if (this.rtcpUdpClient != null) {
-                    this.rtcpUdpClient.processRtpPackage(rtp);
-                }
-                this.iPayloadParser.processPackage(rtp);
+                // 一次唤醒批量取出已到达的数据报，接收缓存来自缓存池
+                this.receive(this::processReceivedData, MAX_BATCH, RECEIVE_TIMEOUT);
             } catch (SocketRuntimeException e) {
                 // SocketRuntimeException就是IO异常，网络断开了，结束线程
-                log.error(e.getMessage());
+                if (!this.terminal) {
+                    log.error(e.getMessage());
+                }
                 this.terminal = true;
                 break;
             } catch (Exception e) {
@@ -0,0 +1,117 @@
+package com.github.xingshuangs.iot.protocol.s7.algorithm;
+
+
+import com.github.xingshuangs.iot.protocol.s7.enums.EArea;
+import com.github.xingshuangs.iot.protocol.s7.enums.EParamVariableType;
+import com.github.xingshuangs.iot.protocol.s7.model.RequestItem;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 地址合并算法，读取前将同一存储区内重叠或相邻的地址合并为一个连续的请求项
+ * 示例：
+ * 间隙阀值：5
+ * DB1.0(2), DB1.2(2), DB1.4(4), DB1.10(2), DB1.100(2), M0.1(bit)
+ * |DB1.0(12)|DB1.100(2)|M0.1(bit)|
+ * 每个请求项在请求中占12个字节，在响应中占4~5个字节，间隙不超过阀值时多读的几个字节比单独一个请求项更划算
+ *
+ * @author xingshuang
+ */
+public class S7AddressMergeAlg {
+
+    private S7AddressMergeAlg() {
+        // NOOP
+    }
+
+    /**
+     * 合并地址，只合并字节和位类型的请求项，且存储区为I、Q、M、DB、DI，其余请求项原样保留
+     *
+     * @param src 原始请求项
+     * @param gap 允许合并的最大间隙字节数，0表示只合并重叠和相邻的地址
+     * @return 合并结果
+     */
+    public static S7MergeResult merge(List<RequestItem> src, int gap) {
+        int size = src.size();
+        int[] mergedIndexes = new int[size];
+        int[] offsets = new int[size];
+        List<RequestItem> mergedItems = new ArrayList<>();
+
+        // 能合并的按存储区、DB块、字节地址排序，不能合并的各自一项
+        List<Integer> sortedIndexes = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            RequestItem item = src.get(i);
+            if (isMergeable(item)) {
+                sortedIndexes.add(i);
+            } else {
+                mergedIndexes[i] = mergedItems.size();
+                offsets[i] = 0;
+                mergedItems.add(item.copy());
+            }
+        }
+        sortedIndexes.sort(Comparator.<Integer>comparingInt(i -> src.get(i).getArea().getCode() & 0xFF)
+                .thenComparingInt(i -> src.get(i).getDbNumber())
+                .thenComparingInt(i -> src.get(i).getByteAddress()));
+
+        RequestItem current = null;
+        int currentEnd = 0;
+        List<Integer> members = new ArrayList<>();
+        for (Integer i : sortedIndexes) {
+            RequestItem item = src.get(i);
+            int start = item.getByteAddress();
+            int end = start + byteLength(item);
+            if (current != null && sameBlock(current, item) && start <= currentEnd + gap) {
+                currentEnd = Math.max(currentEnd, end);
+                members.add(i);
+                continue;
+            }
+            if (current != null) {
+                addMerged(src, mergedItems, mergedIndexes, offsets, current, currentEnd, members);
+            }
+            current = item;
+            currentEnd = end;
+            members = new ArrayList<>();
+            members.add(i);
+        }
+        if (current != null) {
+            addMerged(src, mergedItems, mergedIndexes, offsets, current, currentEnd, members);
+        }
+        return new S7MergeResult(src, mergedItems, mergedIndexes, offsets);
+    }
+
+    /**
+     * 添加合并项，只有一个成员时保留原始请求项，位请求也不会被转换为字节请求
+     */
+    private static void addMerged(List<RequestItem> src, List<RequestItem> mergedItems, int[] mergedIndexes,
+                                  int[] offsets, RequestItem first, int end, List<Integer> members) {
+        int index = mergedItems.size();
+        if (members.size() == 1) {
+            mergedItems.add(first.copy());
+        } else {
+            mergedItems.add(RequestItem.createByParams(EParamVariableType.BYTE, end - first.getByteAddress(),
+                    first.getArea(), first.getDbNumber(), first.getByteAddress(), 0));
+        }
+        for (Integer i : members) {
+            mergedIndexes[i] = index;
+            offsets[i] = src.get(i).getByteAddress() - first.getByteAddress();
+        }
+    }
+
+    private static boolean isMergeable(RequestItem item) {
+        if (item.getVariableType() != EParamVariableType.BYTE && item.getVariableType() != EParamVariableType.BIT) {
+            return false;
+        }
+        EArea area = item.getArea();
+        return area == EArea.INPUTS || area == EArea.OUTPUTS || area == EArea.FLAGS
+                || area == EArea.DATA_BLOCKS || area == EArea.INSTANCE_DATA_BLOCKS;
+    }
+
+    private static boolean sameBlock(RequestItem a, RequestItem b) {
+        return a.getArea() == b.getArea() && a.getDbNumber() == b.getDbNumber();
+    }
+
+    private static int byteLength(RequestItem item) {
+        return item.getVariableType() == EParamVariableType.BIT ? 1 : item.getCount();
+    }
+}
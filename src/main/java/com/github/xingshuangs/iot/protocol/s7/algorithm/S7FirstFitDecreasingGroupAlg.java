@@ -0,0 +1,132 @@
+package com.github.xingshuangs.iot.protocol.s7.algorithm;
+
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * 首次适应降序分组算法（First Fit Decreasing）
+ *
+ * @author xingshuang
+ */
+public class S7FirstFitDecreasingGroupAlg {
+
+    private S7FirstFitDecreasingGroupAlg() {
+        // NOOP
+    }
+
+    /**
+     * 重组，超过目标值的数据先切出整块单独成组，剩余部分按占用大小降序依次放入第一个放得下的组，都放不下则新建一组；
+     * 另外计算一种都放不下时分割填满剩余空间最大的组的结果，连同顺序分组结果一起比较，
+     * 取组数更少的（组数相同取数据项更少的），保证不会比顺序分组差。
+     * 组内数据项的顺序可能和原始顺序不同，通过数据项的index和splitOffset映射回原始数据
+     * 示例：
+     * 目标值：226 ，额外数据大小：5，阀值数据大小：12
+     * 150, 100, 150, 100
+     * 顺序分组：|150,66|34,150,27|73,100| 共3组7项
+     * 本算法：  |150|150|100,100|        共3组4项
+     *
+     * @param src        数据源
+     * @param targetSize 目标值
+     * @param extraSize  每个数据额外占用的数据大小
+     * @param threshold  阀值，每个数据至少占用的数据大小
+     * @return 分组结果
+     */
+    public static List<S7ComGroup> readRecombination(List<Integer> src, int targetSize, int extraSize, int threshold) {
+        List<S7ComGroup> res = pack(src, targetSize, extraSize, threshold, false);
+        res = better(res, pack(src, targetSize, extraSize, threshold, true));
+        List<S7ComGroup> sequential = S7SequentialGroupAlg.readRecombination(src, targetSize, extraSize, threshold);
+        sequential.removeIf(x -> x.getItems().isEmpty());
+        return better(res, sequential);
+    }
+
+    private static List<S7ComGroup> better(List<S7ComGroup> a, List<S7ComGroup> b) {
+        if (a.size() != b.size()) {
+            return a.size() < b.size() ? a : b;
+        }
+        return itemCount(a) <= itemCount(b) ? a : b;
+    }
+
+    private static List<S7ComGroup> pack(List<Integer> src, int targetSize, int extraSize, int threshold,
+                                         boolean split) {
+        List<S7ComGroup> groupList = new LinkedList<>();
+        List<S7ComItem> pieces = new ArrayList<>(src.size());
+        int maxRipeSize = targetSize - extraSize;
+        for (int i = 0; i < src.size(); i++) {
+            int number = src.get(i);
+            int offset = 0;
+            // 超过一个组容量的部分，按满组切分，各自单独成组
+            while (number + extraSize > targetSize) {
+                S7ComGroup group = new S7ComGroup();
+                group.add(new S7ComItem(i, src.get(i), offset, maxRipeSize, extraSize, threshold));
+                groupList.add(group);
+                number -= maxRipeSize;
+                offset += maxRipeSize;
+            }
+            if (number > 0) {
+                pieces.add(new S7ComItem(i, src.get(i), offset, number, extraSize, threshold));
+            }
+        }
+
+        // 按占用大小降序，相同大小保持原始顺序
+        pieces.sort(Comparator.comparingInt(S7ComItem::getTotalLength).reversed()
+                .thenComparingInt(S7ComItem::getIndex));
+        List<S7ComGroup> packedList = new ArrayList<>();
+        List<Integer> sums = new ArrayList<>();
+        for (S7ComItem piece : pieces) {
+            S7ComItem item = piece;
+            while (item != null) {
+                int group = firstFit(sums, item.getTotalLength(), targetSize);
+                if (group >= 0) {
+                    addItem(packedList, sums, group, item);
+                    break;
+                }
+                group = maxFree(sums);
+                int ripeSize = group < 0 || !split ? 0 : targetSize - sums.get(group) - extraSize;
+                if (ripeSize < threshold) {
+                    packedList.add(new S7ComGroup());
+                    sums.add(0);
+                    addItem(packedList, sums, packedList.size() - 1, item);
+                    break;
+                }
+                // 分割填满剩余空间最大的组，剩余部分继续分配
+                addItem(packedList, sums, group, new S7ComItem(item.getIndex(), item.getRawSize(),
+                        item.getSplitOffset(), ripeSize, extraSize, threshold));
+                item = new S7ComItem(item.getIndex(), item.getRawSize(), item.getSplitOffset() + ripeSize,
+                        item.getRipeSize() - ripeSize, extraSize, threshold);
+            }
+        }
+        groupList.addAll(packedList);
+        return groupList;
+    }
+
+    private static int firstFit(List<Integer> sums, int length, int targetSize) {
+        for (int g = 0; g < sums.size(); g++) {
+            if (sums.get(g) + length <= targetSize) {
+                return g;
+            }
+        }
+        return -1;
+    }
+
+    private static int maxFree(List<Integer> sums) {
+        int res = -1;
+        for (int g = 0; g < sums.size(); g++) {
+            if (res < 0 || sums.get(g) < sums.get(res)) {
+                res = g;
+            }
+        }
+        return res;
+    }
+
+    private static void addItem(List<S7ComGroup> groups, List<Integer> sums, int group, S7ComItem item) {
+        groups.get(group).add(item);
+        sums.set(group, sums.get(group) + item.getTotalLength());
+    }
+
+    private static int itemCount(List<S7ComGroup> groups) {
+        return groups.stream().mapToInt(x -> x.getItems().size()).sum();
+    }
+}
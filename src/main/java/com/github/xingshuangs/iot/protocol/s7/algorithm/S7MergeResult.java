@@ -0,0 +1,85 @@
+package com.github.xingshuangs.iot.protocol.s7.algorithm;
+
+
+import com.github.xingshuangs.iot.protocol.s7.enums.EDataVariableType;
+import com.github.xingshuangs.iot.protocol.s7.enums.EParamVariableType;
+import com.github.xingshuangs.iot.protocol.s7.enums.EReturnCode;
+import com.github.xingshuangs.iot.protocol.s7.model.DataItem;
+import com.github.xingshuangs.iot.protocol.s7.model.RequestItem;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 地址合并结果，记录合并后的请求项，以及每个原始请求项在合并项中的位置
+ *
+ * @author xingshuang
+ */
+@Getter
+public class S7MergeResult {
+
+    /**
+     * 原始请求项
+     */
+    private final List<RequestItem> rawItems;
+
+    /**
+     * 合并后的请求项
+     */
+    private final List<RequestItem> mergedItems;
+
+    /**
+     * 每个原始请求项对应的合并项索引
+     */
+    private final int[] mergedIndexes;
+
+    /**
+     * 每个原始请求项在合并项数据中的字节偏移
+     */
+    private final int[] offsets;
+
+    S7MergeResult(List<RequestItem> rawItems, List<RequestItem> mergedItems, int[] mergedIndexes, int[] offsets) {
+        this.rawItems = rawItems;
+        this.mergedItems = mergedItems;
+        this.mergedIndexes = mergedIndexes;
+        this.offsets = offsets;
+    }
+
+    /**
+     * 将合并项读取到的数据按原始请求项拆分，结果顺序和原始请求项一致，
+     * 拆分后的数据项沿用合并项的返回码，合并项读取失败时，其中的原始请求项都失败且没有数据
+     *
+     * @param mergedData 合并项读取到的数据，顺序和mergedItems一致
+     * @return 原始请求项对应的数据
+     */
+    public List<DataItem> split(List<DataItem> mergedData) {
+        if (mergedData.size() != this.mergedItems.size()) {
+            throw new IllegalArgumentException("合并项数据个数和合并项个数不一致");
+        }
+        List<DataItem> res = new ArrayList<>(this.rawItems.size());
+        for (int i = 0; i < this.rawItems.size(); i++) {
+            RequestItem raw = this.rawItems.get(i);
+            RequestItem merged = this.mergedItems.get(this.mergedIndexes[i]);
+            DataItem mergedItem = mergedData.get(this.mergedIndexes[i]);
+            byte[] src = mergedItem.getData();
+            DataItem item;
+            if (mergedItem.getReturnCode() != EReturnCode.SUCCESS && mergedItem.getReturnCode() != EReturnCode.RESERVED) {
+                item = DataItem.createReq(new byte[0], raw.getVariableType() == EParamVariableType.BIT
+                        ? EDataVariableType.BIT : EDataVariableType.BYTE_WORD_DWORD);
+            } else if (raw.getVariableType() == EParamVariableType.BIT) {
+                // 位数据在合并项中是按字节读取的，需要取出对应的位
+                byte value = merged.getVariableType() == EParamVariableType.BIT
+                        ? src[0] : (byte) ((src[this.offsets[i]] >> raw.getBitAddress()) & 0x01);
+                item = DataItem.createReq(new byte[]{value}, EDataVariableType.BIT);
+            } else {
+                byte[] data = Arrays.copyOfRange(src, this.offsets[i], this.offsets[i] + raw.getCount());
+                item = DataItem.createReq(data, EDataVariableType.BYTE_WORD_DWORD);
+            }
+            item.setReturnCode(mergedItem.getReturnCode());
+            res.add(item);
+        }
+        return res;
+    }
+}
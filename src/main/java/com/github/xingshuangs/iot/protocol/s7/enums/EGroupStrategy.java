@@ -0,0 +1,20 @@
+package com.github.xingshuangs.iot.protocol.s7.enums;
+
+
+/**
+ * 请求项分组策略，决定多个请求项如何装入各个PDU
+ *
+ * @author xingshuang
+ */
+public enum EGroupStrategy {
+
+    /**
+     * 顺序分组，按请求项原始顺序依次装入，装不下就分割
+     */
+    SEQUENTIAL,
+
+    /**
+     * 首次适应降序分组，请求项按大小降序依次装入第一个放得下的PDU，PDU个数更少
+     */
+    FIRST_FIT_DECREASING,
+}
@@ -40,11 +40,16 @@ public class AckHeader extends Header {
 
     @Override
     public byte[] toByteArray() {
-        return ByteWriteBuff.newInstance(BYTE_LENGTH)
-                .putBytes(super.toByteArray())
-                .putByte(errorClass.getCode())
-                .putByte(this.errorCode)
-                .getData();
+        ByteWriteBuff buff = ByteWriteBuff.newInstance(BYTE_LENGTH);
+        this.writeTo(buff);
+        return buff.getData();
+    }
+
+    @Override
+    public void writeTo(ByteWriteBuff buff) {
+        super.writeTo(buff);
+        buff.putByte(errorClass.getCode())
+                .putByte(this.errorCode);
     }
 
     /**
@@ -54,10 +59,21 @@ public class AckHeader extends Header {
      * @return AckHeader
      */
     public static AckHeader fromBytes(final byte[] data) {
-        if (data.length < BYTE_LENGTH) {
+        return fromBytes(data, 0);
+    }
+
+    /**
+     * 字节数组数据解析
+     *
+     * @param data   字节数组数据
+     * @param offset 偏移量
+     * @return AckHeader
+     */
+    public static AckHeader fromBytes(final byte[] data, final int offset) {
+        if (data.length - offset < BYTE_LENGTH) {
             throw new IndexOutOfBoundsException("解析header时，字节数组长度不够");
         }
-        ByteReadBuff buff = new ByteReadBuff(data);
+        ByteReadBuff buff = new ByteReadBuff(data, offset);
         AckHeader header = new AckHeader();
         header.protocolId = buff.getByte();
         header.messageType = EMessageType.from(buff.getByte());
@@ -66,7 +82,7 @@ public class AckHeader extends Header {
         header.parameterLength = buff.getUInt16();
         header.dataLength = buff.getUInt16();
         header.errorClass = EErrorClass.from(buff.getByte());
-        header.errorCode = buff.getUInt16(10);
+        header.errorCode = buff.getUInt16(offset + 10);
         return header;
     }
 
@@ -3,9 +3,6 @@ package com.github.xingshuangs.iot.protocol.s7.model;
 
 import com.github.xingshuangs.iot.exceptions.S7CommException;
 import com.github.xingshuangs.iot.protocol.s7.enums.EPduType;
-import com.github.xingshuangs.iot.utils.ByteUtil;
-
-import java.util.Arrays;
 
 /**
  * @author xingshuang
@@ -23,21 +20,29 @@ public class COTPBuilder {
      * @return COTP
      */
     public static COTP fromBytes(final byte[] data) {
-        int length = ByteUtil.toUInt8(data[0]);
-        byte[] cotpBytes = Arrays.copyOfRange(data, 0, length + 1);
+        return fromBytes(data, 0);
+    }
 
-        EPduType pduType = EPduType.from(cotpBytes[1]);
+    /**
+     * 字节数组数据解析，直接在原数组上按偏移量解析，不拷贝
+     *
+     * @param data   字节数组数据
+     * @param offset 偏移量
+     * @return COTP
+     */
+    public static COTP fromBytes(final byte[] data, final int offset) {
+        EPduType pduType = EPduType.from(data[offset + 1]);
 
         switch (pduType) {
             case CONNECT_REQUEST:
             case CONNECT_CONFIRM:
             case DISCONNECT_REQUEST:
             case DISCONNECT_CONFIRM:
-                return COTPConnection.fromBytes(cotpBytes);
+                return COTPConnection.fromBytes(data, offset);
             case REJECT:
                 return null;
             case DT_DATA:
-                return COTPData.fromBytes(cotpBytes);
+                return COTPData.fromBytes(data, offset);
             default:
                 throw new S7CommException("COTP的pduType数据类型无法解析");
         }
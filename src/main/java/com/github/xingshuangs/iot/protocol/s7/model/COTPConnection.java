@@ -111,8 +111,14 @@ public class COTPConnection extends COTP implements IObjectByteArray {
 
     @Override
     public byte[] toByteArray() {
-        return ByteWriteBuff.newInstance(BYTE_LENGTH)
-                .putByte(this.length)
+        ByteWriteBuff buff = ByteWriteBuff.newInstance(BYTE_LENGTH);
+        this.writeTo(buff);
+        return buff.getData();
+    }
+
+    @Override
+    public void writeTo(ByteWriteBuff buff) {
+        buff.putByte(this.length)
                 .putByte(this.pduType.getCode())
                 .putShort(this.destinationReference)
                 .putShort(this.sourceReference)
@@ -125,8 +131,7 @@ public class COTPConnection extends COTP implements IObjectByteArray {
                 .putShort(this.sourceTsap)
                 .putByte(this.parameterCodeDstTsap)
                 .putByte(this.parameterLength3)
-                .putShort(this.destinationTsap)
-                .getData();
+                .putShort(this.destinationTsap);
     }
 
     /**
@@ -187,10 +192,21 @@ public class COTPConnection extends COTP implements IObjectByteArray {
      * @return COTPConnection
      */
     public static COTPConnection fromBytes(final byte[] data) {
-        if (data.length < BYTE_LENGTH) {
+        return fromBytes(data, 0);
+    }
+
+    /**
+     * 字节数组数据解析
+     *
+     * @param data   字节数组数据
+     * @param offset 偏移量
+     * @return COTPConnection
+     */
+    public static COTPConnection fromBytes(final byte[] data, final int offset) {
+        if (data.length - offset < BYTE_LENGTH) {
             throw new S7CommException("COTPConnection数据字节长度不够，无法解析");
         }
-        ByteReadBuff buff = new ByteReadBuff(data);
+        ByteReadBuff buff = new ByteReadBuff(data, offset);
         COTPConnection connection = new COTPConnection();
         connection.length = buff.getByteToInt();
         connection.pduType = EPduType.from(buff.getByte());
@@ -41,12 +41,17 @@ public class COTPData extends COTP implements IObjectByteArray {
 
     @Override
     public byte[] toByteArray() {
-        return ByteWriteBuff.newInstance(BYTE_LENGTH)
-                .putByte(this.length)
+        ByteWriteBuff buff = ByteWriteBuff.newInstance(BYTE_LENGTH);
+        this.writeTo(buff);
+        return buff.getData();
+    }
+
+    @Override
+    public void writeTo(ByteWriteBuff buff) {
+        buff.putByte(this.length)
                 .putByte(this.pduType.getCode())
                 // TPDU编号和是否最后一个数据单元组合成一个字节，最高位表示是否最后一个
-                .putByte((byte) (BooleanUtil.setBit((byte) 0x00, 7, this.lastDataUnit) | (this.tpduNumber & 0xFF)))
-                .getData();
+                .putByte((byte) (BooleanUtil.setBit((byte) 0x00, 7, this.lastDataUnit) | (this.tpduNumber & 0xFF)));
     }
 
     /**
@@ -56,15 +61,26 @@ public class COTPData extends COTP implements IObjectByteArray {
      * @return COTPData对象
      */
     public static COTPData fromBytes(final byte[] data) {
-        if (data.length < BYTE_LENGTH) {
+        return fromBytes(data, 0);
+    }
+
+    /**
+     * 字节数组数据解析
+     *
+     * @param data   字节数组数据
+     * @param offset 偏移量
+     * @return COTPData
+     */
+    public static COTPData fromBytes(final byte[] data, final int offset) {
+        if (data.length - offset < BYTE_LENGTH) {
             throw new S7CommException("COTPData数据字节长度不够，无法解析");
         }
-        ByteReadBuff buff = new ByteReadBuff(data);
+        ByteReadBuff buff = new ByteReadBuff(data, offset);
         COTPData cotpData = new COTPData();
         cotpData.length = buff.getByteToInt();
         cotpData.pduType = EPduType.from(buff.getByte());
         cotpData.tpduNumber = buff.getByte() & 0x7F;
-        cotpData.lastDataUnit = buff.getBoolean(2,7);
+        cotpData.lastDataUnit = buff.getBoolean(offset + 2, 7);
         return cotpData;
     }
 
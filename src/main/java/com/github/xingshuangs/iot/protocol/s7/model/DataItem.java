@@ -49,8 +49,14 @@ public class DataItem extends ReturnItem implements IObjectByteArray {
     public byte[] toByteArray() {
         // 如果数据长度为奇数，S7协议会多填充一个字节，使其保持为偶数（最后一个奇数长度数据不需要填充）
         int length = 4 + this.data.length + (this.data.length % 2 == 0 ? 0 : 1);
-        ByteWriteBuff buff = ByteWriteBuff.newInstance(length)
-                .putByte(this.returnCode.getCode())
+        ByteWriteBuff buff = ByteWriteBuff.newInstance(length);
+        this.writeTo(buff);
+        return buff.getData();
+    }
+
+    @Override
+    public void writeTo(ByteWriteBuff buff) {
+        buff.putByte(this.returnCode.getCode())
                 .putByte(this.variableType.getCode());
         // 如果数据类型是位，不需要 * 8，如果是其他类型，需要 * 8
         switch (this.variableType) {
@@ -69,7 +75,10 @@ public class DataItem extends ReturnItem implements IObjectByteArray {
                 throw new S7CommException("无法识别数据类型");
         }
         buff.putBytes(this.data);
-        return buff.getData();
+        // 缓存可能被复用，填充字节需要显式写入
+        if (this.data.length % 2 != 0) {
+            buff.putByte((byte) 0x00);
+        }
     }
 
     /**
@@ -93,7 +102,18 @@ public class DataItem extends ReturnItem implements IObjectByteArray {
      * @return DataItem
      */
     public static DataItem fromBytes(final byte[] data) {
-        ByteReadBuff buff = new ByteReadBuff(data);
+        return fromBytes(data, 0);
+    }
+
+    /**
+     * 字节数组数据解析
+     *
+     * @param data   字节数组数据
+     * @param offset 偏移量
+     * @return DataItem
+     */
+    public static DataItem fromBytes(final byte[] data, final int offset) {
+        ByteReadBuff buff = new ByteReadBuff(data, offset);
         DataItem dataItem = new DataItem();
         dataItem.returnCode = EReturnCode.from(buff.getByte());
         dataItem.variableType = EDataVariableType.from(buff.getByte());
@@ -8,7 +8,6 @@ import com.github.xingshuangs.iot.protocol.common.buff.ByteWriteBuff;
 import lombok.Data;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 
@@ -43,10 +42,15 @@ public class Datum implements IObjectByteArray {
             return new byte[0];
         }
         ByteWriteBuff buff = ByteWriteBuff.newInstance(this.byteArrayLength());
+        this.writeTo(buff);
+        return buff.getData();
+    }
+
+    @Override
+    public void writeTo(ByteWriteBuff buff) {
         for (ReturnItem returnItem : this.returnItems) {
-            buff.putBytes(returnItem.toByteArray());
+            returnItem.writeTo(buff);
         }
-        return buff.getData();
     }
 
     /**
@@ -76,27 +80,41 @@ public class Datum implements IObjectByteArray {
      * @return Datum
      */
     public static Datum fromBytes(final byte[] data, EMessageType messageType, EFunctionCode functionCode) {
+        return fromBytes(data, 0, data.length, messageType, functionCode);
+    }
+
+    /**
+     * 根据消息类型和功能码，直接在原数组上按偏移量对数据部分进行解析
+     *
+     * @param data         字节数组数据
+     * @param offset       偏移量
+     * @param length       数据部分的长度
+     * @param messageType  头部的消息类型
+     * @param functionCode 参数部分的功能码
+     * @return Datum
+     */
+    public static Datum fromBytes(final byte[] data, final int offset, final int length,
+                                  EMessageType messageType, EFunctionCode functionCode) {
         Datum datum = new Datum();
-        if (data.length == 0) {
+        if (length == 0) {
             return datum;
         }
-        int offset = 0;
-        byte[] remain = data;
+        int off = offset;
+        int end = offset + length;
         while (true) {
             ReturnItem dataItem;
             // 对写操作的响应结果进行特殊处理
             if (EMessageType.ACK_DATA == messageType && EFunctionCode.WRITE_VARIABLE == functionCode) {
-                dataItem = ReturnItem.fromBytes(data);
+                dataItem = ReturnItem.fromBytes(data, off);
             } else {
-                dataItem = DataItem.fromBytes(remain);
+                dataItem = DataItem.fromBytes(data, off);
             }
 
             datum.returnItems.add(dataItem);
-            offset += dataItem.byteArrayLength();
-            if (offset >= data.length) {
+            off += dataItem.byteArrayLength();
+            if (off >= end) {
                 break;
             }
-            remain = Arrays.copyOfRange(data, offset, data.length);
         }
         return datum;
     }
@@ -83,14 +83,19 @@ public class Header implements IObjectByteArray {
 
     @Override
     public byte[] toByteArray() {
-        return ByteWriteBuff.newInstance(BYTE_LENGTH)
-                .putByte(this.protocolId)
+        ByteWriteBuff buff = ByteWriteBuff.newInstance(BYTE_LENGTH);
+        this.writeTo(buff);
+        return buff.getData();
+    }
+
+    @Override
+    public void writeTo(ByteWriteBuff buff) {
+        buff.putByte(this.protocolId)
                 .putByte(this.messageType.getCode())
                 .putShort(this.reserved)
                 .putShort(this.pduReference)
                 .putShort(this.parameterLength)
-                .putShort(this.dataLength)
-                .getData();
+                .putShort(this.dataLength);
     }
 
     /**
@@ -100,10 +105,21 @@ public class Header implements IObjectByteArray {
      * @return Header
      */
     public static Header fromBytes(final byte[] data) {
-        if (data.length < BYTE_LENGTH) {
+        return fromBytes(data, 0);
+    }
+
+    /**
+     * 字节数组数据解析
+     *
+     * @param data   字节数组数据
+     * @param offset 偏移量
+     * @return Header
+     */
+    public static Header fromBytes(final byte[] data, final int offset) {
+        if (data.length - offset < BYTE_LENGTH) {
             throw new IndexOutOfBoundsException("解析header时，字节数组长度不够");
         }
-        ByteReadBuff buff = new ByteReadBuff(data);
+        ByteReadBuff buff = new ByteReadBuff(data, offset);
         Header header = new Header();
         header.protocolId = buff.getByte();
         header.messageType = EMessageType.from(buff.getByte());
@@ -22,14 +22,25 @@ public class HeaderBuilder {
      * @return Header
      */
     public static Header fromBytes(final byte[] data) {
-        EMessageType messageType = EMessageType.from(data[1]);
+        return fromBytes(data, 0);
+    }
+
+    /**
+     * 字节数组数据解析
+     *
+     * @param data   字节数组数据
+     * @param offset 偏移量
+     * @return Header
+     */
+    public static Header fromBytes(final byte[] data, final int offset) {
+        EMessageType messageType = EMessageType.from(data[offset + 1]);
 
         switch (messageType) {
             case JOB:
-                return Header.fromBytes(data);
+                return Header.fromBytes(data, offset);
             case ACK:
             case ACK_DATA:
-                return AckHeader.fromBytes(data);
+                return AckHeader.fromBytes(data, offset);
             case USER_DATA:
                 return null;
             default:
@@ -22,14 +22,27 @@ public class ParameterBuilder {
      * @return Parameter
      */
     public static Parameter fromBytes(final byte[] data, EMessageType messageType) {
-        EFunctionCode functionCode = EFunctionCode.from(data[0]);
+        return fromBytes(data, 0, data.length, messageType);
+    }
+
+    /**
+     * 字节数组数据解析
+     *
+     * @param data        字节数组数据
+     * @param offset      偏移量
+     * @param length      parameter部分的长度
+     * @param messageType 消息类型
+     * @return Parameter
+     */
+    public static Parameter fromBytes(final byte[] data, final int offset, final int length, EMessageType messageType) {
+        EFunctionCode functionCode = EFunctionCode.from(data[offset]);
 
         switch (functionCode) {
             case CPU_SERVICES:
                 return null;
             case READ_VARIABLE:
             case WRITE_VARIABLE:
-                return ReadWriteParameter.fromBytes(data);
+                return ReadWriteParameter.fromBytes(data, offset, length);
             case START_DOWNLOAD:
                 return null;
             case DOWNLOAD:
@@ -43,11 +56,11 @@ public class ParameterBuilder {
             case END_UPLOAD:
                 return null;
             case PLC_CONTROL:
-                return messageType == EMessageType.ACK_DATA ? new Parameter(EFunctionCode.PLC_CONTROL) : PlcControlParameter.fromBytes(data);
+                return messageType == EMessageType.ACK_DATA ? new Parameter(EFunctionCode.PLC_CONTROL) : PlcControlParameter.fromBytes(data, offset);
             case PLC_STOP:
-                return messageType == EMessageType.ACK_DATA ? new Parameter(EFunctionCode.PLC_STOP) : PlcStopParameter.fromBytes(data);
+                return messageType == EMessageType.ACK_DATA ? new Parameter(EFunctionCode.PLC_STOP) : PlcStopParameter.fromBytes(data, offset);
             case SETUP_COMMUNICATION:
-                return SetupComParameter.fromBytes(data);
+                return SetupComParameter.fromBytes(data, offset);
             default:
                 throw new S7CommException("Parameter的功能码不存在");
         }
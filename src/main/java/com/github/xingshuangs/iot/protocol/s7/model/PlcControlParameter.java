@@ -89,10 +89,21 @@ public class PlcControlParameter extends Parameter implements IObjectByteArray {
      * @return PlcStopParameter
      */
     public static PlcControlParameter fromBytes(final byte[] data) {
-        if (data.length < 11) {
+        return fromBytes(data, 0);
+    }
+
+    /**
+     * 字节数组数据解析
+     *
+     * @param data   字节数组数据
+     * @param offset 偏移量
+     * @return PlcControlParameter
+     */
+    public static PlcControlParameter fromBytes(final byte[] data, final int offset) {
+        if (data.length - offset < 11) {
             throw new S7CommException("StopParameter解析有误，StopParameter字节数组长度 < 7");
         }
-        ByteReadBuff buff = new ByteReadBuff(data);
+        ByteReadBuff buff = new ByteReadBuff(data, offset);
         PlcControlParameter parameter = new PlcControlParameter();
         parameter.functionCode = EFunctionCode.from(buff.getByte());
         parameter.unknownBytes = buff.getBytes(7);
@@ -68,10 +68,21 @@ public class PlcStopParameter extends Parameter implements IObjectByteArray {
      * @return PlcStopParameter
      */
     public static PlcStopParameter fromBytes(final byte[] data) {
-        if (data.length < 7) {
+        return fromBytes(data, 0);
+    }
+
+    /**
+     * 字节数组数据解析
+     *
+     * @param data   字节数组数据
+     * @param offset 偏移量
+     * @return PlcStopParameter
+     */
+    public static PlcStopParameter fromBytes(final byte[] data, final int offset) {
+        if (data.length - offset < 7) {
             throw new S7CommException("StopParameter解析有误，StopParameter字节数组长度 < 7");
         }
-        ByteReadBuff buff = new ByteReadBuff(data);
+        ByteReadBuff buff = new ByteReadBuff(data, offset);
         PlcStopParameter parameter = new PlcStopParameter();
         parameter.functionCode = EFunctionCode.from(buff.getByte());
         parameter.unknownBytes = buff.getBytes(5);
@@ -63,13 +63,18 @@ public class ReadWriteParameter extends Parameter implements IObjectByteArray {
     @Override
     public byte[] toByteArray() {
         int length = 2 + this.requestItems.stream().mapToInt(RequestBaseItem::byteArrayLength).sum();
-        ByteWriteBuff buff = ByteWriteBuff.newInstance(length)
-                .putByte(this.functionCode.getCode())
+        ByteWriteBuff buff = ByteWriteBuff.newInstance(length);
+        this.writeTo(buff);
+        return buff.getData();
+    }
+
+    @Override
+    public void writeTo(ByteWriteBuff buff) {
+        buff.putByte(this.functionCode.getCode())
                 .putByte(this.itemCount);
         for (RequestBaseItem requestItem : this.requestItems) {
-            buff.putBytes(requestItem.toByteArray());
+            requestItem.writeTo(buff);
         }
-        return buff.getData();
     }
 
     /**
@@ -79,10 +84,22 @@ public class ReadWriteParameter extends Parameter implements IObjectByteArray {
      * @return ReadWriteParameter
      */
     public static ReadWriteParameter fromBytes(final byte[] data) {
-        if (data.length < 2) {
+        return fromBytes(data, 0, data.length);
+    }
+
+    /**
+     * 字节数组数据解析
+     *
+     * @param data   字节数组数据
+     * @param offset 偏移量
+     * @param length parameter部分的长度
+     * @return ReadWriteParameter
+     */
+    public static ReadWriteParameter fromBytes(final byte[] data, final int offset, final int length) {
+        if (length < 2) {
             throw new S7CommException("Parameter解析有误，parameter字节数组长度 < 2");
         }
-        ByteReadBuff buff = new ByteReadBuff(data);
+        ByteReadBuff buff = new ByteReadBuff(data, offset);
         ReadWriteParameter readWriteParameter = new ReadWriteParameter();
         readWriteParameter.functionCode = EFunctionCode.from(buff.getByte());
         readWriteParameter.itemCount = buff.getByteToInt();
@@ -90,10 +107,10 @@ public class ReadWriteParameter extends Parameter implements IObjectByteArray {
             return readWriteParameter;
         }
         // 读写返回时，只有功能码和个数
-        if (data.length == 2) {
+        if (length == 2) {
             return readWriteParameter;
         }
-        int off = 2;
+        int off = offset + 2;
         for (int i = 0; i < readWriteParameter.itemCount; i++) {
             RequestBaseItem item = parserItem(data, off);
             readWriteParameter.requestItems.add(item);
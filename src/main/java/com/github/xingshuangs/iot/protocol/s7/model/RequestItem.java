@@ -72,8 +72,14 @@ public class RequestItem extends RequestBaseItem {
 
     @Override
     public byte[] toByteArray() {
-        return ByteWriteBuff.newInstance(BYTE_LENGTH)
-                .putByte(this.specificationType)
+        ByteWriteBuff buff = ByteWriteBuff.newInstance(BYTE_LENGTH);
+        this.writeTo(buff);
+        return buff.getData();
+    }
+
+    @Override
+    public void writeTo(ByteWriteBuff buff) {
+        buff.putByte(this.specificationType)
                 .putByte(this.lengthOfFollowing)
                 .putByte(this.syntaxId.getCode())
                 .putByte(this.variableType.getCode())
@@ -81,8 +87,7 @@ public class RequestItem extends RequestBaseItem {
                 .putShort(this.dbNumber)
                 .putByte(this.area.getCode())
                 // 只有3个字节，因此只取后面的3字节，第一个字节舍弃
-                .putBytes(IntegerUtil.toByteArray((this.byteAddress << 3) + this.bitAddress), 1)
-                .getData();
+                .putBytes(IntegerUtil.toByteArray((this.byteAddress << 3) + this.bitAddress), 1);
     }
 
     /**
@@ -86,18 +86,23 @@ public class RequestNckItem extends RequestBaseItem {
 
     @Override
     public byte[] toByteArray() {
+        ByteWriteBuff buff = ByteWriteBuff.newInstance(BYTE_LENGTH);
+        this.writeTo(buff);
+        return buff.getData();
+    }
+
+    @Override
+    public void writeTo(ByteWriteBuff buff) {
         byte areaAndUint = (byte) (((this.area.getCode() << 5) & (byte) 0xE0)
                 | (this.unit & (byte) 0x1F));
-        return ByteWriteBuff.newInstance(BYTE_LENGTH)
-                .putByte(this.specificationType)
+        buff.putByte(this.specificationType)
                 .putByte(this.lengthOfFollowing)
                 .putByte(this.syntaxId.getCode())
                 .putByte(areaAndUint)
                 .putShort(this.columnNumber)
                 .putShort(this.lineNumber)
                 .putByte(this.module.getCode())
-                .putByte(this.lineCount)
-                .getData();
+                .putByte(this.lineCount);
     }
 
     /**
@@ -28,9 +28,14 @@ public class ReturnItem implements IObjectByteArray {
 
     @Override
     public byte[] toByteArray() {
-        return ByteWriteBuff.newInstance(this.byteArrayLength())
-                .putByte(returnCode.getCode())
-                .getData();
+        ByteWriteBuff buff = ByteWriteBuff.newInstance(this.byteArrayLength());
+        this.writeTo(buff);
+        return buff.getData();
+    }
+
+    @Override
+    public void writeTo(ByteWriteBuff buff) {
+        buff.putByte(returnCode.getCode());
     }
 
     /**
@@ -40,8 +45,19 @@ public class ReturnItem implements IObjectByteArray {
      * @return ReturnItem
      */
     public static ReturnItem fromBytes(final byte[] data) {
+        return fromBytes(data, 0);
+    }
+
+    /**
+     * 字节数组数据解析
+     *
+     * @param data   字节数组数据
+     * @param offset 偏移量
+     * @return ReturnItem
+     */
+    public static ReturnItem fromBytes(final byte[] data, final int offset) {
         ReturnItem returnItem = new ReturnItem();
-        returnItem.returnCode = EReturnCode.from(data[0]);
+        returnItem.returnCode = EReturnCode.from(data[offset]);
         return returnItem;
     }
 
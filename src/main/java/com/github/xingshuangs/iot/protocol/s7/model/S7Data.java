@@ -7,7 +7,6 @@ import com.github.xingshuangs.iot.protocol.s7.enums.EErrorClass;
 import com.github.xingshuangs.iot.protocol.s7.enums.EFunctionCode;
 import lombok.Data;
 
-import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -57,22 +56,27 @@ public class S7Data implements IObjectByteArray {
     @Override
     public byte[] toByteArray() {
         ByteWriteBuff buff = ByteWriteBuff.newInstance(this.byteArrayLength());
+        this.writeTo(buff);
+        return buff.getData();
+    }
+
+    @Override
+    public void writeTo(ByteWriteBuff buff) {
         if (this.tpkt != null) {
-            buff.putBytes(this.tpkt.toByteArray());
+            this.tpkt.writeTo(buff);
         }
         if (this.cotp != null) {
-            buff.putBytes(this.cotp.toByteArray());
+            this.cotp.writeTo(buff);
         }
         if (this.header != null) {
-            buff.putBytes(this.header.toByteArray());
+            this.header.writeTo(buff);
         }
         if (this.parameter != null) {
-            buff.putBytes(this.parameter.toByteArray());
+            this.parameter.writeTo(buff);
         }
         if (this.datum != null) {
-            buff.putBytes(this.datum.toByteArray());
+            this.datum.writeTo(buff);
         }
-        return buff.getData();
     }
 
     /**
@@ -101,10 +105,20 @@ public class S7Data implements IObjectByteArray {
      * @return s7数据
      */
     public static S7Data fromBytes(final byte[] data) {
-        byte[] tpktBytes = Arrays.copyOfRange(data, 0, TPKT.BYTE_LENGTH);
-        TPKT tpkt = TPKT.fromBytes(tpktBytes);
-        byte[] remainBytes = Arrays.copyOfRange(data, TPKT.BYTE_LENGTH, data.length);
-        return fromBytes(tpkt, remainBytes);
+        return fromBytes(data, 0, data.length);
+    }
+
+    /**
+     * 根据字节数据解析S7协议数据
+     *
+     * @param data   数据字节
+     * @param offset 偏移量
+     * @param length 报文长度
+     * @return s7数据
+     */
+    public static S7Data fromBytes(final byte[] data, final int offset, final int length) {
+        TPKT tpkt = TPKT.fromBytes(data, offset);
+        return fromBytes(tpkt, data, offset + TPKT.BYTE_LENGTH, length - TPKT.BYTE_LENGTH);
     }
 
     /**
@@ -115,33 +129,46 @@ public class S7Data implements IObjectByteArray {
      * @return s7数据
      */
     public static S7Data fromBytes(TPKT tpkt, final byte[] remain) {
+        return fromBytes(tpkt, remain, 0, remain.length);
+    }
+
+    /**
+     * 根据字节数据解析S7协议数据，各部分直接在原数组上按偏移量解析，不做中间拷贝
+     *
+     * @param tpkt   tpkt
+     * @param data   字节数据
+     * @param offset COTP部分的起始偏移量
+     * @param length COTP部分开始的剩余长度
+     * @return s7数据
+     */
+    public static S7Data fromBytes(TPKT tpkt, final byte[] data, final int offset, final int length) {
         // tpkt
         S7Data s7Data = new S7Data();
         s7Data.tpkt = tpkt;
         // cotp
-        COTP cotp = COTPBuilder.fromBytes(remain);
+        COTP cotp = COTPBuilder.fromBytes(data, offset);
         s7Data.cotp = cotp;
-        if (cotp == null || remain.length <= cotp.byteArrayLength()) {
+        if (cotp == null || length <= cotp.byteArrayLength()) {
             return s7Data;
         }
 
         //-----------------------------S7通信部分的内容--------------------------------------------
-        byte[] lastBytes = Arrays.copyOfRange(remain, cotp.byteArrayLength(), remain.length);
+        int headerOffset = offset + cotp.byteArrayLength();
         // header
-        Header header = HeaderBuilder.fromBytes(lastBytes);
+        Header header = HeaderBuilder.fromBytes(data, headerOffset);
         s7Data.header = header;
         if (header == null) {
             return s7Data;
         }
         // parameter
+        int parameterOffset = headerOffset + header.byteArrayLength();
         if (header.getParameterLength() > 0) {
-            byte[] parameterBytes = Arrays.copyOfRange(lastBytes, header.byteArrayLength(), header.byteArrayLength() + header.getParameterLength());
-            s7Data.parameter = ParameterBuilder.fromBytes(parameterBytes, s7Data.header.getMessageType());
+            s7Data.parameter = ParameterBuilder.fromBytes(data, parameterOffset, header.getParameterLength(), header.getMessageType());
         }
         // datum
         if (header.getDataLength() > 0) {
-            byte[] dataBytes = Arrays.copyOfRange(lastBytes, header.byteArrayLength() + header.getParameterLength(), header.byteArrayLength() + header.getParameterLength() + header.getDataLength());
-            s7Data.datum = Datum.fromBytes(dataBytes, s7Data.header.getMessageType(), s7Data.parameter.getFunctionCode());
+            int datumOffset = parameterOffset + header.getParameterLength();
+            s7Data.datum = Datum.fromBytes(data, datumOffset, header.getDataLength(), header.getMessageType(), s7Data.parameter.getFunctionCode());
         }
         return s7Data;
     }
@@ -182,11 +209,22 @@ public class S7Data implements IObjectByteArray {
      * @return s7data数据
      */
     public static S7Data createConnectDtData(int pduLength) {
+        return createConnectDtData(pduLength, 1);
+    }
+
+    /**
+     * 创建连接setup
+     *
+     * @param pduLength PDU长度
+     * @param maxAmq    最大并行作业数
+     * @return s7data数据
+     */
+    public static S7Data createConnectDtData(int pduLength, int maxAmq) {
         S7Data s7Data = new S7Data();
         s7Data.tpkt = new TPKT();
         s7Data.cotp = COTPData.createDefault();
         s7Data.header = Header.createDefault();
-        s7Data.parameter = SetupComParameter.createDefault(pduLength);
+        s7Data.parameter = SetupComParameter.createDefault(pduLength, maxAmq);
         s7Data.selfCheck();
         return s7Data;
     }
@@ -54,13 +54,18 @@ public class SetupComParameter extends Parameter implements IObjectByteArray {
 
     @Override
     public byte[] toByteArray() {
-        return ByteWriteBuff.newInstance(BYTE_LENGTH)
-                .putByte(this.functionCode.getCode())
+        ByteWriteBuff buff = ByteWriteBuff.newInstance(BYTE_LENGTH);
+        this.writeTo(buff);
+        return buff.getData();
+    }
+
+    @Override
+    public void writeTo(ByteWriteBuff buff) {
+        buff.putByte(this.functionCode.getCode())
                 .putByte(this.reserved)
                 .putShort(this.maxAmqCaller)
                 .putShort(this.maxAmqCallee)
-                .putShort(this.pduLength)
-                .getData();
+                .putShort(this.pduLength);
     }
 
     /**
@@ -70,7 +75,18 @@ public class SetupComParameter extends Parameter implements IObjectByteArray {
      * @return SetupComParameter
      */
     public static SetupComParameter fromBytes(final byte[] data) {
-        ByteReadBuff buff = new ByteReadBuff(data);
+        return fromBytes(data, 0);
+    }
+
+    /**
+     * 字节数组数据解析
+     *
+     * @param data   字节数组数据
+     * @param offset 偏移量
+     * @return SetupComParameter
+     */
+    public static SetupComParameter fromBytes(final byte[] data, final int offset) {
+        ByteReadBuff buff = new ByteReadBuff(data, offset);
         SetupComParameter setupComParameter = new SetupComParameter();
         setupComParameter.functionCode = EFunctionCode.from(buff.getByte());
         setupComParameter.reserved = buff.getByte();
@@ -87,11 +103,22 @@ public class SetupComParameter extends Parameter implements IObjectByteArray {
      * @return SetupComParameter
      */
     public static SetupComParameter createDefault(int pduLength) {
+        return createDefault(pduLength, 1);
+    }
+
+    /**
+     * 创建默认的设置通信参数
+     *
+     * @param pduLength PDU长度
+     * @param maxAmq    最大并行作业数
+     * @return SetupComParameter
+     */
+    public static SetupComParameter createDefault(int pduLength, int maxAmq) {
         SetupComParameter parameter = new SetupComParameter();
         parameter.functionCode = EFunctionCode.SETUP_COMMUNICATION;
         parameter.reserved = (byte) 0x00;
-        parameter.maxAmqCaller = 1;
-        parameter.maxAmqCallee = 1;
+        parameter.maxAmqCaller = maxAmq;
+        parameter.maxAmqCallee = maxAmq;
         // 默认最大PDU长度240
         parameter.pduLength = pduLength;
         return parameter;
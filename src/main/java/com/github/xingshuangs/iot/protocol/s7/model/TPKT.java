@@ -48,11 +48,16 @@ public class TPKT implements IObjectByteArray {
 
     @Override
     public byte[] toByteArray() {
-        return ByteWriteBuff.newInstance(BYTE_LENGTH)
-                .putByte(this.version)
+        ByteWriteBuff buff = ByteWriteBuff.newInstance(BYTE_LENGTH);
+        this.writeTo(buff);
+        return buff.getData();
+    }
+
+    @Override
+    public void writeTo(ByteWriteBuff buff) {
+        buff.putByte(this.version)
                 .putByte(this.reserved)
-                .putShort(this.length)
-                .getData();
+                .putShort(this.length);
     }
 
     /**
@@ -62,10 +67,21 @@ public class TPKT implements IObjectByteArray {
      * @return TPKT
      */
     public static TPKT fromBytes(final byte[] data) {
-        if (data.length < BYTE_LENGTH) {
+        return fromBytes(data, 0);
+    }
+
+    /**
+     * 字节数组数据解析
+     *
+     * @param data   字节数组数据
+     * @param offset 偏移量
+     * @return TPKT
+     */
+    public static TPKT fromBytes(final byte[] data, final int offset) {
+        if (data.length - offset < BYTE_LENGTH) {
             throw new IndexOutOfBoundsException(String.format("TPKT转换过程中，字节数据长度小于%d", BYTE_LENGTH));
         }
-        ByteReadBuff buff = new ByteReadBuff(data);
+        ByteReadBuff buff = new ByteReadBuff(data, offset);
         TPKT tpkt = new TPKT();
         tpkt.version = buff.getByte();
         tpkt.reserved = buff.getByte();
@@ -0,0 +1,70 @@
+package com.github.xingshuangs.iot.protocol.s7.serializer;
+
+
+import com.github.xingshuangs.iot.protocol.common.enums.EDataType;
+
+/**
+ * S7对象的字段访问器，字段顺序和{@link S7Variable}注解字段的声明顺序一致，
+ * 由注解处理器为每个类型生成，存在时{@link S7Serializer}直接使用，不存在时使用反射
+ *
+ * @param <T> 目标类型
+ * @author xingshuang
+ */
+public interface IS7BeanAccessor<T> {
+
+    /**
+     * 字段个数
+     *
+     * @return 字段个数
+     */
+    int size();
+
+    /**
+     * 字段的地址
+     *
+     * @param index 字段索引
+     * @return 地址
+     */
+    String address(int index);
+
+    /**
+     * 字段的数据类型
+     *
+     * @param index 字段索引
+     * @return 数据类型
+     */
+    EDataType type(int index);
+
+    /**
+     * 字段的数据个数
+     *
+     * @param index 字段索引
+     * @return 数据个数
+     */
+    int count(int index);
+
+    /**
+     * 创建对象
+     *
+     * @return 对象
+     */
+    T newInstance();
+
+    /**
+     * 读取字段值
+     *
+     * @param bean  对象
+     * @param index 字段索引
+     * @return 字段值
+     */
+    Object get(T bean, int index);
+
+    /**
+     * 设置字段值
+     *
+     * @param bean  对象
+     * @param index 字段索引
+     * @param value 字段值
+     */
+    void set(T bean, int index, Object value);
+}
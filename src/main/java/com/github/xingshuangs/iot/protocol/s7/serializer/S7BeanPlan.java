@@ -0,0 +1,455 @@
+package com.github.xingshuangs.iot.protocol.s7.serializer;
+
+
+import com.github.xingshuangs.iot.exceptions.S7CommException;
+import com.github.xingshuangs.iot.protocol.common.buff.ByteReadBuff;
+import com.github.xingshuangs.iot.protocol.common.buff.ByteWriteBuff;
+import com.github.xingshuangs.iot.protocol.common.enums.EDataType;
+import com.github.xingshuangs.iot.protocol.common.serializer.GeneratedCodecLoader;
+import com.github.xingshuangs.iot.protocol.s7.model.DataItem;
+import com.github.xingshuangs.iot.protocol.s7.model.RequestItem;
+import com.github.xingshuangs.iot.protocol.s7.utils.AddressUtil;
+import com.github.xingshuangs.iot.utils.FloatUtil;
+import com.github.xingshuangs.iot.utils.IntegerUtil;
+import com.github.xingshuangs.iot.utils.ShortUtil;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * S7序列化的类型计划，每个类型只解析一次，包括注解校验、地址解析和字段访问方法，
+ * 按类型缓存在ClassValue中，之后的读写直接使用预先生成的请求项和字段访问器，
+ * 有注解处理器生成的访问器时使用生成的访问器，否则使用基于反射的访问器
+ *
+ * @author xingshuang
+ */
+final class S7BeanPlan {
+
+    /**
+     * 按类型缓存的计划
+     */
+    private static final ClassValue<S7BeanPlan> PLANS = new ClassValue<S7BeanPlan>() {
+        @Override
+        protected S7BeanPlan computeValue(Class<?> type) {
+            return new S7BeanPlan(type);
+        }
+    };
+
+    /**
+     * 字段访问器
+     */
+    private final IS7BeanAccessor<Object> accessor;
+
+    /**
+     * 字段计划，顺序和字段声明顺序一致
+     */
+    private final FieldPlan[] fields;
+
+    /**
+     * 所有字段的请求项，不可修改
+     */
+    private final List<RequestItem> requestItems;
+
+    @SuppressWarnings("unchecked")
+    private S7BeanPlan(Class<?> targetClass) {
+        IS7BeanAccessor<Object> generated = GeneratedCodecLoader.load(targetClass,
+                GeneratedCodecLoader.S7_ACCESSOR_SUFFIX, IS7BeanAccessor.class);
+        this.accessor = generated != null ? generated : new S7ReflectAccessor(targetClass);
+        this.fields = new FieldPlan[this.accessor.size()];
+        for (int i = 0; i < this.fields.length; i++) {
+            String address = this.accessor.address(i);
+            EDataType type = this.accessor.type(i);
+            int count = this.accessor.count(i);
+            checkS7Variable(address, type, count);
+            this.fields[i] = new FieldPlan(type, count, parseRequestItem(address, type, count));
+        }
+        RequestItem[] items = new RequestItem[this.fields.length];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = this.fields[i].requestItem;
+        }
+        this.requestItems = Collections.unmodifiableList(Arrays.asList(items));
+    }
+
+    /**
+     * 获取类型的计划，首次获取时解析，之后直接返回缓存
+     *
+     * @param targetClass 目标类型
+     * @return 计划
+     */
+    static S7BeanPlan of(Class<?> targetClass) {
+        return PLANS.get(targetClass);
+    }
+
+    /**
+     * 所有字段的请求项，调用方不能修改
+     *
+     * @return 请求项列表
+     */
+    List<RequestItem> getRequestItems() {
+        return requestItems;
+    }
+
+    /**
+     * 将所有字段的请求项按字节偏移后加入列表，偏移为0时直接加入缓存的请求项
+     *
+     * @param target     目标列表
+     * @param byteOffset 字节偏移
+     */
+    void addRequestItems(List<RequestItem> target, int byteOffset) {
+        if (byteOffset == 0) {
+            target.addAll(this.requestItems);
+            return;
+        }
+        for (FieldPlan field : this.fields) {
+            RequestItem item = field.requestItem.copy();
+            item.setByteAddress(item.getByteAddress() + byteOffset);
+            target.add(item);
+        }
+    }
+
+    /**
+     * 字段个数
+     *
+     * @return 字段个数
+     */
+    int size() {
+        return this.fields.length;
+    }
+
+    /**
+     * 校验S7Variable的数据是否满足规则要求
+     *
+     * @param address 地址
+     * @param type    数据类型
+     * @param count   数据个数
+     */
+    private static void checkS7Variable(String address, EDataType type, int count) {
+        if (address.isEmpty()) {
+            throw new S7CommException("S7参数注解中[address]不能为空");
+        }
+        if (count < 0) {
+            throw new S7CommException("S7参数注解中[count]不能为负数");
+        }
+        if (type == EDataType.STRING && count > 254) {
+            throw new S7CommException("S7参数注解中字符串类型类型数据的[count]不能大于254");
+        }
+        if (type != EDataType.BYTE && type != EDataType.STRING && count > 1) {
+            throw new S7CommException("S7参数注解中只有[type]=字节和字符串类型数据的[count]才能大于1，其他必须等于1");
+        }
+    }
+
+    /**
+     * 根据注解解析请求项
+     *
+     * @param address 地址
+     * @param type    数据类型
+     * @param count   数据个数
+     * @return 请求项
+     */
+    private static RequestItem parseRequestItem(String address, EDataType type, int count) {
+        if (type == EDataType.BOOL) {
+            return AddressUtil.parseBit(address);
+        }
+        if (type == EDataType.STRING) {
+            RequestItem requestItem = AddressUtil.parseByte(address, 1 + count * type.getByteLength());
+            // 为什么字节索引+1，为了避免修改PLC中string[60]类型的第一个字节数据，该数据为字符串的允许最大长度
+            requestItem.setByteAddress(requestItem.getByteAddress() + 1);
+            return requestItem;
+        }
+        return AddressUtil.parseByte(address, count * type.getByteLength());
+    }
+
+    //region 读取
+
+    /**
+     * 根据读取到的数据项创建对象
+     *
+     * @param dataItems 数据项，顺序和请求项一致
+     * @return 目标类型的实体对象
+     */
+    Object extract(List<DataItem> dataItems) {
+        if (dataItems.size() != this.fields.length) {
+            throw new S7CommException("所需的字段解析项个数与返回的数据项数量不一致，错误");
+        }
+        return this.extract(dataItems, 0);
+    }
+
+    /**
+     * 从数据项列表的指定位置开始创建对象，多个对象一起读取时使用
+     *
+     * @param dataItems 数据项列表
+     * @param fromIndex 该对象第一个字段对应的数据项索引
+     * @return 目标类型的实体对象
+     */
+    Object extract(List<DataItem> dataItems, int fromIndex) {
+        if (fromIndex + this.fields.length > dataItems.size()) {
+            throw new S7CommException("所需的字段解析项个数与返回的数据项数量不一致，错误");
+        }
+        try {
+            Object result = this.accessor.newInstance();
+            for (int i = 0; i < this.fields.length; i++) {
+                this.accessor.set(result, i, decode(this.fields[i], dataItems.get(fromIndex + i).getData()));
+            }
+            return result;
+        } catch (S7CommException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new S7CommException("序列化提取数据错误:" + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 解码字段数据
+     *
+     * @param field 字段计划
+     * @param data  字节数据
+     * @return 字段值
+     */
+    private static Object decode(FieldPlan field, byte[] data) {
+        switch (field.dataType) {
+            case BOOL:
+                return (data[0] & 0x01) != 0;
+            case BYTE:
+                return Arrays.copyOf(data, field.count);
+            case UINT16:
+                return ShortUtil.toUInt16(data);
+            case INT16:
+                return ShortUtil.toInt16(data);
+            case TIME:
+            case UINT32:
+                return IntegerUtil.toUInt32(data);
+            case INT32:
+                return IntegerUtil.toInt32(data);
+            case FLOAT32:
+                return FloatUtil.toFloat32(data);
+            case FLOAT64:
+                return FloatUtil.toFloat64(data);
+            case STRING:
+                int length = data[0] & 0xFF;
+                return new String(data, 1, Math.min(length, field.count), StandardCharsets.US_ASCII);
+            case DATE:
+                return LocalDate.of(1990, 1, 1).plusDays(ShortUtil.toUInt16(data));
+            case TIME_OF_DAY:
+                return LocalTime.ofSecondOfDay(IntegerUtil.toUInt32(data) / 1000);
+            case DTL:
+                ByteReadBuff buff = new ByteReadBuff(data);
+                int year = buff.getUInt16();
+                int month = buff.getByteToInt();
+                int dayOfMonth = buff.getByteToInt();
+                // 星期
+                buff.getByteToInt();
+                int hour = buff.getByteToInt();
+                int minute = buff.getByteToInt();
+                int second = buff.getByteToInt();
+                long nanoOfSecond = buff.getUInt32();
+                return LocalDateTime.of(year, month, dayOfMonth, hour, minute, second, (int) nanoOfSecond);
+            default:
+                throw new S7CommException("无法识别数据类型");
+        }
+    }
+
+    //endregion
+
+    //region 写入
+
+    /**
+     * 提取对象中非null的字段，填充到请求项和数据项列表
+     *
+     * @param targetBean   目标对象
+     * @param requestItems 请求项列表
+     * @param dataItems    数据项列表
+     */
+    void fill(Object targetBean, List<RequestItem> requestItems, List<DataItem> dataItems) {
+        try {
+            for (int i = 0; i < this.fields.length; i++) {
+                FieldPlan field = this.fields[i];
+                Object data = this.accessor.get(targetBean, i);
+                if (data == null) {
+                    continue;
+                }
+                requestItems.add(field.requestItem);
+                // 位数据的传输类型和字节数据不同
+                dataItems.add(field.dataType == EDataType.BOOL ? DataItem.createReqByBoolean((Boolean) data)
+                        : DataItem.createReqByByte(encode(field, data)));
+            }
+        } catch (S7CommException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new S7CommException("序列化填充字节数据错误:" + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 生成对象所有字段编码后的字节快照，值为null的字段对应null
+     *
+     * @param targetBean 目标对象
+     * @return 字节快照，顺序和字段一致
+     */
+    byte[][] snapshot(Object targetBean) {
+        try {
+            byte[][] res = new byte[this.fields.length][];
+            for (int i = 0; i < this.fields.length; i++) {
+                FieldPlan field = this.fields[i];
+                Object data = this.accessor.get(targetBean, i);
+                if (data != null) {
+                    res[i] = field.dataType == EDataType.BOOL ? new byte[]{(byte) ((Boolean) data ? 0x01 : 0x00)}
+                            : encode(field, data);
+                }
+            }
+            return res;
+        } catch (S7CommException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new S7CommException("序列化填充字节数据错误:" + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 对比两次快照，只填充字节有变化的字段，上一次快照为null时填充所有非null字段，
+     * 同一存储区内地址首尾相接的变化字段合并为一个请求项
+     *
+     * @param current      当前快照
+     * @param previous     上一次快照，可以为null
+     * @param requestItems 请求项列表
+     * @param dataItems    数据项列表
+     */
+    void fillChanged(byte[][] current, byte[][] previous, List<RequestItem> requestItems, List<DataItem> dataItems) {
+        List<Integer> dirtyBytes = new ArrayList<>();
+        for (int i = 0; i < this.fields.length; i++) {
+            if (current[i] == null || (previous != null && Arrays.equals(previous[i], current[i]))) {
+                continue;
+            }
+            if (this.fields[i].dataType == EDataType.BOOL) {
+                // 位数据无法和字节数据合并
+                requestItems.add(this.fields[i].requestItem);
+                dataItems.add(DataItem.createReqByBoolean(current[i][0] == 0x01));
+            } else {
+                dirtyBytes.add(i);
+            }
+        }
+        dirtyBytes.sort(Comparator.comparing((Integer i) -> this.fields[i].requestItem.getArea())
+                .thenComparingInt(i -> this.fields[i].requestItem.getDbNumber())
+                .thenComparingInt(i -> this.fields[i].requestItem.getByteAddress()));
+
+        int index = 0;
+        while (index < dirtyBytes.size()) {
+            RequestItem first = this.fields[dirtyBytes.get(index)].requestItem;
+            int end = index + 1;
+            int nextAddress = first.getByteAddress() + first.getCount();
+            while (end < dirtyBytes.size()) {
+                RequestItem next = this.fields[dirtyBytes.get(end)].requestItem;
+                if (next.getArea() != first.getArea() || next.getDbNumber() != first.getDbNumber()
+                        || next.getByteAddress() != nextAddress) {
+                    break;
+                }
+                nextAddress += next.getCount();
+                end++;
+            }
+            if (end == index + 1) {
+                requestItems.add(first);
+                dataItems.add(DataItem.createReqByByte(current[dirtyBytes.get(index)]));
+            } else {
+                RequestItem merged = first.copy();
+                merged.setCount(nextAddress - first.getByteAddress());
+                byte[] data = new byte[merged.getCount()];
+                int offset = 0;
+                for (int k = index; k < end; k++) {
+                    byte[] fieldData = current[dirtyBytes.get(k)];
+                    System.arraycopy(fieldData, 0, data, offset, fieldData.length);
+                    offset += fieldData.length;
+                }
+                requestItems.add(merged);
+                dataItems.add(DataItem.createReqByByte(data));
+            }
+            index = end;
+        }
+    }
+
+    /**
+     * 编码字段数据
+     *
+     * @param field 字段计划
+     * @param data  字段值
+     * @return 字节数据
+     */
+    private static byte[] encode(FieldPlan field, Object data) {
+        switch (field.dataType) {
+            case BYTE:
+                return ByteReadBuff.newInstance((byte[]) data).getBytes(field.count);
+            case UINT16:
+                return ShortUtil.toByteArray((Integer) data);
+            case INT16:
+                return ShortUtil.toByteArray((Short) data);
+            case TIME:
+            case UINT32:
+                return IntegerUtil.toByteArray((Long) data);
+            case INT32:
+                return IntegerUtil.toByteArray((Integer) data);
+            case FLOAT32:
+                return FloatUtil.toByteArray((Float) data);
+            case FLOAT64:
+                return FloatUtil.toByteArray((Double) data);
+            case STRING:
+                byte[] bytes = ((String) data).getBytes(StandardCharsets.US_ASCII);
+                byte[] targetBytes = new byte[1 + field.count];
+                targetBytes[0] = (byte) field.count;
+                System.arraycopy(bytes, 0, targetBytes, 1, Math.min(bytes.length, field.count));
+                return targetBytes;
+            case DATE:
+                long date = ((LocalDate) data).toEpochDay() - LocalDate.of(1990, 1, 1).toEpochDay();
+                return ShortUtil.toByteArray((short) date);
+            case TIME_OF_DAY:
+                return IntegerUtil.toByteArray(((LocalTime) data).toSecondOfDay() * 1000L);
+            case DTL:
+                LocalDateTime dateTime = (LocalDateTime) data;
+                return ByteWriteBuff.newInstance(12)
+                        .putShort(dateTime.getYear())
+                        .putByte(dateTime.getMonthValue())
+                        .putByte(dateTime.getDayOfMonth())
+                        .putByte(dateTime.getDayOfWeek().getValue())
+                        .putByte(dateTime.getHour())
+                        .putByte(dateTime.getMinute())
+                        .putByte(dateTime.getSecond())
+                        .putInteger(dateTime.getNano())
+                        .getData();
+            default:
+                throw new S7CommException("无法识别数据类型");
+        }
+    }
+
+    //endregion
+
+    /**
+     * 字段计划
+     */
+    private static final class FieldPlan {
+
+        /**
+         * 数据类型
+         */
+        private final EDataType dataType;
+
+        /**
+         * 数据个数
+         */
+        private final int count;
+
+        /**
+         * 请求项
+         */
+        private final RequestItem requestItem;
+
+        private FieldPlan(EDataType dataType, int count, RequestItem requestItem) {
+            this.dataType = dataType;
+            this.count = count;
+            this.requestItem = requestItem;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.github.xingshuangs.iot.protocol.s7.serializer;
+
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 对象最近一次读写的字段字节快照，按对象实例区分（不使用equals），
+ * 对象被回收后快照自动清除，不影响对象的生命周期
+ *
+ * @author xingshuang
+ */
+final class S7BeanSnapshots {
+
+    /**
+     * 快照，key为对象的弱引用
+     */
+    private final Map<IdentityKey, byte[][]> snapshotMap = new HashMap<>();
+
+    /**
+     * 已回收对象的引用队列
+     */
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+
+    /**
+     * 获取快照
+     *
+     * @param bean 对象
+     * @return 快照，没有时返回null
+     */
+    synchronized byte[][] get(Object bean) {
+        this.expunge();
+        return this.snapshotMap.get(new IdentityKey(bean, null));
+    }
+
+    /**
+     * 保存快照
+     *
+     * @param bean     对象
+     * @param snapshot 快照
+     */
+    synchronized void put(Object bean, byte[][] snapshot) {
+        this.expunge();
+        this.snapshotMap.put(new IdentityKey(bean, this.queue), snapshot);
+    }
+
+    /**
+     * 删除快照
+     *
+     * @param bean 对象
+     */
+    synchronized void remove(Object bean) {
+        this.expunge();
+        this.snapshotMap.remove(new IdentityKey(bean, null));
+    }
+
+    /**
+     * 快照个数
+     *
+     * @return 快照个数
+     */
+    synchronized int size() {
+        this.expunge();
+        return this.snapshotMap.size();
+    }
+
+    /**
+     * 清除已回收对象的快照
+     */
+    private void expunge() {
+        Reference<?> reference;
+        while ((reference = this.queue.poll()) != null) {
+            this.snapshotMap.remove(reference);
+        }
+    }
+
+    /**
+     * 按对象实例比较的弱引用key
+     */
+    private static final class IdentityKey extends WeakReference<Object> {
+
+        private final int hash;
+
+        private IdentityKey(Object referent, ReferenceQueue<Object> queue) {
+            super(referent, queue);
+            this.hash = System.identityHashCode(referent);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof IdentityKey)) {
+                return false;
+            }
+            Object referent = this.get();
+            return referent != null && referent == ((IdentityKey) obj).get();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.github.xingshuangs.iot.protocol.s7.serializer;
+
+
+import com.github.xingshuangs.iot.exceptions.S7CommException;
+import com.github.xingshuangs.iot.protocol.common.enums.EDataType;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基于反射的字段访问器，没有生成的访问器时使用，字段访问方法只解析一次，之后通过MethodHandle调用
+ *
+ * @author xingshuang
+ */
+final class S7ReflectAccessor implements IS7BeanAccessor<Object> {
+
+    /**
+     * 无参构造方法的类型
+     */
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+
+    /**
+     * 字段读取方法的类型
+     */
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    /**
+     * 字段设置方法的类型
+     */
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    /**
+     * 目标类型
+     */
+    private final Class<?> targetClass;
+
+    /**
+     * 无参构造方法，没有时为null，只能写不能读
+     */
+    private final MethodHandle constructor;
+
+    /**
+     * 字段注解
+     */
+    private final S7Variable[] variables;
+
+    /**
+     * 字段读取方法，(Object)Object
+     */
+    private final MethodHandle[] getters;
+
+    /**
+     * 字段设置方法，(Object,Object)void
+     */
+    private final MethodHandle[] setters;
+
+    S7ReflectAccessor(Class<?> targetClass) {
+        this.targetClass = targetClass;
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        List<S7Variable> variableList = new ArrayList<>();
+        List<MethodHandle> getterList = new ArrayList<>();
+        List<MethodHandle> setterList = new ArrayList<>();
+        try {
+            for (Field field : targetClass.getDeclaredFields()) {
+                S7Variable s7Variable = field.getAnnotation(S7Variable.class);
+                if (s7Variable == null || Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                field.setAccessible(true);
+                variableList.add(s7Variable);
+                getterList.add(lookup.unreflectGetter(field).asType(GETTER_TYPE));
+                setterList.add(lookup.unreflectSetter(field).asType(SETTER_TYPE));
+            }
+            this.constructor = this.findConstructor(lookup);
+        } catch (IllegalAccessException e) {
+            throw new S7CommException("序列化解析类型错误:" + e.getMessage(), e);
+        }
+        this.variables = variableList.toArray(new S7Variable[0]);
+        this.getters = getterList.toArray(new MethodHandle[0]);
+        this.setters = setterList.toArray(new MethodHandle[0]);
+    }
+
+    /**
+     * 查找无参构造方法
+     *
+     * @param lookup 查找对象
+     * @return 构造方法，没有时返回null
+     * @throws IllegalAccessException 访问异常
+     */
+    private MethodHandle findConstructor(MethodHandles.Lookup lookup) throws IllegalAccessException {
+        Constructor<?> declared;
+        try {
+            declared = this.targetClass.getDeclaredConstructor();
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+        declared.setAccessible(true);
+        return lookup.unreflectConstructor(declared).asType(CONSTRUCTOR_TYPE);
+    }
+
+    @Override
+    public int size() {
+        return this.variables.length;
+    }
+
+    @Override
+    public String address(int index) {
+        return this.variables[index].address();
+    }
+
+    @Override
+    public EDataType type(int index) {
+        return this.variables[index].type();
+    }
+
+    @Override
+    public int count(int index) {
+        return this.variables[index].count();
+    }
+
+    @Override
+    public Object newInstance() {
+        if (this.constructor == null) {
+            throw new S7CommException("序列化提取数据错误:" + this.targetClass.getName() + "没有无参构造方法");
+        }
+        try {
+            return (Object) this.constructor.invokeExact();
+        } catch (Throwable e) {
+            throw new S7CommException("序列化提取数据错误:" + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Object get(Object bean, int index) {
+        try {
+            return (Object) this.getters[index].invokeExact(bean);
+        } catch (Throwable e) {
+            throw new S7CommException("序列化填充字节数据错误:" + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void set(Object bean, int index, Object value) {
+        try {
+            this.setters[index].invokeExact(bean, value);
+        } catch (Throwable e) {
+            throw new S7CommException("序列化提取数据错误:" + e.getMessage(), e);
+        }
+    }
+}
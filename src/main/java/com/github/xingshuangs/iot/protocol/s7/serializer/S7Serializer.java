@@ -3,22 +3,18 @@ package com.github.xingshuangs.iot.protocol.s7.serializer;
 
 import com.github.xingshuangs.iot.exceptions.S7CommException;
 import com.github.xingshuangs.iot.protocol.common.serializer.IPLCSerializable;
-import com.github.xingshuangs.iot.protocol.common.buff.ByteReadBuff;
-import com.github.xingshuangs.iot.protocol.common.buff.ByteWriteBuff;
-import com.github.xingshuangs.iot.protocol.common.enums.EDataType;
+import com.github.xingshuangs.iot.protocol.s7.algorithm.S7AddressMergeAlg;
+import com.github.xingshuangs.iot.protocol.s7.algorithm.S7MergeResult;
 import com.github.xingshuangs.iot.protocol.s7.model.DataItem;
 import com.github.xingshuangs.iot.protocol.s7.model.RequestItem;
 import com.github.xingshuangs.iot.protocol.s7.service.S7PLC;
-import com.github.xingshuangs.iot.protocol.s7.utils.AddressUtil;
+import com.github.xingshuangs.iot.protocol.s7.service.S7ReadPlan;
 
-import java.lang.reflect.Field;
-import java.nio.charset.StandardCharsets;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
+import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * S7序列化工具
@@ -29,10 +25,49 @@ public class S7Serializer implements IPLCSerializable {
 
     private final S7PLC s7PLC;
 
+    /**
+     * 按类型缓存的读取计划，读取计划和连接的PDU长度等参数相关，因此每个序列化对象单独缓存，
+     * 连接的地址合并间隙或分组策略和编译时不同时重新编译
+     */
+    private final Map<Class<?>, S7ReadPlan> readPlans = new ConcurrentHashMap<>();
+
+    /**
+     * 对象最近一次读写的字段字节快照，启用变化跟踪时使用
+     */
+    private final S7BeanSnapshots snapshots = new S7BeanSnapshots();
+
+    /**
+     * 是否启用变化跟踪，启用后写对象时只写入和该对象上一次读写相比字节有变化的字段，默认false
+     */
+    private volatile boolean enableDirtyTracking = false;
+
     public S7Serializer(S7PLC s7PLC) {
         this.s7PLC = s7PLC;
     }
 
+    public boolean isEnableDirtyTracking() {
+        return enableDirtyTracking;
+    }
+
+    /**
+     * 设置是否启用变化跟踪，启用后读取和写入的对象都会记录字段的字节快照，
+     * 同一个对象再次写入时只写入字节有变化的字段，地址相邻的变化字段合并为一个请求项
+     *
+     * @param enableDirtyTracking 是否启用
+     */
+    public void setEnableDirtyTracking(boolean enableDirtyTracking) {
+        this.enableDirtyTracking = enableDirtyTracking;
+    }
+
+    /**
+     * 丢弃对象的快照，下一次写入该对象时写入所有非null字段，PLC中的数据被其他途径修改后使用
+     *
+     * @param targetBean 目标对象
+     */
+    public void resetDirtyTracking(Object targetBean) {
+        this.snapshots.remove(targetBean);
+    }
+
     /**
      * 静态方法实例对象
      *
@@ -45,269 +80,177 @@ public class S7Serializer implements IPLCSerializable {
 
     @Override
     public <T> T read(Class<T> targetClass) {
-        // 解析参数
-        List<S7ParseData> s7ParseDataList = this.parseBean(targetClass);
+        // 类型计划按类型缓存，只解析一次
+        S7BeanPlan plan = S7BeanPlan.of(targetClass);
 
-        if (s7ParseDataList.isEmpty()) {
+        if (plan.size() == 0) {
             throw new S7CommException("解析出的注解数据个数为空，无法读取数据");
         }
 
-        // 读取PLC数据
-        List<RequestItem> requestItems = s7ParseDataList.stream().map(S7ParseData::getRequestItem).collect(Collectors.toList());
-        List<DataItem> dataItems = this.s7PLC.readS7Data(requestItems);
-
-        if (s7ParseDataList.size() != dataItems.size()) {
-            throw new S7CommException("所需的字段解析项个数与返回的数据项数量不一致，错误");
+        // 读取PLC数据，首次读取成功后编译读取计划，之后直接按计划读取
+        List<DataItem> dataItems;
+        S7ReadPlan readPlan = this.readPlans.get(targetClass);
+        if (readPlan != null && readPlan.getReadMergeGap() == this.s7PLC.getReadMergeGap()
+                && readPlan.getReadGroupStrategy() == this.s7PLC.getReadGroupStrategy()) {
+            dataItems = this.s7PLC.readS7Data(readPlan);
+        } else {
+            dataItems = this.s7PLC.readS7Data(plan.getRequestItems());
+            this.readPlans.put(targetClass, this.s7PLC.compileReadPlan(plan.getRequestItems()));
         }
 
         // 提取数据
-        for (int i = 0; i < dataItems.size(); i++) {
-            s7ParseDataList.get(i).setDataItem(dataItems.get(i));
-        }
-        return this.extractData(targetClass, s7ParseDataList);
+        return targetClass.cast(this.track(plan, plan.extract(dataItems)));
     }
 
-    @Override
-    public <T> void write(T targetBean) {
-        // 解析参数
-        List<S7ParseData> s7ParseDataList = this.parseBean(targetBean.getClass());
-
-        if (s7ParseDataList.isEmpty()) {
+    /**
+     * 读取结构相同、连续排列的多条记录，例如DB中的UDT数组，注解中的地址为第一条记录的地址，
+     * 第i条记录的地址依次偏移i*stride个字节，所有记录合并为一次多地址读取，
+     * 相邻和重叠的字段合并为一个请求项，不多读字节，和连接的地址合并间隙设置无关，再按PDU分组发送
+     *
+     * @param targetClass 目标类型
+     * @param count       记录条数
+     * @param stride      相邻两条记录的字节间隔
+     * @param <T>         类型
+     * @return 记录列表
+     */
+    public <T> List<T> readList(Class<T> targetClass, int count, int stride) {
+        if (count < 0) {
+            throw new S7CommException("读取记录条数不能为负数");
+        }
+        if (stride <= 0) {
+            throw new S7CommException("记录的字节间隔必须大于0");
+        }
+        S7BeanPlan plan = S7BeanPlan.of(targetClass);
+        if (plan.size() == 0) {
             throw new S7CommException("解析出的注解数据个数为空，无法读取数据");
         }
+        if (count == 0) {
+            return new ArrayList<>();
+        }
 
-        // 填充字节数据
-        s7ParseDataList = this.fillData(targetBean, s7ParseDataList);
+        List<RequestItem> requestItems = new ArrayList<>(plan.size() * count);
+        for (int i = 0; i < count; i++) {
+            plan.addRequestItems(requestItems, i * stride);
+        }
+        List<DataItem> dataItems = this.readMerged(requestItems);
 
-        // 写入PLC
-        List<RequestItem> requestItems = s7ParseDataList.stream().map(S7ParseData::getRequestItem).collect(Collectors.toList());
-        List<DataItem> dataItems = s7ParseDataList.stream().map(S7ParseData::getDataItem).collect(Collectors.toList());
-        this.s7PLC.writeS7Data(requestItems, dataItems);
+        List<T> res = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            res.add(targetClass.cast(this.track(plan, plan.extract(dataItems, i * plan.size()))));
+        }
+        return res;
     }
 
     /**
-     * 将类根据S7Variable注解转换为解析数据
+     * 读取结构相同、连续排列的多条记录，返回数组，见{@link #readList(Class, int, int)}
      *
      * @param targetClass 目标类型
-     * @return 解析数据列表
+     * @param count       记录条数
+     * @param stride      相邻两条记录的字节间隔
+     * @param <T>         类型
+     * @return 记录数组
      */
-    private List<S7ParseData> parseBean(final Class<?> targetClass) {
-        List<S7ParseData> s7ParseDataList = new ArrayList<>();
-
-        for (final Field field : targetClass.getDeclaredFields()) {
-            final S7Variable s7Variable = field.getAnnotation(S7Variable.class);
-
-            if (s7Variable == null) {
-                continue;
-            }
-            this.checkS7Variable(s7Variable);
+    @SuppressWarnings("unchecked")
+    public <T> T[] readArray(Class<T> targetClass, int count, int stride) {
+        List<T> list = this.readList(targetClass, count, stride);
+        return list.toArray((T[]) Array.newInstance(targetClass, list.size()));
+    }
 
-            // 组装S7解析数据
-            S7ParseData s7ParseData = new S7ParseData();
-            s7ParseData.setDataType(s7Variable.type());
-            s7ParseData.setCount(s7Variable.count());
-            s7ParseData.setField(field);
-            if (s7Variable.type() == EDataType.BOOL) {
-                s7ParseData.setRequestItem(AddressUtil.parseBit(s7Variable.address()));
-            } else if (s7Variable.type() == EDataType.STRING) {
-                RequestItem requestItem = AddressUtil.parseByte(s7Variable.address(), 1 + s7Variable.count() * s7Variable.type().getByteLength());
-                // 为什么字节索引+1，为了避免修改PLC中string[60]类型的第一个字节数据，该数据为字符串的允许最大长度
-                requestItem.setByteAddress(requestItem.getByteAddress() + 1);
-                s7ParseData.setRequestItem(requestItem);
-            } else {
-                s7ParseData.setRequestItem(AddressUtil.parseByte(s7Variable.address(),
-                        s7Variable.count() * s7Variable.type().getByteLength()));
+    /**
+     * 一次读取多个不同类型的对象，所有对象的地址合并为一次多地址读取，相邻和重叠的字段合并为一个请求项，按PDU分组发送
+     *
+     * @param targetClasses 目标类型列表
+     * @return 对象列表，顺序和目标类型一致
+     */
+    public List<Object> read(Class<?>... targetClasses) {
+        List<S7BeanPlan> plans = new ArrayList<>(targetClasses.length);
+        int total = 0;
+        for (Class<?> targetClass : targetClasses) {
+            S7BeanPlan plan = S7BeanPlan.of(targetClass);
+            if (plan.size() == 0) {
+                throw new S7CommException("解析出的注解数据个数为空，无法读取数据");
             }
+            plans.add(plan);
+            total += plan.size();
+        }
+        List<RequestItem> requestItems = new ArrayList<>(total);
+        plans.forEach(x -> x.addRequestItems(requestItems, 0));
+        List<DataItem> dataItems = this.readMerged(requestItems);
 
-            s7ParseDataList.add(s7ParseData);
+        List<Object> res = new ArrayList<>(plans.size());
+        int index = 0;
+        for (S7BeanPlan plan : plans) {
+            res.add(this.track(plan, plan.extract(dataItems, index)));
+            index += plan.size();
         }
-        return s7ParseDataList;
+        return res;
     }
 
-    /**
-     * 校验S7Variable的数据是否满足规则要求
-     *
-     * @param s7Variable s7Variable
-     */
-    private void checkS7Variable(S7Variable s7Variable) {
-        if (s7Variable.address().isEmpty()) {
-            throw new S7CommException("S7参数注解中[address]不能为空");
+    @Override
+    public <T> void write(T targetBean) {
+        // 类型计划按类型缓存，只解析一次
+        S7BeanPlan plan = S7BeanPlan.of(targetBean.getClass());
+
+        if (plan.size() == 0) {
+            throw new S7CommException("解析出的注解数据个数为空，无法读取数据");
         }
-        if (s7Variable.count() < 0) {
-            throw new S7CommException("S7参数注解中[count]不能为负数");
+
+        // 填充字节数据，值为null的字段不写入
+        List<RequestItem> requestItems = new ArrayList<>(plan.size());
+        List<DataItem> dataItems = new ArrayList<>(plan.size());
+        if (!this.enableDirtyTracking) {
+            plan.fill(targetBean, requestItems, dataItems);
+            this.s7PLC.writeS7Data(requestItems, dataItems);
+            return;
         }
-        if (s7Variable.type() == EDataType.STRING && s7Variable.count() > 254) {
-            throw new S7CommException("S7参数注解中字符串类型类型数据的[count]不能大于254");
+
+        // 只写入和上一次快照相比有变化的字段
+        byte[][] current = plan.snapshot(targetBean);
+        byte[][] previous = this.snapshots.get(targetBean);
+        plan.fillChanged(current, previous, requestItems, dataItems);
+        if (!requestItems.isEmpty()) {
+            this.s7PLC.writeS7Data(requestItems, dataItems);
         }
-        if (s7Variable.type() != EDataType.BYTE && s7Variable.type() != EDataType.STRING && s7Variable.count() > 1) {
-            throw new S7CommException("S7参数注解中只有[type]=字节和字符串类型数据的[count]才能大于1，其他必须等于1");
+        // 写入成功后才更新快照，值为null的字段没有写入，保留之前的快照
+        if (previous != null) {
+            for (int i = 0; i < current.length; i++) {
+                if (current[i] == null) {
+                    current[i] = previous[i];
+                }
+            }
         }
+        this.snapshots.put(targetBean, current);
     }
 
     /**
-     * 提取数据
+     * 读取多条记录或多个对象的请求项，先将相邻和重叠的地址合并，间隙为0不会多读字节，
+     * 连接上设置了更大的合并间隙时由连接继续合并
      *
-     * @param targetClass     目标类型
-     * @param s7ParseDataList S7解析数据列表
-     * @param <T>             类型
-     * @return 目标类型的实体对象
+     * @param requestItems 请求项
+     * @return 数据项，顺序和请求项一致
      */
-    private <T> T extractData(Class<T> targetClass, List<S7ParseData> s7ParseDataList) {
-        try {
-            final T result = targetClass.newInstance();
-            for (S7ParseData item : s7ParseDataList) {
-                ByteReadBuff buff = new ByteReadBuff(item.getDataItem().getData());
-                item.getField().setAccessible(true);
-                switch (item.getDataType()) {
-                    case BOOL:
-                        item.getField().set(result, buff.getBoolean(0));
-                        break;
-                    case BYTE:
-                        item.getField().set(result, buff.getBytes(item.getCount()));
-                        break;
-                    case UINT16:
-                        item.getField().set(result, buff.getUInt16());
-                        break;
-                    case INT16:
-                        item.getField().set(result, buff.getInt16());
-                        break;
-                    case TIME:
-                    case UINT32:
-                        item.getField().set(result, buff.getUInt32());
-                        break;
-                    case INT32:
-                        item.getField().set(result, buff.getInt32());
-                        break;
-                    case FLOAT32:
-                        item.getField().set(result, buff.getFloat32());
-                        break;
-                    case FLOAT64:
-                        item.getField().set(result, buff.getFloat64());
-                        break;
-                    case STRING:
-                        int length = buff.getByteToInt(0);
-                        item.getField().set(result, buff.getString(1, Math.min(length, item.getCount())));
-                        break;
-                    case DATE:
-                        LocalDate date = LocalDate.of(1990, 1, 1).plusDays(buff.getUInt16());
-                        item.getField().set(result, date);
-                        break;
-                    case TIME_OF_DAY:
-                        LocalTime time = LocalTime.ofSecondOfDay(buff.getUInt32() / 1000);
-                        item.getField().set(result, time);
-                        break;
-                    case DTL:
-                        int year = buff.getUInt16();
-                        int month = buff.getByteToInt();
-                        int dayOfMonth = buff.getByteToInt();
-                        int week = buff.getByteToInt();
-                        int hour = buff.getByteToInt();
-                        int minute = buff.getByteToInt();
-                        int second = buff.getByteToInt();
-                        long nanoOfSecond = buff.getUInt32();
-                        LocalDateTime dateTime = LocalDateTime.of(year, month, dayOfMonth, hour, minute, second, (int) nanoOfSecond);
-                        item.getField().set(result, dateTime);
-                        break;
-                    default:
-                        throw new S7CommException("无法识别数据类型");
-                }
-            }
-            return result;
-
-        } catch (Exception e) {
-            throw new S7CommException("序列化提取数据错误:" + e.getMessage(), e);
+    private List<DataItem> readMerged(List<RequestItem> requestItems) {
+        if (requestItems.size() <= 1) {
+            return this.s7PLC.readS7Data(requestItems);
+        }
+        S7MergeResult mergeResult = S7AddressMergeAlg.merge(requestItems, 0);
+        if (mergeResult.getMergedItems().size() >= requestItems.size()) {
+            return this.s7PLC.readS7Data(requestItems);
         }
+        return mergeResult.split(this.s7PLC.readS7Data(mergeResult.getMergedItems()));
     }
 
     /**
-     * 填充数据
+     * 启用变化跟踪时记录读取到的对象的快照
      *
-     * @param targetBean      目标对象
-     * @param s7ParseDataList 解析后的数据列表
-     * @param <T>             类型
-     * @return 有效的解析后的数据列表
+     * @param plan       类型计划
+     * @param targetBean 读取到的对象
+     * @return 读取到的对象
      */
-    private <T> List<S7ParseData> fillData(T targetBean, List<S7ParseData> s7ParseDataList) {
-        try {
-            for (S7ParseData item : s7ParseDataList) {
-                item.getField().setAccessible(true);
-                Object data = item.getField().get(targetBean);
-                if (data == null) {
-                    continue;
-                }
-                switch (item.getDataType()) {
-                    case BOOL:
-                        item.setDataItem(DataItem.createReqByBoolean((Boolean) data));
-                        break;
-                    case BYTE:
-                        item.setDataItem(DataItem.createReqByByte(ByteReadBuff.newInstance((byte[]) data)
-                                .getBytes(item.getCount())));
-                        break;
-                    case UINT16:
-                        item.setDataItem(DataItem.createReqByByte(ByteWriteBuff.newInstance(2)
-                                .putShort((Integer) data).getData()));
-                        break;
-                    case INT16:
-                        item.setDataItem(DataItem.createReqByByte(ByteWriteBuff.newInstance(2)
-                                .putShort((Short) data).getData()));
-                        break;
-                    case TIME:
-                    case UINT32:
-                        item.setDataItem(DataItem.createReqByByte(ByteWriteBuff.newInstance(4)
-                                .putInteger((Long) data).getData()));
-                        break;
-                    case INT32:
-                        item.setDataItem(DataItem.createReqByByte(ByteWriteBuff.newInstance(4)
-                                .putInteger((Integer) data).getData()));
-                        break;
-                    case FLOAT32:
-                        item.setDataItem(DataItem.createReqByByte(ByteWriteBuff.newInstance(4)
-                                .putFloat((Float) data).getData()));
-                        break;
-                    case FLOAT64:
-                        item.setDataItem(DataItem.createReqByByte(ByteWriteBuff.newInstance(8)
-                                .putDouble((Double) data).getData()));
-                        break;
-                    case STRING:
-                        byte[] bytes = ((String) data).getBytes(StandardCharsets.US_ASCII);
-                        byte[] targetBytes = new byte[1 + item.getCount()];
-                        targetBytes[0] = (byte) item.getCount();
-                        System.arraycopy(bytes, 0, targetBytes, 1, Math.min(bytes.length, item.getCount()));
-                        item.setDataItem(DataItem.createReqByByte(targetBytes));
-                        break;
-                    case DATE:
-                        // TODO: 后面时间采用工具类
-                        LocalDate start = LocalDate.of(1990, 1, 1);
-                        long date = ((LocalDate) data).toEpochDay() - start.toEpochDay();
-                        item.setDataItem(DataItem.createReqByByte(ByteWriteBuff.newInstance(2)
-                                .putShort((short) date).getData()));
-                        break;
-                    case TIME_OF_DAY:
-                        long timeOfDay = ((LocalTime) data).toSecondOfDay() * 1000L;
-                        item.setDataItem(DataItem.createReqByByte(ByteWriteBuff.newInstance(4)
-                                .putInteger(timeOfDay).getData()));
-                        break;
-                    case DTL:
-                        LocalDateTime dateTime = (LocalDateTime) data;
-                        byte[] dateTimeData = ByteWriteBuff.newInstance(12)
-                                .putShort(dateTime.getYear())
-                                .putByte(dateTime.getMonthValue())
-                                .putByte(dateTime.getDayOfMonth())
-                                .putByte(dateTime.getDayOfWeek().getValue())
-                                .putByte(dateTime.getHour())
-                                .putByte(dateTime.getMinute())
-                                .putByte(dateTime.getSecond())
-                                .putInteger(dateTime.getNano())
-                                .getData();
-                        item.setDataItem(DataItem.createReqByByte(dateTimeData));
-                        break;
-                    default:
-                        throw new S7CommException("无法识别数据类型");
-                }
-            }
-            return s7ParseDataList.stream().filter(x -> x.getDataItem() != null).collect(Collectors.toList());
-        } catch (Exception e) {
-            throw new S7CommException("序列化填充字节数据错误:" + e.getMessage(), e);
+    private Object track(S7BeanPlan plan, Object targetBean) {
+        if (this.enableDirtyTracking) {
+            this.snapshots.put(targetBean, plan.snapshot(targetBean));
         }
+        return targetBean;
     }
 }
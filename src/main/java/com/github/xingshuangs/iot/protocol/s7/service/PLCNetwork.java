@@ -2,19 +2,35 @@ package com.github.xingshuangs.iot.protocol.s7.service;
 
 
 import com.github.xingshuangs.iot.exceptions.S7CommException;
+import com.github.xingshuangs.iot.net.client.EPriority;
+import com.github.xingshuangs.iot.net.client.PriorityLock;
+import com.github.xingshuangs.iot.net.client.SerialDispatcher;
+import com.github.xingshuangs.iot.net.client.SingleFlight;
 import com.github.xingshuangs.iot.net.client.TcpClientBasic;
 import com.github.xingshuangs.iot.protocol.common.buff.ByteReadBuff;
+import com.github.xingshuangs.iot.protocol.common.buff.ByteWriteBuff;
+import com.github.xingshuangs.iot.protocol.s7.algorithm.S7AddressMergeAlg;
 import com.github.xingshuangs.iot.protocol.s7.algorithm.S7ComGroup;
 import com.github.xingshuangs.iot.protocol.s7.algorithm.S7ComItem;
+import com.github.xingshuangs.iot.protocol.s7.algorithm.S7MergeResult;
+import com.github.xingshuangs.iot.protocol.s7.algorithm.S7FirstFitDecreasingGroupAlg;
 import com.github.xingshuangs.iot.protocol.s7.algorithm.S7SequentialGroupAlg;
 import com.github.xingshuangs.iot.protocol.s7.constant.ErrorCode;
 import com.github.xingshuangs.iot.protocol.s7.enums.*;
 import com.github.xingshuangs.iot.protocol.s7.model.*;
 import lombok.extern.slf4j.Slf4j;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -34,9 +50,14 @@ import java.util.stream.Collectors;
 public class PLCNetwork extends TcpClientBasic {
 
     /**
-     * 锁
+     * 请求报文中PDU应用编号的位置，11=4(tpkt)+3(cotp)+4(header前)
      */
-    private final Object objLock = new Object();
+    private static final int PDU_REFERENCE_OFFSET = TPKT.BYTE_LENGTH + COTPData.BYTE_LENGTH + 4;
+
+    /**
+     * 锁，带优先级，写操作和控制类操作先于排队中的读操作获得连接
+     */
+    private final PriorityLock objLock = new PriorityLock();
 
     /**
      * PLC的类型
@@ -58,6 +79,48 @@ public class PLCNetwork extends TcpClientBasic {
      */
     protected int pduLength;
 
+    /**
+     * 请求的最大并行作业数(Max AmQ)，握手时发送给PLC，默认1，即一问一答
+     */
+    protected int maxAmq = 1;
+
+    /**
+     * 协商后的并行作业数，以PLC响应的为准，同一连接上最多同时有该数量的作业在途
+     */
+    protected int amqCount = 1;
+
+    /**
+     * 读取时地址合并允许的最大间隙字节数，同一存储区内间隙不超过该值的地址合并为一个请求项读取，
+     * 默认0，只合并相邻和重叠的地址，不多读字节；大于0时会读取间隙中未请求的字节，可以设置为5，
+     * 和每个数据项在响应中的额外开销相当；小于0表示不合并
+     */
+    protected int readMergeGap = 0;
+
+    /**
+     * 读取时请求项装入PDU的分组策略，默认顺序分组
+     */
+    protected EGroupStrategy readGroupStrategy = EGroupStrategy.SEQUENTIAL;
+
+    /**
+     * 单地址读取的微批时间窗口，毫秒，大于0时多个线程同时读取单个地址的请求在窗口内合并为一次读取，默认0不合并
+     */
+    protected int readBatchWindow = 0;
+
+    /**
+     * 单地址读取的微批处理，按需创建
+     */
+    private volatile S7ReadBatcher readBatcher;
+
+    /**
+     * 读取结果的缓存时长，毫秒，只有启用相同读取合并时有效，默认0不缓存
+     */
+    protected int readCacheTtl = 0;
+
+    /**
+     * 相同读取的合并执行，启用时创建
+     */
+    private volatile SingleFlight<ByteBuffer, List<DataItem>> readFlight;
+
     /**
      * 是否持久化，默认是持久化，对应长连接，true：长连接，false：短连接
      */
@@ -68,10 +131,166 @@ public class PLCNetwork extends TcpClientBasic {
      */
     private Consumer<byte[]> comCallback;
 
+    /**
+     * 接收缓存，连接内复用，长度不够时扩容，只在objLock锁内使用
+     */
+    private byte[] receiveBuff = new byte[TPKT.BYTE_LENGTH + 256];
+
+    /**
+     * 发送缓存，连接内复用，长度不够时扩容，只在objLock锁内使用
+     */
+    private ByteWriteBuff sendBuff = ByteWriteBuff.newInstance(TPKT.BYTE_LENGTH + 256);
+
+    /**
+     * 异步调用的串行调度器，按需创建
+     */
+    private volatile SerialDispatcher dispatcher;
+
+    /**
+     * 获取异步调用的串行调度器，同一连接的异步请求按提交顺序执行
+     *
+     * @return 串行调度器
+     */
+    public SerialDispatcher getDispatcher() {
+        if (this.dispatcher == null) {
+            synchronized (this) {
+                if (this.dispatcher == null) {
+                    this.dispatcher = new SerialDispatcher();
+                }
+            }
+        }
+        return this.dispatcher;
+    }
+
+    /**
+     * 设置异步调用的串行调度器，可以指定实际执行任务的线程池
+     *
+     * @param dispatcher 串行调度器
+     */
+    public void setDispatcher(SerialDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    public Consumer<byte[]> getComCallback() {
+        return comCallback;
+    }
+
     public void setComCallback(Consumer<byte[]> comCallback) {
         this.comCallback = comCallback;
     }
 
+    public int getReadMergeGap() {
+        return readMergeGap;
+    }
+
+    /**
+     * 设置读取时地址合并允许的最大间隙字节数，默认0只合并相邻和重叠的地址，大于0时会多读间隙中的字节，
+     * 小于0表示不合并，连接池创建的连接使用同样的设置
+     *
+     * @param readMergeGap 最大间隙字节数
+     */
+    public void setReadMergeGap(int readMergeGap) {
+        this.readMergeGap = readMergeGap;
+    }
+
+    public EGroupStrategy getReadGroupStrategy() {
+        return readGroupStrategy;
+    }
+
+    /**
+     * 设置读取时请求项装入PDU的分组策略，请求项大小差异较大时首次适应降序分组的PDU更少
+     *
+     * @param readGroupStrategy 分组策略
+     */
+    public void setReadGroupStrategy(EGroupStrategy readGroupStrategy) {
+        this.readGroupStrategy = readGroupStrategy;
+    }
+
+    public int getReadBatchWindow() {
+        return readBatchWindow;
+    }
+
+    /**
+     * 设置单地址读取的微批时间窗口，适用于多个线程各自读取单个地址的场景，窗口内到达的请求合并为一次多地址读取，
+     * 单线程顺序读取时会白白多等一个窗口，不建议开启
+     *
+     * @param readBatchWindow 时间窗口，毫秒，小于等于0表示不合并
+     */
+    public void setReadBatchWindow(int readBatchWindow) {
+        this.readBatchWindow = readBatchWindow;
+        this.readBatcher = readBatchWindow > 0 ? new S7ReadBatcher(this, readBatchWindow) : null;
+    }
+
+    public boolean isEnableReadSingleFlight() {
+        return this.readFlight != null;
+    }
+
+    /**
+     * 设置是否合并相同的读取，多个线程同时读取完全相同的地址列表时只发送一次请求，共享同一个结果
+     *
+     * @param enableReadSingleFlight true：合并，false：不合并
+     */
+    public void setEnableReadSingleFlight(boolean enableReadSingleFlight) {
+        this.readFlight = enableReadSingleFlight ? new SingleFlight<>(PLCNetwork::copyDataItems, this.readCacheTtl) : null;
+    }
+
+    public int getReadCacheTtl() {
+        return readCacheTtl;
+    }
+
+    /**
+     * 设置读取结果的缓存时长，缓存时长内相同的读取直接返回缓存结果，不再通信，写操作会清除缓存，
+     * 只有启用相同读取合并时有效
+     *
+     * @param readCacheTtl 缓存时长，毫秒，小于等于0表示不缓存
+     */
+    public void setReadCacheTtl(int readCacheTtl) {
+        this.readCacheTtl = readCacheTtl;
+        SingleFlight<ByteBuffer, List<DataItem>> flight = this.readFlight;
+        if (flight != null) {
+            flight.setTtl(readCacheTtl);
+        }
+    }
+
+    /**
+     * 清除读取结果的缓存，通过其他途径修改了PLC数据时可以手动调用
+     */
+    public void invalidateReadCache() {
+        SingleFlight<ByteBuffer, List<DataItem>> flight = this.readFlight;
+        if (flight != null) {
+            flight.invalidate();
+        }
+    }
+
+    /**
+     * 获取连接的优先级锁，可以查看各优先级请求的排队时延
+     *
+     * @return 优先级锁
+     */
+    public PriorityLock getPriorityLock() {
+        return objLock;
+    }
+
+    public int getMaxAmq() {
+        return maxAmq;
+    }
+
+    /**
+     * 设置请求的最大并行作业数，需要在连接之前设置，实际数量以PLC协商的结果为准
+     *
+     * @param maxAmq 最大并行作业数
+     */
+    public void setMaxAmq(int maxAmq) {
+        if (maxAmq <= 0) {
+            throw new IllegalArgumentException("maxAmq<=0");
+        }
+        this.maxAmq = maxAmq;
+    }
+
+    public int getAmqCount() {
+        return amqCount;
+    }
+
     public boolean isPersistence() {
         return persistence;
     }
@@ -97,8 +316,23 @@ public class PLCNetwork extends TcpClientBasic {
     protected void doAfterConnected() {
         this.connectionRequest();
         // 存在设置的PDULength != 实际PLC的PDULength，因此以PLC的为准
-        this.pduLength = this.connectDtData();
-        log.debug("PLC[{}]握手成功，机架号[{}]，槽号[{}]，PDU长度[{}]", this.plcType, this.rack, this.slot, this.pduLength);
+        SetupComParameter setup = this.connectDtData();
+        this.pduLength = setup.getPduLength();
+        // 并行作业数同样以PLC的为准，且不超过请求的数量
+        this.amqCount = Math.max(1, Math.min(this.maxAmq, setup.getMaxAmqCaller()));
+        log.debug("PLC[{}]握手成功，机架号[{}]，槽号[{}]，PDU长度[{}]，并行作业数[{}]", this.plcType, this.rack, this.slot, this.pduLength, this.amqCount);
+    }
+
+    /**
+     * 确保连接可用并且完成握手，之后的PDU长度和并行作业数为和PLC协商后的值
+     */
+    protected void ensureNegotiated() {
+        this.objLock.lock(EPriority.NORMAL);
+        try {
+            this.ensureConnected();
+        } finally {
+            this.objLock.unlock();
+        }
     }
 
     /**
@@ -144,10 +378,10 @@ public class PLCNetwork extends TcpClientBasic {
     /**
      * 连接setup
      *
-     * @return pduLength pdu长度
+     * @return 协商后的通信参数
      */
-    private int connectDtData() {
-        S7Data req = S7Data.createConnectDtData(this.pduLength);
+    private SetupComParameter connectDtData() {
+        S7Data req = S7Data.createConnectDtData(this.pduLength, this.maxAmq);
         S7Data ack = this.readFromServer(req);
         if (ack.getCotp().getPduType() != EPduType.DT_DATA) {
             throw new S7CommException("连接Setup响应错误");
@@ -155,11 +389,11 @@ public class PLCNetwork extends TcpClientBasic {
         if (ack.getHeader() == null || ack.getHeader().byteArrayLength() != AckHeader.BYTE_LENGTH) {
             throw new S7CommException("连接Setup响应错误，缺失响应头header或响应头长度不够[12]");
         }
-        int length = ((SetupComParameter) ack.getParameter()).getPduLength();
-        if (length <= 0) {
+        SetupComParameter parameter = (SetupComParameter) ack.getParameter();
+        if (parameter.getPduLength() <= 0) {
             throw new S7CommException("PDU的最大长度小于0");
         }
-        return length;
+        return parameter;
     }
     //endregion
 
@@ -172,77 +406,221 @@ public class PLCNetwork extends TcpClientBasic {
      * @return S7协议数据
      */
     private S7Data readFromServer(S7Data req) {
-        byte[] sendData = req.toByteArray();
+        return this.readFromServer(req, true);
+    }
+
+    /**
+     * 从服务器读取数据
+     *
+     * @param req             S7协议数据
+     * @param checkReturnCode 是否校验每个数据项的返回码
+     * @return S7协议数据
+     */
+    private S7Data readFromServer(S7Data req, boolean checkReturnCode) {
+        this.checkPduLength(req.byteArrayLength());
+
+        S7Data ack;
+        this.objLock.lock(priorityOf(req));
+        try {
+            this.writeS7Frame(req);
+            ack = this.readS7Frame();
+        } finally {
+            this.objLock.unlock();
+        }
+
+        this.checkPostedCom(req, ack, checkReturnCode);
+        return ack;
+    }
+
+    private byte[] readFromServer(byte[] sendData) {
         if (this.comCallback != null) {
             this.comCallback.accept(sendData);
         }
 
-        // 将报文中的TPKT和COTP减掉，剩下PDU的内容，7=4(tpkt)+3(cotp)
-        if (this.pduLength > 0 && sendData.length - 7 > this.pduLength) {
-            throw new S7CommException(String.format("发送请求的字节数过长[%d]，已经大于最大的PDU长度[%d]", sendData.length, this.pduLength));
-        }
+        this.checkPduLength(sendData.length);
 
-        TPKT tpkt;
-        int len;
         byte[] total;
-        synchronized (this.objLock) {
+        this.objLock.lock(EPriority.HIGH);
+        try {
             this.write(sendData);
-
-            byte[] data = new byte[TPKT.BYTE_LENGTH];
-            len = this.read(data);
-            if (len < TPKT.BYTE_LENGTH) {
-                throw new S7CommException(" TPKT 无效，长度不一致");
-            }
-            tpkt = TPKT.fromBytes(data);
-            total = new byte[tpkt.getLength()];
-            System.arraycopy(data, 0, total, 0, data.length);
-            len = this.read(total, data.length, tpkt.getLength() - data.length);
-        }
-        if (TPKT.BYTE_LENGTH + len < total.length) {
-            throw new S7CommException(" TPKT后面的数据长度，长度不一致");
+            int len = this.readFrame();
+            total = Arrays.copyOf(this.receiveBuff, len);
+        } finally {
+            this.objLock.unlock();
         }
         if (this.comCallback != null) {
             this.comCallback.accept(total);
         }
-        S7Data ack = S7Data.fromBytes(total);
+        return total;
+    }
 
-        this.checkPostedCom(req, ack);
-        return ack;
+    /**
+     * 请求的优先级，只有读变量是普通优先级，写变量、PLC控制、建立通信等都是高优先级
+     *
+     * @param req 请求数据
+     * @return 优先级
+     */
+    private static EPriority priorityOf(S7Data req) {
+        return req.getParameter() != null && req.getParameter().getFunctionCode() == EFunctionCode.READ_VARIABLE
+                ? EPriority.NORMAL : EPriority.HIGH;
     }
 
-    private byte[] readFromServer(byte[] sendData) {
+    /**
+     * 校验发送报文的长度，将报文中的TPKT和COTP减掉，剩下PDU的内容，7=4(tpkt)+3(cotp)
+     *
+     * @param length 报文长度
+     */
+    private void checkPduLength(int length) {
+        if (this.pduLength > 0 && length - 7 > this.pduLength) {
+            throw new S7CommException(String.format("发送请求的字节数过长[%d]，已经大于最大的PDU长度[%d]", length, this.pduLength));
+        }
+    }
+
+    /**
+     * 将请求直接编码到发送缓存中并一次写出，只有设置了通信回调才生成字节数组，需要在锁内调用
+     *
+     * @param req S7协议数据
+     */
+    private void writeS7Frame(S7Data req) {
+        // 先确保连接，自动重连时的握手也会使用发送缓存
+        this.ensureConnected();
+        int length = req.byteArrayLength();
+        if (this.sendBuff.getData().length < length) {
+            this.sendBuff = ByteWriteBuff.newInstance(length);
+        }
+        req.writeTo(this.sendBuff.reset());
         if (this.comCallback != null) {
-            this.comCallback.accept(sendData);
+            this.comCallback.accept(Arrays.copyOf(this.sendBuff.getData(), length));
         }
+        this.write(this.sendBuff.getData(), 0, length);
+    }
 
-        // 将报文中的TPKT和COTP减掉，剩下PDU的内容，7=4(tpkt)+3(cotp)
-        if (this.pduLength > 0 && sendData.length - 7 > this.pduLength) {
-            throw new S7CommException(String.format("发送请求的字节数过长[%d]，已经大于最大的PDU长度[%d]", sendData.length, this.pduLength));
+    /**
+     * 读取一个完整的TPKT报文到接收缓存中，需要在锁内调用
+     *
+     * @return 报文长度
+     */
+    private int readFrame() {
+        int len = this.read(this.receiveBuff, 0, TPKT.BYTE_LENGTH);
+        if (len < TPKT.BYTE_LENGTH) {
+            throw new S7CommException(" TPKT 无效，长度不一致");
+        }
+        int total = TPKT.fromBytes(this.receiveBuff).getLength();
+        if (total < TPKT.BYTE_LENGTH) {
+            throw new S7CommException(" TPKT 无效，长度不一致");
+        }
+        if (total > this.receiveBuff.length) {
+            this.receiveBuff = Arrays.copyOf(this.receiveBuff, total);
+        }
+        len = this.read(this.receiveBuff, TPKT.BYTE_LENGTH, total - TPKT.BYTE_LENGTH);
+        if (len < total - TPKT.BYTE_LENGTH) {
+            throw new S7CommException(" TPKT后面的数据长度，长度不一致");
         }
+        return total;
+    }
 
-        TPKT tpkt;
-        int len;
-        byte[] total;
-        synchronized (this.objLock) {
-            this.write(sendData);
+    /**
+     * 读取一个完整的TPKT报文并直接在接收缓存上解析，只有设置了通信回调才拷贝报文，需要在锁内调用
+     *
+     * @return S7协议数据
+     */
+    private S7Data readS7Frame() {
+        int len = this.readFrame();
+        if (this.comCallback != null) {
+            this.comCallback.accept(Arrays.copyOf(this.receiveBuff, len));
+        }
+        return S7Data.fromBytes(this.receiveBuff, 0, len);
+    }
 
-            byte[] data = new byte[TPKT.BYTE_LENGTH];
-            len = this.read(data);
-            if (len < TPKT.BYTE_LENGTH) {
-                throw new S7CommException(" TPKT 无效，长度不一致");
+    /**
+     * 从服务器读取多个作业的数据，协商的并行作业数大于1时采用流水线方式，
+     * 同时最多amqCount个作业在途，响应按照PDU应用编号匹配，返回结果和请求顺序一致
+     *
+     * @param reqs            请求列表
+     * @param checkReturnCode 是否校验每个数据项的返回码
+     * @return 响应列表
+     */
+    private List<S7Data> readFromServer(List<S7Data> reqs, boolean checkReturnCode) {
+        if (this.amqCount <= 1 || reqs.size() <= 1) {
+            return reqs.stream().map(x -> this.readFromServer(x, checkReturnCode)).collect(Collectors.toList());
+        }
+        reqs.forEach(x -> this.checkPduLength(x.byteArrayLength()));
+        S7Data[] acks = this.pipeline(reqs.size(), priorityOf(reqs.get(0)), i -> {
+            this.writeS7Frame(reqs.get(i));
+            return reqs.get(i).getHeader().getPduReference();
+        });
+        for (int i = 0; i < reqs.size(); i++) {
+            this.checkPostedCom(reqs.get(i), acks[i], checkReturnCode);
+        }
+        return Arrays.asList(acks);
+    }
+
+    /**
+     * 流水线方式收发多个作业，同时最多amqCount个作业在途，响应按照PDU应用编号匹配；
+     * 没有在途作业时让出一次锁，等待中的高优先级请求可以插到下一个PDU之前
+     *
+     * @param count    作业个数
+     * @param priority 优先级
+     * @param sender   发送第i个作业，返回该作业的PDU应用编号
+     * @return 响应列表，和请求顺序一致
+     */
+    private S7Data[] pipeline(int count, EPriority priority, IntUnaryOperator sender) {
+        Map<Integer, Integer> indexMap = new HashMap<>();
+        S7Data[] acks = new S7Data[count];
+        this.objLock.lock(priority);
+        try {
+            int sent = 0;
+            int received = 0;
+            while (received < count) {
+                if (sent > 0 && sent == received) {
+                    this.objLock.unlock();
+                    this.objLock.lock(priority);
+                }
+                // 窗口内有空位就继续发送，有高优先级请求等待时不再补充，等在途作业收完后让出锁
+                boolean draining = sent > received && priority != EPriority.HIGH && this.objLock.hasQueuedHighWaiters();
+                while (!draining && sent < count && sent - received < this.amqCount) {
+                    indexMap.put(sender.applyAsInt(sent), sent);
+                    sent++;
+                }
+                S7Data ack = this.readS7Frame();
+                Integer index = ack.getHeader() == null ? null : indexMap.remove(ack.getHeader().getPduReference());
+                if (index == null) {
+                    throw new S7CommException("pdu应用编号不一致，数据有误");
+                }
+                acks[index] = ack;
+                received++;
             }
-            tpkt = TPKT.fromBytes(data);
-            total = new byte[tpkt.getLength()];
-            System.arraycopy(data, 0, total, 0, data.length);
-            len = this.read(total, TPKT.BYTE_LENGTH, tpkt.getLength() - TPKT.BYTE_LENGTH);
+        } catch (RuntimeException e) {
+            // 还有在途的作业，连接中的数据已经无法对齐，只能断开
+            this.close();
+            throw e;
+        } finally {
+            this.objLock.unlock();
         }
-        if (len < total.length - TPKT.BYTE_LENGTH) {
-            throw new S7CommException(" TPKT后面的数据长度，长度不一致");
+        return acks;
+    }
+
+    /**
+     * 发送读取计划中预编码的请求报文，拷贝到发送缓存后替换PDU应用编号，需要在锁内调用
+     *
+     * @param frame 预编码的请求报文
+     * @return PDU应用编号
+     */
+    private int writePlanFrame(byte[] frame) {
+        this.ensureConnected();
+        if (this.sendBuff.getData().length < frame.length) {
+            this.sendBuff = ByteWriteBuff.newInstance(frame.length);
         }
+        byte[] buff = this.sendBuff.getData();
+        System.arraycopy(frame, 0, buff, 0, frame.length);
+        int pduReference = Header.getNewPduNumber();
+        buff[PDU_REFERENCE_OFFSET] = (byte) (pduReference >> 8);
+        buff[PDU_REFERENCE_OFFSET + 1] = (byte) pduReference;
         if (this.comCallback != null) {
-            this.comCallback.accept(total);
+            this.comCallback.accept(Arrays.copyOf(buff, frame.length));
         }
-        return total;
+        this.write(buff, 0, frame.length);
+        return pduReference;
     }
 
     /**
@@ -280,10 +658,28 @@ public class PLCNetwork extends TcpClientBasic {
     /**
      * 后置通信处理，对请求和响应数据进行一次校验
      *
-     * @param req 请求数据
-     * @param ack 响应属于
+     * @param req             请求数据
+     * @param ack             响应属于
+     * @param checkReturnCode 是否校验每个数据项的返回码
+     */
+    private void checkPostedCom(S7Data req, S7Data ack, boolean checkReturnCode) {
+        if (ack.getHeader() == null) {
+            return;
+        }
+        int itemCount = req.getParameter() instanceof ReadWriteParameter
+                ? ((ReadWriteParameter) req.getParameter()).getItemCount() : -1;
+        this.checkPostedCom(req.getHeader().getPduReference(), itemCount, ack, checkReturnCode);
+    }
+
+    /**
+     * 后置通信处理，对响应数据进行一次校验
+     *
+     * @param pduReference 请求的PDU应用编号
+     * @param itemCount    请求的数据项个数，小于0不校验
+     * @param ack             响应数据
+     * @param checkReturnCode 是否校验每个数据项的返回码，不校验时由调用方按数据项处理
      */
-    private void checkPostedCom(S7Data req, S7Data ack) {
+    private void checkPostedCom(int pduReference, int itemCount, S7Data ack, boolean checkReturnCode) {
         if (ack.getHeader() == null) {
             return;
         }
@@ -294,7 +690,7 @@ public class PLCNetwork extends TcpClientBasic {
                     ackHeader.getErrorClass().getDescription(), ErrorCode.MAP.get(ackHeader.getErrorCode())));
         }
         // 发送和接收的PDU编号一致
-        if (ackHeader.getPduReference() != req.getHeader().getPduReference()) {
+        if (ackHeader.getPduReference() != pduReference) {
             throw new S7CommException("pdu应用编号不一致，数据有误");
         }
         if (ack.getDatum() == null) {
@@ -302,10 +698,12 @@ public class PLCNetwork extends TcpClientBasic {
         }
         // 请求的数据个数一致
         List<ReturnItem> returnItems = ack.getDatum().getReturnItems();
-        ReadWriteParameter parameter = (ReadWriteParameter) req.getParameter();
-        if (returnItems.size() != parameter.getItemCount()) {
+        if (itemCount >= 0 && returnItems.size() != itemCount) {
             throw new S7CommException("返回的数据个数和请求的数据个数不一致");
         }
+        if (!checkReturnCode) {
+            return;
+        }
         // 返回结果校验
         returnItems.forEach(x -> {
             if (x.getReturnCode() != EReturnCode.SUCCESS) {
@@ -328,6 +726,98 @@ public class PLCNetwork extends TcpClientBasic {
         if (requestItems == null || requestItems.isEmpty()) {
             throw new S7CommException("请求项缺失，无法获取数据");
         }
+        return this.readWithSingleFlight(requestItems, () -> this.readS7DataMerged(requestItems));
+    }
+
+    /**
+     * 读取S7协议数据，包含每个数据项的读取状态，个别数据项读取失败时不抛异常，其余数据项正常返回，
+     * 成功的数据项返回码为SUCCESS，失败的数据项返回码为对应的错误原因且没有数据，只需要重读失败的数据项
+     *
+     * @param requestItems 请求项列表
+     * @return 数据项列表，顺序和请求项一致
+     */
+    public List<DataItem> readS7DataWithStatus(List<RequestItem> requestItems) {
+        if (requestItems == null || requestItems.isEmpty()) {
+            throw new S7CommException("请求项缺失，无法获取数据");
+        }
+        if (this.readMergeGap < 0 || requestItems.size() <= 1) {
+            return this.readS7DataByGroup(requestItems, true);
+        }
+        S7MergeResult mergeResult = S7AddressMergeAlg.merge(requestItems, this.readMergeGap);
+        if (mergeResult.getMergedItems().size() >= requestItems.size()) {
+            return this.readS7DataByGroup(requestItems, true);
+        }
+        List<DataItem> res = mergeResult.split(this.readS7DataByGroup(mergeResult.getMergedItems(), true));
+        // 合并后多读的间隙可能超出存储区范围导致整个合并项失败，合并项中的原始请求项单独重读一次
+        int[] memberCounts = new int[mergeResult.getMergedItems().size()];
+        Arrays.stream(mergeResult.getMergedIndexes()).forEach(x -> memberCounts[x]++);
+        List<Integer> retryIndexes = new ArrayList<>();
+        for (int i = 0; i < res.size(); i++) {
+            if (res.get(i).getReturnCode() != EReturnCode.SUCCESS && memberCounts[mergeResult.getMergedIndexes()[i]] > 1) {
+                retryIndexes.add(i);
+            }
+        }
+        if (!retryIndexes.isEmpty()) {
+            List<RequestItem> retryItems = retryIndexes.stream().map(requestItems::get).collect(Collectors.toList());
+            List<DataItem> retryRes = this.readS7DataByGroup(retryItems, true);
+            for (int i = 0; i < retryIndexes.size(); i++) {
+                res.set(retryIndexes.get(i), retryRes.get(i));
+            }
+        }
+        return res;
+    }
+
+    /**
+     * 启用相同读取合并时，相同的请求项列表共享一次读取
+     *
+     * @param requestItems 请求项列表
+     * @param reader       实际的读取
+     * @return 数据项列表
+     */
+    protected List<DataItem> readWithSingleFlight(List<RequestItem> requestItems, Supplier<List<DataItem>> reader) {
+        SingleFlight<ByteBuffer, List<DataItem>> flight = this.readFlight;
+        if (flight == null) {
+            return reader.get();
+        }
+        // 请求项的字节数据包含存储区、DB块、地址、长度和类型，作为key
+        ByteWriteBuff buff = ByteWriteBuff.newInstance(requestItems.stream().mapToInt(RequestItem::byteArrayLength).sum());
+        requestItems.forEach(x -> x.writeTo(buff));
+        return flight.execute(ByteBuffer.wrap(buff.getData()), reader);
+    }
+
+    private static List<DataItem> copyDataItems(List<DataItem> src) {
+        return src.stream().map(x -> {
+            DataItem item = x.copy();
+            item.setData(x.getData().clone());
+            return item;
+        }).collect(Collectors.toList());
+    }
+
+    /**
+     * 地址合并后读取S7协议数据
+     *
+     * @param requestItems 请求项列表
+     * @return 数据项列表
+     */
+    private List<DataItem> readS7DataMerged(List<RequestItem> requestItems) {
+        // 同一存储区内相邻的地址合并后再读取，读取完按原始请求项拆分
+        if (this.readMergeGap >= 0 && requestItems.size() > 1) {
+            S7MergeResult mergeResult = S7AddressMergeAlg.merge(requestItems, this.readMergeGap);
+            if (mergeResult.getMergedItems().size() < requestItems.size()) {
+                return mergeResult.split(this.readS7DataByGroup(mergeResult.getMergedItems(), false));
+            }
+        }
+        return this.readS7DataByGroup(requestItems, false);
+    }
+
+    /**
+     * 按PDU大小分组读取S7协议数据
+     *
+     * @param requestItems 请求项列表
+     * @param withStatus   是否按数据项返回读取状态，false：任何数据项失败都抛异常，true：失败的数据项标记返回码
+     * @return 数据项列表
+     */
+    private List<DataItem> readS7DataByGroup(List<RequestItem> requestItems, boolean withStatus) {
         // 根据原始请求列表提取每个请求数据大小
         List<Integer> rawNumbers = requestItems.stream().map(RequestItem::getCount).collect(Collectors.toList());
         // 根据原始请求列表构建最终结果列表
@@ -335,34 +825,43 @@ public class PLCNetwork extends TcpClientBasic {
                         x.getVariableType() == EParamVariableType.BIT ? EDataVariableType.BIT : EDataVariableType.BYTE_WORD_DWORD))
                 .collect(Collectors.toList());
 
-        // 根据顺序分组算法得出分组结果，
-        // 发送： 12=10(header)+2(parameter前),12(parameter后)
-        // 接收： 14=12(header)+2(parameter),5(DataItem)，dataItem可能4或5，统一采用5
-        List<S7ComGroup> s7ComGroups = S7SequentialGroupAlg.readRecombination(rawNumbers, this.pduLength - 14, 5, 12);
+        List<S7ComGroup> s7ComGroups = this.groupReadItems(rawNumbers);
         try {
-            s7ComGroups.forEach(x -> {
-                // 根据分组构建对应的请求列表
-                List<S7ComItem> comItemList = x.getItems();
-                List<RequestItem> newRequestItems = comItemList.stream().map(i -> {
-                    RequestItem item = requestItems.get(i.getIndex()).copy();
-                    item.setCount(i.getRipeSize());
-                    item.setByteAddress(item.getByteAddress() + i.getSplitOffset());
-                    return item;
-                }).collect(Collectors.toList());
+            // 根据分组构建对应的请求列表
+            List<S7Data> reqs = s7ComGroups.stream()
+                    .map(x -> S7Data.createReadRequest(this.buildGroupItems(requestItems, x)))
+                    .collect(Collectors.toList());
+
+            // S7数据请求，并行作业数大于1时多个分组同时在途
+            List<S7Data> acks = this.readFromServer(reqs, !withStatus);
 
-                // S7数据请求
-                S7Data req = S7Data.createReadRequest(newRequestItems);
-                S7Data ack = this.readFromServer(req);
-                List<DataItem> dataItems = ack.getDatum().getReturnItems().stream().map(DataItem.class::cast).collect(Collectors.toList());
+            for (int g = 0; g < s7ComGroups.size(); g++) {
+                List<S7ComItem> comItemList = s7ComGroups.get(g).getItems();
+                List<DataItem> dataItems = acks.get(g).getDatum().getReturnItems().stream().map(DataItem.class::cast).collect(Collectors.toList());
 
                 // 将获取的数据重装实际结果列表中
                 for (int i = 0; i < comItemList.size(); i++) {
                     S7ComItem comItem = comItemList.get(i);
+                    DataItem result = resultList.get(comItem.getIndex());
+                    // 被分割的请求项任何一部分失败，整个请求项都失败
+                    if (dataItems.get(i).getReturnCode() != EReturnCode.SUCCESS) {
+                        result.setReturnCode(dataItems.get(i).getReturnCode());
+                        continue;
+                    }
                     byte[] src = dataItems.get(i).getData();
-                    byte[] des = resultList.get(comItem.getIndex()).getData();
-                    System.arraycopy(src, 0, des, comItem.getSplitOffset(), src.length);
+                    System.arraycopy(src, 0, result.getData(), comItem.getSplitOffset(), src.length);
                 }
-            });
+            }
+            if (withStatus) {
+                resultList.forEach(x -> {
+                    if (x.getReturnCode() == EReturnCode.RESERVED) {
+                        x.setReturnCode(EReturnCode.SUCCESS);
+                    } else {
+                        x.setData(new byte[0]);
+                        x.setCount(0);
+                    }
+                });
+            }
             return resultList;
         } finally {
             if (!this.persistence) {
@@ -371,6 +870,131 @@ public class PLCNetwork extends TcpClientBasic {
         }
     }
 
+    /**
+     * 按当前的分组策略对请求项分组，去掉空的分组
+     *
+     * @param rawNumbers 每个请求项的数据大小
+     * @return 分组结果
+     */
+    private List<S7ComGroup> groupReadItems(List<Integer> rawNumbers) {
+        // 根据分组算法得出分组结果，
+        // 发送： 12=10(header)+2(parameter前),12(parameter后)
+        // 接收： 14=12(header)+2(parameter),5(DataItem)，dataItem可能4或5，统一采用5
+        List<S7ComGroup> s7ComGroups = this.readGroupStrategy == EGroupStrategy.FIRST_FIT_DECREASING
+                ? S7FirstFitDecreasingGroupAlg.readRecombination(rawNumbers, this.pduLength - 14, 5, 12)
+                : S7SequentialGroupAlg.readRecombination(rawNumbers, this.pduLength - 14, 5, 12);
+        s7ComGroups.removeIf(x -> x.getItems().isEmpty());
+        return s7ComGroups;
+    }
+
+    /**
+     * 根据分组构建对应的请求列表
+     *
+     * @param requestItems 请求项列表
+     * @param group        分组
+     * @return 分组内的请求项列表
+     */
+    private List<RequestItem> buildGroupItems(List<RequestItem> requestItems, S7ComGroup group) {
+        return group.getItems().stream().map(i -> {
+            RequestItem item = requestItems.get(i.getIndex()).copy();
+            item.setCount(i.getRipeSize());
+            item.setByteAddress(item.getByteAddress() + i.getSplitOffset());
+            return item;
+        }).collect(Collectors.toList());
+    }
+
+    /**
+     * 编译读取计划，按当前的PDU长度、地址合并间隙和分组策略完成合并、分组和请求报文编码，
+     * 同一组地址周期性读取时，编译一次后反复调用readS7Data(S7ReadPlan)
+     *
+     * @param requestItems 请求项列表
+     * @return 读取计划
+     */
+    public S7ReadPlan compileReadPlan(List<RequestItem> requestItems) {
+        if (requestItems == null || requestItems.isEmpty()) {
+            throw new S7CommException("请求项缺失，无法编译读取计划");
+        }
+        List<RequestItem> rawItems = requestItems.stream().map(RequestItem::copy).collect(Collectors.toList());
+        S7MergeResult mergeResult = null;
+        List<RequestItem> targetItems = rawItems;
+        if (this.readMergeGap >= 0 && rawItems.size() > 1) {
+            S7MergeResult result = S7AddressMergeAlg.merge(rawItems, this.readMergeGap);
+            if (result.getMergedItems().size() < rawItems.size()) {
+                mergeResult = result;
+                targetItems = result.getMergedItems();
+            }
+        }
+
+        int[] targetLengths = new int[targetItems.size()];
+        boolean[] targetBits = new boolean[targetItems.size()];
+        for (int i = 0; i < targetItems.size(); i++) {
+            targetLengths[i] = targetItems.get(i).getCount();
+            targetBits[i] = targetItems.get(i).getVariableType() == EParamVariableType.BIT;
+        }
+        List<S7ComGroup> s7ComGroups = this.groupReadItems(Arrays.stream(targetLengths).boxed().collect(Collectors.toList()));
+        byte[][] frames = new byte[s7ComGroups.size()][];
+        int[][] targetIndexes = new int[s7ComGroups.size()][];
+        int[][] targetOffsets = new int[s7ComGroups.size()][];
+        for (int g = 0; g < s7ComGroups.size(); g++) {
+            List<S7ComItem> comItemList = s7ComGroups.get(g).getItems();
+            frames[g] = S7Data.createReadRequest(this.buildGroupItems(targetItems, s7ComGroups.get(g))).toByteArray();
+            this.checkPduLength(frames[g].length);
+            targetIndexes[g] = comItemList.stream().mapToInt(S7ComItem::getIndex).toArray();
+            targetOffsets[g] = comItemList.stream().mapToInt(S7ComItem::getSplitOffset).toArray();
+        }
+        return new S7ReadPlan(rawItems, mergeResult, this.pduLength, this.readMergeGap, this.readGroupStrategy,
+                frames, targetIndexes, targetOffsets, targetLengths, targetBits);
+    }
+
+    /**
+     * 执行读取计划，直接发送预编码的请求报文，不再解析地址和分组；
+     * 若连接协商后的PDU长度小于编译时的长度，预编码的报文无法使用，退回按请求项读取
+     *
+     * @param plan 读取计划
+     * @return 数据项列表，顺序和编译时的请求项一致
+     */
+    public List<DataItem> readS7Data(S7ReadPlan plan) {
+        try {
+            S7Data[] acks = null;
+            int[] pduReferences = new int[plan.getFrameCount()];
+            this.ensureNegotiated();
+            if (plan.getPduLength() <= this.pduLength) {
+                acks = this.pipeline(pduReferences.length, EPriority.NORMAL,
+                        i -> pduReferences[i] = this.writePlanFrame(plan.getFrame(i)));
+            }
+            if (acks == null) {
+                return this.readS7Data(plan.getRequestItems());
+            }
+
+            int[] targetLengths = plan.getTargetLengths();
+            byte[][] targets = new byte[targetLengths.length][];
+            for (int i = 0; i < targetLengths.length; i++) {
+                targets[i] = new byte[targetLengths[i]];
+            }
+            for (int g = 0; g < acks.length; g++) {
+                int[] targetIndexes = plan.getTargetIndexes(g);
+                int[] targetOffsets = plan.getTargetOffsets(g);
+                this.checkPostedCom(pduReferences[g], targetIndexes.length, acks[g], true);
+                List<ReturnItem> returnItems = acks[g].getDatum().getReturnItems();
+                for (int i = 0; i < targetIndexes.length; i++) {
+                    byte[] src = ((DataItem) returnItems.get(i)).getData();
+                    System.arraycopy(src, 0, targets[targetIndexes[i]], targetOffsets[i], src.length);
+                }
+            }
+
+            boolean[] targetBits = plan.getTargetBits();
+            List<DataItem> dataItems = new ArrayList<>(targets.length);
+            for (int i = 0; i < targets.length; i++) {
+                dataItems.add(DataItem.createReq(targets[i], targetBits[i] ? EDataVariableType.BIT : EDataVariableType.BYTE_WORD_DWORD));
+            }
+            return plan.getMergeResult() == null ? dataItems : plan.getMergeResult().split(dataItems);
+        } finally {
+            if (!this.persistence) {
+                this.close();
+            }
+        }
+    }
+
     /**
      * 读取S7协议数据
      *
@@ -378,6 +1002,10 @@ public class PLCNetwork extends TcpClientBasic {
      * @return 数据项
      */
     public DataItem readS7Data(RequestItem requestItem) {
+        S7ReadBatcher batcher = this.readBatcher;
+        if (batcher != null) {
+            return batcher.read(requestItem);
+        }
         return this.readS7Data(Collections.singletonList(requestItem)).get(0);
     }
 
@@ -401,6 +1029,8 @@ public class PLCNetwork extends TcpClientBasic {
         if (requestItems.size() != dataItems.size()) {
             throw new S7CommException("写操作过程中，requestItems和dataItems数据个数不一致");
         }
+        // 写之前和写之后都清除读取缓存，避免读到写之前的旧数据
+        this.invalidateReadCache();
 
         // 根据原始请求列表提取每个请求数据大小
         List<Integer> rawNumbers = requestItems.stream().map(RequestItem::getCount).collect(Collectors.toList());
@@ -409,8 +1039,10 @@ public class PLCNetwork extends TcpClientBasic {
         // 发送：12=10(header)+2(parameter前),17=12(parameter后)+5(dataItem)，dataItem可能4或5，统一采用5
         // 接收：14=12(header)+2(parameter),1(DataItem)
         List<S7ComGroup> s7ComGroups = S7SequentialGroupAlg.writeRecombination(rawNumbers, this.pduLength - 12, 17);
+        // 最后一个数据恰好装满PDU时末尾会多出一个空分组，空的写请求PLC无法处理
+        s7ComGroups.removeIf(x -> x.getItems().isEmpty());
         try {
-            s7ComGroups.forEach(x -> {
+            List<S7Data> reqs = s7ComGroups.stream().map(x -> {
                 // 根据分组构建对应的请求列表
                 List<S7ComItem> comItemList = x.getItems();
                 List<RequestItem> newRequestItems = comItemList.stream().map(i -> {
@@ -427,11 +1059,13 @@ public class PLCNetwork extends TcpClientBasic {
                     return item;
                 }).collect(Collectors.toList());
 
-                // S7数据请求
-                S7Data req = S7Data.createWriteRequest(newRequestItems, newDataItems);
-                this.readFromServer(req);
-            });
+                return S7Data.createWriteRequest(newRequestItems, newDataItems);
+            }).collect(Collectors.toList());
+
+            // S7数据请求，并行作业数大于1时多个分组同时在途
+            this.readFromServer(reqs, true);
         } finally {
+            this.invalidateReadCache();
             if (!this.persistence) {
                 this.close();
             }
@@ -440,6 +1074,69 @@ public class PLCNetwork extends TcpClientBasic {
 
     //endregion
 
+    //region 异步读写部分
+
+    /**
+     * 异步执行，由当前连接的串行调度器执行，不阻塞调用线程
+     *
+     * @param supplier 执行内容
+     * @param <T>      返回类型
+     * @return 执行结果
+     */
+    protected <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        return this.getDispatcher().submit(supplier);
+    }
+
+    /**
+     * 异步读取S7协议数据
+     *
+     * @param requestItems 请求项列表
+     * @return 数据项列表
+     */
+    public CompletableFuture<List<DataItem>> readS7DataAsync(List<RequestItem> requestItems) {
+        return this.supplyAsync(() -> this.readS7Data(requestItems));
+    }
+
+    /**
+     * 异步读取S7协议数据
+     *
+     * @param requestItem 请求项
+     * @return 数据项
+     */
+    public CompletableFuture<DataItem> readS7DataAsync(RequestItem requestItem) {
+        return this.supplyAsync(() -> this.readS7Data(requestItem));
+    }
+
+    /**
+     * 异步写S7协议数据
+     *
+     * @param requestItems 请求项列表
+     * @param dataItems    数据项列表
+     * @return 执行结果
+     */
+    public CompletableFuture<Void> writeS7DataAsync(List<RequestItem> requestItems, List<DataItem> dataItems) {
+        return this.supplyAsync(() -> {
+            this.writeS7Data(requestItems, dataItems);
+            return null;
+        });
+    }
+
+    /**
+     * 异步写S7协议数据
+     *
+     * @param requestItem 请求项
+     * @param dataItem    数据项
+     * @return 执行结果
+     */
+    public CompletableFuture<Void> writeS7DataAsync(RequestItem requestItem, DataItem dataItem) {
+        return this.supplyAsync(() -> {
+            this.writeS7Data(requestItem, dataItem);
+            return null;
+        });
+    }
+
+    //endregion
+
     //region 读取NCK数据
 
     /**
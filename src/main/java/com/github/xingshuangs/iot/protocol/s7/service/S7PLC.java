@@ -11,12 +11,18 @@ import com.github.xingshuangs.iot.protocol.s7.model.S7Data;
 import com.github.xingshuangs.iot.protocol.s7.utils.AddressUtil;
 import com.github.xingshuangs.iot.utils.*;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -97,6 +103,27 @@ public class S7PLC extends PLCNetwork {
         return dataItems.stream().map(DataItem::getData).collect(Collectors.toList());
     }
 
+    /**
+     * 编译多地址读取计划，同一组地址周期性读取时编译一次，之后用readMultiByte(S7ReadPlan)反复读取
+     *
+     * @param addressRead 地址包装列表
+     * @return 读取计划
+     */
+    public S7ReadPlan compileReadPlan(MultiAddressRead addressRead) {
+        return this.compileReadPlan(addressRead.getRequestItems());
+    }
+
+    /**
+     * 按读取计划多地址读取字节数据
+     *
+     * @param plan 读取计划
+     * @return 字节数组列表
+     */
+    public List<byte[]> readMultiByte(S7ReadPlan plan) {
+        List<DataItem> dataItems = this.readS7Data(plan);
+        return dataItems.stream().map(DataItem::getData).collect(Collectors.toList());
+    }
+
     /**
      * 单地址字节数据读取
      *
@@ -460,6 +487,67 @@ public class S7PLC extends PLCNetwork {
         return LocalDateTime.of(year, month, dayOfMonth, hour, minute, second, (int) nanoOfSecond);
     }
 
+    /**
+     * 读取连续的Int16数组，直接从响应字节解码，不产生中间对象
+     *
+     * @param address 起始地址
+     * @param count   个数
+     * @return Int16数组
+     */
+    public short[] readInt16Array(String address, int count) {
+        return ShortUtil.toInt16Array(this.readByte(address, count * 2), 0, count);
+    }
+
+    /**
+     * 读取连续的Int32数组，直接从响应字节解码，不产生中间对象
+     *
+     * @param address 起始地址
+     * @param count   个数
+     * @return Int32数组
+     */
+    public int[] readInt32Array(String address, int count) {
+        return IntegerUtil.toInt32Array(this.readByte(address, count * 4), 0, count);
+    }
+
+    /**
+     * 读取连续的Float32数组，直接从响应字节解码，不产生中间对象
+     *
+     * @param address 起始地址
+     * @param count   个数
+     * @return Float32数组
+     */
+    public float[] readFloat32Array(String address, int count) {
+        return FloatUtil.toFloat32Array(this.readByte(address, count * 4), 0, count);
+    }
+
+    /**
+     * 读取连续的Float64数组，直接从响应字节解码，不产生中间对象
+     *
+     * @param address 起始地址
+     * @param count   个数
+     * @return Float64数组
+     */
+    public double[] readFloat64Array(String address, int count) {
+        return FloatUtil.toFloat64Array(this.readByte(address, count * 8), 0, count);
+    }
+
+    /**
+     * 读取连续的位，按字节读取后提取，需要long[]时使用BitSet.toLongArray
+     *
+     * @param address 起始位地址，例如DB1.2.3
+     * @param count   位个数
+     * @return 位集合，第i位对应起始地址之后的第i个位
+     */
+    public BitSet readBooleanBits(String address, int count) {
+        RequestItem requestItem = AddressUtil.parseBit(address);
+        int bitOffset = requestItem.getBitAddress();
+        requestItem.setVariableType(EParamVariableType.BYTE);
+        requestItem.setBitAddress(0);
+        requestItem.setCount((bitOffset + count + 7) / 8);
+        DataItem dataItem = this.readS7Data(requestItem);
+        return BooleanUtil.toBitSet(dataItem.getData(), bitOffset, count);
+    }
+
     //endregion
 
     //region 写入数据
@@ -697,6 +785,480 @@ public class S7PLC extends PLCNetwork {
         this.writeByte(address, data);
     }
 
+    /**
+     * 写入连续的Int16数组
+     *
+     * @param address 起始地址
+     * @param data    Int16数组
+     */
+    public void writeInt16Array(String address, short[] data) {
+        this.writeByte(address, ShortUtil.toByteArray(data));
+    }
+
+    /**
+     * 写入连续的Int32数组
+     *
+     * @param address 起始地址
+     * @param data    Int32数组
+     */
+    public void writeInt32Array(String address, int[] data) {
+        this.writeByte(address, IntegerUtil.toByteArray(data));
+    }
+
+    /**
+     * 写入连续的Float32数组
+     *
+     * @param address 起始地址
+     * @param data    Float32数组
+     */
+    public void writeFloat32Array(String address, float[] data) {
+        this.writeByte(address, FloatUtil.toByteArray(data));
+    }
+
+    /**
+     * 写入连续的Float64数组
+     *
+     * @param address 起始地址
+     * @param data    Float64数组
+     */
+    public void writeFloat64Array(String address, double[] data) {
+        this.writeByte(address, FloatUtil.toByteArray(data));
+    }
+
+    /**
+     * 写入连续的位，不影响相邻的位；首尾不足一个字节的部分逐位写入，中间按字节对齐的部分作为一个字节数据项写入
+     *
+     * @param address 起始位地址，例如DB1.2.3
+     * @param bits    位集合，第i位对应起始地址之后的第i个位
+     * @param count   位个数
+     */
+    public void writeBooleanBits(String address, BitSet bits, int count) {
+        RequestItem start = AddressUtil.parseBit(address);
+        int bitAddress = start.getBitAddress();
+        // 开头不足一个字节的位个数，中间的字节数，结尾剩余的位个数
+        int head = bitAddress == 0 ? 0 : Math.min(count, 8 - bitAddress);
+        int middle = (count - head) / 8;
+        int tail = count - head - middle * 8;
+        if (head == 0 && tail == 0) {
+            start.setVariableType(EParamVariableType.BYTE);
+            start.setCount(middle);
+            this.writeS7Data(start, DataItem.createReqByByte(BooleanUtil.toByteArray(bits, count)));
+            return;
+        }
+        List<RequestItem> requestItems = new ArrayList<>(head + tail + 1);
+        List<DataItem> dataItems = new ArrayList<>(head + tail + 1);
+        for (int i = 0; i < head; i++) {
+            this.addBitItem(start, bitAddress + i, bits.get(i), requestItems, dataItems);
+        }
+        if (middle > 0) {
+            RequestItem item = start.copy();
+            item.setByteAddress(start.getByteAddress() + (head == 0 ? 0 : 1));
+            item.setBitAddress(0);
+            item.setVariableType(EParamVariableType.BYTE);
+            item.setCount(middle);
+            requestItems.add(item);
+            dataItems.add(DataItem.createReqByByte(BooleanUtil.toByteArray(bits.get(head, head + middle * 8), middle * 8)));
+        }
+        for (int i = count - tail; i < count; i++) {
+            this.addBitItem(start, bitAddress + i, bits.get(i), requestItems, dataItems);
+        }
+        this.writeS7Data(requestItems, dataItems);
+    }
+
+    /**
+     * 添加一个位的写入数据项
+     *
+     * @param start        起始地址
+     * @param bit          相对起始字节的位偏移
+     * @param value        位的值
+     * @param requestItems 请求项列表
+     * @param dataItems    数据项列表
+     */
+    private void addBitItem(RequestItem start, int bit, boolean value, List<RequestItem> requestItems, List<DataItem> dataItems) {
+        RequestItem item = start.copy();
+        item.setByteAddress(start.getByteAddress() + bit / 8);
+        item.setBitAddress(bit % 8);
+        requestItems.add(item);
+        dataItems.add(DataItem.createReqByBoolean(value));
+    }
+
+    //endregion
+
+    //region 块传输
+
+    /**
+     * 读取一段连续的大块数据到目标缓冲区，读取长度为目标缓冲区的剩余字节数，完成后目标缓冲区的位置后移
+     *
+     * @param address 起始地址，例如DB100.0
+     * @param target  目标缓冲区
+     */
+    public void readBlock(String address, ByteBuffer target) {
+        this.readBlock(address, target, null);
+    }
+
+    /**
+     * 读取一段连续的大块数据到目标缓冲区，按分块读取，每完成一块回调一次进度，
+     * 连接池中多个连接并行读取不同的分块
+     *
+     * @param address  起始地址，例如DB100.0
+     * @param target   目标缓冲区，读取长度为剩余字节数，完成后位置后移
+     * @param progress 进度回调，参数为已完成字节数和总字节数，可以为null
+     */
+    public void readBlock(String address, ByteBuffer target, BiConsumer<Integer, Integer> progress) {
+        int total = target.remaining();
+        int position = target.position();
+        RequestItem start = AddressUtil.parseByte(address, total);
+        this.transferBlock(total, S7PLC::readChunkSize, progress, (plc, offset, length) -> {
+            RequestItem item = start.copy();
+            item.setByteAddress(start.getByteAddress() + offset);
+            item.setCount(length);
+            byte[] data = plc.readS7Data(item).getData();
+            // 每个分块写入目标缓冲区各自的区域，互不影响
+            ByteBuffer dst = target.duplicate();
+            dst.position(position + offset);
+            dst.put(data);
+        });
+        target.position(position + total);
+    }
+
+    /**
+     * 将源缓冲区中的大块数据写入一段连续的地址，写入长度为源缓冲区的剩余字节数，完成后源缓冲区的位置后移
+     *
+     * @param address 起始地址，例如DB100.0
+     * @param source  源缓冲区
+     */
+    public void writeBlock(String address, ByteBuffer source) {
+        this.writeBlock(address, source, null);
+    }
+
+    /**
+     * 将源缓冲区中的大块数据写入一段连续的地址，按分块写入，每完成一块回调一次进度，
+     * 连接池中多个连接并行写入不同的分块，分块之间的写入顺序不确定
+     *
+     * @param address  起始地址，例如DB100.0
+     * @param source   源缓冲区，写入长度为剩余字节数，完成后位置后移
+     * @param progress 进度回调，参数为已完成字节数和总字节数，可以为null
+     */
+    public void writeBlock(String address, ByteBuffer source, BiConsumer<Integer, Integer> progress) {
+        int total = source.remaining();
+        int position = source.position();
+        RequestItem start = AddressUtil.parseByte(address, total);
+        this.transferBlock(total, S7PLC::writeChunkSize, progress, (plc, offset, length) -> {
+            RequestItem item = start.copy();
+            item.setByteAddress(start.getByteAddress() + offset);
+            item.setCount(length);
+            byte[] data = new byte[length];
+            ByteBuffer src = source.duplicate();
+            src.position(position + offset);
+            src.get(data);
+            plc.writeS7Data(item, DataItem.createReqByByte(data));
+        });
+        source.position(position + total);
+    }
+
+    /**
+     * 块读取一个分块的字节数，一个并行作业窗口内的PDU数据量，以协商后的PDU长度和并行作业数为准，
+     * 发送：14=12(header)+2(parameter)，5(dataItem)
+     *
+     * @param plc 已完成握手的连接
+     * @return 分块字节数
+     */
+    private static int readChunkSize(S7PLC plc) {
+        return (plc.pduLength - 14 - 5) * plc.amqCount;
+    }
+
+    /**
+     * 块写入一个分块的字节数，一个并行作业窗口内的PDU数据量，以协商后的PDU长度和并行作业数为准，
+     * 发送：12=10(header)+2(parameter前)，17=12(parameter后)+5(dataItem)
+     *
+     * @param plc 已完成握手的连接
+     * @return 分块字节数
+     */
+    private static int writeChunkSize(S7PLC plc) {
+        return (plc.pduLength - 12 - 17) * plc.amqCount;
+    }
+
+    /**
+     * 按分块依次执行块传输，单连接下顺序执行，先连接再按协商后的参数计算分块大小
+     *
+     * @param total       总字节数
+     * @param chunkSizeOf 根据执行传输的连接计算分块字节数
+     * @param progress    进度回调，可以为null
+     * @param action      分块的执行内容
+     */
+    protected void transferBlock(int total, ToIntFunction<S7PLC> chunkSizeOf, BiConsumer<Integer, Integer> progress,
+                                 BlockChunkAction action) {
+        this.ensureNegotiated();
+        int chunkSize = chunkSizeOf.applyAsInt(this);
+        for (int offset = 0; offset < total; offset += chunkSize) {
+            int length = Math.min(chunkSize, total - offset);
+            action.apply(this, offset, length);
+            if (progress != null) {
+                progress.accept(offset + length, total);
+            }
+        }
+    }
+
+    /**
+     * 块传输中单个分块的执行内容
+     */
+    @FunctionalInterface
+    protected interface BlockChunkAction {
+
+        /**
+         * 执行分块传输
+         *
+         * @param plc    执行传输的连接
+         * @param offset 分块相对起始地址的字节偏移
+         * @param length 分块字节数
+         */
+        void apply(S7PLC plc, int offset, int length);
+    }
+
+    //endregion
+
+    //region 异步读写
+
+    /**
+     * 异步读取字节数据，由当前连接的串行调度器执行
+     *
+     * @param address 地址
+     * @param count   字节个数
+     * @return 字节数据
+     */
+    public CompletableFuture<byte[]> readByteAsync(String address, int count) {
+        return this.supplyAsync(() -> this.readByte(address, count));
+    }
+
+    /**
+     * 异步读取boolean数据，由当前连接的串行调度器执行
+     *
+     * @param address 地址
+     * @return boolean数据
+     */
+    public CompletableFuture<Boolean> readBooleanAsync(String address) {
+        return this.supplyAsync(() -> this.readBoolean(address));
+    }
+
+    /**
+     * 异步读取int16数据，由当前连接的串行调度器执行
+     *
+     * @param address 地址
+     * @return int16数据
+     */
+    public CompletableFuture<Short> readInt16Async(String address) {
+        return this.supplyAsync(() -> this.readInt16(address));
+    }
+
+    /**
+     * 异步读取uint16数据，由当前连接的串行调度器执行
+     *
+     * @param address 地址
+     * @return uint16数据
+     */
+    public CompletableFuture<Integer> readUInt16Async(String address) {
+        return this.supplyAsync(() -> this.readUInt16(address));
+    }
+
+    /**
+     * 异步读取int32数据，由当前连接的串行调度器执行
+     *
+     * @param address 地址
+     * @return int32数据
+     */
+    public CompletableFuture<Integer> readInt32Async(String address) {
+        return this.supplyAsync(() -> this.readInt32(address));
+    }
+
+    /**
+     * 异步读取uint32数据，由当前连接的串行调度器执行
+     *
+     * @param address 地址
+     * @return uint32数据
+     */
+    public CompletableFuture<Long> readUInt32Async(String address) {
+        return this.supplyAsync(() -> this.readUInt32(address));
+    }
+
+    /**
+     * 异步读取float32数据，由当前连接的串行调度器执行
+     *
+     * @param address 地址
+     * @return float32数据
+     */
+    public CompletableFuture<Float> readFloat32Async(String address) {
+        return this.supplyAsync(() -> this.readFloat32(address));
+    }
+
+    /**
+     * 异步读取float64数据，由当前连接的串行调度器执行
+     *
+     * @param address 地址
+     * @return float64数据
+     */
+    public CompletableFuture<Double> readFloat64Async(String address) {
+        return this.supplyAsync(() -> this.readFloat64(address));
+    }
+
+    /**
+     * 异步读取字符串数据，由当前连接的串行调度器执行
+     *
+     * @param address 地址
+     * @return 字符串数据
+     */
+    public CompletableFuture<String> readStringAsync(String address) {
+        return this.supplyAsync(() -> this.readString(address));
+    }
+
+    /**
+     * 异步多地址读取字节数据，由当前连接的串行调度器执行
+     *
+     * @param addressRead 地址包装列表
+     * @return 字节数组列表
+     */
+    public CompletableFuture<List<byte[]>> readMultiByteAsync(MultiAddressRead addressRead) {
+        return this.supplyAsync(() -> this.readMultiByte(addressRead));
+    }
+
+    /**
+     * 异步写入boolean数据，由当前连接的串行调度器执行
+     *
+     * @param address 地址
+     * @param data    数据
+     * @return 执行结果
+     */
+    public CompletableFuture<Void> writeBooleanAsync(String address, boolean data) {
+        return this.supplyAsync(() -> {
+            this.writeBoolean(address, data);
+            return null;
+        });
+    }
+
+    /**
+     * 异步写入字节数据，由当前连接的串行调度器执行
+     *
+     * @param address 地址
+     * @param data    数据
+     * @return 执行结果
+     */
+    public CompletableFuture<Void> writeByteAsync(String address, byte[] data) {
+        return this.supplyAsync(() -> {
+            this.writeByte(address, data);
+            return null;
+        });
+    }
+
+    /**
+     * 异步写入int16数据，由当前连接的串行调度器执行
+     *
+     * @param address 地址
+     * @param data    数据
+     * @return 执行结果
+     */
+    public CompletableFuture<Void> writeInt16Async(String address, short data) {
+        return this.supplyAsync(() -> {
+            this.writeInt16(address, data);
+            return null;
+        });
+    }
+
+    /**
+     * 异步写入uint16数据，由当前连接的串行调度器执行
+     *
+     * @param address 地址
+     * @param data    数据
+     * @return 执行结果
+     */
+    public CompletableFuture<Void> writeUInt16Async(String address, int data) {
+        return this.supplyAsync(() -> {
+            this.writeUInt16(address, data);
+            return null;
+        });
+    }
+
+    /**
+     * 异步写入int32数据，由当前连接的串行调度器执行
+     *
+     * @param address 地址
+     * @param data    数据
+     * @return 执行结果
+     */
+    public CompletableFuture<Void> writeInt32Async(String address, int data) {
+        return this.supplyAsync(() -> {
+            this.writeInt32(address, data);
+            return null;
+        });
+    }
+
+    /**
+     * 异步写入uint32数据，由当前连接的串行调度器执行
+     *
+     * @param address 地址
+     * @param data    数据
+     * @return 执行结果
+     */
+    public CompletableFuture<Void> writeUInt32Async(String address, long data) {
+        return this.supplyAsync(() -> {
+            this.writeUInt32(address, data);
+            return null;
+        });
+    }
+
+    /**
+     * 异步写入float32数据，由当前连接的串行调度器执行
+     *
+     * @param address 地址
+     * @param data    数据
+     * @return 执行结果
+     */
+    public CompletableFuture<Void> writeFloat32Async(String address, float data) {
+        return this.supplyAsync(() -> {
+            this.writeFloat32(address, data);
+            return null;
+        });
+    }
+
+    /**
+     * 异步写入float64数据，由当前连接的串行调度器执行
+     *
+     * @param address 地址
+     * @param data    数据
+     * @return 执行结果
+     */
+    public CompletableFuture<Void> writeFloat64Async(String address, double data) {
+        return this.supplyAsync(() -> {
+            this.writeFloat64(address, data);
+            return null;
+        });
+    }
+
+    /**
+     * 异步写入字符串数据，由当前连接的串行调度器执行
+     *
+     * @param address 地址
+     * @param data    数据
+     * @return 执行结果
+     */
+    public CompletableFuture<Void> writeStringAsync(String address, String data) {
+        return this.supplyAsync(() -> {
+            this.writeString(address, data);
+            return null;
+        });
+    }
+
+    /**
+     * 异步多地址写入数据，由当前连接的串行调度器执行
+     *
+     * @param addressWrite 地址包装列表
+     * @return 执行结果
+     */
+    public CompletableFuture<Void> writeMultiDataAsync(MultiAddressWrite addressWrite) {
+        return this.supplyAsync(() -> {
+            this.writeMultiData(addressWrite);
+            return null;
+        });
+    }
+
     //endregion
 
     //region 控制部分
@@ -0,0 +1,570 @@
+package com.github.xingshuangs.iot.protocol.s7.service;
+
+
+import com.github.xingshuangs.iot.exceptions.S7CommException;
+import com.github.xingshuangs.iot.exceptions.SocketRuntimeException;
+import com.github.xingshuangs.iot.net.client.BoundedDispatcher;
+import com.github.xingshuangs.iot.protocol.s7.enums.EPlcType;
+import com.github.xingshuangs.iot.protocol.s7.model.DataItem;
+import com.github.xingshuangs.iot.protocol.s7.model.RequestItem;
+import com.github.xingshuangs.iot.protocol.s7.model.RequestNckItem;
+import com.github.xingshuangs.iot.protocol.s7.model.S7Data;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * S7连接池，对同一台PLC建立多个完成握手的连接，并发的读写请求分摊到不同的连接上，
+ * 避免单连接下所有请求在同一把锁上排队，连接在首次使用时按需创建，最多maxSize个
+ *
+ * @author xingshuang
+ */
+@Slf4j
+public class S7PLCPool extends S7PLC {
+
+    /**
+     * 连接池配置
+     */
+    private final S7PLCPoolConfig config;
+
+    /**
+     * 空闲的连接，后进先出，使常用的连接保持活跃，不常用的连接自然过期
+     */
+    private final LinkedBlockingDeque<PooledS7PLC> idleQueue = new LinkedBlockingDeque<>();
+
+    /**
+     * 当前连接总数，包含空闲和已借出的
+     */
+    private final AtomicInteger total = new AtomicInteger();
+
+    /**
+     * 连接代数，关闭连接池后递增，借出的旧连接归还时直接关闭
+     */
+    private final AtomicInteger generation = new AtomicInteger();
+
+    /**
+     * 等待连接的锁
+     */
+    private final ReentrantLock availableLock = new ReentrantLock();
+
+    /**
+     * 有连接归还或连接数减少时通知等待的借用者
+     */
+    private final Condition available = this.availableLock.newCondition();
+
+    /**
+     * 周期检查的执行器
+     */
+    private ScheduledExecutorService maintainer;
+
+    /**
+     * 异步请求和块传输的调度器，并发数和最大连接数一致，超出的请求在队列中等待，不占用线程
+     */
+    private final BoundedDispatcher asyncDispatcher;
+
+    public S7PLCPool(EPlcType plcType, String ip) {
+        this(plcType, ip, PORT, 0, 1, DEFAULT_PDU_LENGTH, S7PLCPoolConfig.createDefault());
+    }
+
+    public S7PLCPool(EPlcType plcType, String ip, S7PLCPoolConfig config) {
+        this(plcType, ip, PORT, 0, 1, DEFAULT_PDU_LENGTH, config);
+    }
+
+    public S7PLCPool(EPlcType plcType, String ip, int port, int rack, int slot, int pduLength, S7PLCPoolConfig config) {
+        super(plcType, ip, port, rack, slot, pduLength);
+        if (config == null) {
+            throw new IllegalArgumentException("config");
+        }
+        if (config.getMaxSize() <= 0) {
+            throw new IllegalArgumentException("maxSize<=0");
+        }
+        if (config.getMinIdle() < 0 || config.getMinIdle() > config.getMaxSize()) {
+            throw new IllegalArgumentException("minIdle<0||minIdle>maxSize");
+        }
+        this.config = config;
+        this.asyncDispatcher = new BoundedDispatcher(config.getMaxSize());
+    }
+
+    public S7PLCPoolConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * 当前连接总数
+     *
+     * @return 连接总数
+     */
+    public int getTotalCount() {
+        return this.total.get();
+    }
+
+    /**
+     * 当前空闲连接数
+     *
+     * @return 空闲连接数
+     */
+    public int getIdleCount() {
+        return this.idleQueue.size();
+    }
+
+    //region 连接池管理
+
+    /**
+     * 预热连接池，创建minIdle个连接，至少1个
+     */
+    @Override
+    public void connect() {
+        this.startMaintainer();
+        this.ensureMinIdle(Math.max(1, this.config.getMinIdle()));
+    }
+
+    @Override
+    public boolean checkConnected() {
+        return this.total.get() > 0;
+    }
+
+    /**
+     * 关闭连接池中所有的连接，关闭后再次使用会重新创建连接
+     */
+    @Override
+    public void close() {
+        this.generation.incrementAndGet();
+        synchronized (this) {
+            if (this.maintainer != null) {
+                this.maintainer.shutdownNow();
+                this.maintainer = null;
+            }
+        }
+        PooledS7PLC pooled;
+        while ((pooled = this.idleQueue.pollFirst()) != null) {
+            this.destroy(pooled);
+        }
+    }
+
+    /**
+     * 借用一个连接执行操作，执行完成后归还，通信异常的连接直接丢弃
+     *
+     * @param action 操作
+     * @param <T>    返回类型
+     * @return 操作结果
+     */
+    public <T> T execute(Function<S7PLC, T> action) {
+        PooledS7PLC pooled = this.borrow();
+        boolean broken = false;
+        try {
+            return action.apply(pooled.plc);
+        } catch (SocketRuntimeException e) {
+            broken = true;
+            throw e;
+        } finally {
+            this.release(pooled, broken);
+        }
+    }
+
+    /**
+     * 借用连接
+     *
+     * @return 连接
+     */
+    private PooledS7PLC borrow() {
+        this.startMaintainer();
+        long deadline = System.currentTimeMillis() + this.config.getBorrowTimeout();
+        while (true) {
+            PooledS7PLC pooled = this.idleQueue.pollFirst();
+            if (pooled != null) {
+                if (!this.config.isTestOnBorrow() || pooled.plc.checkConnected()) {
+                    return pooled;
+                }
+                this.destroy(pooled);
+                continue;
+            }
+            pooled = this.tryCreate();
+            if (pooled != null) {
+                return pooled;
+            }
+            long remain = deadline - System.currentTimeMillis();
+            if (remain <= 0) {
+                throw new S7CommException(String.format("获取连接超时，连接池最大连接数[%d]", this.config.getMaxSize()));
+            }
+            this.awaitAvailable(remain);
+        }
+    }
+
+    /**
+     * 等待有连接归还或连接数减少，被唤醒后由调用者重新获取空闲连接或创建连接
+     *
+     * @param timeout 最长等待时间，毫秒
+     */
+    private void awaitAvailable(long timeout) {
+        this.availableLock.lock();
+        try {
+            // 加锁后再检查一次，避免错过等待之前发出的通知
+            if (this.idleQueue.isEmpty() && this.total.get() >= this.config.getMaxSize()) {
+                this.available.await(timeout, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new S7CommException("获取连接被中断");
+        } finally {
+            this.availableLock.unlock();
+        }
+    }
+
+    /**
+     * 通知等待的借用者
+     */
+    private void signalAvailable() {
+        this.availableLock.lock();
+        try {
+            this.available.signalAll();
+        } finally {
+            this.availableLock.unlock();
+        }
+    }
+
+    /**
+     * 不等待地借用连接，没有空闲连接且达到上限时返回null
+     *
+     * @return 连接，没有可用连接返回null
+     */
+    private PooledS7PLC tryBorrow() {
+        PooledS7PLC pooled;
+        while ((pooled = this.idleQueue.pollFirst()) != null) {
+            if (!this.config.isTestOnBorrow() || pooled.plc.checkConnected()) {
+                return pooled;
+            }
+            this.destroy(pooled);
+        }
+        return this.tryCreate();
+    }
+
+    /**
+     * 归还连接
+     *
+     * @param pooled 连接
+     * @param broken 是否损坏
+     */
+    private void release(PooledS7PLC pooled, boolean broken) {
+        if (broken || pooled.generation != this.generation.get()) {
+            this.destroy(pooled);
+            return;
+        }
+        pooled.lastUsedTime = System.currentTimeMillis();
+        this.idleQueue.offerFirst(pooled);
+        this.signalAvailable();
+    }
+
+    /**
+     * 在连接数未达到上限的情况下创建连接
+     *
+     * @return 连接，达到上限返回null
+     */
+    private PooledS7PLC tryCreate() {
+        while (true) {
+            int current = this.total.get();
+            if (current >= this.config.getMaxSize()) {
+                return null;
+            }
+            if (this.total.compareAndSet(current, current + 1)) {
+                break;
+            }
+        }
+        try {
+            S7PLC plc = this.createConnection();
+            plc.connect();
+            log.debug("S7连接池[{}]创建连接成功，当前连接数[{}]", this.socketAddress, this.total.get());
+            return new PooledS7PLC(plc, this.generation.get());
+        } catch (RuntimeException e) {
+            this.total.decrementAndGet();
+            this.signalAvailable();
+            throw e;
+        }
+    }
+
+    /**
+     * 创建一个与连接池参数一致的S7PLC对象
+     *
+     * @return S7PLC对象
+     */
+    protected S7PLC createConnection() {
+        S7PLC plc = new S7PLC(this.plcType, this.socketAddress.getHostString(), this.socketAddress.getPort(),
+                this.rack, this.slot, this.pduLength);
+        plc.setConnectTimeout(this.connectTimeout);
+        plc.setReceiveTimeout(this.receiveTimeout);
+        plc.setEnableReconnect(this.enableReconnect);
+        plc.setEnableNio(this.enableNio);
+        plc.setEventLoopGroup(this.eventLoopGroup);
+        plc.setMaxAmq(this.maxAmq);
+        plc.setReadMergeGap(this.readMergeGap);
+        plc.setReadGroupStrategy(this.readGroupStrategy);
+        plc.setPersistence(this.isPersistence());
+        plc.setComCallback(this.getComCallback());
+        return plc;
+    }
+
+    /**
+     * 销毁连接
+     *
+     * @param pooled 连接
+     */
+    private void destroy(PooledS7PLC pooled) {
+        this.total.decrementAndGet();
+        this.signalAvailable();
+        try {
+            pooled.plc.close();
+        } catch (Exception e) {
+            log.debug("S7连接池[{}]关闭连接异常：{}", this.socketAddress, e.getMessage());
+        }
+    }
+
+    /**
+     * 补足最小空闲连接数
+     *
+     * @param minIdle 最小空闲连接数
+     */
+    private void ensureMinIdle(int minIdle) {
+        while (this.idleQueue.size() < minIdle) {
+            PooledS7PLC pooled = this.tryCreate();
+            if (pooled == null) {
+                return;
+            }
+            this.idleQueue.offerLast(pooled);
+            this.signalAvailable();
+        }
+    }
+
+    /**
+     * 启动周期检查
+     */
+    private synchronized void startMaintainer() {
+        if (this.maintainer != null || this.config.getHealthCheckInterval() <= 0) {
+            return;
+        }
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "s7-pool-" + this.socketAddress);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::maintain, this.config.getHealthCheckInterval(),
+                this.config.getHealthCheckInterval(), TimeUnit.MILLISECONDS);
+        this.maintainer = executor;
+    }
+
+    /**
+     * 健康检查及空闲回收，断开的连接直接回收，超过最大空闲时间的连接在保留minIdle个的前提下回收
+     */
+    private void maintain() {
+        try {
+            long now = System.currentTimeMillis();
+            List<PooledS7PLC> snapshot = new ArrayList<>(this.idleQueue);
+            for (PooledS7PLC pooled : snapshot) {
+                boolean disconnected = !pooled.plc.checkConnected();
+                boolean expired = this.config.getMaxIdleTime() > 0
+                        && now - pooled.lastUsedTime > this.config.getMaxIdleTime()
+                        && this.total.get() > this.config.getMinIdle();
+                // 只有仍在空闲队列中的连接才能回收，已被借出的跳过
+                if ((disconnected || expired) && this.idleQueue.remove(pooled)) {
+                    log.debug("S7连接池[{}]回收连接，断开[{}]，空闲超时[{}]", this.socketAddress, disconnected, expired);
+                    this.destroy(pooled);
+                }
+            }
+            this.ensureMinIdle(this.config.getMinIdle());
+        } catch (Exception e) {
+            log.debug("S7连接池[{}]周期检查异常：{}", this.socketAddress, e.getMessage());
+        }
+    }
+
+    //endregion
+
+    //region 数据读写
+
+    /**
+     * 连接池中有多个连接，异步请求不需要串行，由连接池分配连接并行执行，
+     * 同时执行的请求数不超过最大连接数，其余请求在调度器队列中等待，不会每个请求占用一个阻塞等待连接的线程
+     *
+     * @param supplier 执行内容
+     * @param <T>      返回类型
+     * @return 执行结果
+     */
+    @Override
+    protected <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        return this.asyncDispatcher.submit(supplier);
+    }
+
+    @Override
+    public List<DataItem> readS7Data(List<RequestItem> requestItems) {
+        return this.readWithSingleFlight(requestItems, () -> this.execute(plc -> plc.readS7Data(requestItems)));
+    }
+
+    @Override
+    public List<DataItem> readS7DataWithStatus(List<RequestItem> requestItems) {
+        return this.execute(plc -> plc.readS7DataWithStatus(requestItems));
+    }
+
+    @Override
+    public List<DataItem> readS7Data(S7ReadPlan plan) {
+        return this.execute(plc -> plc.readS7Data(plan));
+    }
+
+    @Override
+    public void writeS7Data(List<RequestItem> requestItems, List<DataItem> dataItems) {
+        this.invalidateReadCache();
+        try {
+            this.execute(plc -> {
+                plc.writeS7Data(requestItems, dataItems);
+                return null;
+            });
+        } finally {
+            this.invalidateReadCache();
+        }
+    }
+
+    /**
+     * 多个连接并行执行块传输，各连接依次领取下一个未执行的分块，
+     * 调用线程等待借用一个连接保证传输能够进行，其余连接只使用当前空闲或可以新建的，不挤占其他请求；
+     * 分块大小按调用线程借用的连接协商后的参数计算，连接池中的连接都连接同一个PLC，协商结果相同
+     *
+     * @param total       总字节数
+     * @param chunkSizeOf 根据执行传输的连接计算分块字节数
+     * @param progress    进度回调，可以为null
+     * @param action      分块的执行内容
+     */
+    @Override
+    protected void transferBlock(int total, ToIntFunction<S7PLC> chunkSizeOf, BiConsumer<Integer, Integer> progress,
+                                 BlockChunkAction action) {
+        AtomicInteger nextChunk = new AtomicInteger();
+        AtomicInteger finished = new AtomicInteger();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        Object progressLock = new Object();
+        this.execute(first -> {
+            first.ensureNegotiated();
+            int chunkSize = chunkSizeOf.applyAsInt(first);
+            int chunkCount = (total + chunkSize - 1) / chunkSize;
+            Consumer<S7PLC> worker = plc -> {
+                int index;
+                while (failure.get() == null && (index = nextChunk.getAndIncrement()) < chunkCount) {
+                    int offset = index * chunkSize;
+                    int length = Math.min(chunkSize, total - offset);
+                    try {
+                        action.apply(plc, offset, length);
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                        throw e;
+                    }
+                    if (progress != null) {
+                        // 进度回调串行执行，已完成字节数单调递增
+                        synchronized (progressLock) {
+                            progress.accept(finished.addAndGet(length), total);
+                        }
+                    }
+                }
+            };
+
+            // 辅助传输在调度器中排队，开始执行前先认领，调用线程完成传输后认领剩余的，未开始的辅助传输不再执行
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            List<AtomicBoolean> claims = new ArrayList<>();
+            for (int i = 1; i < Math.min(this.config.getMaxSize(), chunkCount); i++) {
+                AtomicBoolean claim = new AtomicBoolean();
+                claims.add(claim);
+                futures.add(CompletableFuture.runAsync(() -> {
+                    if (!claim.compareAndSet(false, true) || nextChunk.get() >= chunkCount) {
+                        return;
+                    }
+                    PooledS7PLC pooled;
+                    try {
+                        pooled = this.tryBorrow();
+                    } catch (RuntimeException e) {
+                        log.debug("S7连接池[{}]块传输创建连接失败：{}", this.socketAddress, e.getMessage());
+                        return;
+                    }
+                    if (pooled == null) {
+                        return;
+                    }
+                    boolean broken = false;
+                    try {
+                        worker.accept(pooled.plc);
+                    } catch (SocketRuntimeException e) {
+                        broken = true;
+                    } catch (RuntimeException e) {
+                        // 异常已经记录在failure中，由调用线程抛出
+                    } finally {
+                        this.release(pooled, broken);
+                    }
+                }, this.asyncDispatcher));
+            }
+            try {
+                worker.accept(first);
+            } finally {
+                for (int i = 0; i < futures.size(); i++) {
+                    if (!claims.get(i).compareAndSet(false, true)) {
+                        futures.get(i).join();
+                    }
+                }
+            }
+            return null;
+        });
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    @Override
+    public List<DataItem> readS7NckData(List<RequestNckItem> requestItems) {
+        return this.execute(plc -> plc.readS7NckData(requestItems));
+    }
+
+    @Override
+    public S7Data readFromServerByPersistence(S7Data req) {
+        return this.execute(plc -> plc.readFromServerByPersistence(req));
+    }
+
+    @Override
+    public byte[] readFromServerByPersistence(byte[] req) {
+        return this.execute(plc -> plc.readFromServerByPersistence(req));
+    }
+
+    //endregion
+
+    /**
+     * 池化的连接
+     */
+    private static class PooledS7PLC {
+
+        /**
+         * 连接对象
+         */
+        private final S7PLC plc;
+
+        /**
+         * 所属的连接代数
+         */
+        private final int generation;
+
+        /**
+         * 最后使用时间
+         */
+        private volatile long lastUsedTime;
+
+        private PooledS7PLC(S7PLC plc, int generation) {
+            this.plc = plc;
+            this.generation = generation;
+            this.lastUsedTime = System.currentTimeMillis();
+        }
+    }
+}
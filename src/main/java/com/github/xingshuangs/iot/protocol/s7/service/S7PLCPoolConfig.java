@@ -0,0 +1,52 @@
+package com.github.xingshuangs.iot.protocol.s7.service;
+
+
+import lombok.Data;
+
+/**
+ * S7连接池的配置
+ *
+ * @author xingshuang
+ */
+@Data
+public class S7PLCPoolConfig {
+
+    /**
+     * 最大连接数，默认4个，注意不能超过PLC允许的最大连接数
+     */
+    private int maxSize = 4;
+
+    /**
+     * 最小空闲连接数，空闲回收时至少保留的连接数，默认1个
+     */
+    private int minIdle = 1;
+
+    /**
+     * 获取连接的最大等待时间，毫秒级别，默认10s
+     */
+    private long borrowTimeout = 10_000;
+
+    /**
+     * 连接最大空闲时间，毫秒级别，超过该时间的空闲连接会被回收，默认60s，小于等于0表示不回收
+     */
+    private long maxIdleTime = 60_000;
+
+    /**
+     * 健康检查及空闲回收的周期，毫秒级别，默认30s，小于等于0表示不进行周期检查
+     */
+    private long healthCheckInterval = 30_000;
+
+    /**
+     * 获取连接时是否校验连接状态，默认true
+     */
+    private boolean testOnBorrow = true;
+
+    /**
+     * 创建默认配置
+     *
+     * @return 默认配置
+     */
+    public static S7PLCPoolConfig createDefault() {
+        return new S7PLCPoolConfig();
+    }
+}
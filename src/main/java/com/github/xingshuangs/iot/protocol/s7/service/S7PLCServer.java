@@ -1,6 +1,8 @@
 package com.github.xingshuangs.iot.protocol.s7.service;
 
 
+import com.github.xingshuangs.iot.net.codec.FrameReader;
+import com.github.xingshuangs.iot.net.codec.LengthFieldFrameDecoder;
 import com.github.xingshuangs.iot.net.server.TcpServerBasic;
 import com.github.xingshuangs.iot.protocol.common.buff.ByteReadBuff;
 import com.github.xingshuangs.iot.protocol.s7.enums.*;
@@ -47,6 +49,7 @@ public class S7PLCServer extends TcpServerBasic {
 
     public S7PLCServer(int port) {
         this.port = port;
+        this.frameDecoder = LengthFieldFrameDecoder.createTpkt();
         this.dataMap.put("DB1", new byte[65536]);
         this.dataMap.put("M", new byte[65536]);
         this.dataMap.put("I", new byte[65536]);
@@ -153,7 +156,10 @@ public class S7PLCServer extends TcpServerBasic {
                 if (!this.dataMap.containsKey(area)) {
                     log.error("客户端[{}]读取[{}]数据，区域[{}]，字节索引[{}]，位索引[{}]，长度[{}]，无该区域地址数据",
                             socket.getRemoteSocketAddress(), p.getVariableType(), area, p.getByteAddress(), p.getBitAddress(), p.getCount());
-                    returnItems.add(ReturnItem.createDefault(EReturnCode.OBJECT_DOES_NOT_EXIST));
+                    // 读操作的失败项和PLC一致，返回码后面带上空的数据类型和长度，共4个字节
+                    DataItem errorItem = DataItem.createAckBy(new byte[0], EDataVariableType.NULL);
+                    errorItem.setReturnCode(EReturnCode.OBJECT_DOES_NOT_EXIST);
+                    returnItems.add(errorItem);
                     return;
                 }
                 // 提取指定地址的字节数据
@@ -228,7 +234,8 @@ public class S7PLCServer extends TcpServerBasic {
      * @return S7Data
      */
     private S7Data readS7DataFromClient(Socket socket) {
-        byte[] data = this.readClientData(socket);
-        return S7Data.fromBytes(data);
+        // 按照TPKT中的长度读取完整报文，处理半包以及客户端并行作业时连续发送的多个报文
+        FrameReader reader = this.readClientFrame(socket);
+        return S7Data.fromBytes(reader.getBuffer(), reader.getFrameOffset(), reader.getFrameLength());
     }
 }
@@ -0,0 +1,183 @@
+package com.github.xingshuangs.iot.protocol.s7.service;
+
+
+import com.github.xingshuangs.iot.exceptions.S7CommException;
+import com.github.xingshuangs.iot.protocol.s7.enums.EReturnCode;
+import com.github.xingshuangs.iot.protocol.s7.model.DataItem;
+import com.github.xingshuangs.iot.protocol.s7.model.RequestItem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 单地址读取的微批处理，多个线程各自读取单个地址时，将一个时间窗口内到达的请求合并为一次多地址读取，
+ * 每个调用方拿回自己的那一份数据；
+ * 批次中第一个到达的线程作为领头线程，等待时间窗口结束或者批次装满一个PDU后执行读取，其余线程等待结果，不需要额外的线程；
+ * 批次按数据项读取状态分别返回，某个地址读取失败只影响读取该地址的调用方
+ *
+ * @author xingshuang
+ */
+public class S7ReadBatcher {
+
+    /**
+     * 每个请求项在响应中至少占用的字节数，和分组算法的阀值一致
+     */
+    private static final int MIN_ITEM_SIZE = 12;
+
+    /**
+     * 每个请求项在响应中的额外字节数
+     */
+    private static final int EXTRA_ITEM_SIZE = 5;
+
+    /**
+     * 执行读取的网络对象
+     */
+    private final PLCNetwork network;
+
+    /**
+     * 时间窗口，纳秒
+     */
+    private final long windowNanos;
+
+    /**
+     * 锁
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * 批次装满的条件
+     */
+    private final Condition fullCondition = this.lock.newCondition();
+
+    /**
+     * 当前正在收集的批次
+     */
+    private Batch current;
+
+    public S7ReadBatcher(PLCNetwork network, int windowMs) {
+        this.network = network;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+    }
+
+    /**
+     * 读取单个请求项，和同一时间窗口内的其他请求一起批量读取
+     *
+     * @param requestItem 请求项
+     * @return 数据项
+     */
+    public DataItem read(RequestItem requestItem) {
+        int cost = Math.max(requestItem.getCount() + EXTRA_ITEM_SIZE, MIN_ITEM_SIZE);
+        int capacity = this.network.pduLength - 14;
+        Batch batch;
+        CompletableFuture<DataItem> future;
+        boolean leader;
+        this.lock.lock();
+        try {
+            // 当前批次放不下则关闭，另起一个批次
+            if (this.current != null && this.current.cost + cost > capacity) {
+                this.closeCurrent();
+            }
+            leader = this.current == null;
+            if (leader) {
+                this.current = new Batch();
+            }
+            batch = this.current;
+            future = batch.add(requestItem, cost);
+            if (batch.cost + MIN_ITEM_SIZE > capacity) {
+                this.closeCurrent();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+        if (leader) {
+            this.awaitAndExecute(batch);
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    /**
+     * 关闭当前批次，唤醒等待中的领头线程，需要在锁内调用
+     */
+    private void closeCurrent() {
+        this.current.closed = true;
+        this.current = null;
+        this.fullCondition.signalAll();
+    }
+
+    /**
+     * 领头线程等待时间窗口结束或批次装满，然后执行读取
+     *
+     * @param batch 批次
+     */
+    private void awaitAndExecute(Batch batch) {
+        this.lock.lock();
+        try {
+            long nanos = this.windowNanos;
+            while (!batch.closed && nanos > 0) {
+                nanos = this.fullCondition.awaitNanos(nanos);
+            }
+            if (!batch.closed) {
+                this.closeCurrent();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (!batch.closed) {
+                this.closeCurrent();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+
+        try {
+            List<DataItem> dataItems = this.network.readS7DataWithStatus(batch.requestItems);
+            for (int i = 0; i < dataItems.size(); i++) {
+                DataItem dataItem = dataItems.get(i);
+                if (dataItem.getReturnCode() == EReturnCode.SUCCESS) {
+                    batch.futures.get(i).complete(dataItem);
+                } else {
+                    batch.futures.get(i).completeExceptionally(new S7CommException(
+                            String.format("返回结果异常，原因：%s", dataItem.getReturnCode().getDescription())));
+                }
+            }
+        } catch (RuntimeException e) {
+            batch.futures.forEach(x -> x.completeExceptionally(e));
+        }
+    }
+
+    /**
+     * 批次
+     */
+    private static class Batch {
+
+        private final List<RequestItem> requestItems = new ArrayList<>();
+
+        private final List<CompletableFuture<DataItem>> futures = new ArrayList<>();
+
+        /**
+         * 已占用的响应字节数
+         */
+        private int cost;
+
+        /**
+         * 是否已经停止收集
+         */
+        private boolean closed;
+
+        private CompletableFuture<DataItem> add(RequestItem requestItem, int cost) {
+            CompletableFuture<DataItem> future = new CompletableFuture<>();
+            this.requestItems.add(requestItem);
+            this.futures.add(future);
+            this.cost += cost;
+            return future;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.github.xingshuangs.iot.protocol.s7.service;
+
+
+import com.github.xingshuangs.iot.protocol.s7.algorithm.S7MergeResult;
+import com.github.xingshuangs.iot.protocol.s7.enums.EGroupStrategy;
+import com.github.xingshuangs.iot.protocol.s7.model.RequestItem;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 预编译的读取计划，地址解析、地址合并、PDU分组和请求报文编码都在编译时完成，
+ * 同一组地址周期性读取时重复执行计划即可，执行时只替换报文中的PDU应用编号，不再解析和分组；
+ * 计划不可变，可以在多个线程和多个PDU长度不小于编译时的连接之间共享
+ *
+ * @author xingshuang
+ */
+public final class S7ReadPlan {
+
+    /**
+     * 原始请求项，顺序和读取结果一致
+     */
+    private final List<RequestItem> requestItems;
+
+    /**
+     * 地址合并结果，没有合并时为null
+     */
+    private final S7MergeResult mergeResult;
+
+    /**
+     * 编译时的PDU长度
+     */
+    private final int pduLength;
+
+    /**
+     * 编译时的地址合并间隙
+     */
+    private final int readMergeGap;
+
+    /**
+     * 编译时的分组策略
+     */
+    private final EGroupStrategy readGroupStrategy;
+
+    /**
+     * 每个PDU对应的完整请求报文，包含TPKT和COTP
+     */
+    private final byte[][] frames;
+
+    /**
+     * 每个PDU中各数据项对应的分组前请求项索引
+     */
+    private final int[][] targetIndexes;
+
+    /**
+     * 每个PDU中各数据项在分组前请求项数据中的字节偏移
+     */
+    private final int[][] targetOffsets;
+
+    /**
+     * 分组前每个请求项的数据长度
+     */
+    private final int[] targetLengths;
+
+    /**
+     * 分组前每个请求项是否为位类型
+     */
+    private final boolean[] targetBits;
+
+    S7ReadPlan(List<RequestItem> requestItems, S7MergeResult mergeResult, int pduLength, int readMergeGap,
+               EGroupStrategy readGroupStrategy, byte[][] frames, int[][] targetIndexes, int[][] targetOffsets,
+               int[] targetLengths, boolean[] targetBits) {
+        this.requestItems = Collections.unmodifiableList(requestItems);
+        this.mergeResult = mergeResult;
+        this.pduLength = pduLength;
+        this.readMergeGap = readMergeGap;
+        this.readGroupStrategy = readGroupStrategy;
+        this.frames = frames;
+        this.targetIndexes = targetIndexes;
+        this.targetOffsets = targetOffsets;
+        this.targetLengths = targetLengths;
+        this.targetBits = targetBits;
+    }
+
+    public List<RequestItem> getRequestItems() {
+        return requestItems;
+    }
+
+    public int getPduLength() {
+        return pduLength;
+    }
+
+    public int getReadMergeGap() {
+        return readMergeGap;
+    }
+
+    public EGroupStrategy getReadGroupStrategy() {
+        return readGroupStrategy;
+    }
+
+    /**
+     * 请求报文个数，即一次执行需要的PDU个数
+     *
+     * @return PDU个数
+     */
+    public int getFrameCount() {
+        return this.frames.length;
+    }
+
+    S7MergeResult getMergeResult() {
+        return mergeResult;
+    }
+
+    byte[] getFrame(int index) {
+        return this.frames[index];
+    }
+
+    int[] getTargetIndexes(int index) {
+        return this.targetIndexes[index];
+    }
+
+    int[] getTargetOffsets(int index) {
+        return this.targetOffsets[index];
+    }
+
+    int[] getTargetLengths() {
+        return targetLengths;
+    }
+
+    boolean[] getTargetBits() {
+        return targetBits;
+    }
+}
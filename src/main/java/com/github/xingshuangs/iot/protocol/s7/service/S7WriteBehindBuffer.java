@@ -0,0 +1,358 @@
+package com.github.xingshuangs.iot.protocol.s7.service;
+
+
+import com.github.xingshuangs.iot.protocol.s7.model.DataItem;
+import com.github.xingshuangs.iot.protocol.s7.model.RequestItem;
+import com.github.xingshuangs.iot.protocol.s7.utils.AddressUtil;
+import com.github.xingshuangs.iot.utils.FloatUtil;
+import com.github.xingshuangs.iot.utils.IntegerUtil;
+import com.github.xingshuangs.iot.utils.ShortUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 延迟写缓冲，写入先进入缓冲区，同一地址的多次写入只保留最后一次的值，
+ * 缓冲区中的写入装满一个PDU、达到最大个数或者距第一次写入超过刷新间隔时，合并为一次多地址写入发送给PLC；
+ * 每次写入返回一个future，该地址的值真正写入PLC后完成，需要确认写入结果的调用方等待它即可
+ *
+ * @author xingshuang
+ */
+@Slf4j
+public class S7WriteBehindBuffer {
+
+    /**
+     * 每个写入项在请求中的额外字节数，和写操作的分组算法一致
+     */
+    private static final int EXTRA_ITEM_SIZE = 17;
+
+    /**
+     * 定时刷新使用的调度器
+     */
+    private static volatile ScheduledExecutorService scheduler;
+
+    /**
+     * 线程编号
+     */
+    private static final AtomicInteger THREAD_INDEX = new AtomicInteger();
+
+    /**
+     * 执行写入的网络对象
+     */
+    private final PLCNetwork network;
+
+    /**
+     * 刷新间隔，毫秒
+     */
+    private final int flushInterval;
+
+    /**
+     * 缓冲区最多的写入项个数，达到后立即刷新
+     */
+    private final int maxPendingCount;
+
+    /**
+     * 缓冲区的锁
+     */
+    private final Object pendingLock = new Object();
+
+    /**
+     * 刷新的锁，保证先取出的写入先发送
+     */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /**
+     * 待写入的数据，按最后一次写入的顺序排列
+     */
+    private Map<RequestItem, Entry> pending = new LinkedHashMap<>();
+
+    /**
+     * 待写入数据在请求中占用的字节数
+     */
+    private int pendingCost;
+
+    /**
+     * 定时刷新任务
+     */
+    private ScheduledFuture<?> flushTask;
+
+    public S7WriteBehindBuffer(PLCNetwork network) {
+        this(network, 20, 64);
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param network         执行写入的网络对象
+     * @param flushInterval   刷新间隔，毫秒
+     * @param maxPendingCount 缓冲区最多的写入项个数
+     */
+    public S7WriteBehindBuffer(PLCNetwork network, int flushInterval, int maxPendingCount) {
+        if (network == null) {
+            throw new IllegalArgumentException("network");
+        }
+        if (flushInterval <= 0) {
+            throw new IllegalArgumentException("flushInterval必须大于0");
+        }
+        if (maxPendingCount <= 0) {
+            throw new IllegalArgumentException("maxPendingCount必须大于0");
+        }
+        this.network = network;
+        this.flushInterval = flushInterval;
+        this.maxPendingCount = maxPendingCount;
+    }
+
+    /**
+     * 获取定时刷新的调度器，线程为守护线程
+     *
+     * @return 调度器
+     */
+    private static ScheduledExecutorService getScheduler() {
+        if (scheduler == null) {
+            synchronized (S7WriteBehindBuffer.class) {
+                if (scheduler == null) {
+                    scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                        Thread thread = new Thread(r, "iot-write-behind-" + THREAD_INDEX.getAndIncrement());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return scheduler;
+    }
+
+    public int getFlushInterval() {
+        return flushInterval;
+    }
+
+    public int getMaxPendingCount() {
+        return maxPendingCount;
+    }
+
+    /**
+     * 缓冲区中待写入的地址个数
+     *
+     * @return 地址个数
+     */
+    public int getPendingCount() {
+        synchronized (this.pendingLock) {
+            return this.pending.size();
+        }
+    }
+
+    //region 写入
+
+    /**
+     * 写入数据，同一地址缓冲区中已有的值被覆盖
+     *
+     * @param requestItem 请求项
+     * @param dataItem    数据项
+     * @return 该地址的值写入PLC后完成
+     */
+    public CompletableFuture<Void> write(RequestItem requestItem, DataItem dataItem) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        RequestItem key = requestItem.copy();
+        int cost = key.getCount() + EXTRA_ITEM_SIZE;
+        boolean full;
+        synchronized (this.pendingLock) {
+            Entry entry = this.pending.remove(key);
+            if (entry == null) {
+                entry = new Entry(key);
+                this.pendingCost += cost;
+            }
+            // 重新放到最后，和其他地址有重叠时保持最后一次写入的顺序
+            entry.dataItem = dataItem.copy();
+            entry.futures.add(future);
+            this.pending.put(key, entry);
+
+            // 未连接时PDU长度未知，只按个数判断
+            int capacity = this.network.pduLength - 12;
+            full = this.pending.size() >= this.maxPendingCount || (capacity > 0 && this.pendingCost >= capacity);
+            if (!full && this.flushTask == null) {
+                this.flushTask = getScheduler().schedule(this::flushLater, this.flushInterval, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (full) {
+            this.flushLater();
+        }
+        return future;
+    }
+
+    /**
+     * 写入boolean
+     *
+     * @param address 地址
+     * @param data    数据
+     * @return 写入PLC后完成
+     */
+    public CompletableFuture<Void> writeBoolean(String address, boolean data) {
+        return this.write(AddressUtil.parseBit(address), DataItem.createReqByBoolean(data));
+    }
+
+    /**
+     * 写入字节数组
+     *
+     * @param address 地址
+     * @param data    数据
+     * @return 写入PLC后完成
+     */
+    public CompletableFuture<Void> writeByte(String address, byte[] data) {
+        return this.write(AddressUtil.parseByte(address, data.length), DataItem.createReqByByte(data));
+    }
+
+    /**
+     * 写入Int16
+     *
+     * @param address 地址
+     * @param data    数据
+     * @return 写入PLC后完成
+     */
+    public CompletableFuture<Void> writeInt16(String address, short data) {
+        return this.writeByte(address, ShortUtil.toByteArray(data));
+    }
+
+    /**
+     * 写入UInt16
+     *
+     * @param address 地址
+     * @param data    数据
+     * @return 写入PLC后完成
+     */
+    public CompletableFuture<Void> writeUInt16(String address, int data) {
+        return this.writeByte(address, ShortUtil.toByteArray(data));
+    }
+
+    /**
+     * 写入Int32
+     *
+     * @param address 地址
+     * @param data    数据
+     * @return 写入PLC后完成
+     */
+    public CompletableFuture<Void> writeInt32(String address, int data) {
+        return this.writeByte(address, IntegerUtil.toByteArray(data));
+    }
+
+    /**
+     * 写入UInt32
+     *
+     * @param address 地址
+     * @param data    数据
+     * @return 写入PLC后完成
+     */
+    public CompletableFuture<Void> writeUInt32(String address, long data) {
+        return this.writeByte(address, IntegerUtil.toByteArray(data));
+    }
+
+    /**
+     * 写入Float32
+     *
+     * @param address 地址
+     * @param data    数据
+     * @return 写入PLC后完成
+     */
+    public CompletableFuture<Void> writeFloat32(String address, float data) {
+        return this.writeByte(address, FloatUtil.toByteArray(data));
+    }
+
+    /**
+     * 写入Float64
+     *
+     * @param address 地址
+     * @param data    数据
+     * @return 写入PLC后完成
+     */
+    public CompletableFuture<Void> writeFloat64(String address, double data) {
+        return this.writeByte(address, FloatUtil.toByteArray(data));
+    }
+
+    //endregion
+
+    //region 刷新
+
+    /**
+     * 立即将缓冲区中的数据写入PLC，阻塞直到写入完成，写入失败时抛出异常
+     */
+    public void flush() {
+        this.flushLock.lock();
+        try {
+            List<Entry> entries;
+            synchronized (this.pendingLock) {
+                if (this.flushTask != null) {
+                    this.flushTask.cancel(false);
+                    this.flushTask = null;
+                }
+                if (this.pending.isEmpty()) {
+                    return;
+                }
+                entries = new ArrayList<>(this.pending.values());
+                this.pending = new LinkedHashMap<>();
+                this.pendingCost = 0;
+            }
+
+            List<RequestItem> requestItems = new ArrayList<>(entries.size());
+            List<DataItem> dataItems = new ArrayList<>(entries.size());
+            entries.forEach(x -> {
+                requestItems.add(x.requestItem);
+                dataItems.add(x.dataItem);
+            });
+            try {
+                this.network.writeS7Data(requestItems, dataItems);
+            } catch (RuntimeException e) {
+                entries.forEach(x -> x.futures.forEach(f -> f.completeExceptionally(e)));
+                throw e;
+            }
+            entries.forEach(x -> x.futures.forEach(f -> f.complete(null)));
+        } finally {
+            this.flushLock.unlock();
+        }
+    }
+
+    /**
+     * 异步刷新，由连接的串行调度器执行
+     *
+     * @return 写入完成后完成
+     */
+    public CompletableFuture<Void> flushAsync() {
+        return this.network.getDispatcher().submit(() -> {
+            this.flush();
+            return null;
+        });
+    }
+
+    /**
+     * 触发异步刷新，异常已经通过写入的future返回，这里只记录日志
+     */
+    private void flushLater() {
+        this.flushAsync().whenComplete((r, e) -> {
+            if (e != null) {
+                log.error("延迟写缓冲刷新失败：{}", e.getMessage());
+            }
+        });
+    }
+
+    //endregion
+
+    /**
+     * 缓冲区中的写入项
+     */
+    private static class Entry {
+
+        private final RequestItem requestItem;
+
+        private final List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        private DataItem dataItem;
+
+        private Entry(RequestItem requestItem) {
+            this.requestItem = requestItem;
+        }
+    }
+}
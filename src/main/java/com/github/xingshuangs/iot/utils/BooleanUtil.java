@@ -2,6 +2,7 @@ package com.github.xingshuangs.iot.utils;
 
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 /**
@@ -120,4 +121,41 @@ public class BooleanUtil {
         }
         return values;
     }
+
+    /**
+     * 从字节数组中连续提取位状态，每个字节从低位到高位依次对应
+     *
+     * @param data      字节数组
+     * @param bitOffset 起始位偏移量
+     * @param count     位个数
+     * @return 位集合
+     */
+    public static BitSet toBitSet(byte[] data, int bitOffset, int count) {
+        if (bitOffset < 0 || count < 0 || bitOffset + count > data.length * 8) {
+            throw new IndexOutOfBoundsException("bitOffset + count > 位长度");
+        }
+        BitSet res = new BitSet(count);
+        for (int i = 0; i < count; i++) {
+            int bit = bitOffset + i;
+            if ((data[bit >> 3] & (1 << (bit & 0x07))) != 0) {
+                res.set(i);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * 将位集合转换为字节数组，每个字节从低位到高位依次对应
+     *
+     * @param bits  位集合
+     * @param count 位个数
+     * @return 字节数组，长度为(count+7)/8
+     */
+    public static byte[] toByteArray(BitSet bits, int count) {
+        byte[] res = new byte[(count + 7) / 8];
+        for (int i = bits.nextSetBit(0); i >= 0 && i < count; i = bits.nextSetBit(i + 1)) {
+            res[i >> 3] |= (byte) (1 << (i & 0x07));
+        }
+        return res;
+    }
 }
@@ -145,4 +145,75 @@ public class FloatUtil {
                 | (long) (data[offset + b - d * 7] & 0xFF);
         return Double.longBitsToDouble(l);
     }
+
+    /**
+     * 将float32数组转换为字节数组，大端模式
+     *
+     * @param data float32数组
+     * @return 字节数组
+     */
+    public static byte[] toByteArray(float[] data) {
+        byte[] bytes = new byte[data.length * 4];
+        for (int i = 0; i < data.length; i++) {
+            IntegerUtil.putInt32(bytes, i * 4, Float.floatToIntBits(data[i]));
+        }
+        return bytes;
+    }
+
+    /**
+     * 将字节数组连续转换为float32数组，大端模式，不产生中间对象
+     *
+     * @param data   字节数组
+     * @param offset 偏移量
+     * @param count  个数
+     * @return float32数组
+     */
+    public static float[] toFloat32Array(byte[] data, int offset, int count) {
+        if (offset < 0 || count < 0 || offset + count * 4 > data.length) {
+            throw new IndexOutOfBoundsException("offset + count * 4 > 字节长度");
+        }
+        float[] res = new float[count];
+        for (int i = 0, j = offset; i < count; i++, j += 4) {
+            res[i] = Float.intBitsToFloat(((data[j] & 0xFF) << 24) | ((data[j + 1] & 0xFF) << 16) | ((data[j + 2] & 0xFF) << 8) | (data[j + 3] & 0xFF));
+        }
+        return res;
+    }
+
+    /**
+     * 将float64数组转换为字节数组，大端模式
+     *
+     * @param data float64数组
+     * @return 字节数组
+     */
+    public static byte[] toByteArray(double[] data) {
+        byte[] bytes = new byte[data.length * 8];
+        for (int i = 0; i < data.length; i++) {
+            long bits = Double.doubleToLongBits(data[i]);
+            IntegerUtil.putInt32(bytes, i * 8, (int) (bits >> 32));
+            IntegerUtil.putInt32(bytes, i * 8 + 4, (int) bits);
+        }
+        return bytes;
+    }
+
+    /**
+     * 将字节数组连续转换为float64数组，大端模式，不产生中间对象
+     *
+     * @param data   字节数组
+     * @param offset 偏移量
+     * @param count  个数
+     * @return float64数组
+     */
+    public static double[] toFloat64Array(byte[] data, int offset, int count) {
+        if (offset < 0 || count < 0 || offset + count * 8 > data.length) {
+            throw new IndexOutOfBoundsException("offset + count * 8 > 字节长度");
+        }
+        double[] res = new double[count];
+        for (int i = 0, j = offset; i < count; i++, j += 8) {
+            long high = ((data[j] & 0xFF) << 24) | ((data[j + 1] & 0xFF) << 16) | ((data[j + 2] & 0xFF) << 8) | (data[j + 3] & 0xFF);
+            int k = j + 4;
+            long low = ((data[k] & 0xFF) << 24) | ((data[k + 1] & 0xFF) << 16) | ((data[k + 2] & 0xFF) << 8) | (data[k + 3] & 0xFF);
+            res[i] = Double.longBitsToDouble((high << 32) | (low & 0xFFFFFFFFL));
+        }
+        return res;
+    }
 }
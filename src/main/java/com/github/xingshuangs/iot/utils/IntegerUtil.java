@@ -192,4 +192,51 @@ public class IntegerUtil {
                 | ((data[offset + b - d * 2] & 0xFF) << 8)
                 | ((data[offset + b - d * 3] & 0xFF) << 0)) & 0xFFFFFFFFL;
     }
+
+    /**
+     * 将int32数组转换为字节数组，大端模式
+     *
+     * @param data int32数组
+     * @return 字节数组
+     */
+    public static byte[] toByteArray(int[] data) {
+        byte[] bytes = new byte[data.length * 4];
+        for (int i = 0; i < data.length; i++) {
+            putInt32(bytes, i * 4, data[i]);
+        }
+        return bytes;
+    }
+
+    /**
+     * 将字节数组连续转换为int32数组，大端模式，不产生中间对象
+     *
+     * @param data   字节数组
+     * @param offset 偏移量
+     * @param count  个数
+     * @return int32数组
+     */
+    public static int[] toInt32Array(byte[] data, int offset, int count) {
+        if (offset < 0 || count < 0 || offset + count * 4 > data.length) {
+            throw new IndexOutOfBoundsException("offset + count * 4 > 字节长度");
+        }
+        int[] res = new int[count];
+        for (int i = 0, j = offset; i < count; i++, j += 4) {
+            res[i] = ((data[j] & 0xFF) << 24) | ((data[j + 1] & 0xFF) << 16) | ((data[j + 2] & 0xFF) << 8) | (data[j + 3] & 0xFF);
+        }
+        return res;
+    }
+
+    /**
+     * 按大端模式将int32写入字节数组指定位置
+     *
+     * @param bytes  字节数组
+     * @param offset 偏移量
+     * @param value  int32数据
+     */
+    static void putInt32(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >> 24);
+        bytes[offset + 1] = (byte) (value >> 16);
+        bytes[offset + 2] = (byte) (value >> 8);
+        bytes[offset + 3] = (byte) value;
+    }
 }
@@ -133,4 +133,38 @@ public class ShortUtil {
         return (((data[offset + b - d * 0] & 0xFF) << 8)
                 | (data[offset + b - d * 1] & 0xFF) << 0);
     }
+
+    /**
+     * 将int16数组转换为字节数组，大端模式
+     *
+     * @param data int16数组
+     * @return 字节数组
+     */
+    public static byte[] toByteArray(short[] data) {
+        byte[] bytes = new byte[data.length * 2];
+        for (int i = 0; i < data.length; i++) {
+            bytes[i * 2] = (byte) (data[i] >> 8);
+            bytes[i * 2 + 1] = (byte) data[i];
+        }
+        return bytes;
+    }
+
+    /**
+     * 将字节数组连续转换为int16数组，大端模式，不产生中间对象
+     *
+     * @param data   字节数组
+     * @param offset 偏移量
+     * @param count  个数
+     * @return int16数组
+     */
+    public static short[] toInt16Array(byte[] data, int offset, int count) {
+        if (offset < 0 || count < 0 || offset + count * 2 > data.length) {
+            throw new IndexOutOfBoundsException("offset + count * 2 > 字节长度");
+        }
+        short[] res = new short[count];
+        for (int i = 0, j = offset; i < count; i++, j += 2) {
+            res[i] = (short) (((data[j] & 0xFF) << 8) | (data[j + 1] & 0xFF));
+        }
+        return res;
+    }
 }
@@ -0,0 +1,51 @@
+package com.github.xingshuangs.iot.net.client;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class BoundedDispatcherTest {
+
+    @Test
+    public void limitConcurrency() {
+        BoundedDispatcher dispatcher = new BoundedDispatcher(3);
+        AtomicInteger concurrent = new AtomicInteger();
+        AtomicInteger maxConcurrent = new AtomicInteger();
+        List<CompletableFuture<Integer>> futures = IntStream.range(0, 100)
+                .mapToObj(i -> dispatcher.submit(() -> {
+                    maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+                    try {
+                        TimeUnit.MILLISECONDS.sleep(2);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    concurrent.decrementAndGet();
+                    return i;
+                }))
+                .collect(Collectors.toList());
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, (int) futures.get(i).join());
+        }
+        assertTrue(maxConcurrent.get() <= 3);
+        assertTrue(maxConcurrent.get() > 1);
+        assertEquals(0, dispatcher.getPendingCount());
+    }
+
+    @Test
+    public void exceptionally() {
+        BoundedDispatcher dispatcher = new BoundedDispatcher(1);
+        CompletableFuture<Integer> future = dispatcher.submit(() -> {
+            throw new IllegalStateException("error");
+        });
+        assertTrue(future.handle((r, e) -> e != null).join());
+        assertEquals(1, (int) dispatcher.submit(() -> 1).join());
+    }
+}
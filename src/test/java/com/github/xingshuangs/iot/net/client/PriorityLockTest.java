@@ -0,0 +1,66 @@
+package com.github.xingshuangs.iot.net.client;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PriorityLockTest {
+
+    @Test
+    public void highPriorityFirst() throws InterruptedException {
+        PriorityLock lock = new PriorityLock();
+        List<String> order = new ArrayList<>();
+        lock.lock(EPriority.NORMAL);
+
+        Thread normal = new Thread(() -> {
+            lock.lock(EPriority.NORMAL);
+            order.add("normal");
+            lock.unlock();
+        });
+        normal.start();
+        Thread.sleep(100);
+        Thread high = new Thread(() -> {
+            lock.lock(EPriority.HIGH);
+            order.add("high");
+            lock.unlock();
+        });
+        high.start();
+        Thread.sleep(100);
+
+        lock.unlock();
+        normal.join();
+        high.join();
+        // 普通优先级先到，但是高优先级先获得锁
+        assertEquals("high", order.get(0));
+        assertEquals("normal", order.get(1));
+        assertEquals(2, lock.getAcquireCount(EPriority.NORMAL));
+        assertEquals(1, lock.getAcquireCount(EPriority.HIGH));
+        assertTrue(lock.getMaxWaitNanos(EPriority.NORMAL) >= 150_000_000L);
+        assertTrue(lock.getAverageWaitNanos(EPriority.HIGH) >= 50_000_000L);
+    }
+
+    @Test
+    public void reentrant() {
+        PriorityLock lock = new PriorityLock();
+        lock.lock(EPriority.NORMAL);
+        lock.lock(EPriority.HIGH);
+        assertTrue(lock.isHeldByCurrentThread());
+        lock.unlock();
+        assertTrue(lock.isHeldByCurrentThread());
+        lock.unlock();
+        assertFalse(lock.isHeldByCurrentThread());
+        // 重入不计入统计
+        assertEquals(1, lock.getAcquireCount(EPriority.NORMAL));
+        assertEquals(0, lock.getAcquireCount(EPriority.HIGH));
+        lock.resetStats();
+        assertEquals(0, lock.getAcquireCount(EPriority.NORMAL));
+    }
+
+    @Test(expected = IllegalMonitorStateException.class)
+    public void unlockWithoutLock() {
+        new PriorityLock().unlock();
+    }
+}
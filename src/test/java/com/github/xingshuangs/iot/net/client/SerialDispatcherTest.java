@@ -0,0 +1,46 @@
+package com.github.xingshuangs.iot.net.client;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class SerialDispatcherTest {
+
+    @Test
+    public void executeInOrder() {
+        SerialDispatcher dispatcher = new SerialDispatcher();
+        List<Integer> result = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger concurrent = new AtomicInteger();
+        AtomicInteger maxConcurrent = new AtomicInteger();
+        List<CompletableFuture<Integer>> futures = IntStream.range(0, 200)
+                .mapToObj(i -> dispatcher.submit(() -> {
+                    maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+                    result.add(i);
+                    concurrent.decrementAndGet();
+                    return i;
+                }))
+                .collect(Collectors.toList());
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        assertEquals(IntStream.range(0, 200).boxed().collect(Collectors.toList()), result);
+        assertEquals(1, maxConcurrent.get());
+        assertEquals(0, dispatcher.getPendingCount());
+    }
+
+    @Test
+    public void exceptionally() {
+        SerialDispatcher dispatcher = new SerialDispatcher();
+        CompletableFuture<Integer> future = dispatcher.submit(() -> {
+            throw new IllegalStateException("error");
+        });
+        assertTrue(future.handle((r, e) -> e != null).join());
+        assertEquals(1, (int) dispatcher.submit(() -> 1).join());
+    }
+}
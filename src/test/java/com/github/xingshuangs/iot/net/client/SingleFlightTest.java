@@ -0,0 +1,126 @@
+package com.github.xingshuangs.iot.net.client;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SingleFlightTest {
+
+    @Test
+    public void concurrentCallsShareOneExecution() throws InterruptedException {
+        SingleFlight<String, byte[]> flight = new SingleFlight<>(byte[]::clone);
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<byte[]> results = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Thread thread = new Thread(() -> {
+                byte[] res = flight.execute("DB1.0", () -> {
+                    executions.incrementAndGet();
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return new byte[]{1, 2};
+                });
+                synchronized (results) {
+                    results.add(res);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+            if (i == 0) {
+                started.await();
+            }
+        }
+        Thread.sleep(100);
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(1, executions.get());
+        assertEquals(5, results.size());
+        results.forEach(x -> assertArrayEquals(new byte[]{1, 2}, x));
+        // 每个调用方拿到的是各自的数组
+        assertNotSame(results.get(0), results.get(1));
+    }
+
+    @Test
+    public void cacheAndInvalidate() throws InterruptedException {
+        SingleFlight<String, byte[]> flight = new SingleFlight<>(byte[]::clone, 200);
+        AtomicInteger executions = new AtomicInteger();
+        flight.execute("DB1.0", () -> new byte[]{(byte) executions.incrementAndGet()});
+        byte[] res = flight.execute("DB1.0", () -> new byte[]{(byte) executions.incrementAndGet()});
+        assertEquals(1, executions.get());
+        assertArrayEquals(new byte[]{1}, res);
+
+        flight.invalidate();
+        res = flight.execute("DB1.0", () -> new byte[]{(byte) executions.incrementAndGet()});
+        assertArrayEquals(new byte[]{2}, res);
+
+        Thread.sleep(250);
+        res = flight.execute("DB1.0", () -> new byte[]{(byte) executions.incrementAndGet()});
+        assertArrayEquals(new byte[]{3}, res);
+    }
+
+    @Test
+    public void exceptionIsNotCached() {
+        SingleFlight<String, byte[]> flight = new SingleFlight<>(byte[]::clone, 1000);
+        try {
+            flight.execute("DB1.0", () -> {
+                throw new IllegalStateException("error");
+            });
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("error", e.getMessage());
+        }
+        assertArrayEquals(new byte[]{1}, flight.execute("DB1.0", () -> new byte[]{1}));
+    }
+
+    @Test(timeout = 5000)
+    public void errorReleasesWaiters() throws InterruptedException {
+        SingleFlight<String, byte[]> flight = new SingleFlight<>(byte[]::clone);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger errors = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    flight.execute("DB1.0", () -> {
+                        started.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        throw new AssertionError("error");
+                    });
+                } catch (AssertionError e) {
+                    errors.incrementAndGet();
+                }
+            });
+            thread.start();
+            threads.add(thread);
+            if (i == 0) {
+                started.await();
+            }
+        }
+        Thread.sleep(100);
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // 执行方抛出Error时，等待方同样收到该Error而不是一直阻塞
+        assertEquals(5, errors.get());
+        assertArrayEquals(new byte[]{1}, flight.execute("DB1.0", () -> new byte[]{1}));
+    }
+}
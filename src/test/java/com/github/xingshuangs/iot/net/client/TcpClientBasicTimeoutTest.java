@@ -0,0 +1,70 @@
+package com.github.xingshuangs.iot.net.client;
+
+import com.github.xingshuangs.iot.exceptions.SocketRuntimeException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.*;
+
+public class TcpClientBasicTimeoutTest {
+
+    private ServerSocket server;
+
+    private final List<Socket> accepted = new CopyOnWriteArrayList<>();
+
+    private TcpClientBasic client;
+
+    @Before
+    public void init() throws IOException {
+        // 只接受连接，从不发送数据
+        this.server = new ServerSocket(0);
+        Thread thread = new Thread(() -> {
+            try {
+                while (!this.server.isClosed()) {
+                    this.accepted.add(this.server.accept());
+                }
+            } catch (IOException e) {
+                // NOOP
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        this.client = new TcpClientBasic("127.0.0.1", this.server.getLocalPort());
+    }
+
+    @After
+    public void destroy() throws IOException {
+        this.client.close();
+        this.server.close();
+        for (Socket socket : this.accepted) {
+            socket.close();
+        }
+    }
+
+    @Test
+    public void applyTimeoutPerSocket() throws IOException {
+        this.client.connect();
+        Socket first = this.client.socket;
+        assertEquals(this.client.getReceiveTimeout(), first.getSoTimeout());
+
+        assertThrows(SocketRuntimeException.class, () -> this.client.read(new byte[1], 0, 1, 50));
+        assertEquals(50, first.getSoTimeout());
+
+        // 超时后重新连接，新的socket需要重新设置超时时间
+        assertThrows(SocketRuntimeException.class, () -> this.client.read(new byte[1], 0, 1, 80));
+        Socket second = this.client.socket;
+        assertNotSame(first, second);
+        assertEquals(80, second.getSoTimeout());
+
+        assertThrows(SocketRuntimeException.class, () -> this.client.read(new byte[1], 0, 1, 80));
+        assertNotSame(second, this.client.socket);
+        assertEquals(80, this.client.socket.getSoTimeout());
+    }
+}
@@ -0,0 +1,116 @@
+package com.github.xingshuangs.iot.net.client;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class UdpClientBasicReceiveTest {
+
+    private UdpClientBasic receiver;
+
+    private UdpClientBasic sender;
+
+    @Before
+    public void setUp() {
+        this.receiver = new UdpClientBasic();
+        this.receiver.setBufferPool(new UdpBufferPool(256, 8, false));
+        this.sender = new UdpClientBasic("127.0.0.1", this.receiver.getLocalPort());
+    }
+
+    @After
+    public void tearDown() {
+        this.sender.close();
+        this.receiver.close();
+    }
+
+    @Test
+    public void receiveBatchWithPooledBuffer() {
+        for (int i = 0; i < 20; i++) {
+            this.sender.write(new byte[]{(byte) i, (byte) (i + 1), (byte) (i + 2)});
+        }
+        List<Integer> received = new ArrayList<>();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (received.size() < 20 && System.currentTimeMillis() < deadline) {
+            this.receiver.receive(buffer -> {
+                try {
+                    assertEquals(3, buffer.getLength());
+                    byte[] data = buffer.getData();
+                    int offset = buffer.getOffset();
+                    assertEquals(data[offset] + 1, data[offset + 1]);
+                    assertNotNull(buffer.getSender());
+                    received.add((int) data[offset]);
+                } finally {
+                    buffer.release();
+                }
+            }, 4, 1000);
+        }
+        assertEquals(20, received.size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i, received.get(i).intValue());
+        }
+        // 每个缓存用完即归还，反复复用，不会每个数据报都新建
+        assertEquals(1, this.receiver.getBufferPool().getCreatedCount());
+    }
+
+    @Test
+    public void receiveAfterClose() {
+        assertEquals(0, this.receiver.receive(UdpBuffer::release, 4, 10));
+        this.receiver.close();
+        // 关闭后重新创建通道和选择器，可以继续批量接收
+        UdpClientBasic reopened = new UdpClientBasic("127.0.0.1", this.receiver.getLocalPort());
+        try {
+            reopened.write(new byte[]{5, 6});
+            List<byte[]> received = new ArrayList<>();
+            long deadline = System.currentTimeMillis() + 5000;
+            while (received.isEmpty() && System.currentTimeMillis() < deadline) {
+                this.receiver.receive(buffer -> {
+                    received.add(buffer.toByteArray());
+                    buffer.release();
+                }, 4, 1000);
+            }
+            assertArrayEquals(new byte[]{5, 6}, received.get(0));
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    public void receiveTimeout() {
+        assertEquals(0, this.receiver.receive(UdpBuffer::release, 4, 50));
+    }
+
+    @Test
+    public void directBuffer() {
+        this.receiver.setBufferPool(new UdpBufferPool(256, 8, true));
+        this.sender.write(new byte[]{1, 2, 3, 4});
+        List<byte[]> received = new ArrayList<>();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (received.isEmpty() && System.currentTimeMillis() < deadline) {
+            this.receiver.receive(buffer -> {
+                assertFalse(buffer.hasArray());
+                received.add(buffer.toByteArray());
+                buffer.release();
+            }, 4, 1000);
+        }
+        assertArrayEquals(new byte[]{1, 2, 3, 4}, received.get(0));
+    }
+
+    @Test
+    public void poolKeepsAtMostMaxIdle() {
+        UdpBufferPool pool = new UdpBufferPool(16, 2, false);
+        UdpBuffer b1 = pool.borrow();
+        UdpBuffer b2 = pool.borrow();
+        UdpBuffer b3 = pool.borrow();
+        b1.release();
+        b2.release();
+        b3.release();
+        assertEquals(3, pool.getCreatedCount());
+        assertEquals(2, pool.getIdleCount());
+        assertSame(b2, pool.borrow());
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.xingshuangs.iot.net.codec;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class FrameReaderTest {
+
+    /**
+     * 每次最多返回chunk个字节，模拟半包
+     */
+    private static InputStream chunked(byte[] data, int chunk) {
+        return new ByteArrayInputStream(data) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, chunk));
+            }
+        };
+    }
+
+    private static byte[] frame(FrameReader reader) {
+        return Arrays.copyOfRange(reader.getBuffer(), reader.getFrameOffset(), reader.getFrameOffset() + reader.getFrameLength());
+    }
+
+    @Test
+    public void tpktStickyAndHalf() throws IOException {
+        byte[] frame1 = new byte[]{0x03, 0x00, 0x00, 0x07, 0x02, (byte) 0xF0, (byte) 0x80};
+        byte[] frame2 = new byte[]{0x03, 0x00, 0x00, 0x05, 0x11};
+        byte[] data = new byte[frame1.length + frame2.length];
+        System.arraycopy(frame1, 0, data, 0, frame1.length);
+        System.arraycopy(frame2, 0, data, frame1.length, frame2.length);
+
+        // 粘包
+        FrameReader reader = new FrameReader(LengthFieldFrameDecoder.createTpkt());
+        InputStream in = new ByteArrayInputStream(data);
+        assertEquals(7, reader.readFrame(in));
+        assertArrayEquals(frame1, frame(reader));
+        assertEquals(5, reader.remaining());
+        assertEquals(5, reader.readFrame(in));
+        assertArrayEquals(frame2, frame(reader));
+        assertEquals(-1, reader.readFrame(in));
+
+        // 半包
+        reader = new FrameReader(LengthFieldFrameDecoder.createTpkt());
+        in = chunked(data, 3);
+        assertEquals(7, reader.readFrame(in));
+        assertArrayEquals(frame1, frame(reader));
+        assertEquals(5, reader.readFrame(in));
+        assertArrayEquals(frame2, frame(reader));
+    }
+
+    @Test
+    public void mbapGrowBuffer() throws IOException {
+        byte[] frame = new byte[6 + 300];
+        frame[4] = 0x01;
+        frame[5] = 0x2C;
+        for (int i = 6; i < frame.length; i++) {
+            frame[i] = (byte) i;
+        }
+        FrameReader reader = new FrameReader(LengthFieldFrameDecoder.createMbap(), 16);
+        assertEquals(frame.length, reader.readFrame(chunked(frame, 50)));
+        assertArrayEquals(frame, frame(reader));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void invalidLength() throws IOException {
+        FrameReader reader = new FrameReader(LengthFieldFrameDecoder.createTpkt());
+        reader.readFrame(new ByteArrayInputStream(new byte[]{0x03, 0x00, 0x00, 0x02}));
+    }
+}
@@ -0,0 +1,65 @@
+package com.github.xingshuangs.iot.net.nio;
+
+import com.github.xingshuangs.iot.net.client.TcpClientBasic;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+
+
+public class NioTcpChannelTest {
+
+    private ServerSocket serverSocket;
+
+    private NioEventLoopGroup group;
+
+    @Before
+    public void init() throws Exception {
+        this.serverSocket = new ServerSocket(0);
+        this.group = new NioEventLoopGroup(1);
+        // 回声服务端
+        CompletableFuture.runAsync(() -> {
+            try (Socket client = this.serverSocket.accept()) {
+                InputStream in = client.getInputStream();
+                OutputStream out = client.getOutputStream();
+                byte[] buffer = new byte[1024];
+                int len;
+                while ((len = in.read(buffer)) > 0) {
+                    out.write(buffer, 0, len);
+                }
+            } catch (Exception e) {
+                // NOOP
+            }
+        });
+    }
+
+    @After
+    public void destroy() throws Exception {
+        this.serverSocket.close();
+        this.group.shutdown();
+    }
+
+    @Test
+    public void writeAndRead() {
+        TcpClientBasic client = new TcpClientBasic("127.0.0.1", this.serverSocket.getLocalPort());
+        client.setEnableNio(true);
+        client.setEventLoopGroup(this.group);
+        byte[] expect = "hello nio".getBytes(StandardCharsets.US_ASCII);
+        client.write(expect);
+        byte[] actual = new byte[expect.length];
+        int len = client.read(actual);
+        assertEquals(expect.length, len);
+        assertEquals("hello nio", new String(actual, StandardCharsets.US_ASCII));
+        assertEquals(true, client.checkConnected());
+        client.close();
+        assertEquals(false, client.checkConnected());
+    }
+}
@@ -0,0 +1,73 @@
+package com.github.xingshuangs.iot.net.server;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TcpServerBasicAdmissionTest {
+
+    private static final int PORT = 10502;
+
+    private final TcpServerBasic server = new TcpServerBasic();
+
+    private final List<Socket> sockets = new ArrayList<>();
+
+    @After
+    public void destroy() throws IOException {
+        for (Socket socket : this.sockets) {
+            socket.close();
+        }
+        this.server.stop();
+    }
+
+    private Socket connect() throws IOException {
+        Socket socket = new Socket();
+        socket.setSoTimeout(3000);
+        socket.connect(new InetSocketAddress("127.0.0.1", PORT), 3000);
+        this.sockets.add(socket);
+        return socket;
+    }
+
+    @Test
+    public void maxClients() throws IOException, InterruptedException {
+        this.server.setMaxClients(2);
+        this.server.start(PORT);
+        this.connect();
+        this.connect();
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertEquals(2, this.server.getClientSum());
+        Socket rejected = this.connect();
+        assertEquals(-1, rejected.getInputStream().read());
+        assertEquals(2, this.server.getClientSum());
+    }
+
+    @Test
+    public void idleTimeout() throws IOException, InterruptedException {
+        this.server.setIdleTimeout(300);
+        this.server.start(PORT);
+        Socket socket = this.connect();
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertEquals(1, this.server.getClientSum());
+        assertEquals(-1, socket.getInputStream().read());
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertEquals(0, this.server.getClientSum());
+    }
+
+    @Test
+    public void restart() throws IOException {
+        this.server.start(PORT);
+        this.connect();
+        this.server.stop();
+        this.server.start(PORT);
+        this.connect();
+        assertTrue(this.server.isAlive());
+    }
+}
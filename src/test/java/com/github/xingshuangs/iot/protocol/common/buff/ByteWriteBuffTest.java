@@ -115,4 +115,22 @@ public class ByteWriteBuffTest {
         assertArrayEquals(new byte[]{(byte) 0x30, (byte) 0x31, (byte) 0x32, (byte) 0x33}, buff.getData());
         assertEquals(4, buff.getOffset());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void putBytesWithSrcIndex() {
+        ByteWriteBuff buff = new ByteWriteBuff(4);
+        buff.putBytes(new byte[]{(byte) 0x01, (byte) 0x02, (byte) 0x03}, 1)
+                .putBytes(new byte[]{(byte) 0x04, (byte) 0x05});
+        assertArrayEquals(new byte[]{(byte) 0x02, (byte) 0x03, (byte) 0x04, (byte) 0x05}, buff.getData());
+        assertEquals(4, buff.getOffset());
+    }
+
+    @Test
+    public void reset() {
+        ByteWriteBuff buff = new ByteWriteBuff(2);
+        buff.putShort(0x0102);
+        buff.reset().putByte((byte) 0x03);
+        assertArrayEquals(new byte[]{(byte) 0x03, (byte) 0x02}, buff.getData());
+        assertEquals(1, buff.getOffset());
+    }
+}
@@ -0,0 +1,36 @@
+package com.github.xingshuangs.iot.protocol.common.serializer;
+
+
+import com.github.xingshuangs.iot.protocol.common.enums.EDataType;
+import lombok.Data;
+
+/**
+ * @author xingshuang
+ */
+@Data
+public class ByteArrayArrayBean {
+
+    @ByteArrayVariable(byteOffset = 0, bitOffset = 0, count = 8, type = EDataType.BOOL)
+    boolean[] boolData;
+
+    @ByteArrayVariable(byteOffset = 1, count = 4, type = EDataType.BYTE)
+    byte[] byteData;
+
+    @ByteArrayVariable(byteOffset = 1, count = 2, type = EDataType.UINT16)
+    int[] uint16Data;
+
+    @ByteArrayVariable(byteOffset = 3, count = 2, type = EDataType.INT16)
+    short[] int16Data;
+
+    @ByteArrayVariable(byteOffset = 5, count = 2, type = EDataType.UINT32)
+    long[] uint32Data;
+
+    @ByteArrayVariable(byteOffset = 5, count = 2, type = EDataType.INT32)
+    int[] int32Data;
+
+    @ByteArrayVariable(byteOffset = 13, count = 2, type = EDataType.FLOAT32)
+    float[] float32Data;
+
+    @ByteArrayVariable(byteOffset = 21, count = 2, type = EDataType.FLOAT64)
+    double[] float64Data;
+}
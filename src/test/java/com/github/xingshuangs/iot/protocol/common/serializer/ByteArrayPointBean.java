@@ -0,0 +1,21 @@
+package com.github.xingshuangs.iot.protocol.common.serializer;
+
+
+import com.github.xingshuangs.iot.protocol.common.enums.EDataType;
+import lombok.Data;
+
+/**
+ * @author xingshuang
+ */
+@Data
+public class ByteArrayPointBean {
+
+    @ByteArrayVariable(byteOffset = 0, bitOffset = 0, count = 1, type = EDataType.BOOL)
+    Boolean valid;
+
+    @ByteArrayVariable(byteOffset = 2, count = 1, type = EDataType.INT16)
+    Short x;
+
+    @ByteArrayVariable(byteOffset = 4, count = 1, type = EDataType.FLOAT32)
+    Float y;
+}
@@ -1,7 +1,11 @@
 package com.github.xingshuangs.iot.protocol.common.serializer;
 
+import com.github.xingshuangs.iot.exceptions.ByteArrayParseException;
+import com.github.xingshuangs.iot.protocol.common.enums.EDataType;
 import org.junit.Test;
 
+import java.util.Arrays;
+
 import static org.junit.Assert.*;
 
 
@@ -132,4 +136,81 @@ public class ByteArraySerializerTest {
         byte[] actual = serializer.toByteArray(bean);
         assertArrayEquals(expect, actual);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void primitiveArray() {
+        byte[] src = new byte[]{(byte) 0x81,
+                // 0, 25689
+                (byte) 0x00, (byte) 0x00, (byte) 0x64, (byte) 0x59,
+                // 523975585
+                (byte) 0x1F, (byte) 0x3B, (byte) 0x3B, (byte) 0xA1, (byte) 0x1F, (byte) 0x3B, (byte) 0x3B, (byte) 0xA1,
+                // 33.16f, -15.62f
+                (byte) 0x42, (byte) 0x04, (byte) 0xA3, (byte) 0xD7, (byte) 0xC1, (byte) 0x79, (byte) 0xEB, (byte) 0x85,
+                // 156665.35455556
+                (byte) 0x41, (byte) 0x03, (byte) 0x1F, (byte) 0xCA, (byte) 0xD6, (byte) 0x21, (byte) 0x39, (byte) 0xB7,
+                // -56516.66664
+                (byte) 0xC0, (byte) 0xEB, (byte) 0x98, (byte) 0x95, (byte) 0x55, (byte) 0x1D, (byte) 0x68, (byte) 0xC7};
+
+        ByteArraySerializer serializer = ByteArraySerializer.newInstance();
+        ByteArrayArrayBean bean = serializer.toObject(ByteArrayArrayBean.class, src);
+        assertArrayEquals(new boolean[]{true, false, false, false, false, false, false, true}, bean.getBoolData());
+        assertArrayEquals(new byte[]{(byte) 0x00, (byte) 0x00, (byte) 0x64, (byte) 0x59}, bean.getByteData());
+        assertArrayEquals(new int[]{0, 25689}, bean.getUint16Data());
+        assertArrayEquals(new short[]{25689, 7995}, bean.getInt16Data());
+        assertArrayEquals(new long[]{523975585L, 523975585L}, bean.getUint32Data());
+        assertArrayEquals(new int[]{523975585, 523975585}, bean.getInt32Data());
+        assertArrayEquals(new float[]{33.16f, -15.62f}, bean.getFloat32Data(), 0.0001f);
+        assertArrayEquals(new double[]{156665.35455556, -56516.66664}, bean.getFloat64Data(), 0.00000000001);
+
+        assertArrayEquals(src, serializer.toByteArray(bean));
+    }
+
+    @Test
+    public void nestedStruct() {
+        ByteArrayStructBean bean = new ByteArrayStructBean();
+        bean.setId(513);
+        bean.setOrigin(this.point(true, 1, 1.5f));
+        bean.setPoints(new ByteArrayPointBean[]{this.point(false, 2, 2.5f), this.point(true, -3, -3.5f)});
+        bean.setPointList(Arrays.asList(this.point(true, 4, 4.5f), this.point(false, 5, 5.5f)));
+        bean.setTail(new short[]{6, 7, 8});
+
+        ByteArraySerializer serializer = ByteArraySerializer.newInstance();
+        byte[] actual = serializer.toByteArray(bean);
+        assertEquals(48, actual.length);
+        // id
+        assertEquals(0x02, actual[0]);
+        assertEquals(0x01, actual[1]);
+        // origin，偏移2，x在偏移4
+        assertEquals(0x01, actual[2]);
+        assertEquals(0x01, actual[5]);
+        // points[1]，结构体大小8，偏移10+8
+        assertEquals(0x01, actual[18]);
+        assertEquals((byte) 0xFD, actual[21]);
+        // pointList[0]，偏移26
+        assertEquals(0x04, actual[29]);
+        // tail
+        assertEquals(0x08, actual[47]);
+
+        ByteArrayStructBean newBean = serializer.toObject(ByteArrayStructBean.class, actual);
+        assertEquals(bean, newBean);
+    }
+
+    @Test(expected = ByteArrayParseException.class)
+    public void primitiveArrayTypeMismatch() {
+        ByteArraySerializer.newInstance().toObject(ByteArrayMismatchBean.class, new byte[8]);
+    }
+
+    private ByteArrayPointBean point(boolean valid, int x, float y) {
+        ByteArrayPointBean point = new ByteArrayPointBean();
+        point.setValid(valid);
+        point.setX((short) x);
+        point.setY(y);
+        return point;
+    }
+
+    public static class ByteArrayMismatchBean {
+
+        @ByteArrayVariable(byteOffset = 0, count = 2, type = EDataType.FLOAT32)
+        double[] data;
+    }
+}
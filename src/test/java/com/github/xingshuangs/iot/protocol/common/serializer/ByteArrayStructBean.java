@@ -0,0 +1,29 @@
+package com.github.xingshuangs.iot.protocol.common.serializer;
+
+
+import com.github.xingshuangs.iot.protocol.common.enums.EDataType;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * @author xingshuang
+ */
+@Data
+public class ByteArrayStructBean {
+
+    @ByteArrayVariable(byteOffset = 0, count = 1, type = EDataType.UINT16)
+    Integer id;
+
+    @ByteArrayVariable(byteOffset = 2, count = 1)
+    ByteArrayPointBean origin;
+
+    @ByteArrayVariable(byteOffset = 10, count = 2)
+    ByteArrayPointBean[] points;
+
+    @ByteArrayVariable(byteOffset = 26, count = 2)
+    List<ByteArrayPointBean> pointList;
+
+    @ByteArrayVariable(byteOffset = 42, count = 3, type = EDataType.INT16)
+    short[] tail;
+}
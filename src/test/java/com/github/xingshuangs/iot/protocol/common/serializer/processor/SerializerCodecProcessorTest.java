@@ -0,0 +1,270 @@
+package com.github.xingshuangs.iot.protocol.common.serializer.processor;
+
+import com.github.xingshuangs.iot.protocol.common.enums.EDataType;
+import com.github.xingshuangs.iot.protocol.common.serializer.ByteArraySerializer;
+import com.github.xingshuangs.iot.protocol.common.serializer.GeneratedCodecLoader;
+import com.github.xingshuangs.iot.protocol.common.serializer.IByteArrayCodec;
+import com.github.xingshuangs.iot.protocol.s7.serializer.IS7BeanAccessor;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeNotNull;
+
+
+public class SerializerCodecProcessorTest {
+
+    private static final String FRAME_SOURCE = "package sample;\n"
+            + "import com.github.xingshuangs.iot.protocol.common.enums.EDataType;\n"
+            + "import com.github.xingshuangs.iot.protocol.common.serializer.ByteArrayVariable;\n"
+            + "import java.util.List;\n"
+            + "public class Frame {\n"
+            + "    @ByteArrayVariable(byteOffset = 0, bitOffset = 0, count = 1, type = EDataType.BOOL)\n"
+            + "    Boolean valid;\n"
+            + "    @ByteArrayVariable(byteOffset = 0, bitOffset = 1, count = 3, type = EDataType.BOOL)\n"
+            + "    boolean[] flags;\n"
+            + "    @ByteArrayVariable(byteOffset = 1, count = 1, type = EDataType.BYTE)\n"
+            + "    byte kind;\n"
+            + "    @ByteArrayVariable(byteOffset = 2, count = 1, type = EDataType.UINT16)\n"
+            + "    private Integer id;\n"
+            + "    @ByteArrayVariable(byteOffset = 4, count = 2, type = EDataType.INT16, littleEndian = true)\n"
+            + "    short[] raw;\n"
+            + "    @ByteArrayVariable(byteOffset = 8, count = 2, type = EDataType.FLOAT32)\n"
+            + "    List<Float> gains;\n"
+            + "    @ByteArrayVariable(byteOffset = 16, count = 1, type = EDataType.UINT32)\n"
+            + "    Long stamp;\n"
+            + "    @ByteArrayVariable(byteOffset = 20, count = 2, type = EDataType.FLOAT64)\n"
+            + "    double[] values;\n"
+            + "    @ByteArrayVariable(byteOffset = 36, count = 2)\n"
+            + "    Point[] points;\n"
+            + "    @ByteArrayVariable(byteOffset = 52, count = 1)\n"
+            + "    Point origin;\n"
+            + "    @ByteArrayVariable(byteOffset = 60, count = 3, type = EDataType.STRING)\n"
+            + "    String name;\n"
+            + "    @ByteArrayVariable(byteOffset = 63, count = 2, type = EDataType.INT32)\n"
+            + "    List<Integer> counters;\n"
+            + "    public Integer getId() { return id; }\n"
+            + "    public void setId(Integer id) { this.id = id; }\n"
+            + "    public static class Point {\n"
+            + "        @ByteArrayVariable(byteOffset = 0, count = 1, type = EDataType.INT16)\n"
+            + "        Short x;\n"
+            + "        @ByteArrayVariable(byteOffset = 4, count = 1, type = EDataType.FLOAT32, littleEndian = true)\n"
+            + "        float y;\n"
+            + "    }\n"
+            + "}\n";
+
+    private static final String STATION_SOURCE = "package sample;\n"
+            + "import com.github.xingshuangs.iot.protocol.common.enums.EDataType;\n"
+            + "import com.github.xingshuangs.iot.protocol.s7.serializer.S7Variable;\n"
+            + "public class Station {\n"
+            + "    @S7Variable(address = \"DB1.0.1\", type = EDataType.BOOL)\n"
+            + "    Boolean running;\n"
+            + "    @S7Variable(address = \"DB1.2\", type = EDataType.INT16)\n"
+            + "    private short speed;\n"
+            + "    @S7Variable(address = \"DB1.4\", type = EDataType.FLOAT32)\n"
+            + "    Float temperature;\n"
+            + "    @S7Variable(address = \"DB1.8\", type = EDataType.STRING, count = 10)\n"
+            + "    String name;\n"
+            + "    @S7Variable(address = \"DB1.20\", count = 3)\n"
+            + "    byte[] raw;\n"
+            + "    public short getSpeed() { return speed; }\n"
+            + "    public void setSpeed(short speed) { this.speed = speed; }\n"
+            + "}\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void byteArrayCodec() throws Exception {
+        File out = this.compile(null, "sample/Frame.java", FRAME_SOURCE);
+        Class<?> generated = new URLClassLoader(new URL[]{out.toURI().toURL()}, this.getClass().getClassLoader())
+                .loadClass("sample.Frame");
+        Class<?> reflected = new ReflectionOnlyClassLoader(out).loadClass("sample.Frame");
+        assertNotNull(GeneratedCodecLoader.load(generated, GeneratedCodecLoader.BYTE_ARRAY_CODEC_SUFFIX, IByteArrayCodec.class));
+        assertNull(GeneratedCodecLoader.load(reflected, GeneratedCodecLoader.BYTE_ARRAY_CODEC_SUFFIX, IByteArrayCodec.class));
+
+        byte[] src = new byte[71];
+        new Random(7).nextBytes(src);
+        // 字符串只支持ASCII
+        src[60] = 'a';
+        src[61] = 'b';
+        src[62] = 'c';
+
+        ByteArraySerializer serializer = ByteArraySerializer.newInstance();
+        Object generatedBean = serializer.toObject(generated, src);
+        Object reflectedBean = serializer.toObject(reflected, src);
+        assertEquals(this.fieldValue(reflectedBean, "id"), this.fieldValue(generatedBean, "id"));
+        assertEquals("abc", this.fieldValue(generatedBean, "name"));
+        assertArrayEquals((short[]) this.fieldValue(reflectedBean, "raw"), (short[]) this.fieldValue(generatedBean, "raw"));
+        assertEquals(this.fieldValue(reflectedBean, "gains"), this.fieldValue(generatedBean, "gains"));
+        Object generatedPoint = Array.get(this.fieldValue(generatedBean, "points"), 1);
+        Object reflectedPoint = Array.get(this.fieldValue(reflectedBean, "points"), 1);
+        assertEquals(this.fieldValue(reflectedPoint, "x"), this.fieldValue(generatedPoint, "x"));
+        assertEquals(this.fieldValue(reflectedPoint, "y"), this.fieldValue(generatedPoint, "y"));
+
+        byte[] generatedBytes = serializer.toByteArray(generatedBean);
+        assertEquals(71, generatedBytes.length);
+        assertArrayEquals(serializer.toByteArray(reflectedBean), generatedBytes);
+    }
+
+    @Test
+    public void s7Accessor() throws Exception {
+        File out = this.compile(null, "sample/Station.java", STATION_SOURCE);
+        Class<?> station = new URLClassLoader(new URL[]{out.toURI().toURL()}, this.getClass().getClassLoader())
+                .loadClass("sample.Station");
+        @SuppressWarnings("unchecked")
+        IS7BeanAccessor<Object> accessor = GeneratedCodecLoader.load(station, GeneratedCodecLoader.S7_ACCESSOR_SUFFIX,
+                IS7BeanAccessor.class);
+        assertNotNull(accessor);
+
+        assertEquals(5, accessor.size());
+        assertEquals("DB1.0.1", accessor.address(0));
+        assertEquals(EDataType.STRING, accessor.type(3));
+        assertEquals(10, accessor.count(3));
+        assertEquals(3, accessor.count(4));
+
+        Object bean = accessor.newInstance();
+        accessor.set(bean, 0, true);
+        accessor.set(bean, 1, (short) 12);
+        accessor.set(bean, 4, new byte[]{1, 2, 3});
+        assertEquals(true, accessor.get(bean, 0));
+        assertEquals((short) 12, accessor.get(bean, 1));
+        assertEquals((short) 12, this.fieldValue(bean, "speed"));
+        assertNull(accessor.get(bean, 2));
+        assertArrayEquals(new byte[]{1, 2, 3}, (byte[]) accessor.get(bean, 4));
+    }
+
+    @Test
+    public void invalidFieldType() throws Exception {
+        String source = "package sample;\n"
+                + "import com.github.xingshuangs.iot.protocol.common.enums.EDataType;\n"
+                + "import com.github.xingshuangs.iot.protocol.common.serializer.ByteArrayVariable;\n"
+                + "public class Broken {\n"
+                + "    @ByteArrayVariable(byteOffset = 0, count = 2, type = EDataType.FLOAT32)\n"
+                + "    double[] data;\n"
+                + "}\n";
+        List<String> errors = new ArrayList<>();
+        this.compile(errors, "sample/Broken.java", source);
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0), errors.get(0).contains("float[]"));
+    }
+
+    @Test
+    public void skipInaccessibleType() throws Exception {
+        String hidden = "package sample;\n"
+                + "import com.github.xingshuangs.iot.protocol.common.enums.EDataType;\n"
+                + "import com.github.xingshuangs.iot.protocol.s7.serializer.S7Variable;\n"
+                + "public class Hidden {\n"
+                + "    private Hidden() {\n"
+                + "    }\n"
+                + "    @S7Variable(address = \"DB1.2\", type = EDataType.INT16)\n"
+                + "    Short speed;\n"
+                + "}\n";
+        String readOnly = "package sample;\n"
+                + "import com.github.xingshuangs.iot.protocol.common.enums.EDataType;\n"
+                + "import com.github.xingshuangs.iot.protocol.common.serializer.ByteArrayVariable;\n"
+                + "public class ReadOnly {\n"
+                + "    @ByteArrayVariable(byteOffset = 0, count = 1, type = EDataType.INT16)\n"
+                + "    private Short value;\n"
+                + "    public Short getValue() { return value; }\n"
+                + "}\n";
+        String outer = "package sample;\n"
+                + "import com.github.xingshuangs.iot.protocol.common.serializer.ByteArrayVariable;\n"
+                + "public class Outer {\n"
+                + "    @ByteArrayVariable(byteOffset = 0, count = 1)\n"
+                + "    ReadOnly inner;\n"
+                + "}\n";
+        List<String> errors = new ArrayList<>();
+        File out = this.compile(errors, "sample/Hidden.java", hidden, "sample/ReadOnly.java", readOnly,
+                "sample/Outer.java", outer);
+        // 不能生成时只给出警告，不影响编译
+        assertTrue(errors.toString(), errors.isEmpty());
+        ClassLoader loader = new URLClassLoader(new URL[]{out.toURI().toURL()}, this.getClass().getClassLoader());
+        assertNull(GeneratedCodecLoader.load(loader.loadClass("sample.Hidden"), GeneratedCodecLoader.S7_ACCESSOR_SUFFIX,
+                IS7BeanAccessor.class));
+        assertNull(GeneratedCodecLoader.load(loader.loadClass("sample.ReadOnly"), GeneratedCodecLoader.BYTE_ARRAY_CODEC_SUFFIX,
+                IByteArrayCodec.class));
+        assertNull(GeneratedCodecLoader.load(loader.loadClass("sample.Outer"), GeneratedCodecLoader.BYTE_ARRAY_CODEC_SUFFIX,
+                IByteArrayCodec.class));
+    }
+
+    /**
+     * 使用注解处理器编译源码
+     *
+     * @param errors  编译错误，为null时要求编译成功
+     * @param sources 文件路径和源码，成对出现
+     * @return 输出目录
+     */
+    private File compile(List<String> errors, String... sources) throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assumeNotNull(compiler);
+        File srcDir = this.folder.newFolder("src");
+        File outDir = this.folder.newFolder("out");
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < sources.length; i += 2) {
+            File file = new File(srcDir, sources[i]);
+            assertTrue(file.getParentFile().exists() || file.getParentFile().mkdirs());
+            Files.write(file.toPath(), sources[i + 1].getBytes(StandardCharsets.UTF_8));
+            files.add(file);
+        }
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+            List<String> options = Arrays.asList("-classpath", System.getProperty("java.class.path"),
+                    "-processor", SerializerCodecProcessor.class.getName(),
+                    "-d", outDir.getAbsolutePath(), "-s", outDir.getAbsolutePath(), "-encoding", "UTF-8");
+            boolean success = compiler.getTask(null, fileManager, diagnostics, options, null,
+                    fileManager.getJavaFileObjectsFromFiles(files)).call();
+            if (errors == null) {
+                assertTrue(diagnostics.getDiagnostics().toString(), success);
+            } else {
+                diagnostics.getDiagnostics().stream()
+                        .filter(x -> x.getKind() == Diagnostic.Kind.ERROR)
+                        .forEach(x -> errors.add(x.getMessage(null)));
+            }
+        }
+        return outDir;
+    }
+
+    private Object fieldValue(Object bean, String name) throws Exception {
+        Field field = bean.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(bean);
+    }
+
+    /**
+     * 不加载生成类的类加载器，用于对比反射的结果
+     */
+    private static class ReflectionOnlyClassLoader extends URLClassLoader {
+
+        private ReflectionOnlyClassLoader(File dir) throws Exception {
+            super(new URL[]{dir.toURI().toURL()}, ReflectionOnlyClassLoader.class.getClassLoader());
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            if (name.contains("$$")) {
+                throw new ClassNotFoundException(name);
+            }
+            return super.findClass(name);
+        }
+    }
+}
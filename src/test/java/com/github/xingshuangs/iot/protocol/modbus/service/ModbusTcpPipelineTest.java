@@ -0,0 +1,178 @@
+package com.github.xingshuangs.iot.protocol.modbus.service;
+
+import com.github.xingshuangs.iot.protocol.common.buff.ByteReadBuff;
+import com.github.xingshuangs.iot.protocol.common.buff.ByteWriteBuff;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * 模拟的服务端每收到2个请求后倒序响应，校验按事务元标识符匹配响应，
+ * 收到地址为999的请求时断开连接
+ */
+public class ModbusTcpPipelineTest {
+
+    private ServerSocket serverSocket;
+
+    private ModbusTcp plc;
+
+    @Before
+    public void init() throws IOException {
+        this.serverSocket = new ServerSocket(0);
+        Thread thread = new Thread(this::serve);
+        thread.setDaemon(true);
+        thread.start();
+        this.plc = new ModbusTcp(1, "127.0.0.1", this.serverSocket.getLocalPort());
+        this.plc.setEnablePipeline(true);
+        this.plc.setMaxInFlight(4);
+    }
+
+    @After
+    public void destroy() throws IOException {
+        this.plc.close();
+        this.serverSocket.close();
+    }
+
+    private void serve() {
+        try {
+            while (true) {
+                Socket socket = this.serverSocket.accept();
+                Thread thread = new Thread(() -> this.serve(socket));
+                thread.setDaemon(true);
+                thread.start();
+            }
+        } catch (IOException e) {
+            // 服务端关闭
+        }
+    }
+
+    private void serve(Socket client) {
+        try (Socket socket = client) {
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            OutputStream out = socket.getOutputStream();
+            List<byte[]> batch = new ArrayList<>();
+            while (true) {
+                byte[] header = new byte[7];
+                in.readFully(header);
+                byte[] pdu = new byte[ByteReadBuff.newInstance(header).getUInt16(4) - 1];
+                in.readFully(pdu);
+                ByteReadBuff req = ByteReadBuff.newInstance(pdu);
+                int address = req.getUInt16(1);
+                int quantity = req.getUInt16(3);
+                if (address == 999) {
+                    return;
+                }
+                ByteWriteBuff ack = ByteWriteBuff.newInstance(9 + quantity * 2)
+                        .putShort(ByteReadBuff.newInstance(header).getUInt16(0))
+                        .putShort(0)
+                        .putShort(3 + quantity * 2)
+                        .putByte(header[6])
+                        .putByte(pdu[0])
+                        .putByte(quantity * 2);
+                for (int i = 0; i < quantity; i++) {
+                    ack.putShort(address + i);
+                }
+                batch.add(ack.getData());
+                if (batch.size() == 2) {
+                    Collections.reverse(batch);
+                    for (byte[] item : batch) {
+                        out.write(item);
+                    }
+                    out.flush();
+                    batch.clear();
+                }
+            }
+        } catch (IOException e) {
+            // 连接关闭
+        }
+    }
+
+    @Test
+    public void readHoldRegisterAsync() {
+        List<CompletableFuture<byte[]>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(this.plc.readHoldRegisterAsync(i * 10, 2));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            byte[] data = futures.get(i).join();
+            assertEquals(i * 10, ByteReadBuff.newInstance(data).getUInt16(0));
+            assertEquals(i * 10 + 1, ByteReadBuff.newInstance(data).getUInt16(2));
+        }
+    }
+
+    @Test
+    public void readConcurrently() {
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            int address = 100 + i;
+            futures.add(CompletableFuture.supplyAsync(() -> this.plc.readUInt16(address)));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals(100 + i, (int) futures.get(i).join());
+        }
+    }
+
+    @Test
+    public void connectionDroppedWhileInFlight() {
+        // 服务端只缓存了第1个请求，收到第2个请求后断开，在途的请求都以异常结束
+        CompletableFuture<byte[]> pending = this.plc.readHoldRegisterAsync(0, 2);
+        CompletableFuture<byte[]> dropped = this.plc.readHoldRegisterAsync(999, 1);
+        assertTrue(this.failed(pending));
+        assertTrue(this.failed(dropped));
+
+        // 下一次请求重新连接，新的接收器读取响应
+        CompletableFuture<byte[]> first = this.plc.readHoldRegisterAsync(10, 2);
+        CompletableFuture<byte[]> second = this.plc.readHoldRegisterAsync(20, 2);
+        assertEquals(10, ByteReadBuff.newInstance(first.join()).getUInt16(0));
+        assertEquals(20, ByteReadBuff.newInstance(second.join()).getUInt16(0));
+    }
+
+    @Test
+    public void closeWhileInFlight() {
+        // 服务端不会响应单个请求，主动关闭连接后在途的请求立即以异常结束，不会等到超时
+        this.plc.setReceiveTimeout(60_000);
+        CompletableFuture<byte[]> pending = this.plc.readHoldRegisterAsync(0, 2);
+        this.plc.close();
+        // 关闭后立即发送，新的请求不能注册到旧的接收器上
+        CompletableFuture<byte[]> next = this.plc.readHoldRegisterAsync(30, 2);
+        CompletableFuture<byte[]> nextSecond = this.plc.readHoldRegisterAsync(35, 2);
+        assertTrue(this.failed(pending));
+        assertEquals(30, ByteReadBuff.newInstance(next.join()).getUInt16(0));
+        assertEquals(35, ByteReadBuff.newInstance(nextSecond.join()).getUInt16(0));
+
+        // 重连后的连接不受旧接收器的影响
+        for (int i = 0; i < 3; i++) {
+            CompletableFuture<byte[]> first = this.plc.readHoldRegisterAsync(i * 10, 2);
+            CompletableFuture<byte[]> second = this.plc.readHoldRegisterAsync(i * 10 + 5, 2);
+            assertEquals(i * 10, ByteReadBuff.newInstance(first.join()).getUInt16(0));
+            assertEquals(i * 10 + 5, ByteReadBuff.newInstance(second.join()).getUInt16(0));
+        }
+        assertTrue(this.plc.checkConnected());
+    }
+
+    private boolean failed(CompletableFuture<byte[]> future) {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            return false;
+        } catch (ExecutionException | CancellationException e) {
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.github.xingshuangs.iot.protocol.s7.algorithm;
+
+import com.github.xingshuangs.iot.protocol.s7.enums.EDataVariableType;
+import com.github.xingshuangs.iot.protocol.s7.enums.EReturnCode;
+import com.github.xingshuangs.iot.protocol.s7.model.DataItem;
+import com.github.xingshuangs.iot.protocol.s7.model.RequestItem;
+import com.github.xingshuangs.iot.protocol.s7.utils.AddressUtil;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+
+public class S7AddressMergeAlgTest {
+
+    @Test
+    public void merge() {
+        // DB1.0(2), DB1.2(2), DB1.4(4), DB1.10(2), DB1.100(2), M0.1(bit)
+        // |M0.1(bit)|DB1.0(12)|DB1.100(2)|
+        List<RequestItem> src = Arrays.asList(
+                AddressUtil.parseByte("DB1.100", 2),
+                AddressUtil.parseByte("DB1.2", 2),
+                AddressUtil.parseBit("M0.1"),
+                AddressUtil.parseByte("DB1.0", 2),
+                AddressUtil.parseByte("DB1.10", 2),
+                AddressUtil.parseByte("DB1.4", 4)
+        );
+        S7MergeResult result = S7AddressMergeAlg.merge(src, 5);
+        List<RequestItem> merged = result.getMergedItems();
+        assertEquals(3, merged.size());
+        // 按存储区代号排序，M(0x83)在DB(0x84)之前
+        assertEquals(1, merged.get(0).getBitAddress());
+        assertEquals(0, merged.get(1).getByteAddress());
+        assertEquals(12, merged.get(1).getCount());
+        assertEquals(100, merged.get(2).getByteAddress());
+        assertEquals(2, merged.get(2).getCount());
+        assertArrayEquals(new int[]{2, 1, 0, 1, 1, 1}, result.getMergedIndexes());
+        assertArrayEquals(new int[]{0, 2, 0, 0, 10, 4}, result.getOffsets());
+    }
+
+    @Test
+    public void mergeWithoutGap() {
+        List<RequestItem> src = Arrays.asList(
+                AddressUtil.parseByte("DB1.0", 2),
+                AddressUtil.parseByte("DB1.3", 2),
+                AddressUtil.parseByte("DB2.5", 2),
+                AddressUtil.parseByte("DB1.1", 2)
+        );
+        S7MergeResult result = S7AddressMergeAlg.merge(src, 0);
+        List<RequestItem> merged = result.getMergedItems();
+        // DB1.0~DB1.4重叠或相邻合并，不同DB块不合并
+        assertEquals(2, merged.size());
+        assertEquals(5, merged.get(0).getCount());
+        assertEquals(2, merged.get(1).getDbNumber());
+    }
+
+    @Test
+    public void split() {
+        List<RequestItem> src = Arrays.asList(
+                AddressUtil.parseBit("DB1.1.3"),
+                AddressUtil.parseByte("DB1.0", 2),
+                AddressUtil.parseByte("DB1.2", 1),
+                AddressUtil.parseBit("DB1.2.0")
+        );
+        S7MergeResult result = S7AddressMergeAlg.merge(src, 5);
+        assertEquals(1, result.getMergedItems().size());
+        DataItem data = DataItem.createReq(new byte[]{(byte) 0x11, (byte) 0x08, (byte) 0x33}, EDataVariableType.BYTE_WORD_DWORD);
+        List<DataItem> items = result.split(Collections.singletonList(data));
+        assertEquals(EDataVariableType.BIT, items.get(0).getVariableType());
+        assertArrayEquals(new byte[]{(byte) 0x01}, items.get(0).getData());
+        assertArrayEquals(new byte[]{(byte) 0x11, (byte) 0x08}, items.get(1).getData());
+        assertArrayEquals(new byte[]{(byte) 0x33}, items.get(2).getData());
+        assertArrayEquals(new byte[]{(byte) 0x01}, items.get(3).getData());
+    }
+
+    @Test
+    public void splitFailedItem() {
+        List<RequestItem> src = Arrays.asList(
+                AddressUtil.parseByte("DB1.0", 2),
+                AddressUtil.parseByte("DB1.2", 2),
+                AddressUtil.parseByte("DB2.0", 2)
+        );
+        S7MergeResult result = S7AddressMergeAlg.merge(src, 5);
+        assertEquals(2, result.getMergedItems().size());
+        DataItem failed = DataItem.createReq(new byte[0], EDataVariableType.BYTE_WORD_DWORD);
+        failed.setReturnCode(EReturnCode.INVALID_ADDRESS);
+        DataItem success = DataItem.createReq(new byte[]{1, 2}, EDataVariableType.BYTE_WORD_DWORD);
+        success.setReturnCode(EReturnCode.SUCCESS);
+        List<DataItem> items = result.split(Arrays.asList(failed, success));
+        assertEquals(EReturnCode.INVALID_ADDRESS, items.get(0).getReturnCode());
+        assertEquals(0, items.get(0).getData().length);
+        assertEquals(EReturnCode.INVALID_ADDRESS, items.get(1).getReturnCode());
+        assertEquals(EReturnCode.SUCCESS, items.get(2).getReturnCode());
+        assertArrayEquals(new byte[]{1, 2}, items.get(2).getData());
+    }
+}
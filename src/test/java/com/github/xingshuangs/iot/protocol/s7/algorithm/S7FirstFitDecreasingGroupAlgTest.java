@@ -0,0 +1,72 @@
+package com.github.xingshuangs.iot.protocol.s7.algorithm;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+
+public class S7FirstFitDecreasingGroupAlgTest {
+
+    @Test
+    public void readRecombination() {
+        // 150, 100, 150, 100
+        // |150|150|100,100|
+        List<Integer> src = Arrays.asList(150, 100, 150, 100);
+        List<S7ComGroup> recombination = S7FirstFitDecreasingGroupAlg.readRecombination(src, 240 - 14, 5, 12);
+        assertEquals(3, recombination.size());
+        int[] actual = recombination.stream().flatMap(x -> x.getItems().stream())
+                .mapToInt(S7ComItem::getIndex).toArray();
+        assertArrayEquals(new int[]{0, 2, 1, 3}, actual);
+        checkCoverage(src, recombination, 240 - 14);
+    }
+
+    @Test
+    public void readRecombinationLargeItem() {
+        List<Integer> src = Arrays.asList(2, 500, 4, 2);
+        List<S7ComGroup> recombination = S7FirstFitDecreasingGroupAlg.readRecombination(src, 240 - 14, 5, 12);
+        assertEquals(3, recombination.size());
+        checkCoverage(src, recombination, 240 - 14);
+    }
+
+    @Test
+    public void notWorseThanSequential() {
+        Random random = new Random(7);
+        for (int n = 0; n < 500; n++) {
+            List<Integer> src = random.ints(1 + random.nextInt(60), 1, random.nextBoolean() ? 16 : 300)
+                    .boxed().collect(Collectors.toList());
+            List<S7ComGroup> packed = S7FirstFitDecreasingGroupAlg.readRecombination(src, 240 - 14, 5, 12);
+            List<S7ComGroup> sequential = S7SequentialGroupAlg.readRecombination(src, 240 - 14, 5, 12);
+            sequential.removeIf(x -> x.getItems().isEmpty());
+            assertTrue(packed.size() <= sequential.size());
+            checkCoverage(src, packed, 240 - 14);
+        }
+    }
+
+    /**
+     * 校验每个原始数据的每个字节都恰好被覆盖一次，且每组不超过目标值
+     */
+    private void checkCoverage(List<Integer> src, List<S7ComGroup> groups, int targetSize) {
+        int[][] covered = new int[src.size()][];
+        for (int i = 0; i < src.size(); i++) {
+            covered[i] = new int[src.get(i)];
+        }
+        for (S7ComGroup group : groups) {
+            assertTrue(group.getItems().stream().mapToInt(S7ComItem::getTotalLength).sum() <= targetSize);
+            for (S7ComItem item : group.getItems()) {
+                for (int j = 0; j < item.getRipeSize(); j++) {
+                    covered[item.getIndex()][item.getSplitOffset() + j]++;
+                }
+            }
+        }
+        for (int[] bytes : covered) {
+            assertTrue(Arrays.stream(bytes).allMatch(x -> x == 1));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.xingshuangs.iot.protocol.s7.algorithm;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * 顺序分组和首次适应降序分组的对比，PDU为240和960，标签列表模拟实际项目中常见的组合
+ */
+@Ignore
+public class S7GroupAlgBenchmarkTest {
+
+    private static final int ROUNDS = 20000;
+
+    @Test
+    public void benchmark() {
+        Random random = new Random(1);
+        System.out.println("list / PDU    PDUs seq/ffd   items seq/ffd   ns per list seq/ffd");
+        // 大量bool、int、real标签中夹杂少量字符串和数组
+        run("mixed", () -> tags(random, 40, 0.1, 0.05), random);
+        // 字符串配方，每个256字节左右
+        run("strings", () -> tags(random, 12, 0.8, 0.0), random);
+        // 数组块和状态字交替
+        run("arrays", () -> tags(random, 30, 0.0, 0.3), random);
+    }
+
+    private List<Integer> tags(Random random, int count, double stringRatio, double arrayRatio) {
+        List<Integer> res = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double r = random.nextDouble();
+            if (r < stringRatio) {
+                res.add(2 + random.nextInt(254));
+            } else if (r < stringRatio + arrayRatio) {
+                res.add(4 * (10 + random.nextInt(60)));
+            } else {
+                res.add(new int[]{1, 2, 4}[random.nextInt(3)]);
+            }
+        }
+        return res;
+    }
+
+    private void run(String name, Supplier<List<Integer>> supplier, Random random) {
+        for (int pduLength : new int[]{240, 960}) {
+            List<List<Integer>> lists = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                lists.add(supplier.get());
+            }
+            long seqPdu = 0;
+            long ffdPdu = 0;
+            long seqItems = 0;
+            long ffdItems = 0;
+            for (List<Integer> src : lists) {
+                List<S7ComGroup> seq = S7SequentialGroupAlg.readRecombination(src, pduLength - 14, 5, 12);
+                seq.removeIf(x -> x.getItems().isEmpty());
+                List<S7ComGroup> ffd = S7FirstFitDecreasingGroupAlg.readRecombination(src, pduLength - 14, 5, 12);
+                seqPdu += seq.size();
+                ffdPdu += ffd.size();
+                seqItems += seq.stream().mapToInt(x -> x.getItems().size()).sum();
+                ffdItems += ffd.stream().mapToInt(x -> x.getItems().size()).sum();
+            }
+            long seqNs = time(() -> lists.forEach(x -> S7SequentialGroupAlg.readRecombination(x, pduLength - 14, 5, 12)));
+            long ffdNs = time(() -> lists.forEach(x -> S7FirstFitDecreasingGroupAlg.readRecombination(x, pduLength - 14, 5, 12)));
+            System.out.printf("%-8s %-4d %5d / %-5d %5d / %-5d %6d / %d%n",
+                    name, pduLength, seqPdu, ffdPdu, seqItems, ffdItems, seqNs / lists.size(), ffdNs / lists.size());
+        }
+    }
+
+    private long time(Runnable runnable) {
+        for (int i = 0; i < ROUNDS / 10; i++) {
+            runnable.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS / 100; i++) {
+            runnable.run();
+        }
+        return (System.nanoTime() - start) / (ROUNDS / 100);
+    }
+}
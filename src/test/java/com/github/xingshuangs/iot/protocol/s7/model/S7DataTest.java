@@ -1,9 +1,12 @@
 package com.github.xingshuangs.iot.protocol.s7.model;
 
+import com.github.xingshuangs.iot.protocol.common.buff.ByteWriteBuff;
 import com.github.xingshuangs.iot.protocol.s7.enums.*;
 import com.github.xingshuangs.iot.utils.ShortUtil;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static org.junit.Assert.assertArrayEquals;
@@ -484,4 +487,62 @@ public class S7DataTest {
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 在更大的缓存中按偏移量解析，不能读到报文以外的数据
+     */
+    @Test
+    public void fromBytesWithOffset() {
+        byte[] frame = new byte[]{
+                // tpkt
+                (byte) 0x03, (byte) 0x00, (byte) 0x00, (byte) 0x21,
+                // cotp DT Data
+                (byte) 0x02, (byte) 0xF0, (byte) 0x80,
+                // header + 12长度
+                (byte) 0x32, (byte) 0x03, (byte) 0x00, (byte) 0x00, (byte) 0x00, (byte) 0x07, (byte) 0x00, (byte) 0x02, (byte) 0x00, (byte) 0x0C, (byte) 0x81, (byte) 0x04,
+                // parameter：读功能 + 个数
+                (byte) 0x04, (byte) 0x02,
+                // data item，奇数长度需要填充一个字节
+                (byte) 0xFF, (byte) 0x04, (byte) 0x00, (byte) 0x08, (byte) 0x11, (byte) 0x00,
+                (byte) 0xFF, (byte) 0x04, (byte) 0x00, (byte) 0x10, (byte) 0x22, (byte) 0x33
+        };
+        byte[] data = new byte[frame.length + 10];
+        Arrays.fill(data, (byte) 0x5A);
+        System.arraycopy(frame, 0, data, 5, frame.length);
+
+        S7Data s7Data = S7Data.fromBytes(data, 5, frame.length);
+
+        assertEquals(33, s7Data.getTpkt().getLength());
+        assertEquals(EPduType.DT_DATA, s7Data.getCotp().getPduType());
+        AckHeader header = (AckHeader) s7Data.getHeader();
+        assertEquals(7, header.getPduReference());
+        assertEquals(12, header.getDataLength());
+        assertEquals(EErrorClass.APPLICATION_RELATIONSHIP, header.getErrorClass());
+        assertEquals(0x8104, header.getErrorCode());
+        ReadWriteParameter parameter = (ReadWriteParameter) s7Data.getParameter();
+        assertEquals(EFunctionCode.READ_VARIABLE, parameter.getFunctionCode());
+        assertEquals(2, parameter.getItemCount());
+        List<ReturnItem> returnItems = s7Data.getDatum().getReturnItems();
+        assertEquals(2, returnItems.size());
+        assertArrayEquals(new byte[]{(byte) 0x11}, ((DataItem) returnItems.get(0)).getData());
+        assertArrayEquals(new byte[]{(byte) 0x22, (byte) 0x33}, ((DataItem) returnItems.get(1)).getData());
+        assertArrayEquals(s7Data.toByteArray(), frame);
+    }
+
+    /**
+     * 直接写入复用的缓存，和单独生成的字节数组一致
+     */
+    @Test
+    public void writeToReusedBuff() {
+        RequestItem requestItem = RequestItem.createByParams(EParamVariableType.BYTE, 1, EArea.DATA_BLOCKS, 1, 0, 0);
+        S7Data s7Data = S7Data.createWriteRequest(Collections.singletonList(requestItem),
+                Collections.singletonList(DataItem.createReqByByte((byte) 0x01)));
+        byte[] expect = s7Data.toByteArray();
+
+        ByteWriteBuff buff = ByteWriteBuff.newInstance(64);
+        Arrays.fill(buff.getData(), (byte) 0x5A);
+        s7Data.writeTo(buff.reset());
+        assertEquals(expect.length, buff.getOffset());
+        assertArrayEquals(expect, Arrays.copyOf(buff.getData(), buff.getOffset()));
+    }
+}
@@ -0,0 +1,260 @@
+package com.github.xingshuangs.iot.protocol.s7.serializer;
+
+import com.github.xingshuangs.iot.exceptions.S7CommException;
+import com.github.xingshuangs.iot.protocol.common.enums.EDataType;
+import com.github.xingshuangs.iot.protocol.s7.enums.EPlcType;
+import com.github.xingshuangs.iot.protocol.s7.service.S7PLC;
+import com.github.xingshuangs.iot.protocol.s7.service.S7PLCServer;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class S7SerializerServerTest {
+
+    private static final int PORT = 10602;
+
+    private static S7PLCServer server;
+
+    private static S7PLC s7PLC;
+
+    @BeforeClass
+    public static void startServer() {
+        server = new S7PLCServer(PORT);
+        server.addDBArea(1, 2);
+        server.start();
+        s7PLC = new S7PLC(EPlcType.S1200, "127.0.0.1", PORT, 0, 1);
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        s7PLC.close();
+        server.stop();
+    }
+
+    @Test
+    public void writeAndRead() {
+        S7Serializer s7Serializer = S7Serializer.newInstance(s7PLC);
+        byte[] byteData = new byte[]{(byte) 0x01, (byte) 0x02, (byte) 0x03};
+        DemoBean bean = new DemoBean();
+        bean.setBitData(true);
+        bean.setUint16Data(42767);
+        bean.setInt16Data((short) 32767);
+        bean.setUint32Data(3147483647L);
+        bean.setInt32Data(2147483647);
+        bean.setFloat32Data(3.14f);
+        bean.setFloat64Data(4.15);
+        bean.setByteData(byteData);
+        bean.setStringData("1234567890");
+        bean.setTimeData(12L);
+        bean.setDateData(LocalDate.of(2023, 5, 15));
+        bean.setTimeOfDayData(LocalTime.of(20, 22, 13));
+        bean.setDateTimeData(LocalDateTime.of(2023, 5, 27, 12, 11, 22, 333225555));
+        s7Serializer.write(bean);
+        // 第一次按请求项读取，第二次按编译好的读取计划读取，结果一致
+        for (int i = 0; i < 2; i++) {
+            DemoBean actual = s7Serializer.read(DemoBean.class);
+            assertEquals(bean, actual);
+        }
+
+        // 值为null的字段不写入
+        DemoBean partial = new DemoBean();
+        partial.setInt16Data((short) -5);
+        s7Serializer.write(partial);
+        DemoBean actual = s7Serializer.read(DemoBean.class);
+        assertEquals(-5, actual.getInt16Data().intValue());
+        assertEquals(42767, actual.getUint16Data().intValue());
+        assertEquals("1234567890", actual.getStringData());
+    }
+
+    @Test
+    public void readPlanFollowsMergeSettings() {
+        S7Serializer s7Serializer = S7Serializer.newInstance(s7PLC);
+        // 记录读请求报文中的数据项个数，7=4(tpkt)+3(cotp)，参数第1个字节为功能码，第2个字节为数据项个数
+        AtomicInteger itemCount = new AtomicInteger();
+        s7PLC.setComCallback(x -> {
+            if (x.length > 18 && x[8] == 0x01 && x[17] == 0x04) {
+                itemCount.set(x[18]);
+            }
+        });
+        try {
+            s7Serializer.read(DemoBean.class);
+            DemoBean expect = s7Serializer.read(DemoBean.class);
+            int merged = itemCount.get();
+            assertTrue(merged < 13);
+
+            // 关闭地址合并后，缓存的读取计划重新编译
+            s7PLC.setReadMergeGap(-1);
+            for (int i = 0; i < 2; i++) {
+                assertEquals(expect, s7Serializer.read(DemoBean.class));
+                assertEquals(13, itemCount.get());
+            }
+
+            s7PLC.setReadMergeGap(0);
+            s7Serializer.read(DemoBean.class);
+            assertEquals(expect, s7Serializer.read(DemoBean.class));
+            assertEquals(merged, itemCount.get());
+        } finally {
+            s7PLC.setComCallback(null);
+            s7PLC.setReadMergeGap(0);
+        }
+    }
+
+    @Test
+    public void primitiveFieldAndPrivateConstructor() {
+        S7Serializer s7Serializer = S7Serializer.newInstance(s7PLC);
+        s7PLC.writeInt32("DB2.0", 123);
+        s7PLC.writeFloat32("DB2.4", 1.5f);
+        s7PLC.writeBoolean("DB2.8.2", true);
+        PrimitiveBean bean = s7Serializer.read(PrimitiveBean.class);
+        assertEquals(123, bean.intData);
+        assertEquals(1.5f, bean.floatData, 0);
+        assertTrue(bean.bitData);
+    }
+
+    @Test
+    public void readRecordList() {
+        // 500条记录，每条8个字节：Int16编号、Float32数值、1个位状态
+        ByteBuffer buffer = ByteBuffer.allocate(500 * 8);
+        for (int i = 0; i < 500; i++) {
+            buffer.putShort((short) i).putFloat(i * 0.5f).put((byte) (i % 2)).put((byte) 0);
+        }
+        buffer.flip();
+        s7PLC.writeBlock("DB2.100", buffer);
+
+        AtomicInteger frames = new AtomicInteger();
+        s7PLC.setComCallback(x -> frames.incrementAndGet());
+        // 使用连接默认的地址合并设置
+        S7Serializer s7Serializer = S7Serializer.newInstance(s7PLC);
+        List<RecordBean> records;
+        try {
+            records = s7Serializer.readList(RecordBean.class, 500, 8);
+        } finally {
+            s7PLC.setComCallback(null);
+        }
+        assertEquals(500, records.size());
+        for (int i = 0; i < 500; i++) {
+            assertEquals(i, records.get(i).id);
+            assertEquals(i * 0.5f, records.get(i).value, 0);
+            assertEquals(i % 2 == 1, records.get(i).enabled);
+        }
+        // 每条记录的3个字段相邻，合并为一个请求项后按PDU分组读取，
+        // 500个请求项不超过30个PDU，发送和接收各算一次；不合并时1500个请求项需要80多个PDU
+        assertTrue(String.valueOf(frames.get()), frames.get() <= 60);
+
+        RecordBean[] array = s7Serializer.readArray(RecordBean.class, 3, 8);
+        assertEquals(3, array.length);
+        assertEquals(2, array[2].id);
+        assertEquals(0, s7Serializer.readList(RecordBean.class, 0, 8).size());
+    }
+
+    @Test
+    public void readMultiClass() {
+        s7PLC.writeInt32("DB2.0", 456);
+        s7PLC.writeInt16("DB2.100", (short) 7);
+        List<Object> beans = S7Serializer.newInstance(s7PLC).read(PrimitiveBean.class, RecordBean.class);
+        assertEquals(2, beans.size());
+        assertEquals(456, ((PrimitiveBean) beans.get(0)).intData);
+        assertEquals(7, ((RecordBean) beans.get(1)).id);
+    }
+
+    @Test
+    public void dirtyTracking() {
+        S7Serializer s7Serializer = S7Serializer.newInstance(s7PLC);
+        s7Serializer.setEnableDirtyTracking(true);
+        // DTL全为0时不是合法日期，先写入
+        s7PLC.writeDTL("DB1.53", LocalDateTime.of(2023, 1, 1, 0, 0));
+        DemoBean bean = new DemoBean();
+        bean.setUint16Data(1);
+        bean.setInt16Data((short) 2);
+        bean.setUint32Data(3L);
+        bean.setStringData("abcdefghij");
+        s7Serializer.write(bean);
+        assertEquals(1, s7PLC.readUInt16("DB1.4"));
+
+        // PLC中的数据被其他途径修改，对象中没有变化的字段不会再写入
+        s7PLC.writeInt16("DB1.6", (short) 99);
+        List<byte[]> writeFrames = new ArrayList<>();
+        s7PLC.setComCallback(x -> {
+            // 7=TPKT+COTP，10=header，功能码0x05为写
+            if (x.length > 18 && x[17] == 0x05 && x[8] == 0x01) {
+                writeFrames.add(x);
+            }
+        });
+        bean.setUint16Data(11);
+        s7Serializer.write(bean);
+        assertEquals(1, writeFrames.size());
+        assertEquals(1, writeFrames.get(0)[18]);
+        assertEquals(11, s7PLC.readUInt16("DB1.4"));
+        assertEquals(99, s7PLC.readInt16("DB1.6"));
+
+        // 没有变化时不发送请求
+        writeFrames.clear();
+        s7Serializer.write(bean);
+        assertEquals(0, writeFrames.size());
+
+        // 相邻的变化字段DB1.4、DB1.6、DB1.8合并为一个请求项
+        bean.setUint16Data(21);
+        bean.setInt16Data((short) 22);
+        bean.setUint32Data(23L);
+        s7Serializer.write(bean);
+        s7PLC.setComCallback(null);
+        assertEquals(1, writeFrames.size());
+        assertEquals(1, writeFrames.get(0)[18]);
+        assertEquals(21, s7PLC.readUInt16("DB1.4"));
+        assertEquals(22, s7PLC.readInt16("DB1.6"));
+        assertEquals(23, s7PLC.readUInt32("DB1.8"));
+        assertEquals("abcdefghij", s7Serializer.read(DemoBean.class).getStringData());
+
+        // 读取到的对象同样跟踪，重置后全部写入
+        DemoBean read = s7Serializer.read(DemoBean.class);
+        read.setInt16Data((short) 5);
+        s7PLC.writeUInt16("DB1.4", 0);
+        s7Serializer.write(read);
+        assertEquals(0, s7PLC.readUInt16("DB1.4"));
+        s7Serializer.resetDirtyTracking(read);
+        s7Serializer.write(read);
+        assertEquals(21, s7PLC.readUInt16("DB1.4"));
+    }
+
+    @Test(expected = S7CommException.class)
+    public void noAnnotation() {
+        S7Serializer.newInstance(s7PLC).read(String.class);
+    }
+
+    public static class RecordBean {
+
+        @S7Variable(address = "DB2.100", type = EDataType.INT16)
+        private short id;
+
+        @S7Variable(address = "DB2.102", type = EDataType.FLOAT32)
+        private float value;
+
+        @S7Variable(address = "DB2.106.0", type = EDataType.BOOL)
+        private boolean enabled;
+    }
+
+    private static class PrimitiveBean {
+
+        @S7Variable(address = "DB2.0", type = EDataType.INT32)
+        private int intData;
+
+        @S7Variable(address = "DB2.4", type = EDataType.FLOAT32)
+        private float floatData;
+
+        @S7Variable(address = "DB2.8.2", type = EDataType.BOOL)
+        private boolean bitData;
+
+        private PrimitiveBean() {
+        }
+    }
+}
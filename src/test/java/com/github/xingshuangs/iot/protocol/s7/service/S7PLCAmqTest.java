@@ -0,0 +1,97 @@
+package com.github.xingshuangs.iot.protocol.s7.service;
+
+import com.github.xingshuangs.iot.protocol.s7.enums.EPlcType;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class S7PLCAmqTest {
+
+    private static final int PORT = 10302;
+
+    private static S7PLCServer server;
+
+    private S7PLC s7PLC;
+
+    @BeforeClass
+    public static void startServer() {
+        server = new S7PLCServer(PORT);
+        server.addDBArea(1);
+        server.start();
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        server.stop();
+    }
+
+    @Before
+    public void init() {
+        this.s7PLC = new S7PLC(EPlcType.S1200, "127.0.0.1", PORT, 0, 1, S7PLC.DEFAULT_PDU_LENGTH);
+        this.s7PLC.setMaxAmq(3);
+    }
+
+    @After
+    public void destroy() {
+        this.s7PLC.close();
+    }
+
+    @Test
+    public void readWriteLargeData() {
+        byte[] expect = new byte[2000];
+        for (int i = 0; i < expect.length; i++) {
+            expect[i] = (byte) i;
+        }
+        this.s7PLC.writeByte("DB1.10", expect);
+        assertEquals(3, this.s7PLC.getAmqCount());
+        byte[] actual = this.s7PLC.readByte("DB1.10", expect.length);
+        assertArrayEquals(expect, actual);
+    }
+
+    @Test
+    public void readSmallData() {
+        this.s7PLC.writeUInt16("DB1.0", 1234);
+        assertEquals(1234, this.s7PLC.readUInt16("DB1.0"));
+    }
+
+    @Test
+    public void writeBetweenReadPdus() throws Exception {
+        this.s7PLC.readUInt16("DB1.0");
+        assertEquals(3, this.s7PLC.getAmqCount());
+        // 记录请求报文的功能码，4：读，5：写，7=4(tpkt)+3(cotp)，ROSCTR在头部第2个字节，功能码在参数第1个字节
+        List<Integer> jobs = new CopyOnWriteArrayList<>();
+        AtomicBoolean triggered = new AtomicBoolean();
+        CompletableFuture<Void> write = new CompletableFuture<>();
+        this.s7PLC.setComCallback(x -> {
+            if (x.length > 17 && x[8] == 0x01) {
+                jobs.add((int) x[17]);
+                // 读取进行到一半时发起高优先级的写
+                if (jobs.size() == 10 && triggered.compareAndSet(false, true)) {
+                    new Thread(() -> {
+                        this.s7PLC.writeUInt16("DB1.0", 4321);
+                        write.complete(null);
+                    }).start();
+                }
+            }
+        });
+        this.s7PLC.readByte("DB1.10", 20000);
+        write.get(3, TimeUnit.SECONDS);
+
+        int writeIndex = jobs.indexOf(0x05);
+        int lastReadIndex = jobs.lastIndexOf(0x04);
+        assertTrue(writeIndex > 0);
+        // 写请求插在大块读取的PDU之间，不需要等整个读取结束
+        assertTrue(String.format("write=%d, lastRead=%d", writeIndex, lastReadIndex), writeIndex < lastReadIndex);
+        assertEquals(4321, this.s7PLC.readUInt16("DB1.0"));
+    }
+}
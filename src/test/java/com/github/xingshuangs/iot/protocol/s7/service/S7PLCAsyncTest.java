@@ -0,0 +1,68 @@
+package com.github.xingshuangs.iot.protocol.s7.service;
+
+import com.github.xingshuangs.iot.protocol.s7.enums.EPlcType;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.*;
+
+public class S7PLCAsyncTest {
+
+    private static final int PORT = 10402;
+
+    private static S7PLCServer server;
+
+    private S7PLC s7PLC;
+
+    @BeforeClass
+    public static void startServer() {
+        server = new S7PLCServer(PORT);
+        server.addDBArea(1);
+        server.start();
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        server.stop();
+    }
+
+    @Before
+    public void init() {
+        this.s7PLC = new S7PLC(EPlcType.S1200, "127.0.0.1", PORT, 0, 1, S7PLC.DEFAULT_PDU_LENGTH);
+    }
+
+    @After
+    public void destroy() {
+        this.s7PLC.close();
+    }
+
+    @Test
+    public void readWriteAsync() {
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            writes.add(this.s7PLC.writeInt16Async("DB1." + i * 2, (short) (i * 100)));
+        }
+        CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0])).join();
+
+        List<CompletableFuture<Short>> reads = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            reads.add(this.s7PLC.readInt16Async("DB1." + i * 2));
+        }
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i * 100, (int) reads.get(i).join());
+        }
+    }
+
+    @Test
+    public void writeThenReadInOrder() {
+        this.s7PLC.writeFloat32Async("DB1.100", 3.5f);
+        assertEquals(3.5f, this.s7PLC.readFloat32Async("DB1.100").join(), 0.0001);
+    }
+}
@@ -0,0 +1,199 @@
+package com.github.xingshuangs.iot.protocol.s7.service;
+
+import com.github.xingshuangs.iot.exceptions.SocketRuntimeException;
+import com.github.xingshuangs.iot.protocol.s7.enums.EPlcType;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class S7PLCPoolTest {
+
+    private static final int PORT = 10202;
+
+    private static S7PLCServer server;
+
+    private S7PLCPool pool;
+
+    @BeforeClass
+    public static void startServer() {
+        server = new S7PLCServer(PORT);
+        server.addDBArea(1);
+        server.start();
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        server.stop();
+    }
+
+    @Before
+    public void init() {
+        S7PLCPoolConfig config = S7PLCPoolConfig.createDefault();
+        config.setMaxSize(3);
+        config.setMinIdle(0);
+        this.pool = new S7PLCPool(EPlcType.S1200, "127.0.0.1", PORT, 0, 1, S7PLC.DEFAULT_PDU_LENGTH, config);
+    }
+
+    @After
+    public void destroy() {
+        this.pool.close();
+    }
+
+    @Test
+    public void readWrite() {
+        this.pool.writeInt32("DB1.0", 12345678);
+        assertEquals(12345678, this.pool.readInt32("DB1.0"));
+        assertEquals(1, this.pool.getTotalCount());
+        assertEquals(1, this.pool.getIdleCount());
+    }
+
+    @Test
+    public void concurrentRead() {
+        this.pool.writeInt16("DB1.10", (short) 321);
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+        try {
+            List<CompletableFuture<Short>> futures = new ArrayList<>();
+            for (int i = 0; i < 60; i++) {
+                futures.add(CompletableFuture.supplyAsync(() -> this.pool.readInt16("DB1.10"), executor));
+            }
+            futures.forEach(x -> assertEquals(321, (short) x.join()));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue(this.pool.getTotalCount() <= 3);
+        assertEquals(this.pool.getTotalCount(), this.pool.getIdleCount());
+    }
+
+    @Test
+    public void closeAndReuse() {
+        this.pool.connect();
+        assertEquals(1, this.pool.getTotalCount());
+        this.pool.close();
+        assertEquals(0, this.pool.getTotalCount());
+        this.pool.writeBoolean("DB1.20.1", true);
+        assertTrue(this.pool.readBoolean("DB1.20.1"));
+    }
+
+    @Test
+    public void blockTransfer() {
+        byte[] src = new byte[65536];
+        for (int i = 0; i < src.length; i++) {
+            src[i] = (byte) (i * 31 + 7);
+        }
+        List<Integer> progress = new ArrayList<>();
+        this.pool.writeBlock("DB1.0", ByteBuffer.wrap(src), (done, total) -> progress.add(done));
+        assertEquals(65536, progress.get(progress.size() - 1).intValue());
+
+        progress.clear();
+        ByteBuffer target = ByteBuffer.allocate(65536 + 8);
+        target.position(8);
+        this.pool.readBlock("DB1.0", target, (done, total) -> progress.add(done));
+        assertEquals(65536 + 8, target.position());
+        assertArrayEquals(src, Arrays.copyOfRange(target.array(), 8, target.capacity()));
+        // 进度单调递增，最后一次为总字节数
+        for (int i = 1; i < progress.size(); i++) {
+            assertTrue(progress.get(i) > progress.get(i - 1));
+        }
+        assertEquals(65536, progress.get(progress.size() - 1).intValue());
+        // 多个连接并行传输
+        assertTrue(this.pool.getTotalCount() > 1);
+    }
+
+    @Test
+    public void wakeWaiterWhenBrokenReturned() throws Exception {
+        S7PLCPoolConfig config = S7PLCPoolConfig.createDefault();
+        config.setMaxSize(1);
+        config.setMinIdle(0);
+        config.setBorrowTimeout(10_000);
+        S7PLCPool single = new S7PLCPool(EPlcType.S1200, "127.0.0.1", PORT, 0, 1, S7PLC.DEFAULT_PDU_LENGTH, config);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CountDownLatch borrowed = new CountDownLatch(1);
+            CountDownLatch waiting = new CountDownLatch(1);
+            CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> single.execute(plc -> {
+                borrowed.countDown();
+                try {
+                    waiting.await();
+                    // 等待另一个线程进入等待状态
+                    TimeUnit.MILLISECONDS.sleep(300);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new SocketRuntimeException("模拟连接断开");
+            }), executor);
+            assertTrue(borrowed.await(5, TimeUnit.SECONDS));
+
+            long start = System.currentTimeMillis();
+            CompletableFuture<Boolean> waiter = CompletableFuture.supplyAsync(() -> {
+                waiting.countDown();
+                return single.readBoolean("DB1.20.1");
+            }, executor);
+            assertNotNull(waiter.get(5, TimeUnit.SECONDS));
+            // 损坏的连接销毁后立即唤醒等待者新建连接，而不是等到借用超时
+            assertTrue(System.currentTimeMillis() - start < 5_000);
+            assertTrue(holder.handle((v, e) -> e).join().getCause() instanceof SocketRuntimeException);
+            assertEquals(1, single.getTotalCount());
+        } finally {
+            executor.shutdownNow();
+            single.close();
+        }
+    }
+
+    @Test
+    public void asyncRequestsWaitAsQueuedTasks() throws Exception {
+        S7PLCPoolConfig config = S7PLCPoolConfig.createDefault();
+        config.setMaxSize(2);
+        config.setMinIdle(0);
+        S7PLCPool bounded = new S7PLCPool(EPlcType.S1200, "127.0.0.1", PORT, 0, 1, S7PLC.DEFAULT_PDU_LENGTH, config);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch held = new CountDownLatch(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // 两个连接都被占用
+            for (int i = 0; i < 2; i++) {
+                executor.submit(() -> bounded.execute(plc -> {
+                    held.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return null;
+                }));
+            }
+            assertTrue(held.await(5, TimeUnit.SECONDS));
+            List<CompletableFuture<Short>> futures = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                futures.add(bounded.readInt16Async("DB1.0"));
+            }
+            TimeUnit.MILLISECONDS.sleep(200);
+            // 最多和最大连接数一样多的线程在等待连接，其余请求在队列中
+            long waiting = Thread.getAllStackTraces().values().stream()
+                    .filter(x -> Arrays.stream(x).anyMatch(e -> e.getMethodName().equals("awaitAvailable")))
+                    .count();
+            assertTrue(String.valueOf(waiting), waiting <= 2);
+            release.countDown();
+            for (CompletableFuture<Short> future : futures) {
+                assertNotNull(future.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+            bounded.close();
+        }
+    }
+}
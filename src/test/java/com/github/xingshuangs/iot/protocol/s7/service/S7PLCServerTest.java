@@ -1,20 +1,36 @@
 package com.github.xingshuangs.iot.protocol.s7.service;
 
+import com.github.xingshuangs.iot.exceptions.S7CommException;
+import com.github.xingshuangs.iot.net.client.EPriority;
 import com.github.xingshuangs.iot.protocol.s7.enums.EPlcType;
+import com.github.xingshuangs.iot.protocol.s7.enums.EReturnCode;
+import com.github.xingshuangs.iot.protocol.s7.model.DataItem;
+import com.github.xingshuangs.iot.protocol.s7.model.RequestItem;
 import com.github.xingshuangs.iot.protocol.s7.serializer.DemoBean;
 import com.github.xingshuangs.iot.protocol.s7.serializer.DemoLargeBean;
 import com.github.xingshuangs.iot.protocol.s7.serializer.S7Serializer;
+import com.github.xingshuangs.iot.protocol.s7.utils.AddressUtil;
+import com.github.xingshuangs.iot.utils.FloatUtil;
 import com.github.xingshuangs.iot.utils.HexUtil;
+import com.github.xingshuangs.iot.utils.ShortUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
 
@@ -65,6 +81,295 @@ public class S7PLCServerTest {
         assertEquals((short) 33, shorts.get(1).shortValue());
     }
 
+    @Test
+    public void readPlanTest() {
+        byte[] block = new byte[300];
+        for (int i = 0; i < block.length; i++) {
+            block[i] = (byte) i;
+        }
+        this.s7PLC.writeByte("DB2.0", block);
+        this.s7PLC.writeInt16("DB1.0", (short) 22);
+        this.s7PLC.writeFloat32("DB1.4", 1.5f);
+        this.s7PLC.writeBoolean("DB1.8.2", true);
+        List<RequestItem> requestItems = Arrays.asList(
+                AddressUtil.parseByte("DB1.4", 4),
+                AddressUtil.parseByte("DB2.0", 300),
+                AddressUtil.parseByte("DB1.0", 2),
+                AddressUtil.parseBit("DB1.8.2"));
+        S7ReadPlan plan = this.s7PLC.compileReadPlan(requestItems);
+        assertEquals(2, plan.getFrameCount());
+        for (int n = 0; n < 2; n++) {
+            List<DataItem> dataItems = this.s7PLC.readS7Data(plan);
+            assertEquals(1.5f, FloatUtil.toFloat32(dataItems.get(0).getData()), 0.0001);
+            assertArrayEquals(block, dataItems.get(1).getData());
+            assertEquals(22, ShortUtil.toInt16(dataItems.get(2).getData()));
+            assertArrayEquals(new byte[]{1}, dataItems.get(3).getData());
+        }
+        MultiAddressRead addressRead = new MultiAddressRead().addData("DB2.10", 2).addData("DB2.20", 1);
+        assertArrayEquals(new byte[]{20}, this.s7PLC.readMultiByte(this.s7PLC.compileReadPlan(addressRead)).get(1));
+    }
+
+    @Test
+    public void batchReadTest() throws InterruptedException {
+        for (int i = 0; i < 8; i++) {
+            this.s7PLC.writeInt16("DB1." + (i * 20), (short) (100 + i));
+        }
+        AtomicInteger frames = new AtomicInteger();
+        this.s7PLC.setComCallback(x -> frames.incrementAndGet());
+        this.s7PLC.setReadBatchWindow(20);
+        CountDownLatch start = new CountDownLatch(1);
+        short[] results = new short[8];
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            int index = i;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    results[index] = this.s7PLC.readInt16("DB1." + (index * 20));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int i = 0; i < 8; i++) {
+            assertEquals(100 + i, results[i]);
+        }
+        // 发送和接收各算一次，不合并时是16次
+        assertTrue(frames.get() < 16);
+    }
+
+    @Test
+    public void batchReadPartialFailureTest() throws InterruptedException {
+        this.s7PLC.writeInt16("DB1.0", (short) 55);
+        this.s7PLC.setReadBatchWindow(100);
+        CountDownLatch start = new CountDownLatch(1);
+        Object[] results = new Object[4];
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            int index = i;
+            // 最后一个线程读取不存在的DB块
+            String address = index == 3 ? "DB9.0" : "DB1.0";
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    results[index] = this.s7PLC.readInt16(address);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (S7CommException e) {
+                    results[index] = e;
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // 同一批次中只有读取失败地址的调用方收到异常
+        for (int i = 0; i < 3; i++) {
+            assertEquals((short) 55, results[i]);
+        }
+        assertTrue(results[3] instanceof S7CommException);
+    }
+
+    @Test
+    public void singleFlightCacheTest() {
+        this.s7PLC.writeInt16("DB1.0", (short) 11);
+        AtomicInteger frames = new AtomicInteger();
+        this.s7PLC.setComCallback(x -> frames.incrementAndGet());
+        this.s7PLC.setEnableReadSingleFlight(true);
+        this.s7PLC.setReadCacheTtl(10000);
+        assertEquals(11, this.s7PLC.readInt16("DB1.0"));
+        int count = frames.get();
+        assertEquals(11, this.s7PLC.readInt16("DB1.0"));
+        assertEquals(count, frames.get());
+        // 写操作清除缓存
+        this.s7PLC.writeInt16("DB1.0", (short) 12);
+        assertEquals(12, this.s7PLC.readInt16("DB1.0"));
+    }
+
+    @Test
+    public void readWithStatusTest() {
+        this.s7PLC.writeInt16("DB1.0", (short) 7);
+        this.s7PLC.writeInt16("DB1.2", (short) 8);
+        List<RequestItem> requestItems = Arrays.asList(
+                AddressUtil.parseByte("DB1.0", 2),
+                AddressUtil.parseByte("DB9.0", 2),
+                AddressUtil.parseByte("DB1.2", 2));
+        try {
+            this.s7PLC.readS7Data(requestItems);
+            fail();
+        } catch (S7CommException e) {
+            // 默认模式下任何一项失败都抛异常
+        }
+        List<DataItem> dataItems = this.s7PLC.readS7DataWithStatus(requestItems);
+        assertEquals(EReturnCode.SUCCESS, dataItems.get(0).getReturnCode());
+        assertEquals(7, ShortUtil.toInt16(dataItems.get(0).getData()));
+        assertEquals(EReturnCode.OBJECT_DOES_NOT_EXIST, dataItems.get(1).getReturnCode());
+        assertEquals(0, dataItems.get(1).getData().length);
+        assertEquals(EReturnCode.SUCCESS, dataItems.get(2).getReturnCode());
+        assertEquals(8, ShortUtil.toInt16(dataItems.get(2).getData()));
+    }
+
+    @Test
+    public void blockTransferTest() {
+        byte[] src = new byte[1000];
+        for (int i = 0; i < src.length; i++) {
+            src[i] = (byte) i;
+        }
+        AtomicInteger calls = new AtomicInteger();
+        this.s7PLC.writeBlock("DB2.10", ByteBuffer.wrap(src), (done, total) -> calls.incrementAndGet());
+        // 每个分块一个PDU：240-12-17=211字节
+        assertEquals(5, calls.get());
+        ByteBuffer target = ByteBuffer.allocate(1000);
+        this.s7PLC.readBlock("DB2.10", target);
+        assertFalse(target.hasRemaining());
+        assertArrayEquals(src, target.array());
+    }
+
+    @Test
+    public void blockTransferNegotiatedPduTest() {
+        // 请求480的PDU长度，模拟PLC协商后只给240
+        S7PLC plc = new S7PLC(EPlcType.S1200, S7PLC.IP, 102, 0, 1, 480) {
+            @Override
+            protected void doAfterConnected() {
+                super.doAfterConnected();
+                this.pduLength = DEFAULT_PDU_LENGTH;
+            }
+        };
+        try {
+            AtomicInteger calls = new AtomicInteger();
+            plc.writeBlock("DB2.10", ByteBuffer.wrap(new byte[1000]), (done, total) -> calls.incrementAndGet());
+            // 连接后按协商的PDU长度分块：240-12-17=211字节
+            assertEquals(240, plc.pduLength);
+            assertEquals(5, calls.get());
+        } finally {
+            plc.close();
+        }
+    }
+
+    @Test
+    public void primitiveArrayTest() {
+        float[] floats = new float[1000];
+        for (int i = 0; i < floats.length; i++) {
+            floats[i] = i * 0.5f;
+        }
+        this.s7PLC.writeFloat32Array("DB1.0", floats);
+        assertArrayEquals(floats, this.s7PLC.readFloat32Array("DB1.0", floats.length), 0);
+
+        short[] shorts = new short[]{1, -2, 3, Short.MIN_VALUE};
+        this.s7PLC.writeInt16Array("DB2.0", shorts);
+        assertArrayEquals(shorts, this.s7PLC.readInt16Array("DB2.0", shorts.length));
+
+        int[] ints = new int[]{1, -2, Integer.MAX_VALUE};
+        this.s7PLC.writeInt32Array("DB2.10", ints);
+        assertArrayEquals(ints, this.s7PLC.readInt32Array("DB2.10", ints.length));
+
+        double[] doubles = new double[]{1.25, -3.5};
+        this.s7PLC.writeFloat64Array("DB2.30", doubles);
+        assertArrayEquals(doubles, this.s7PLC.readFloat64Array("DB2.30", doubles.length), 0);
+
+        this.s7PLC.writeByte("DB3.0", new byte[]{(byte) 0xFF, (byte) 0xFF});
+        BitSet bits = new BitSet();
+        bits.set(1);
+        bits.set(3);
+        // 不对齐时逐位写入，相邻的位保持不变
+        this.s7PLC.writeBooleanBits("DB3.0.6", bits, 5);
+        assertArrayEquals(new byte[]{(byte) 0xBF, (byte) 0xFA}, this.s7PLC.readByte("DB3.0", 2));
+        assertEquals(bits, this.s7PLC.readBooleanBits("DB3.0.6", 5));
+        // 对齐时按字节写入
+        this.s7PLC.writeBooleanBits("DB3.0", bits, 8);
+        assertEquals(0x0A, this.s7PLC.readByte("DB3.0"));
+        assertEquals("{1, 3, 9, 11, 12, 13, 14, 15}", this.s7PLC.readBooleanBits("DB3.0", 16).toString());
+
+        // 首尾逐位写入，中间对齐的字节作为一个数据项写入
+        this.s7PLC.writeByte("DB3.2", new byte[]{(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF});
+        BitSet range = new BitSet();
+        range.set(0);
+        range.set(4);
+        range.set(10);
+        range.set(20);
+        AtomicInteger itemCount = new AtomicInteger();
+        this.s7PLC.setComCallback(x -> {
+            if (x.length > 18 && x[8] == 0x01 && x[17] == 0x05) {
+                itemCount.set(x[18]);
+            }
+        });
+        this.s7PLC.writeBooleanBits("DB3.2.5", range, 21);
+        this.s7PLC.setComCallback(null);
+        assertEquals(3 + 1 + 2, itemCount.get());
+        assertArrayEquals(new byte[]{0x3F, (byte) 0x82, 0x00, (byte) 0xFE, (byte) 0xFF}, this.s7PLC.readByte("DB3.2", 5));
+        assertEquals(range, this.s7PLC.readBooleanBits("DB3.2.5", 21));
+    }
+
+    @Test
+    public void writeBehindTest() throws Exception {
+        this.s7PLC.readInt16("DB1.0");
+        long before = this.s7PLC.getPriorityLock().getAcquireCount(EPriority.HIGH);
+        S7WriteBehindBuffer buffer = new S7WriteBehindBuffer(this.s7PLC, 50, 64);
+        CompletableFuture<Void> f1 = buffer.writeInt16("DB1.0", (short) 1);
+        CompletableFuture<Void> f2 = buffer.writeInt16("DB1.0", (short) 2);
+        CompletableFuture<Void> f3 = buffer.writeInt16("DB1.0", (short) 3);
+        CompletableFuture<Void> f4 = buffer.writeFloat32("DB1.4", 1.5f);
+        // 同一地址的写入合并，只剩两个地址
+        assertEquals(2, buffer.getPendingCount());
+        CompletableFuture.allOf(f1, f2, f3, f4).get(3, TimeUnit.SECONDS);
+        assertEquals(0, buffer.getPendingCount());
+        // 只发送了一个写请求
+        assertEquals(before + 1, this.s7PLC.getPriorityLock().getAcquireCount(EPriority.HIGH));
+        assertEquals(3, this.s7PLC.readInt16("DB1.0"));
+        assertEquals(1.5f, this.s7PLC.readFloat32("DB1.4"), 0.0001);
+
+        // 个数达到上限立即刷新，手动刷新同样生效
+        buffer = new S7WriteBehindBuffer(this.s7PLC, 60000, 2);
+        CompletableFuture<Void> f5 = buffer.writeInt16("DB1.0", (short) 5);
+        CompletableFuture<Void> f6 = buffer.writeInt16("DB1.2", (short) 6);
+        f6.get(3, TimeUnit.SECONDS);
+        assertTrue(f5.isDone());
+        buffer.writeInt16("DB1.0", (short) 7);
+        buffer.flush();
+        assertEquals(7, this.s7PLC.readInt16("DB1.0"));
+        assertEquals(6, this.s7PLC.readInt16("DB1.2"));
+    }
+
+    @Test
+    public void priorityLockStatsTest() {
+        this.s7PLC.writeInt16("DB1.0", (short) 1);
+        this.s7PLC.readInt16("DB1.0");
+        // 握手和写操作是高优先级，读操作是普通优先级
+        assertTrue(this.s7PLC.getPriorityLock().getAcquireCount(EPriority.HIGH) >= 1);
+        assertEquals(1, this.s7PLC.getPriorityLock().getAcquireCount(EPriority.NORMAL));
+    }
+
+    @Test
+    public void mergedReadTest() {
+        // 默认只合并相邻和重叠的地址
+        assertEquals(0, this.s7PLC.getReadMergeGap());
+        this.s7PLC.writeInt16("DB1.0", (short) 22);
+        this.s7PLC.writeInt16("DB1.2", (short) 33);
+        this.s7PLC.writeInt16("DB1.8", (short) 44);
+        this.s7PLC.writeBoolean("DB1.4.3", true);
+        List<Short> adjacent = this.s7PLC.readInt16("DB1.8", "DB1.0", "DB1.2");
+        this.s7PLC.setReadMergeGap(5);
+        List<Short> shorts = this.s7PLC.readInt16("DB1.8", "DB1.0", "DB1.2");
+        List<Boolean> booleans = this.s7PLC.readBoolean("DB1.4.3", "DB1.4.2");
+        this.s7PLC.setReadMergeGap(-1);
+        assertEquals(shorts, adjacent);
+        assertEquals(shorts, this.s7PLC.readInt16("DB1.8", "DB1.0", "DB1.2"));
+        assertEquals(booleans, this.s7PLC.readBoolean("DB1.4.3", "DB1.4.2"));
+        assertEquals((short) 44, shorts.get(0).shortValue());
+        assertEquals((short) 22, shorts.get(1).shortValue());
+        assertTrue(booleans.get(0));
+        assertFalse(booleans.get(1));
+    }
+
     @Test
     public void serializerTest() {
         S7Serializer s7Serializer = S7Serializer.newInstance(this.s7PLC);
@@ -2,6 +2,8 @@ package com.github.xingshuangs.iot.utils;
 
 import org.junit.Test;
 
+import java.util.BitSet;
+
 import static org.junit.Assert.*;
 
 
@@ -46,4 +48,15 @@ public class BooleanUtilTest {
         b = BooleanUtil.getValue((byte) 0x80, 6);
         assertFalse(b);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void bitSet() {
+        byte[] data = new byte[]{(byte) 0x81, (byte) 0x03};
+        BitSet bits = BooleanUtil.toBitSet(data, 0, 16);
+        assertEquals("{0, 7, 8, 9}", bits.toString());
+        bits = BooleanUtil.toBitSet(data, 7, 3);
+        assertEquals("{0, 1, 2}", bits.toString());
+        assertArrayEquals(data, BooleanUtil.toByteArray(BooleanUtil.toBitSet(data, 0, 16), 16));
+        assertArrayEquals(new byte[]{(byte) 0x01}, BooleanUtil.toByteArray(BooleanUtil.toBitSet(data, 0, 16), 7));
+    }
+}
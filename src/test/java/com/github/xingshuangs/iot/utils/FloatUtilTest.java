@@ -26,4 +26,24 @@ public class FloatUtilTest {
         actual = FloatUtil.toFloat64(data);
         assertEquals(-56516.66664, actual, 0.000001);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void float32Array() {
+        float[] src = new float[]{0f, 33.16f, -15.62f, Float.MAX_VALUE, Float.NaN};
+        byte[] bytes = FloatUtil.toByteArray(src);
+        for (int i = 0; i < src.length; i++) {
+            assertEquals(src[i], FloatUtil.toFloat32(bytes, i * 4), 0);
+        }
+        assertArrayEquals(src, FloatUtil.toFloat32Array(bytes, 0, src.length), 0);
+    }
+
+    @Test
+    public void float64Array() {
+        double[] src = new double[]{0, 156665.35455556, -56516.66664, Double.MIN_VALUE};
+        byte[] bytes = FloatUtil.toByteArray(src);
+        for (int i = 0; i < src.length; i++) {
+            assertEquals(src[i], FloatUtil.toFloat64(bytes, i * 8), 0);
+        }
+        assertArrayEquals(src, FloatUtil.toFloat64Array(bytes, 0, src.length), 0);
+    }
+}
@@ -57,4 +57,15 @@ public class IntegerUtilTest {
         actual = IntegerUtil.toUInt32(data, 0, true);
         assertEquals(2705013535L, actual);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void int32Array() {
+        int[] src = new int[]{0, 1, -1, Integer.MAX_VALUE, Integer.MIN_VALUE, 2111286};
+        byte[] bytes = IntegerUtil.toByteArray(src);
+        for (int i = 0; i < src.length; i++) {
+            assertEquals(src[i], IntegerUtil.toInt32(bytes, i * 4));
+        }
+        assertArrayEquals(src, IntegerUtil.toInt32Array(bytes, 0, src.length));
+        assertArrayEquals(new int[]{-1}, IntegerUtil.toInt32Array(bytes, 8, 1));
+    }
+}
@@ -50,4 +50,16 @@ public class ShortUtilTest {
         actual = ShortUtil.toUInt16(data, 0, true);
         assertEquals(65407, actual);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void int16Array() {
+        short[] src = new short[]{0, 1, -1, Short.MAX_VALUE, Short.MIN_VALUE, 24565};
+        byte[] bytes = ShortUtil.toByteArray(src);
+        assertArrayEquals(new byte[]{(byte) 0x00, (byte) 0x01}, ShortUtil.toByteArray((short) 1));
+        for (int i = 0; i < src.length; i++) {
+            assertEquals(src[i], ShortUtil.toInt16(bytes, i * 2));
+        }
+        assertArrayEquals(src, ShortUtil.toInt16Array(bytes, 0, src.length));
+        assertArrayEquals(new short[]{-1, Short.MAX_VALUE}, ShortUtil.toInt16Array(bytes, 4, 2));
+    }
+}